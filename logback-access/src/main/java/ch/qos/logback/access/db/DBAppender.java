@@ -18,6 +18,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
 
 import ch.qos.logback.access.spi.AccessEvent;
 import ch.qos.logback.core.db.DBAppenderBase;
@@ -87,6 +89,59 @@ public class DBAppender extends DBAppenderBase<AccessEvent> {
     }
   }
   
+  /**
+   * In batch mode, events are written by another thread, possibly after the
+   * request has completed.
+   */
+  @Override
+  protected void preprocess(AccessEvent event) {
+    event.prepareForDeferredProcessing();
+  }
+
+  private final InsertBinder<AccessEvent> insertBinder = new InsertBinder<AccessEvent>() {
+    public void bind(AccessEvent event, PreparedStatement insertStatement)
+        throws SQLException {
+      addAccessEvent(insertStatement, event);
+    }
+  };
+
+  /**
+   * Insert the events and, if so configured, their request headers. Each kind
+   * of row is written with a single statement and, if supported by the
+   * driver, a single JDBC batch. Event ids are only retrieved if headers are
+   * inserted. Statements are reused from one batch to the next.
+   */
+  @Override
+  protected void subAppendBatch(List<AccessEvent> events,
+      Connection connection) throws Throwable {
+    int[] eventIds = insertBatch(events, connection, insertHeaders,
+        insertBinder);
+    if (!insertHeaders) {
+      return;
+    }
+
+    PreparedStatement insertHeaderStatement = prepareBatchStatement(
+        connection, insertHeaderSQL);
+    int rowCount = 0;
+    for (int i = 0; i < eventIds.length; i++) {
+      Map<String, String> headerMap = events.get(i).getRequestHeaderMap();
+      for (Map.Entry<String, String> entry : headerMap.entrySet()) {
+        insertHeaderStatement.setInt(1, eventIds[i]);
+        insertHeaderStatement.setString(2, entry.getKey());
+        insertHeaderStatement.setString(3, entry.getValue());
+        rowCount++;
+        if (cnxSupportsBatchUpdates) {
+          insertHeaderStatement.addBatch();
+        } else {
+          insertHeaderStatement.execute();
+        }
+      }
+    }
+    if (cnxSupportsBatchUpdates && rowCount > 0) {
+      insertHeaderStatement.executeBatch();
+    }
+  }
+
   void addAccessEvent(PreparedStatement stmt, AccessEvent event)
       throws SQLException {
     stmt.setLong(1, event.getTimeStamp());
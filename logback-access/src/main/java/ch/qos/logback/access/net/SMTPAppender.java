@@ -35,8 +35,6 @@ public class SMTPAppender extends SMTPAppenderBase<AccessEvent> {
 
   static final String DEFAULT_SUBJECT_PATTERN = "%m";
   
-  private int bufferSize = 512;
-  protected CyclicBuffer<AccessEvent> cb = new CyclicBuffer<AccessEvent>(bufferSize);
 
   /**
    * The default constructor will instantiate the appender with a
@@ -59,37 +57,16 @@ public class SMTPAppender extends SMTPAppenderBase<AccessEvent> {
    * a cyclic buffer.
    */
   protected void subAppend(AccessEvent event) {
-    cb.add(event);
-    // addInfo("Added event to the cyclic buffer: " + event.getMessage());
+    subAppend(getCyclicBuffer(event), event);
   }
 
   @Override
-  protected void fillBuffer(StringBuffer sbuf) {
-    int len = cb.length();
-    for (int i = 0; i < len; i++) {
-      // sbuf.append(MimeUtility.encodeText(layout.format(cb.get())));
-      AccessEvent event = (AccessEvent) cb.get();
-      sbuf.append(layout.doLayout(event));
-    }
-  }
-
-  /**
-   * The <b>BufferSize</b> option takes a positive integer representing the
-   * maximum number of logging events to collect in a cyclic buffer. When the
-   * <code>BufferSize</code> is reached, oldest events are deleted as new
-   * events are added to the buffer. By default the size of the cyclic buffer is
-   * 512 events.
-   */
-  public void setBufferSize(int bufferSize) {
-    this.bufferSize = bufferSize;
-    cb.resize(bufferSize);
-  }
-
-  /**
-   * Returns value of the <b>BufferSize</b> option.
-   */
-  public int getBufferSize() {
-    return bufferSize;
+  protected void subAppend(CyclicBuffer<AccessEvent> cb, AccessEvent event) {
+    // the event may be formatted by the sender thread, after the request has
+    // completed
+    event.prepareForDeferredProcessing();
+    cb.add(event);
+    // addInfo("Added event to the cyclic buffer: " + event.getMessage());
   }
 
   @Override
@@ -188,6 +188,66 @@ public class DBAppenderTest  {
     stmt.close();
   }
 
+  @Test
+  public void testBatchedAppend() throws SQLException {
+    // without headers, events are inserted as JDBC batches
+    String uri = "testBatchedAppend";
+    appender.setBatchSize(4);
+    appender.setMaxBatchDelay(50);
+    setInsertHeadersAndStart(false);
+    for (int i = 0; i < 10; i++) {
+      appender.doAppend(createAccessEvent(uri));
+    }
+    // stopping the appender flushes all pending batches
+    appender.stop();
+
+    Statement stmt = connectionSource.getConnection().createStatement();
+    assertEquals(10, count(stmt,
+        "SELECT * FROM access_event where requestURI='" + uri + "'"));
+    delete(stmt, uri);
+    stmt.close();
+  }
+
+  @Test
+  public void testBatchedAppendHeaders() throws SQLException {
+    String uri = "testBatchedAppendHeaders";
+    appender.setBatchSize(4);
+    appender.setMaxBatchDelay(50);
+    setInsertHeadersAndStart(true);
+    for (int i = 0; i < 10; i++) {
+      appender.doAppend(createAccessEvent(uri));
+    }
+    appender.stop();
+
+    Statement stmt = connectionSource.getConnection().createStatement();
+    assertEquals(10, count(stmt,
+        "SELECT * FROM access_event where requestURI='" + uri + "'"));
+    // each event has two headers
+    assertEquals(20, count(stmt, "SELECT * FROM access_event_header h, "
+        + "access_event e WHERE h.event_id = e.event_id "
+        + "AND e.requestURI='" + uri + "'"));
+    delete(stmt, uri);
+    stmt.close();
+  }
+
+  // the fixture is shared by all tests, leave the tables as they were
+  void delete(Statement stmt, String uri) throws SQLException {
+    stmt.executeUpdate("DELETE FROM access_event_header WHERE event_id IN "
+        + "(SELECT event_id FROM access_event WHERE requestURI='" + uri + "')");
+    stmt.executeUpdate("DELETE FROM access_event WHERE requestURI='" + uri
+        + "'");
+  }
+
+  int count(Statement stmt, String query) throws SQLException {
+    ResultSet rs = stmt.executeQuery(query);
+    int count = 0;
+    while (rs.next()) {
+      count++;
+    }
+    rs.close();
+    return count;
+  }
+
   private AccessEvent createAccessEvent() {
      return createAccessEvent(""); 
   }
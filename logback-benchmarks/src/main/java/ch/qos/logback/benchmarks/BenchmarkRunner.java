@@ -0,0 +1,51 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, all of them by default,
+ * with the GC profiler so that the allocation rate per operation is reported
+ * next to the timings. Results are also written in JSON format to
+ * logback-benchmarks-&lt;version&gt;.json, so that runs can be compared from one
+ * release to the next.
+ * 
+ * <p>Build with <code>mvn -Pbenchmarks install</code>, then run with
+ * <code>java -jar logback-benchmarks/target/benchmarks.jar [JMH options]</code>,
+ * e.g. <code>-t 8</code> to run every benchmark with 8 threads, or
+ * <code>-h</code> for the list of JMH options.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    String version = BenchmarkRunner.class.getPackage()
+        .getImplementationVersion();
+    if (version == null) {
+      version = "dev";
+    }
+    Options options = new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result("logback-benchmarks-" + version + ".json")
+        .build();
+    new Runner(options).run();
+  }
+}
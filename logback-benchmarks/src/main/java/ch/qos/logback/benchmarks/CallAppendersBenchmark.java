@@ -0,0 +1,91 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.message.SimpleMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+/**
+ * The cost of {@link Logger#callAppenders(ILoggingEvent)} for a logger
+ * named d1.d2...dN, N being <b>depth</b>. Appenders are attached to the root
+ * logger and to the logger named d1. The event is created once, so that only
+ * the walk through the hierarchy and the dispatch to the appenders are
+ * measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CallAppendersBenchmark {
+
+  @Param( { "1", "4", "16" })
+  int depth;
+
+  Logger logger;
+  ILoggingEvent event;
+
+  @Setup
+  public void setUp() {
+    LoggerContext lc = new LoggerContext();
+    attachNOPAppender(lc, lc.getLogger(Logger.ROOT_LOGGER_NAME));
+    attachNOPAppender(lc, lc.getLogger("d1"));
+
+    StringBuilder name = new StringBuilder("d1");
+    for (int i = 2; i <= depth; i++) {
+      name.append(".d").append(i);
+    }
+    logger = lc.getLogger(name.toString());
+    event = new LoggingEvent(CallAppendersBenchmark.class.getName(), logger,
+        Level.INFO, new SimpleMessage("hello"), null);
+  }
+
+  static void attachNOPAppender(LoggerContext lc, Logger logger) {
+    NOPAppender<ILoggingEvent> nop = new NOPAppender<ILoggingEvent>();
+    nop.setContext(lc);
+    nop.start();
+    logger.addAppender(nop);
+  }
+
+  @Benchmark
+  public void callAppenders() {
+    logger.callAppenders(event);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void callAppenders4Threads() {
+    logger.callAppenders(event);
+  }
+}
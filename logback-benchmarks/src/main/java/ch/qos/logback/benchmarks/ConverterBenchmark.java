@@ -0,0 +1,108 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+import org.slf4j.MarkerFactory;
+import org.slf4j.message.ParameterizedMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+/**
+ * The cost of each converter, measured through a {@link PatternLayout} made of
+ * that converter alone. This is the JMH counterpart of
+ * ClassNameAbbreviatorSpeed.
+ * 
+ * <p>Caller data is extracted once per event and then cached, so the caller
+ * converters (%class, %method, %line, %file and %caller) measure formatting
+ * only. The throwable converters are given an event with a nested exception.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+  static final Set<String> THROWABLE_PATTERNS = new HashSet<String>(Arrays
+      .asList("%ex", "%xEx", "%fp"));
+
+  @Param( { "%date", "%date{HH:mm:ss.SSS}", "%relative", "%level",
+      "%-5level", "%thread", "%logger", "%logger{20}", "%msg", "%X{user}",
+      "%mdc", "%marker", "%contextName", "%property{host}", "%class",
+      "%method", "%line", "%file", "%caller{1}", "%ex", "%xEx", "%fp", "%n" })
+  String pattern;
+
+  PatternLayout layout;
+  LoggingEvent event;
+
+  @Setup
+  public void setUp() {
+    LoggerContext lc = new LoggerContext();
+    lc.setName("benchmark");
+    lc.putProperty("host", "localhost");
+
+    layout = new PatternLayout();
+    layout.setContext(lc);
+    layout.setPattern(pattern);
+    layout.start();
+
+    MDC.put("user", "alice");
+    MDC.put("session", "0123456789");
+    Logger logger = lc.getLogger("ch.qos.logback.benchmarks.ConverterBenchmark");
+    Throwable t = null;
+    if (THROWABLE_PATTERNS.contains(pattern)) {
+      t = new Exception("just testing", new IllegalStateException("cause"));
+    }
+    // the caller is the frame which invoked this method
+    event = new LoggingEvent(ConverterBenchmark.class.getName(), logger,
+        Level.INFO, new ParameterizedMessage("Hello {}, you are {} years old",
+            new Object[] { "alice", 42 }), t);
+    event.setMarker(MarkerFactory.getMarker("AUDIT"));
+    // capture the caller and the thread name now
+    event.prepareForDeferredProcessing();
+  }
+
+  @TearDown
+  public void tearDown() {
+    MDC.clear();
+  }
+
+  @Benchmark
+  public String doLayout() {
+    return layout.doLayout(event);
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+
+/**
+ * The cost of a logging statement whose level is disabled, with and without
+ * parameters, and of the equivalent explicit check. This is the JMH
+ * counterpart of SpeedOfDisabledDebug and of the thresholds in LoggerPerfTest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DisabledLevelBenchmark {
+
+  Logger logger;
+  // fields rather than constants, so that the JIT cannot fold them
+  Integer arg0 = 1;
+  Integer arg1 = 2;
+
+  @Setup
+  public void setUp() {
+    LoggerContext lc = new LoggerContext();
+    lc.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+    logger = lc.getLogger("com.foo.bar.Baz");
+  }
+
+  @Benchmark
+  public void debug() {
+    logger.debug("hello");
+  }
+
+  @Benchmark
+  public void debugOneArg() {
+    logger.debug("hello {}", arg0);
+  }
+
+  @Benchmark
+  public void debugTwoArgs() {
+    logger.debug("hello {} {}", arg0, arg1);
+  }
+
+  @Benchmark
+  public boolean isDebugEnabled() {
+    return logger.isDebugEnabled();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void debugOneArg4Threads() {
+    logger.debug("hello {}", arg0);
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+
+/**
+ * A logging statement written to a {@link FileAppender} in each of its
+ * modes. The file is created in the temporary directory and deleted after
+ * each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FileAppenderBenchmark {
+
+  public enum FileMode {
+    IMMEDIATE_FLUSH, BUFFERED, PRUDENT, MEMORY_MAPPED
+  }
+
+  @Param
+  FileMode mode;
+
+  LoggerContext lc;
+  Logger logger;
+  File file;
+  Integer arg = 42;
+
+  @Setup
+  public void setUp() throws IOException {
+    lc = new LoggerContext();
+    file = File.createTempFile("logback-benchmark", ".log");
+
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(lc);
+    encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+    encoder.start();
+
+    FileAppender<ILoggingEvent> fa = new FileAppender<ILoggingEvent>();
+    fa.setContext(lc);
+    fa.setEncoder(encoder);
+    fa.setFile(file.getPath());
+    fa.setAppend(false);
+    fa.setImmediateFlush(mode != FileMode.BUFFERED);
+    fa.setBufferedIO(mode == FileMode.BUFFERED);
+    fa.setPrudent(mode == FileMode.PRUDENT);
+    fa.setMemoryMapped(mode == FileMode.MEMORY_MAPPED);
+    fa.start();
+
+    Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    root.setLevel(Level.INFO);
+    root.addAppender(fa);
+    logger = lc.getLogger("ch.qos.logback.benchmarks.FileAppenderBenchmark");
+  }
+
+  @TearDown
+  public void tearDown() {
+    lc.stop();
+    file.delete();
+  }
+
+  @Benchmark
+  public void info() {
+    logger.info("Hello {}", arg);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void info4Threads() {
+    logger.info("Hello {}", arg);
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+import org.slf4j.message.SimpleMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+/**
+ * MDC operations on a map holding <b>size</b> entries, including the capture
+ * of the MDC by a logging event. The state is per thread since the MDC is.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MDCBenchmark {
+
+  @Param( { "1", "4", "16" })
+  int size;
+
+  Logger logger;
+  String value = "value";
+
+  @Setup
+  public void setUp() {
+    logger = new LoggerContext().getLogger("ch.qos.logback.benchmarks.MDCBenchmark");
+    for (int i = 0; i < size; i++) {
+      MDC.put("key" + i, "value" + i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    MDC.clear();
+  }
+
+  @Benchmark
+  public String get() {
+    return MDC.get("key0");
+  }
+
+  @Benchmark
+  public void put() {
+    MDC.put("key0", value);
+  }
+
+  @Benchmark
+  public void putAndRemove() {
+    MDC.put("transient", value);
+    MDC.remove("transient");
+  }
+
+  @Benchmark
+  public Map<?, ?> getCopyOfContextMap() {
+    return MDC.getCopyOfContextMap();
+  }
+
+  /**
+   * The MDC as seen by an event, the usual path from a logging statement to
+   * an appender.
+   */
+  @Benchmark
+  public Map<String, String> eventMDC() {
+    LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger,
+        Level.INFO, new SimpleMessage("hello"), null);
+    return event.getMDCPropertyMap();
+  }
+
+  /**
+   * A put followed by an event capturing the MDC, as when a request
+   * identifier changes for every logging statement.
+   */
+  @Benchmark
+  public Map<String, String> putThenEventMDC() {
+    MDC.put("key0", value);
+    LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger,
+        Level.INFO, new SimpleMessage("hello"), null);
+    return event.getMDCPropertyMap();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void putAndRemove4Threads() {
+    MDC.put("transient", value);
+    MDC.remove("transient");
+  }
+}
@@ -0,0 +1,29 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.io.OutputStream;
+
+/**
+ * An output stream which discards its input, so that benchmarks measure
+ * logback rather than I/O.
+ */
+class NullOutputStream extends OutputStream {
+
+  public void write(int b) {
+  }
+
+  public void write(byte[] b, int off, int len) {
+  }
+}
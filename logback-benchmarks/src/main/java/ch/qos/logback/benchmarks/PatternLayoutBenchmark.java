@@ -0,0 +1,117 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.message.ParameterizedMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.WriterAppender;
+
+/**
+ * Typical patterns end to end: the layout of an event alone, and a logging
+ * statement going through the logger, a {@link WriterAppender} and a
+ * {@link PatternLayoutEncoder} into a stream which discards its input. This
+ * is the JMH counterpart of WriteSpeed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PatternLayoutBenchmark {
+
+  @Param( { "%msg%n",
+      "%-4relative [%thread] %-5level %logger{35} - %msg%n",
+      "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n" })
+  String pattern;
+
+  LoggerContext lc;
+  Logger logger;
+  PatternLayout layout;
+  ILoggingEvent event;
+  Integer arg = 42;
+
+  @Setup
+  public void setUp() {
+    lc = new LoggerContext();
+
+    layout = new PatternLayout();
+    layout.setContext(lc);
+    layout.setPattern(pattern);
+    layout.start();
+
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(lc);
+    encoder.setPattern(pattern);
+    encoder.start();
+
+    WriterAppender<ILoggingEvent> appender = new WriterAppender<ILoggingEvent>();
+    appender.setContext(lc);
+    appender.setEncoder(encoder);
+    appender.setOutputStream(new NullOutputStream());
+    appender.setImmediateFlush(false);
+    appender.start();
+
+    Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    root.setLevel(Level.INFO);
+    root.addAppender(appender);
+
+    logger = lc.getLogger("ch.qos.logback.benchmarks.PatternLayoutBenchmark");
+    event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+        new ParameterizedMessage("Hello {}", new Object[] { arg }), null);
+  }
+
+  @TearDown
+  public void tearDown() {
+    lc.stop();
+  }
+
+  @Benchmark
+  public String doLayout() {
+    return layout.doLayout(event);
+  }
+
+  @Benchmark
+  public void info() {
+    logger.info("Hello {}", arg);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void info4Threads() {
+    logger.info("Hello {}", arg);
+  }
+}
@@ -0,0 +1,139 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+import org.slf4j.message.ParameterizedMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.net.LoggingEventPreSerializationTransformer;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEventBinaryCodec;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.net.BinaryInput;
+import ch.qos.logback.core.net.BinaryOutput;
+
+/**
+ * The cost of sending an event over the wire as SocketAppender does, with
+ * Java serialization and with the compact binary codec, and of decoding it.
+ * 
+ * <p>Encoding is measured in the steady state of a connection: the object
+ * output stream is reset every {@link CoreConstants#OOS_RESET_FREQUENCY}
+ * events, and the binary dictionary already holds the logger and thread
+ * names. Decoding is measured for the first event of a connection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  ILoggingEvent event;
+  LoggingEventPreSerializationTransformer pst = new LoggingEventPreSerializationTransformer();
+
+  NullOutputStream nullOutputStream = new NullOutputStream();
+  ObjectOutputStream oos;
+  int counter = 0;
+
+  LoggingEventBinaryCodec codec = new LoggingEventBinaryCodec();
+  BinaryOutput binaryOutput = new BinaryOutput();
+
+  byte[] serializedEvent;
+  byte[] encodedEvent;
+
+  @Setup
+  public void setUp() throws IOException {
+    LoggerContext lc = new LoggerContext();
+    lc.setName("benchmark");
+    Logger logger = lc.getLogger("ch.qos.logback.benchmarks.SerializationBenchmark");
+    MDC.put("user", "alice");
+    LoggingEvent le = new LoggingEvent(Logger.class.getName(), logger,
+        Level.INFO, new ParameterizedMessage("Hello {}, you are {} years old",
+            new Object[] { "alice", 42 }), null);
+    le.prepareForDeferredProcessing();
+    MDC.clear();
+    event = le;
+
+    oos = new ObjectOutputStream(nullOutputStream);
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bos);
+    out.writeObject(pst.transform(event));
+    out.close();
+    serializedEvent = bos.toByteArray();
+
+    bos = new ByteArrayOutputStream();
+    BinaryOutput binaryOut = new BinaryOutput();
+    new LoggingEventBinaryCodec().encode(event, binaryOut);
+    binaryOut.writeRecordTo(bos);
+    encodedEvent = bos.toByteArray();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    oos.close();
+  }
+
+  @Benchmark
+  public void javaSerialization() throws IOException {
+    oos.writeObject(pst.transform(event));
+    if (++counter >= CoreConstants.OOS_RESET_FREQUENCY) {
+      counter = 0;
+      oos.reset();
+    }
+  }
+
+  @Benchmark
+  public void binaryEncoding() throws IOException {
+    codec.encode(event, binaryOutput);
+    binaryOutput.writeRecordTo(nullOutputStream);
+  }
+
+  @Benchmark
+  public Object javaDeserialization() throws Exception {
+    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
+        serializedEvent));
+    return ois.readObject();
+  }
+
+  @Benchmark
+  public ILoggingEvent binaryDecoding() throws IOException {
+    BinaryInput in = new BinaryInput(new ByteArrayInputStream(encodedEvent));
+    in.readRecord();
+    return new LoggingEventBinaryCodec().decode(in);
+  }
+}
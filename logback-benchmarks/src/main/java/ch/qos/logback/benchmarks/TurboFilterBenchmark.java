@@ -0,0 +1,109 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.MDCFilter;
+import ch.qos.logback.classic.turbo.MarkerFilter;
+import ch.qos.logback.classic.turbo.TurboFilter;
+
+/**
+ * The cost of consulting a chain of <b>chainLength</b> turbo filters, none of
+ * which match, for a disabled and for an enabled logging statement. The
+ * chain alternates between {@link MDCFilter} and {@link MarkerFilter}
+ * instances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TurboFilterBenchmark {
+
+  @Param( { "0", "1", "4" })
+  int chainLength;
+
+  Logger logger;
+  Integer arg = 1;
+
+  @Setup
+  public void setUp() {
+    LoggerContext lc = new LoggerContext();
+    Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    root.setLevel(Level.INFO);
+    NOPAppender<ILoggingEvent> nop = new NOPAppender<ILoggingEvent>();
+    nop.setContext(lc);
+    nop.start();
+    root.addAppender(nop);
+
+    for (int i = 0; i < chainLength; i++) {
+      lc.addTurboFilter(buildFilter(lc, i));
+    }
+    logger = lc.getLogger("com.foo.bar.Baz");
+  }
+
+  TurboFilter buildFilter(LoggerContext lc, int i) {
+    if (i % 2 == 0) {
+      MDCFilter filter = new MDCFilter();
+      filter.setMDCKey("user" + i);
+      filter.setValue("alice");
+      filter.setOnMatch("DENY");
+      filter.setContext(lc);
+      filter.start();
+      return filter;
+    } else {
+      MarkerFilter filter = new MarkerFilter();
+      filter.setMarker("CONFIDENTIAL" + i);
+      filter.setOnMatch("DENY");
+      filter.setContext(lc);
+      filter.start();
+      return filter;
+    }
+  }
+
+  @Benchmark
+  public void disabled() {
+    logger.debug("hello {}", arg);
+  }
+
+  @Benchmark
+  public void enabled() {
+    logger.info("hello {}", arg);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void disabled4Threads() {
+    logger.debug("hello {}", arg);
+  }
+}
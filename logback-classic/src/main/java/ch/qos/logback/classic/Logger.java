@@ -17,8 +17,10 @@ import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -29,6 +31,7 @@ import org.slf4j.message.SimpleMessage;
 import org.slf4j.spi.LocationAwareLogger;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggerContextMetrics;
 import ch.qos.logback.classic.spi.LoggerRemoteView;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Appender;
@@ -77,6 +80,14 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
    */
   private List<Logger> childrenList;
 
+  /**
+   * Index of the children by name, built once a logger has more than
+   * {@link #CHILDREN_MAP_THRESHOLD} children. Wide nodes, e.g. a root logger
+   * with thousands of packages, are then searched in constant time. Guarded,
+   * as childrenList, by the lock on this logger.
+   */
+  private Map<String, Logger> childrenMap;
+
   /**
    * It is assumed that once the 'aai' variable is set to a non-null value, it
    * will never be reset to null. it is further assumed that only place where
@@ -90,8 +101,12 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
    * 'aai' variable is immutable once set to non-null <p> 2) 'aai' is getAndSet
    * only within addAppender which is synchronized <p> 3) all the other methods
    * check whether 'aai' is null <p> 4) AppenderAttachableImpl is thread safe
+   *
+   * <p> The variable is volatile so that an AppenderAttachableImpl created by
+   * addAppender is safely published to logging threads, which read it without
+   * any locking.
    */
-  private transient AppenderAttachableImpl<ILoggingEvent> aai;
+  private transient volatile AppenderAttachableImpl<ILoggingEvent> aai;
   /**
    * Additivity is set to true by default, that is children inherit the
    * appenders of their ancestors by default. If this variable is set to
@@ -102,6 +117,22 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
    */
   private boolean additive = true;
 
+  /**
+   * The appenders of this logger followed by those of its ancestors, up to
+   * and including the first non-additive logger. A null value means that the
+   * array needs to be recomputed.
+   *
+   * <p> The array is computed while holding the lock on this logger. It is
+   * invalidated, also under the lock on this logger, after any change to the
+   * appenders or the additivity of this logger or of one of its ancestors,
+   * see {@link #invalidateEffectiveAppenders()}. An array computed
+   * concurrently with a change can thus never survive the change.
+   */
+  private transient volatile Appender<ILoggingEvent>[] effectiveAppenders;
+
+  static private final Appender<ILoggingEvent>[] EMPTY_APPENDER_ARRAY = AppenderAttachableImpl
+      .newAppenderArray(0);
+
   final transient LoggerContext loggerContext;
   // loggerRemoteView cannot be final because it may change as a consequence
   // of changes in LoggerContext
@@ -142,6 +173,8 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
   Logger getChildByName(final String childName) {
     if (childrenList == null) {
       return null;
+    } else if (childrenMap != null) {
+      return childrenMap.get(childName);
     } else {
       int len = this.childrenList.size();
       for (int i = 0; i < len; i++) {
@@ -213,6 +246,7 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
   public void detachAndStopAllAppenders() {
     if (aai != null) {
       aai.detachAndStopAllAppenders();
+      invalidateEffectiveAppenders();
     }
   }
 
@@ -220,7 +254,9 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
     if (aai == null) {
       return false;
     }
-    return aai.detachAppender(name);
+    boolean removed = aai.detachAppender(name);
+    invalidateEffectiveAppenders();
+    return removed;
   }
 
   // this method MUST be synchronized. See comments on 'aai' field for further
@@ -230,6 +266,7 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
       aai = new AppenderAttachableImpl<ILoggingEvent>();
     }
     aai.addAppender(newAppender);
+    invalidateEffectiveAppenders();
   }
 
   public boolean isAttached(Appender<ILoggingEvent> appender) {
@@ -261,27 +298,77 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
    *                The event to log
    */
   public void callAppenders(ILoggingEvent event) {
-    int writes = 0;
+    Appender<ILoggingEvent>[] appenders = effectiveAppenders;
+    if (appenders == null) {
+      appenders = computeEffectiveAppenders();
+    }
+    final int len = appenders.length;
+    for (int i = 0; i < len; i++) {
+      appenders[i].doAppend(event);
+    }
+    // No appenders in hierarchy
+    if (len == 0) {
+      loggerContext.noAppenderDefinedWarning(this);
+    }
+  }
+
+  /**
+   * Flatten the appenders of this logger and of its additive ancestors into
+   * a single array, in the order in which they were previously invoked by
+   * walking the parent chain.
+   */
+  private synchronized Appender<ILoggingEvent>[] computeEffectiveAppenders() {
+    if (effectiveAppenders != null) {
+      return effectiveAppenders;
+    }
+    List<Appender<ILoggingEvent>> list = null;
     for (Logger l = this; l != null; l = l.parent) {
-      writes += l.appendLoopOnAppenders(event);
+      AppenderAttachableImpl<ILoggingEvent> laai = l.aai;
+      if (laai != null) {
+        Appender<ILoggingEvent>[] array = laai.getAppenderArray();
+        if (array.length > 0) {
+          if (list == null) {
+            list = new ArrayList<Appender<ILoggingEvent>>();
+          }
+          for (Appender<ILoggingEvent> a : array) {
+            list.add(a);
+          }
+        }
+      }
       if (!l.additive) {
         break;
       }
     }
-    // No appenders in hierarchy
-    if (writes == 0) {
-      loggerContext.noAppenderDefinedWarning(this);
+    if (list == null) {
+      effectiveAppenders = EMPTY_APPENDER_ARRAY;
+    } else {
+      Appender<ILoggingEvent>[] array = AppenderAttachableImpl
+          .newAppenderArray(list.size());
+      effectiveAppenders = list.toArray(array);
     }
+    return effectiveAppenders;
   }
 
-  private int appendLoopOnAppenders(ILoggingEvent event) {
-    if (aai != null) {
-      return aai.appendLoopOnAppenders(event);
-    } else {
-      return 0;
+  /**
+   * Invalidate the effective appenders of this logger and of its
+   * descendants. Like {@link #handleParentLevelChange(int)}, the change is
+   * propagated while holding the lock on each logger in turn.
+   */
+  private synchronized void invalidateEffectiveAppenders() {
+    effectiveAppenders = null;
+    if (childrenList != null) {
+      int len = childrenList.size();
+      for (int i = 0; i < len; i++) {
+        Logger child = (Logger) childrenList.get(i);
+        child.invalidateEffectiveAppenders();
+      }
     }
   }
 
+  private synchronized void clearEffectiveAppenders() {
+    effectiveAppenders = null;
+  }
+
   /**
    * Remove the appender passed as parameter form the list of appenders.
    */
@@ -289,7 +376,9 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
     if (aai == null) {
       return false;
     }
-    return aai.detachAppender(appender);
+    boolean removed = aai.detachAppender(appender);
+    invalidateEffectiveAppenders();
+    return removed;
   }
 
   static int getSeparatorIndexOf(String name) {
@@ -346,7 +435,7 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
           name + CoreConstants.DOT + lastPart, this,
           this.loggerContext);
     }
-    childrenList.add(childLogger);
+    addChild(childLogger);
     childLogger.effectiveLevelInt = this.effectiveLevelInt;
     return childLogger;
   }
@@ -361,9 +450,15 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
   }
 
   void recursiveReset() {
-    detachAndStopAllAppenders();
+    if (aai != null) {
+      aai.detachAndStopAllAppenders();
+    }
     localLevelReset();
     additive = true;
+    // as the reset proceeds from the top, the ancestors of this logger have
+    // already been reset, so clearing the effective appenders of this logger
+    // only is enough
+    clearEffectiveAppenders();
     if (childrenList == null) {
       return;
     }
@@ -378,6 +473,23 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
    */
   static private final int DEFAULT_CHILD_ARRAY_SIZE = 5;
 
+  /**
+   * The number of children beyond which children are also indexed by name.
+   */
+  static final int CHILDREN_MAP_THRESHOLD = 16;
+
+  private void addChild(Logger childLogger) {
+    childrenList.add(childLogger);
+    if (childrenMap != null) {
+      childrenMap.put(childLogger.name, childLogger);
+    } else if (childrenList.size() > CHILDREN_MAP_THRESHOLD) {
+      childrenMap = new HashMap<String, Logger>();
+      for (Logger child : childrenList) {
+        childrenMap.put(child.name, child);
+      }
+    }
+  }
+
   Logger createChildByName(final String childName) {
     int i_index = getSeparatorIndexOf(childName, this.name
         .length() + 1);
@@ -393,7 +505,7 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
     }
     Logger childLogger;
     childLogger = new Logger(childName, this, this.loggerContext);
-    childrenList.add(childLogger);
+    addChild(childLogger);
     childLogger.effectiveLevelInt = this.effectiveLevelInt;
     return childLogger;
   }
@@ -473,6 +585,10 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
       final Level level, final Message msg, final Throwable t) {
     LoggingEvent le = new LoggingEvent(localFQCN, this, level, msg, t);
     le.setMarker(marker);
+    LoggerContextMetrics metrics = loggerContext.getMetrics();
+    if (metrics.isEnabled()) {
+      metrics.recordEvent(level);
+    }
     callAppenders(le);
   }
 
@@ -864,6 +980,7 @@ public final class Logger implements org.slf4j.Logger, MessageLogger,
 
   public void setAdditive(boolean additive) {
     this.additive = additive;
+    invalidateEffectiveAppenders();
   }
 
   public String toString() {
@@ -17,15 +17,19 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Marker;
 
+import ch.qos.logback.classic.spi.CallerDataExtractor;
+import ch.qos.logback.classic.spi.FullStackCallerDataExtractor;
 import ch.qos.logback.classic.spi.LoggerComparator;
 import ch.qos.logback.classic.spi.LoggerContextListener;
+import ch.qos.logback.classic.spi.LoggerContextMetrics;
 import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.classic.spi.PackagingDataCache;
 import ch.qos.logback.classic.spi.TurboFilterList;
 import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.core.ContextBase;
@@ -50,21 +54,23 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     LifeCycle {
 
   final Logger root;
-  private int size;
   private int noAppenderWarning = 0;
   final private List<LoggerContextListener> loggerContextListenerList = new ArrayList<LoggerContextListener>();
 
-  // We want loggerCache to be synchronized so Hashtable is a good choice. In
-  // practice, it performs a little faster than the map returned by
-  // Collections.synchronizedMap at the cost of a very slightly higher memory
-  // footprint.
-  private Hashtable<String, Logger> loggerCache;
+  // Lookups of existing loggers, by far the most common case, must not
+  // take any lock. Loggers are created under the lock of their parent and
+  // published here only once fully linked into the hierarchy.
+  private final ConcurrentHashMap<String, Logger> loggerCache;
 
   private LoggerContextVO loggerContextRemoteView;
   private final TurboFilterList turboFilterList = new TurboFilterList();
   private boolean packagingDataEnabled = true;
+  private boolean lazyPackagingData = false;
+  private final PackagingDataCache packagingDataCache = new PackagingDataCache();
 
   private int maxCallerDataDepth = ClassicConstants.DEFAULT_MAX_CALLEDER_DATA_DEPTH;
+  private CallerDataExtractor callerDataExtractor = new FullStackCallerDataExtractor();
+  private final LoggerContextMetrics metrics = new LoggerContextMetrics();
 
   boolean started = false;
 
@@ -72,13 +78,12 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
 
   public LoggerContext() {
     super();
-    this.loggerCache = new Hashtable<String, Logger>();
+    this.loggerCache = new ConcurrentHashMap<String, Logger>();
     this.loggerContextRemoteView = new LoggerContextVO(this);
     this.root = new Logger(Logger.ROOT_LOGGER_NAME, null, this);
     this.root.setLevel(Level.DEBUG);
     loggerCache.put(Logger.ROOT_LOGGER_NAME, root);
     putObject(CoreConstants.EVALUATOR_MAP, new HashMap());
-    size = 1;
   }
 
   /**
@@ -125,7 +130,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
 
     // check if the desired logger exists, if it does, return it
     // without further ado.
-    Logger childLogger = (Logger) loggerCache.get(name);
+    Logger childLogger = loggerCache.get(name);
     // if we have the child, then let us return it without wasting time
     if (childLogger != null) {
       return childLogger;
@@ -143,12 +148,16 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
       }
       // move i left of the last point
       i = h + 1;
-      synchronized (logger) {
-        childLogger = logger.getChildByName(childName);
-        if (childLogger == null) {
-          childLogger = logger.createChildByName(childName);
-          loggerCache.put(childName, childLogger);
-          incSize();
+      // intermediary loggers usually exist already, in which case there is
+      // no need to lock their parent
+      childLogger = loggerCache.get(childName);
+      if (childLogger == null) {
+        synchronized (logger) {
+          childLogger = logger.getChildByName(childName);
+          if (childLogger == null) {
+            childLogger = logger.createChildByName(childName);
+            loggerCache.put(childName, childLogger);
+          }
         }
       }
       logger = childLogger;
@@ -158,12 +167,8 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     }
   }
 
-  private void incSize() {
-    size++;
-  }
-
   int size() {
-    return size;
+    return loggerCache.size();
   }
 
   /**
@@ -174,7 +179,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
    *          the name of the logger to search for.
    */
   public Logger exists(String name) {
-    return (Logger) loggerCache.get(name);
+    return loggerCache.get(name);
   }
 
   final void noAppenderDefinedWarning(final Logger logger) {
@@ -204,6 +209,27 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     return packagingDataEnabled;
   }
 
+  /**
+   * If true, packaging data is computed only when an event is rendered by a
+   * converter which displays it, or when the event is serialized, instead of
+   * when the event is created. Exceptions which are never rendered with
+   * packaging data then cost nothing extra. The default is false.
+   */
+  public void setLazyPackagingData(boolean lazyPackagingData) {
+    this.lazyPackagingData = lazyPackagingData;
+  }
+
+  public boolean isLazyPackagingData() {
+    return lazyPackagingData;
+  }
+
+  /**
+   * The cache of packaging data shared by all events of this context.
+   */
+  public PackagingDataCache getPackagingDataCache() {
+    return packagingDataCache;
+  }
+
   /**
    * This method clears all internal properties, closes all appenders, removes
    * any turboFilters, fires an OnReset event, removes all status listeners,
@@ -212,9 +238,12 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   @Override
   public void reset() {
     resetCount++;
-    super.reset();
+    // stop the appenders, and thus their pending compressions, before the
+    // compression executor is shut down by super.reset()
     root.recursiveReset();
+    super.reset();
     resetTurboFilterList();
+    packagingDataCache.clear();
     fireOnReset();
     resetListenersExceptResetResistant();
     resetStatusListeners();
@@ -254,8 +283,9 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     }
     String message = (msg == null) ? null : msg.getMessageFormat();
     Object[] params = (msg == null) ? null : msg.getParameters();
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-        message, params, t);
+    return metrics.recordTurboFilterDecision(turboFilterList
+        .getTurboFilterChainDecision(marker, logger, level, message, params,
+            t));
   }
 
   final FilterReply getTurboFilterChainDecision(final Marker marker,
@@ -264,8 +294,8 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     if (turboFilterList.size() == 0) {
       return FilterReply.NEUTRAL;
     }
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-        format, params, t);
+    return metrics.recordTurboFilterDecision(turboFilterList
+        .getTurboFilterChainDecision(marker, logger, level, format, params, t));
   }
 
   final FilterReply getTurboFilterChainDecision(final Marker marker,
@@ -274,8 +304,9 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     if (turboFilterList.size() == 0) {
       return FilterReply.NEUTRAL;
     }
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-        format, new Object[] { param }, t);
+    return metrics.recordTurboFilterDecision(turboFilterList
+        .getTurboFilterChainDecision(marker, logger, level, format,
+            new Object[] { param }, t));
   }
 
   final FilterReply getTurboFilterChainDecision(final Marker marker,
@@ -284,8 +315,9 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     if (turboFilterList.size() == 0) {
       return FilterReply.NEUTRAL;
     }
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-        format, new Object[] { param1, param2 }, t);
+    return metrics.recordTurboFilterDecision(turboFilterList
+        .getTurboFilterChainDecision(marker, logger, level, format,
+            new Object[] { param1, param2 }, t));
   }
 
   // === start listeners ==============================================
@@ -364,4 +396,25 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   public void setMaxCallerDataDepth(int maxCallerDataDepth) {
     this.maxCallerDataDepth = maxCallerDataDepth;
   }
+
+  /**
+   * Counters about the events created in this context.
+   */
+  public LoggerContextMetrics getMetrics() {
+    return metrics;
+  }
+
+  public CallerDataExtractor getCallerDataExtractor() {
+    return callerDataExtractor;
+  }
+
+  /**
+   * Set the strategy used by logging events to extract caller data. The
+   * default is {@link FullStackCallerDataExtractor}. Null values are ignored.
+   */
+  public void setCallerDataExtractor(CallerDataExtractor callerDataExtractor) {
+    if (callerDataExtractor != null) {
+      this.callerDataExtractor = callerDataExtractor;
+    }
+  }
 }
@@ -36,6 +36,7 @@ import ch.qos.logback.classic.pattern.MethodOfCallerConverter;
 import ch.qos.logback.classic.pattern.NopThrowableInformationConverter;
 import ch.qos.logback.classic.pattern.RelativeTimeConverter;
 import ch.qos.logback.classic.pattern.ThreadConverter;
+import ch.qos.logback.classic.pattern.ThrowableFingerprintConverter;
 import ch.qos.logback.classic.pattern.ThrowableProxyConverter;
 import ch.qos.logback.classic.pattern.StructuredDataConverter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
@@ -111,6 +112,10 @@ public class PatternLayout extends PatternLayoutBase<ILoggingEvent> {
     defaultConverterMap.put("xThrowable", ExtendedThrowableProxyConverter.class
         .getName());
 
+    defaultConverterMap.put("fp", ThrowableFingerprintConverter.class.getName());
+    defaultConverterMap.put("fingerprint", ThrowableFingerprintConverter.class
+        .getName());
+
     defaultConverterMap.put("nopex", NopThrowableInformationConverter.class
         .getName());
     defaultConverterMap.put("nopexception",
@@ -19,6 +19,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -98,6 +99,65 @@ public class DBAppender extends DBAppenderBase<ILoggingEvent> {
     }
   }
 
+  /**
+   * In batch mode, events are written by another thread. Data depending on
+   * the calling thread, in particular caller data, is extracted here.
+   */
+  @Override
+  protected void preprocess(ILoggingEvent event) {
+    event.prepareForDeferredProcessing();
+  }
+
+  private final InsertBinder<ILoggingEvent> insertBinder = new InsertBinder<ILoggingEvent>() {
+    public void bind(ILoggingEvent event, PreparedStatement insertStatement)
+        throws SQLException {
+      bindLoggingEventWithInsertStatement(insertStatement, event);
+      bindCallerDataWithPreparedStatement(insertStatement, event
+          .getCallerData());
+    }
+  };
+
+  /**
+   * Insert the events, then their properties and exception lines, each kind
+   * of row with a single statement and, if supported by the driver, a single
+   * JDBC batch. Statements are reused from one batch to the next.
+   */
+  @Override
+  protected void subAppendBatch(List<ILoggingEvent> events,
+      Connection connection) throws Throwable {
+    int[] eventIds = insertBatch(events, connection, true, insertBinder);
+
+    PreparedStatement insertPropertiesStatement = null;
+    PreparedStatement insertExceptionStatement = null;
+    for (int i = 0; i < eventIds.length; i++) {
+      ILoggingEvent event = events.get(i);
+      Map<String, String> mergedMap = mergePropertyMaps(event);
+      if (!mergedMap.isEmpty()) {
+        if (insertPropertiesStatement == null) {
+          insertPropertiesStatement = prepareBatchStatement(connection,
+              insertPropertiesSQL);
+        }
+        addPropertyRows(insertPropertiesStatement, mergedMap, eventIds[i]);
+      }
+      if (event.getThrowableProxy() != null) {
+        if (insertExceptionStatement == null) {
+          insertExceptionStatement = prepareBatchStatement(connection,
+              insertExceptionSQL);
+        }
+        addThrowableRows(insertExceptionStatement, event.getThrowableProxy()
+            .getStackTraceElementProxyArray(), eventIds[i]);
+      }
+    }
+    if (cnxSupportsBatchUpdates) {
+      if (insertPropertiesStatement != null) {
+        insertPropertiesStatement.executeBatch();
+      }
+      if (insertExceptionStatement != null) {
+        insertExceptionStatement.executeBatch();
+      }
+    }
+  }
+
   void bindLoggingEventWithInsertStatement(PreparedStatement stmt, ILoggingEvent event)
       throws SQLException {
     stmt.setLong(1, event.getTimeStamp());
@@ -154,20 +214,7 @@ public class DBAppender extends DBAppenderBase<ILoggingEvent> {
       PreparedStatement insertPropertiesStatement = connection
           .prepareStatement(insertPropertiesSQL);
 
-      for (Iterator i = propertiesKeys.iterator(); i.hasNext();) {
-        String key = (String) i.next();
-        String value = (String) mergedMap.get(key);
-
-        insertPropertiesStatement.setInt(1, eventId);
-        insertPropertiesStatement.setString(2, key);
-        insertPropertiesStatement.setString(3, value);
-
-        if (cnxSupportsBatchUpdates) {
-          insertPropertiesStatement.addBatch();
-        } else {
-          insertPropertiesStatement.execute();
-        }
-      }
+      addPropertyRows(insertPropertiesStatement, mergedMap, eventId);
 
       if (cnxSupportsBatchUpdates) {
         insertPropertiesStatement.executeBatch();
@@ -184,6 +231,39 @@ public class DBAppender extends DBAppenderBase<ILoggingEvent> {
     PreparedStatement insertExceptionStatement = connection
         .prepareStatement(insertExceptionSQL);
 
+    addThrowableRows(insertExceptionStatement, stepArray, eventId);
+    if (cnxSupportsBatchUpdates) {
+      insertExceptionStatement.executeBatch();
+    }
+    insertExceptionStatement.close();
+    insertExceptionStatement = null;
+
+  }
+
+  /**
+   * Bind each property with the statement, adding it to the current JDBC
+   * batch if batch updates are supported, executing it otherwise.
+   */
+  void addPropertyRows(PreparedStatement insertPropertiesStatement,
+      Map<String, String> mergedMap, int eventId) throws SQLException {
+    for (Iterator i = mergedMap.keySet().iterator(); i.hasNext();) {
+      String key = (String) i.next();
+      String value = (String) mergedMap.get(key);
+
+      insertPropertiesStatement.setInt(1, eventId);
+      insertPropertiesStatement.setString(2, key);
+      insertPropertiesStatement.setString(3, value);
+
+      if (cnxSupportsBatchUpdates) {
+        insertPropertiesStatement.addBatch();
+      } else {
+        insertPropertiesStatement.execute();
+      }
+    }
+  }
+
+  void addThrowableRows(PreparedStatement insertExceptionStatement,
+      StackTraceElementProxy[] stepArray, int eventId) throws SQLException {
     for (short i = 0; i < stepArray.length; i++) {
       insertExceptionStatement.setInt(1, eventId);
       insertExceptionStatement.setShort(2, i);
@@ -194,11 +274,5 @@ public class DBAppender extends DBAppenderBase<ILoggingEvent> {
         insertExceptionStatement.execute();
       }
     }
-    if (cnxSupportsBatchUpdates) {
-      insertExceptionStatement.executeBatch();
-    }
-    insertExceptionStatement.close();
-    insertExceptionStatement = null;
-
   }
 }
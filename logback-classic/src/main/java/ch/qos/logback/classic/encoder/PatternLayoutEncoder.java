@@ -0,0 +1,35 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.encoder;
+
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.PatternLayoutEncoderBase;
+
+/**
+ * Encodes logging events according to a conversion pattern, exactly as
+ * {@link PatternLayout} would format them, but directly into bytes.
+ */
+public class PatternLayoutEncoder extends PatternLayoutEncoderBase<ILoggingEvent> {
+
+  @Override
+  public void start() {
+    PatternLayout patternLayout = new PatternLayout();
+    patternLayout.setContext(context);
+    patternLayout.setPattern(getPattern());
+    patternLayout.start();
+    this.layout = patternLayout;
+    super.start();
+  }
+}
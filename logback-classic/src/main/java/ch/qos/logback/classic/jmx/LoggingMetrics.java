@@ -0,0 +1,302 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.jmx;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistration;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggerContextListener;
+import ch.qos.logback.classic.spi.LoggerContextMetrics;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderMetrics;
+import ch.qos.logback.core.spi.AppenderMetricsAware;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * Publishes the metrics of a {@link LoggerContext} and of its appenders via
+ * JMX. Appenders are looked up on each invocation, so that appenders added by
+ * a reconfiguration are visible without re-registering this MBean. Appenders
+ * nested in other appenders, e.g. in an
+ * {@link ch.qos.logback.classic.AsyncAppender AsyncAppender}, are included.
+ * 
+ * <p>Metrics are only maintained while this MBean is registered. Appenders
+ * started in the meantime maintain their metrics, as do appenders found by
+ * this MBean, which starts counting for the latter when it first finds them.
+ * 
+ * <p>As with {@link JMXConfigurator}, this MBean unregisters itself when the
+ * context is stopped.
+ */
+public class LoggingMetrics extends ContextAwareBase implements
+    LoggingMetricsMBean, LoggerContextListener, MBeanRegistration {
+
+  LoggerContext loggerContext;
+  MBeanServer mbs;
+  ObjectName objectName;
+
+  boolean started;
+  volatile boolean registered;
+
+  public LoggingMetrics(LoggerContext loggerContext, MBeanServer mbs,
+      ObjectName objectName) {
+    this.context = loggerContext;
+    this.loggerContext = loggerContext;
+    this.mbs = mbs;
+    this.objectName = objectName;
+    this.started = true;
+    loggerContext.addListener(this);
+  }
+
+  LoggerContextMetrics contextMetrics() {
+    return loggerContext.getMetrics();
+  }
+
+  public long getTraceEventCount() {
+    return contextMetrics().getEventCount(Level.TRACE);
+  }
+
+  public long getDebugEventCount() {
+    return contextMetrics().getEventCount(Level.DEBUG);
+  }
+
+  public long getInfoEventCount() {
+    return contextMetrics().getEventCount(Level.INFO);
+  }
+
+  public long getWarnEventCount() {
+    return contextMetrics().getEventCount(Level.WARN);
+  }
+
+  public long getErrorEventCount() {
+    return contextMetrics().getEventCount(Level.ERROR);
+  }
+
+  public long getTurboFilterAcceptCount() {
+    return contextMetrics().getTurboFilterAcceptCount();
+  }
+
+  public long getTurboFilterNeutralCount() {
+    return contextMetrics().getTurboFilterNeutralCount();
+  }
+
+  public long getTurboFilterDenyCount() {
+    return contextMetrics().getTurboFilterDenyCount();
+  }
+
+  public long getTotalAppendedCount() {
+    long total = 0;
+    for (AppenderMetrics am : findAppenderMetrics().values()) {
+      total += am.getAppendedCount();
+    }
+    return total;
+  }
+
+  public long getTotalDroppedCount() {
+    long total = 0;
+    for (AppenderMetrics am : findAppenderMetrics().values()) {
+      total += am.getDroppedCount();
+    }
+    return total;
+  }
+
+  public long getTotalFailedCount() {
+    long total = 0;
+    for (AppenderMetrics am : findAppenderMetrics().values()) {
+      total += am.getFailedCount();
+    }
+    return total;
+  }
+
+  public List<String> getAppenderNames() {
+    return new ArrayList<String>(findAppenderMetrics().keySet());
+  }
+
+  public long getAppendedCount(String appenderName) {
+    AppenderMetrics am = findAppenderMetrics().get(appenderName);
+    return (am == null) ? -1 : am.getAppendedCount();
+  }
+
+  public long getDeniedCount(String appenderName) {
+    AppenderMetrics am = findAppenderMetrics().get(appenderName);
+    return (am == null) ? -1 : am.getDeniedCount();
+  }
+
+  public long getDroppedCount(String appenderName) {
+    AppenderMetrics am = findAppenderMetrics().get(appenderName);
+    return (am == null) ? -1 : am.getDroppedCount();
+  }
+
+  public long getFailedCount(String appenderName) {
+    AppenderMetrics am = findAppenderMetrics().get(appenderName);
+    return (am == null) ? -1 : am.getFailedCount();
+  }
+
+  public double getMeanAppendNanos(String appenderName) {
+    AppenderMetrics am = findAppenderMetrics().get(appenderName);
+    return (am == null) ? -1 : am.getAppendLatency().getMeanNanos();
+  }
+
+  public long getAppendNanosPercentile(String appenderName, double fraction) {
+    AppenderMetrics am = findAppenderMetrics().get(appenderName);
+    return (am == null) ? -1 : am.getAppendLatency().getPercentileNanos(
+        fraction);
+  }
+
+  public void resetMetrics() {
+    contextMetrics().reset();
+    for (AppenderMetrics am : findAppenderMetrics().values()) {
+      am.reset();
+    }
+  }
+
+  /**
+   * Metrics of the appenders attached to the loggers of the context, indexed
+   * by appender name. While this MBean is registered, the metrics of the
+   * appenders found are enabled.
+   */
+  Map<String, AppenderMetrics> findAppenderMetrics() {
+    boolean enable = registered;
+    Map<String, AppenderMetrics> map = new LinkedHashMap<String, AppenderMetrics>();
+    for (Appender<ILoggingEvent> appender : findAppenders()) {
+      String name = appender.getName();
+      if (name == null || map.containsKey(name)) {
+        continue;
+      }
+      AppenderMetricsAware ama = (AppenderMetricsAware) appender;
+      if (enable) {
+        ama.setMetricsEnabled(true);
+      }
+      map.put(name, ama.getMetrics());
+    }
+    return map;
+  }
+
+  /**
+   * The appenders maintaining metrics, attached to the loggers of the context
+   * directly or through other appenders.
+   */
+  private List<Appender<ILoggingEvent>> findAppenders() {
+    List<Appender<ILoggingEvent>> list = new ArrayList<Appender<ILoggingEvent>>();
+    for (Logger logger : loggerContext.getLoggerList()) {
+      collect(logger.iteratorForAppenders(), list);
+    }
+    return list;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void collect(Iterator<Appender<ILoggingEvent>> it,
+      List<Appender<ILoggingEvent>> list) {
+    while (it.hasNext()) {
+      Appender<ILoggingEvent> appender = it.next();
+      if (appender instanceof AppenderMetricsAware) {
+        list.add(appender);
+      }
+      if (appender instanceof AppenderAttachable) {
+        collect(((AppenderAttachable<ILoggingEvent>) appender)
+            .iteratorForAppenders(), list);
+      }
+    }
+  }
+
+  private void setMetricsEnabled(boolean enabled) {
+    registered = enabled;
+    contextMetrics().setEnabled(enabled);
+    loggerContext.putObject(CoreConstants.APPENDER_METRICS_ENABLED,
+        enabled ? Boolean.TRUE : null);
+    for (Appender<ILoggingEvent> appender : findAppenders()) {
+      ((AppenderMetricsAware) appender).setMetricsEnabled(enabled);
+    }
+  }
+
+  public void onStop(LoggerContext context) {
+    if (!started) {
+      return;
+    }
+    if (mbs.isRegistered(objectName)) {
+      try {
+        addInfo("Unregistering mbean [" + objectName + "]");
+        mbs.unregisterMBean(objectName);
+      } catch (InstanceNotFoundException e) {
+        // this is theoretically impossible
+        addError("Unable to find a verifiably registered mbean ["
+            + objectName + "]", e);
+      } catch (MBeanRegistrationException e) {
+        addError("Failed to unregister [" + objectName + "]", e);
+      }
+    }
+    started = false;
+  }
+
+  public ObjectName preRegister(MBeanServer server, ObjectName name) {
+    return name;
+  }
+
+  /**
+   * The context and its appenders only count events while this MBean is
+   * registered.
+   */
+  public void postRegister(Boolean registrationDone) {
+    if (registrationDone.booleanValue()) {
+      setMetricsEnabled(true);
+    }
+  }
+
+  public void preDeregister() {
+  }
+
+  public void postDeregister() {
+    setMetricsEnabled(false);
+  }
+
+  /**
+   * A reset clears the object store of the context, hence appenders
+   * configured afterwards would not maintain their metrics.
+   */
+  public void onReset(LoggerContext context) {
+    if (registered) {
+      loggerContext.putObject(CoreConstants.APPENDER_METRICS_ENABLED,
+          Boolean.TRUE);
+    }
+  }
+
+  public void onStart(LoggerContext context) {
+  }
+
+  /**
+   * Metrics survive reconfiguration, hence this listener must not be removed
+   * on reset.
+   */
+  public boolean isResetResistant() {
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getName() + "(" + context.getName() + ")";
+  }
+}
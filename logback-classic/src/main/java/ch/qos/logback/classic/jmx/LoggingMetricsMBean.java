@@ -0,0 +1,64 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.jmx;
+
+import java.util.List;
+
+/**
+ * Read-only view of the {@link ch.qos.logback.classic.spi.LoggerContextMetrics
+ * logger context metrics} and of the
+ * {@link ch.qos.logback.core.spi.AppenderMetrics appender metrics}. Methods
+ * taking an appender name return -1 if no such appender is attached to a
+ * logger of the context.
+ */
+public interface LoggingMetricsMBean {
+
+  public long getTraceEventCount();
+
+  public long getDebugEventCount();
+
+  public long getInfoEventCount();
+
+  public long getWarnEventCount();
+
+  public long getErrorEventCount();
+
+  public long getTurboFilterAcceptCount();
+
+  public long getTurboFilterNeutralCount();
+
+  public long getTurboFilterDenyCount();
+
+  public long getTotalAppendedCount();
+
+  public long getTotalDroppedCount();
+
+  public long getTotalFailedCount();
+
+  public List<String> getAppenderNames();
+
+  public long getAppendedCount(String appenderName);
+
+  public long getDeniedCount(String appenderName);
+
+  public long getDroppedCount(String appenderName);
+
+  public long getFailedCount(String appenderName);
+
+  public double getMeanAppendNanos(String appenderName);
+
+  public long getAppendNanosPercentile(String appenderName, double fraction);
+
+  public void resetMetrics();
+}
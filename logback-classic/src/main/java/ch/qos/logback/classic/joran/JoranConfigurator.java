@@ -19,6 +19,7 @@ import ch.qos.logback.classic.joran.action.ContextNameAction;
 import ch.qos.logback.classic.joran.action.EvaluatorAction;
 import ch.qos.logback.classic.joran.action.InsertFromJNDIAction;
 import ch.qos.logback.classic.joran.action.JMXConfiguratorAction;
+import ch.qos.logback.classic.joran.action.JMXMetricsAction;
 import ch.qos.logback.classic.joran.action.LevelAction;
 import ch.qos.logback.classic.joran.action.LoggerAction;
 import ch.qos.logback.classic.joran.action.RootLoggerAction;
@@ -75,6 +76,8 @@ public class JoranConfigurator extends JoranConfiguratorBase {
     if (PlatformInfo.hasJMXObjectName()) {
       rs.addRule(new Pattern("configuration/jmxConfigurator"),
           new JMXConfiguratorAction());
+      rs.addRule(new Pattern("configuration/jmxMetrics"),
+          new JMXMetricsAction());
     }
     rs.addRule(new Pattern("configuration/include"), new IncludeAction());
 
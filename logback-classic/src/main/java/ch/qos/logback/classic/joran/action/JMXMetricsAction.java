@@ -0,0 +1,77 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.joran.action;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.xml.sax.Attributes;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.jmx.LoggingMetrics;
+import ch.qos.logback.classic.jmx.MBeanUtil;
+import ch.qos.logback.core.joran.action.Action;
+import ch.qos.logback.core.joran.spi.ActionException;
+import ch.qos.logback.core.joran.spi.InterpretationContext;
+import ch.qos.logback.core.util.OptionHelper;
+
+/**
+ * Registers a {@link LoggingMetrics} MBean. The <b>objectName</b> and
+ * <b>contextName</b> attributes have the same meaning as for
+ * {@link JMXConfiguratorAction}.
+ */
+public class JMXMetricsAction extends Action {
+
+  @Override
+  public void begin(InterpretationContext ec, String name, Attributes attributes)
+      throws ActionException {
+    String contextName = context.getName();
+    String contextNameAttributeVal = attributes
+        .getValue(JMXConfiguratorAction.CONTEXT_NAME_ATTRIBUTE_NAME);
+    if (!OptionHelper.isEmpty(contextNameAttributeVal)) {
+      contextName = contextNameAttributeVal;
+    }
+
+    String objectNameAsStr = attributes
+        .getValue(JMXConfiguratorAction.OBJECT_NAME_ATTRIBUTE_NAME);
+    if (OptionHelper.isEmpty(objectNameAsStr)) {
+      objectNameAsStr = MBeanUtil.getObjectNameFor(contextName,
+          LoggingMetrics.class);
+    }
+
+    ObjectName objectName = MBeanUtil.string2ObjectName(context, this,
+        objectNameAsStr);
+    if (objectName == null) {
+      addError("Failed to form ObjectName for [" + objectNameAsStr + "]");
+      return;
+    }
+
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    if (!MBeanUtil.isRegistered(mbs, objectName)) {
+      LoggingMetrics loggingMetrics = new LoggingMetrics(
+          (LoggerContext) context, mbs, objectName);
+      try {
+        mbs.registerMBean(loggingMetrics, objectName);
+      } catch (Exception e) {
+        addError("Failed to create mbean", e);
+      }
+    }
+  }
+
+  @Override
+  public void end(InterpretationContext ec, String name) throws ActionException {
+  }
+}
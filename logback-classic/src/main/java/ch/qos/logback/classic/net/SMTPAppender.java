@@ -37,8 +37,6 @@ public class SMTPAppender extends SMTPAppenderBase<ILoggingEvent> {
   // value "%logger{20} - %m" is referenced in the docs!
   static final String DEFAULT_SUBJECT_PATTERN = "%logger{20} - %m";
   
-  private int bufferSize = 512;
-  protected CyclicBuffer<ILoggingEvent> cb = new CyclicBuffer<ILoggingEvent>(bufferSize);
 
   /**
    * The default constructor will instantiate the appender with a
@@ -73,38 +71,14 @@ public class SMTPAppender extends SMTPAppenderBase<ILoggingEvent> {
    * a cyclic buffer.
    */
   protected void subAppend(ILoggingEvent event) {
-    event.prepareForDeferredProcessing();
-    cb.add(event);
-    // addInfo("Added event to the cyclic buffer: " + event.getMessage());
+    subAppend(getCyclicBuffer(event), event);
   }
 
   @Override
-  protected void fillBuffer(StringBuffer sbuf) {
-    int len = cb.length();
-    for (int i = 0; i < len; i++) {
-      // sbuf.append(MimeUtility.encodeText(layout.format(cb.get())));
-      ILoggingEvent event = cb.get();
-      sbuf.append(layout.doLayout(event));
-    }
-  }
-
-  /**
-   * The <b>BufferSize</b> option takes a positive integer representing the
-   * maximum number of logging events to collect in a cyclic buffer. When the
-   * <code>BufferSize</code> is reached, oldest events are deleted as new
-   * events are added to the buffer. By default the size of the cyclic buffer is
-   * 512 events.
-   */
-  public void setBufferSize(int bufferSize) {
-    this.bufferSize = bufferSize;
-    cb.resize(bufferSize);
-  }
-
-  /**
-   * Returns value of the <b>BufferSize</b> option.
-   */
-  public int getBufferSize() {
-    return bufferSize;
+  protected void subAppend(CyclicBuffer<ILoggingEvent> cb, ILoggingEvent event) {
+    event.prepareForDeferredProcessing();
+    cb.add(event);
+    // addInfo("Added event to the cyclic buffer: " + event.getMessage());
   }
 
   @Override
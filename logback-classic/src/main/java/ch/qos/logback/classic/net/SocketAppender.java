@@ -17,6 +17,8 @@ package ch.qos.logback.classic.net;
 import java.net.InetAddress;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEventBinaryCodec;
+import ch.qos.logback.core.net.BinaryEventCodec;
 import ch.qos.logback.core.net.SocketAppenderBase;
 import ch.qos.logback.core.spi.PreSerializationTransformer;
 
@@ -67,6 +69,10 @@ public class SocketAppender extends SocketAppenderBase<ILoggingEvent> {
         pst = new LayoutPreSerializationTransformer(layout);
       }
     }
+    if (isBinaryCodec() && layout != null) {
+      addWarn("The layout of appender [" + name
+          + "] is ignored by the binary codec.");
+    }
     super.start();
   }
 
@@ -93,4 +99,9 @@ public class SocketAppender extends SocketAppenderBase<ILoggingEvent> {
     return pst;
   }
 
+  @Override
+  protected BinaryEventCodec<ILoggingEvent> buildBinaryCodec() {
+    return new LoggingEventBinaryCodec();
+  }
+
 }
@@ -14,6 +14,7 @@
 package ch.qos.logback.classic.net;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.net.Socket;
@@ -24,6 +25,9 @@ import org.slf4j.LoggerFactory;
 
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEventBinaryCodec;
+import ch.qos.logback.core.net.BinaryEventCodec;
+import ch.qos.logback.core.net.BinaryInput;
 
 // Contributors: Moses Hohman <mmhohman@rainbow.uchicago.edu>
 
@@ -46,6 +50,9 @@ public class SocketNode implements Runnable {
   Socket socket;
   LoggerContext context;
   ObjectInputStream ois;
+  // set instead of ois when the client uses the binary codec
+  BinaryInput binaryInput;
+  BinaryEventCodec<ILoggingEvent> codec;
   SocketAddress remoteSocketAddress;
   
   static Logger logger = (Logger) LoggerFactory.getLogger(SocketNode.class);
@@ -58,8 +65,14 @@ public class SocketNode implements Runnable {
     remoteSocketAddress = socket.getRemoteSocketAddress();
     this.context = context;
     try {
-      ois = new ObjectInputStream(new BufferedInputStream(socket
-          .getInputStream()));
+      BufferedInputStream bis = new BufferedInputStream(socket
+          .getInputStream());
+      if (BinaryInput.consumeMagic(bis)) {
+        binaryInput = new BinaryInput(bis);
+        codec = new LoggingEventBinaryCodec();
+      } else {
+        ois = new ObjectInputStream(bis);
+      }
     } catch (Exception e) {
       logger.error("Could not open ObjectInputStream to " + socket, e);
     }
@@ -78,7 +91,7 @@ public class SocketNode implements Runnable {
     try {
       while (!closed) {
         // read an event from the wire
-        event = (ILoggingEvent) ois.readObject();
+        event = readEvent();
         // get a logger from the hierarchy. The name of the logger is taken to
         // be the name contained in the event.
         remoteLogger = context.getLogger(event.getLoggerName());
@@ -103,6 +116,17 @@ public class SocketNode implements Runnable {
     close();
   }
   
+  ILoggingEvent readEvent() throws IOException, ClassNotFoundException {
+    if (binaryInput != null) {
+      binaryInput.readRecord();
+      return codec.decode(binaryInput);
+    }
+    if (ois == null) {
+      throw new EOFException("No input stream");
+    }
+    return (ILoggingEvent) ois.readObject();
+  }
+
   void close() {
     if(closed) {
       return;
@@ -117,6 +141,15 @@ public class SocketNode implements Runnable {
         ois = null;
       }
     }
+    if (binaryInput != null) {
+      try {
+        binaryInput.close();
+      } catch (IOException e) {
+        logger.warn("Could not close connection.", e);
+      } finally {
+        binaryInput = null;
+      }
+    }
   }
   
   @Override
@@ -74,6 +74,11 @@ public class SyslogAppender extends SyslogAppenderBase<ILoggingEvent> {
     return LevelToSyslogSeverity.convert(event);
   }
 
+  @Override
+  protected void preprocess(ILoggingEvent eventObject) {
+    eventObject.prepareForDeferredProcessing();
+  }
+
   @Override
   protected void postProcess(Object eventObject, SyslogWriter sw) {
     ILoggingEvent event = (ILoggingEvent) eventObject;
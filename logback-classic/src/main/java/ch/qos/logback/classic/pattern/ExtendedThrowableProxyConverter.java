@@ -15,7 +15,9 @@ package ch.qos.logback.classic.pattern;
 
 import ch.qos.logback.classic.spi.ClassPackagingData;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import ch.qos.logback.classic.spi.ThrowableProxy;
 
 public class ExtendedThrowableProxyConverter extends ThrowableProxyConverter {
 
@@ -32,7 +34,11 @@ public class ExtendedThrowableProxyConverter extends ThrowableProxyConverter {
   }
 
   protected void prepareLoggingEvent(ILoggingEvent event) {
-    
+    IThrowableProxy tp = event.getThrowableProxy();
+    if (tp instanceof ThrowableProxy) {
+      // packaging data may have been deferred until now
+      ((ThrowableProxy) tp).calculateDeferredPackagingData();
+    }
   }
 
 }
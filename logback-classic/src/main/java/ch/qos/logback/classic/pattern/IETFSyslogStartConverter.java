@@ -33,6 +33,8 @@ public class IETFSyslogStartConverter extends ClassicConverter {
   SimpleDateFormat simpleFormat;
   String localHostName;
   int facility;
+  // the PRI part of the header, indexed by severity
+  final String[] priStrings = new String[8];
 
   String appName;
   String messageId;
@@ -46,6 +48,9 @@ public class IETFSyslogStartConverter extends ClassicConverter {
       return;
     }
     facility = SyslogAppenderBase.facilityStringToint(facilityStr);
+    for (int severity = 0; severity < priStrings.length; severity++) {
+      priStrings[severity] = "<" + (facility + severity) + ">1 ";
+    }
 
     Map<SyslogOption, String> options = ConverterOptions.getOptions(SyslogOption.class, getOptionList());
 
@@ -76,11 +81,7 @@ public class IETFSyslogStartConverter extends ClassicConverter {
   public String convert(ILoggingEvent event) {
     StringBuilder sb = new StringBuilder();
 
-    int pri = facility + LevelToSyslogSeverity.convert(event);
-
-    sb.append("<");
-    sb.append(pri);
-    sb.append(">1 ");
+    sb.append(priStrings[LevelToSyslogSeverity.convert(event)]);
     sb.append(computeTimeStampString(event.getTimeStamp()));
     sb.append(' ');
     sb.append(localHostName);
@@ -31,6 +31,8 @@ public class SyslogStartConverter extends ClassicConverter {
   SimpleDateFormat simpleFormat;
   String localHostName;
   int facility;
+  // the PRI part of the header, indexed by severity
+  final String[] priStrings = new String[8];
 
   public void start() {
     int errorCount = 0;
@@ -42,6 +44,9 @@ public class SyslogStartConverter extends ClassicConverter {
     }
 
     facility = SyslogAppenderBase.facilityStringToint(facilityStr);
+    for (int severity = 0; severity < priStrings.length; severity++) {
+      priStrings[severity] = "<" + (facility + severity) + ">";
+    }
 
     localHostName = getLocalHostname();
     try {
@@ -60,11 +65,7 @@ public class SyslogStartConverter extends ClassicConverter {
   public String convert(ILoggingEvent event) {
     StringBuilder sb = new StringBuilder();
 
-    int pri = facility + LevelToSyslogSeverity.convert(event);
-
-    sb.append("<");
-    sb.append(pri);
-    sb.append(">");
+    sb.append(priStrings[LevelToSyslogSeverity.convert(event)]);
     sb.append(computeTimeStampString(event.getTimeStamp()));
     sb.append(' ');
     sb.append(localHostName);
@@ -0,0 +1,34 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.pattern;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+
+/**
+ * Outputs the fingerprint of the event's stack trace, or nothing if the event
+ * has no throwable. Log processors can use it to group identical errors.
+ */
+public class ThrowableFingerprintConverter extends ClassicConverter {
+
+  public String convert(ILoggingEvent event) {
+    IThrowableProxy tp = event.getThrowableProxy();
+    if (tp == null) {
+      return CoreConstants.EMPTY_STRING;
+    }
+    return ThrowableProxyUtil.fingerprint(tp);
+  }
+}
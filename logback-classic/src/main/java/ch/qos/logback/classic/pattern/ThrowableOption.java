@@ -0,0 +1,32 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.pattern;
+
+/**
+ * Options of the form <code>KEY=value</code> accepted by
+ * {@link ThrowableProxyConverter} after the length option, e.g.
+ * <code>%ex{full, FULL_EVERY=100}</code>.
+ * 
+ * <ul>
+ * <li><b>FULL_EVERY</b>: print the full stack trace of a given
+ * {@link ch.qos.logback.classic.spi.ThrowableProxyUtil#fingerprint fingerprint}
+ * on its first occurrence and then only every FULL_EVERY occurrences. Other
+ * occurrences are printed as a one line reference.</li>
+ * <li><b>CACHE_SIZE</b>: the number of fingerprints remembered, 256 by
+ * default. The least recently seen fingerprints are forgotten first.</li>
+ * </ul>
+ */
+public enum ThrowableOption {
+  FULL_EVERY, CACHE_SIZE
+}
@@ -30,6 +30,12 @@ import ch.qos.logback.core.status.ErrorStatus;
 /**
  * Add a stack trace in case the event contains a Throwable.
  * 
+ * <p>
+ * When the {@link ThrowableOption#FULL_EVERY} option is set, stack traces are
+ * identified by their fingerprint. Repeated occurrences of the same stack
+ * trace are then printed as a single reference line, except for every
+ * FULL_EVERY-th occurrence which is printed in full.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public class ThrowableProxyConverter extends ThrowableHandlingConverter {
@@ -40,6 +46,13 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
   final int MAX_ERROR_COUNT = 4;
   int errorCount = 0;
 
+  static final int DEFAULT_FINGERPRINT_CACHE_SIZE = 256;
+
+  int fullEvery = 0;
+  int fingerprintCacheSize = DEFAULT_FINGERPRINT_CACHE_SIZE;
+  // fingerprints of recently printed stack traces, guarded by itself
+  LRUCache<String, Occurrences> recentTraces;
+
   @SuppressWarnings("unchecked")
   public void start() {
 
@@ -70,6 +83,10 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
       final int optionListSize = optionList.size();
       for (int i = 1; i < optionListSize; i++) {
         String evaluatorStr = (String) optionList.get(i);
+        if (evaluatorStr.indexOf('=') != -1) {
+          handleOption(evaluatorStr);
+          continue;
+        }
         Context context = getContext();
         Map evaluatorMap = (Map) context.getObject(CoreConstants.EVALUATOR_MAP);
         EventEvaluator<ILoggingEvent> ee = (EventEvaluator<ILoggingEvent>) evaluatorMap
@@ -77,9 +94,36 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
         addEvaluator(ee);
       }
     }
+    if (fullEvery > 0) {
+      recentTraces = new LRUCache<String, Occurrences>(fingerprintCacheSize);
+    }
     super.start();
   }
 
+  private void handleOption(String optionStr) {
+    int index = optionStr.indexOf('=');
+    String key = optionStr.substring(0, index).trim();
+    String value = optionStr.substring(index + 1).trim();
+    try {
+      switch (ThrowableOption.valueOf(key)) {
+      case FULL_EVERY:
+        fullEvery = Integer.parseInt(value);
+        break;
+      case CACHE_SIZE:
+        fingerprintCacheSize = Integer.parseInt(value);
+        if (fingerprintCacheSize < 1) {
+          addError("Invalid cache size [" + value + "]");
+          fingerprintCacheSize = DEFAULT_FINGERPRINT_CACHE_SIZE;
+        }
+        break;
+      }
+    } catch (NumberFormatException nfe) {
+      addError("Could not parse [" + value + "] as an integer");
+    } catch (IllegalArgumentException iae) {
+      addError("Unknown option [" + key + "]");
+    }
+  }
+
   private void addEvaluator(EventEvaluator<ILoggingEvent> ee) {
     if (evaluatorList == null) {
       evaluatorList = new ArrayList<EventEvaluator<ILoggingEvent>>();
@@ -89,6 +133,7 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
 
   public void stop() {
     evaluatorList = null;
+    recentTraces = null;
     super.stop();
   }
 
@@ -96,13 +141,28 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
     // nop
   }
 
+  /**
+   * Invoked before printing the throwable of <code>event</code>.
+   */
+  protected void prepareLoggingEvent(ILoggingEvent event) {
+    // nop
+  }
+
   public String convert(ILoggingEvent event) {
     StringBuilder buf = new StringBuilder(32);
+    convertTo(buf, event);
+    return buf.toString();
+  }
 
+  /**
+   * The stack trace is printed directly into the caller's buffer.
+   */
+  public void convertTo(StringBuilder buf, ILoggingEvent event) {
     IThrowableProxy tp = event.getThrowableProxy();
     if (tp == null) {
-      return CoreConstants.EMPTY_STRING;
+      return;
     }
+    prepareLoggingEvent(event);
 
     // an evaluator match will cause stack printing to be skipped
     if (evaluatorList != null) {
@@ -132,7 +192,17 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
       }
 
       if (!printStack) {
-        return CoreConstants.EMPTY_STRING;
+        return;
+      }
+    }
+
+    String fingerprint = null;
+    if (recentTraces != null) {
+      fingerprint = ThrowableProxyUtil.fingerprint(tp);
+      long count = recordOccurrence(fingerprint);
+      if ((count - 1) % fullEvery != 0) {
+        printReference(buf, tp, fingerprint, count);
+        return;
       }
     }
 
@@ -140,7 +210,37 @@ public class ThrowableProxyConverter extends ThrowableHandlingConverter {
       printThrowableProxy(buf, tp);
       tp = tp.getCause();
     }
-    return buf.toString();
+    if (fingerprint != null) {
+      buf.append("\t... stack trace ").append(fingerprint).append(
+          CoreConstants.LINE_SEPARATOR);
+    }
+  }
+
+  /**
+   * Return the number of times, including this one, that a stack trace with
+   * the given fingerprint has been seen.
+   */
+  long recordOccurrence(String fingerprint) {
+    synchronized (recentTraces) {
+      Occurrences occurrences = recentTraces.get(fingerprint);
+      if (occurrences == null) {
+        occurrences = new Occurrences();
+        recentTraces.put(fingerprint, occurrences);
+      }
+      return ++occurrences.count;
+    }
+  }
+
+  void printReference(StringBuilder buf, IThrowableProxy tp,
+      String fingerprint, long count) {
+    ThrowableProxyUtil.printFirstLine(buf, tp);
+    buf.append(CoreConstants.LINE_SEPARATOR);
+    buf.append("\t... stack trace ").append(fingerprint).append(" seen ")
+        .append(count).append(" times").append(CoreConstants.LINE_SEPARATOR);
+  }
+
+  static class Occurrences {
+    long count;
   }
 
   void printThrowableProxy(StringBuilder buf, IThrowableProxy tp) {
@@ -0,0 +1,71 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+/**
+ * A {@link CallerDataExtractor} which inspects as few frames as possible.
+ * 
+ * <p>Frames are read individually when the JVM permits it (see
+ * {@link ThrowableFrames}), so that only the frames up to the logger boundary
+ * plus at most <code>maxDepth</code> caller frames are materialized, instead
+ * of the whole stack.
+ * 
+ * <p>The index of the logger boundary is not cached. The frame identifying
+ * the call site is the caller frame, located past the boundary, so it cannot
+ * be obtained without the scan such a cache would spare.
+ */
+public class BoundedCallerDataExtractor implements CallerDataExtractor {
+
+  public StackTraceElement[] extract(Throwable t, String fqnOfInvokingClass,
+      int maxDepth) {
+    if (t == null) {
+      return null;
+    }
+
+    ThrowableFrames frames = new ThrowableFrames(t);
+    int depth = frames.getDepth();
+    int found = scan(frames, fqnOfInvokingClass);
+
+    // we failed to extract caller data
+    if (found == CallerData.LINE_NA) {
+      return CallerData.EMPTY_CALLER_DATA_ARRAY;
+    }
+
+    int availableDepth = depth - found;
+    int desiredDepth = maxDepth < availableDepth ? maxDepth : availableDepth;
+    StackTraceElement[] callerDataArray = new StackTraceElement[desiredDepth];
+    for (int i = 0; i < desiredDepth; i++) {
+      callerDataArray[i] = frames.get(found + i);
+    }
+    return callerDataArray;
+  }
+
+  /**
+   * Same logic as in {@link CallerData#extract}: the caller is the frame
+   * following the first run of frames belonging to the invoking class.
+   */
+  private int scan(ThrowableFrames frames, String fqnOfInvokingClass) {
+    int found = CallerData.LINE_NA;
+    int depth = frames.getDepth();
+    for (int i = 0; i < depth; i++) {
+      if (CallerData.isDirectlyInvokingClass(frames.get(i).getClassName(),
+          fqnOfInvokingClass)) {
+        found = i + 1;
+      } else if (found != CallerData.LINE_NA) {
+        break;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+/**
+ * Strategy used by {@link LoggingEvent} to extract caller data from the
+ * Throwable captured on the logging thread. The strategy in use is set on the
+ * {@link ch.qos.logback.classic.LoggerContext LoggerContext}.
+ * 
+ * <p>Implementations must be thread-safe.
+ */
+public interface CallerDataExtractor {
+
+  /**
+   * Extract at most <code>maxDepth</code> frames located below the frames of
+   * <code>fqnOfInvokingClass</code>.
+   * 
+   * @return the caller data, {@link CallerData#EMPTY_CALLER_DATA_ARRAY} if
+   *         the invoking class could not be found, or null if <code>t</code>
+   *         is null
+   */
+  StackTraceElement[] extract(Throwable t, String fqnOfInvokingClass,
+      int maxDepth);
+}
@@ -0,0 +1,27 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+/**
+ * Extracts caller data by materializing the whole stack trace of the
+ * Throwable, see {@link CallerData#extract(Throwable, String, int)}. This is
+ * the default strategy.
+ */
+public class FullStackCallerDataExtractor implements CallerDataExtractor {
+
+  public StackTraceElement[] extract(Throwable t, String fqnOfInvokingClass,
+      int maxDepth) {
+    return CallerData.extract(t, fqnOfInvokingClass, maxDepth);
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.helpers.StripedCounter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Counters maintained by a {@link ch.qos.logback.classic.LoggerContext
+ * LoggerContext}: the number of logging events created, by level, and the
+ * decisions returned by the turbo filter chain. Decisions are only counted
+ * when at least one turbo filter is installed.
+ * 
+ * <p>Counting is disabled by default, and enabled while a
+ * {@link ch.qos.logback.classic.jmx.LoggingMetrics LoggingMetrics} MBean is
+ * registered for the context, so that logging calls do not pay for counters
+ * nobody reads.
+ * 
+ * <p>All updates are lock-free.
+ */
+public class LoggerContextMetrics {
+
+  private volatile boolean enabled = false;
+
+  final StripedCounter traceEvents = new StripedCounter();
+  final StripedCounter debugEvents = new StripedCounter();
+  final StripedCounter infoEvents = new StripedCounter();
+  final StripedCounter warnEvents = new StripedCounter();
+  final StripedCounter errorEvents = new StripedCounter();
+
+  final StripedCounter turboAccept = new StripedCounter();
+  final StripedCounter turboNeutral = new StripedCounter();
+  final StripedCounter turboDeny = new StripedCounter();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void recordEvent(Level level) {
+    counterFor(level).increment();
+  }
+
+  /**
+   * Count the decision, if enabled, and return it unchanged.
+   */
+  public FilterReply recordTurboFilterDecision(FilterReply reply) {
+    if (!enabled) {
+      return reply;
+    }
+    switch (reply) {
+    case ACCEPT:
+      turboAccept.increment();
+      break;
+    case DENY:
+      turboDeny.increment();
+      break;
+    default:
+      turboNeutral.increment();
+    }
+    return reply;
+  }
+
+  StripedCounter counterFor(Level level) {
+    switch (level.levelInt) {
+    case Level.TRACE_INT:
+      return traceEvents;
+    case Level.DEBUG_INT:
+      return debugEvents;
+    case Level.INFO_INT:
+      return infoEvents;
+    case Level.WARN_INT:
+      return warnEvents;
+    default:
+      return errorEvents;
+    }
+  }
+
+  /**
+   * The number of events created for the given level.
+   */
+  public long getEventCount(Level level) {
+    return counterFor(level).get();
+  }
+
+  public long getTurboFilterAcceptCount() {
+    return turboAccept.get();
+  }
+
+  public long getTurboFilterNeutralCount() {
+    return turboNeutral.get();
+  }
+
+  public long getTurboFilterDenyCount() {
+    return turboDeny.get();
+  }
+
+  public void reset() {
+    traceEvents.reset();
+    debugEvents.reset();
+    infoEvents.reset();
+    warnEvents.reset();
+    errorEvents.reset();
+    turboAccept.reset();
+    turboNeutral.reset();
+    turboDeny.reset();
+  }
+}
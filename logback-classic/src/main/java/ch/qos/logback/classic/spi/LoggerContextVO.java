@@ -47,6 +47,13 @@ public class LoggerContextVO implements Serializable {
     this.birthTime = lc.getBithTime();
   }
 
+  public LoggerContextVO(String name, Map<String, String> propertyMap,
+      long birthTime) {
+    this.name = name;
+    this.propertyMap = propertyMap;
+    this.birthTime = birthTime;
+  }
+
   public String getName() {
     return name;
   }
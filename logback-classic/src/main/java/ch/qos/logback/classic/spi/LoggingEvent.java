@@ -13,7 +13,6 @@
  */
 package ch.qos.logback.classic.spi;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.slf4j.MDC;
@@ -101,7 +100,12 @@ public class LoggingEvent implements ILoggingEvent {
       this.throwableProxy = new ThrowableProxy(throwable);
       LoggerContext lc = logger.getLoggerContext();
       if (lc.isPackagingDataEnabled()) {
-        this.throwableProxy.calculatePackagingData();
+        if (lc.isLazyPackagingData()) {
+          this.throwableProxy.deferPackagingData(lc.getPackagingDataCache());
+        } else {
+          this.throwableProxy.calculatePackagingData(lc
+              .getPackagingDataCache());
+        }
       }
     }
 
@@ -175,10 +179,8 @@ public class LoggingEvent implements ILoggingEvent {
   public void prepareForDeferredProcessing() {
     this.callerContext = new Throwable();
     this.getThreadName();
-    // fixes http://jira.qos.ch/browse/LBCLASSIC-104
-    if (mdcPropertyMap != null) {
-      mdcPropertyMap = new HashMap<String, String>(mdcPropertyMap);
-    }
+    // LBCLASSIC-104 no longer requires a copy of mdcPropertyMap here since
+    // LogbackMDCAdapter never modifies a map once handed out to an event
   }
 
   public LoggerContextVO getLoggerContextVO() {
@@ -224,8 +226,8 @@ public class LoggingEvent implements ILoggingEvent {
   public StackTraceElement[] getCallerData() {
     if (callerDataArray == null) {
       Throwable t = (callerContext != null) ? callerContext : new Throwable();
-      callerDataArray = CallerData.extract(t, fqnOfLoggerClass,
-          loggerContext.getMaxCallerDataDepth());
+      callerDataArray = loggerContext.getCallerDataExtractor().extract(t,
+          fqnOfLoggerClass, loggerContext.getMaxCallerDataDepth());
     }
     return callerDataArray;
   }
@@ -0,0 +1,286 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.slf4j.message.SimpleMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.net.BinaryEventCodec;
+import ch.qos.logback.core.net.BinaryInput;
+import ch.qos.logback.core.net.BinaryOutput;
+
+/**
+ * Encodes {@link ILoggingEvent} instances in the compact binary format and
+ * decodes them as {@link LoggingEventVO} instances.
+ * 
+ * <p>
+ * Logger names, thread names, MDC keys and stack trace elements go through the
+ * connection's string dictionary. Timestamps are sent as the difference with
+ * the previous event. The logger context is sent only when it differs from
+ * the one sent with the previous event.
+ * 
+ * <p>
+ * The message is sent in its formatted form and is decoded as a
+ * {@link SimpleMessage}. Message parameters are thus not transmitted.
+ * 
+ * <p>
+ * Everything which may throw, e.g. formatting the message, is computed before
+ * the first byte of the record is written, and the state of the codec is
+ * updated only once the record is complete.
+ */
+public class LoggingEventBinaryCodec implements BinaryEventCodec<ILoggingEvent> {
+
+  static final int CONTEXT_FLAG = 0x01;
+  static final int MARKER_FLAG = 0x02;
+  static final int MDC_FLAG = 0x04;
+  static final int THROWABLE_FLAG = 0x08;
+  static final int CALLER_DATA_FLAG = 0x10;
+
+  long lastTimeStamp;
+  LoggerContextVO lastContextVO;
+
+  public void encode(ILoggingEvent event, BinaryOutput out) {
+    LoggerContextVO contextVO = event.getLoggerContextVO();
+    Marker marker = event.getMarker();
+    Map<String, String> mdc = event.getMDCPropertyMap();
+    IThrowableProxy tp = event.getThrowableProxy();
+    // add caller data only if it is there already, as LoggingEventVO does
+    StackTraceElement[] callerData = event.hasCallerData() ? event
+        .getCallerData() : null;
+    String message = event.getFormattedMessage();
+    if (tp instanceof ThrowableProxy) {
+      // packaging data cannot be computed on the receiving end
+      ((ThrowableProxy) tp).calculateDeferredPackagingData();
+    }
+
+    int flags = 0;
+    if (contextVO != null && contextVO != lastContextVO) {
+      flags |= CONTEXT_FLAG;
+    }
+    if (marker != null) {
+      flags |= MARKER_FLAG;
+    }
+    if (mdc != null) {
+      flags |= MDC_FLAG;
+    }
+    if (tp != null) {
+      flags |= THROWABLE_FLAG;
+    }
+    if (callerData != null) {
+      flags |= CALLER_DATA_FLAG;
+    }
+
+    out.writeByte(flags);
+    long timeStamp = event.getTimeStamp();
+    out.writeSignedVarLong(timeStamp - lastTimeStamp);
+    out.writeSignedVarInt(event.getLevel().toInt());
+    out.writeDictionaryString(event.getLoggerName());
+    out.writeDictionaryString(event.getThreadName());
+    out.writeString(message);
+
+    if ((flags & CONTEXT_FLAG) != 0) {
+      encodeContext(contextVO, out);
+    }
+    if (marker != null) {
+      encodeMarker(marker, out);
+    }
+    if (mdc != null) {
+      encodeMap(mdc, out);
+    }
+    if (tp != null) {
+      encodeThrowableProxy(tp, out);
+    }
+    if (callerData != null) {
+      out.writeVarInt(callerData.length);
+      for (StackTraceElement ste : callerData) {
+        encodeStackTraceElement(ste, out);
+      }
+    }
+
+    lastTimeStamp = timeStamp;
+    if ((flags & CONTEXT_FLAG) != 0) {
+      lastContextVO = contextVO;
+    }
+  }
+
+  private void encodeContext(LoggerContextVO contextVO, BinaryOutput out) {
+    out.writeDictionaryString(contextVO.getName());
+    out.writeVarLong(contextVO.getBirthTime());
+    Map<String, String> propertyMap = contextVO.getPropertyMap();
+    out.writeBoolean(propertyMap != null);
+    if (propertyMap != null) {
+      encodeMap(propertyMap, out);
+    }
+  }
+
+  private void encodeMap(Map<String, String> map, BinaryOutput out) {
+    out.writeVarInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      out.writeDictionaryString(entry.getKey());
+      out.writeString(entry.getValue());
+    }
+  }
+
+  private void encodeMarker(Marker marker, BinaryOutput out) {
+    out.writeDictionaryString(marker.getName());
+    int references = 0;
+    if (marker.hasReferences()) {
+      for (Iterator<?> it = marker.iterator(); it.hasNext(); it.next()) {
+        references++;
+      }
+    }
+    out.writeVarInt(references);
+    if (references > 0) {
+      for (Iterator<?> it = marker.iterator(); it.hasNext();) {
+        encodeMarker((Marker) it.next(), out);
+      }
+    }
+  }
+
+  private void encodeThrowableProxy(IThrowableProxy tp, BinaryOutput out) {
+    out.writeDictionaryString(tp.getClassName());
+    out.writeString(tp.getMessage());
+    out.writeVarInt(tp.getCommonFrames());
+    StackTraceElementProxy[] stepArray = tp.getStackTraceElementProxyArray();
+    out.writeVarInt(stepArray.length);
+    for (StackTraceElementProxy step : stepArray) {
+      encodeStackTraceElement(step.getStackTraceElement(), out);
+      ClassPackagingData cpd = step.getClassPackagingData();
+      out.writeBoolean(cpd != null);
+      if (cpd != null) {
+        out.writeDictionaryString(cpd.getCodeLocation());
+        out.writeDictionaryString(cpd.getVersion());
+        out.writeBoolean(cpd.isExact());
+      }
+    }
+    IThrowableProxy cause = tp.getCause();
+    out.writeBoolean(cause != null);
+    if (cause != null) {
+      encodeThrowableProxy(cause, out);
+    }
+  }
+
+  private void encodeStackTraceElement(StackTraceElement ste, BinaryOutput out) {
+    out.writeDictionaryString(ste.getClassName());
+    out.writeDictionaryString(ste.getMethodName());
+    out.writeDictionaryString(ste.getFileName());
+    out.writeSignedVarInt(ste.getLineNumber());
+  }
+
+  public ILoggingEvent decode(BinaryInput in) throws IOException {
+    LoggingEventVO event = new LoggingEventVO();
+    int flags = in.readByte();
+    lastTimeStamp += in.readSignedVarLong();
+    event.timeStamp = lastTimeStamp;
+    event.level = Level.toLevel(in.readSignedVarInt());
+    event.loggerName = in.readDictionaryString();
+    event.threadName = in.readDictionaryString();
+    String message = in.readString();
+    if (message != null) {
+      event.message = new SimpleMessage(message);
+    }
+
+    if ((flags & CONTEXT_FLAG) != 0) {
+      lastContextVO = decodeContext(in);
+    }
+    event.loggerContextVO = lastContextVO;
+    if ((flags & MARKER_FLAG) != 0) {
+      event.marker = decodeMarker(in);
+    }
+    if ((flags & MDC_FLAG) != 0) {
+      event.mdcPropertyMap = decodeMap(in);
+    }
+    if ((flags & THROWABLE_FLAG) != 0) {
+      event.throwableProxy = decodeThrowableProxy(in);
+    }
+    if ((flags & CALLER_DATA_FLAG) != 0) {
+      StackTraceElement[] callerData = new StackTraceElement[in.readVarInt()];
+      for (int i = 0; i < callerData.length; i++) {
+        callerData[i] = decodeStackTraceElement(in);
+      }
+      event.callerDataArray = callerData;
+    }
+    return event;
+  }
+
+  private LoggerContextVO decodeContext(BinaryInput in) throws IOException {
+    String name = in.readDictionaryString();
+    long birthTime = in.readVarLong();
+    Map<String, String> propertyMap = null;
+    if (in.readBoolean()) {
+      propertyMap = decodeMap(in);
+    }
+    return new LoggerContextVO(name, propertyMap, birthTime);
+  }
+
+  private Map<String, String> decodeMap(BinaryInput in) throws IOException {
+    int size = in.readVarInt();
+    Map<String, String> map = new HashMap<String, String>();
+    for (int i = 0; i < size; i++) {
+      String key = in.readDictionaryString();
+      map.put(key, in.readString());
+    }
+    return map;
+  }
+
+  private Marker decodeMarker(BinaryInput in) throws IOException {
+    Marker marker = MarkerFactory.getDetachedMarker(in.readDictionaryString());
+    int references = in.readVarInt();
+    for (int i = 0; i < references; i++) {
+      marker.add(decodeMarker(in));
+    }
+    return marker;
+  }
+
+  private ThrowableProxyVO decodeThrowableProxy(BinaryInput in)
+      throws IOException {
+    ThrowableProxyVO tpvo = new ThrowableProxyVO();
+    tpvo.className = in.readDictionaryString();
+    tpvo.message = in.readString();
+    tpvo.commonFramesCount = in.readVarInt();
+    StackTraceElementProxy[] stepArray = new StackTraceElementProxy[in
+        .readVarInt()];
+    for (int i = 0; i < stepArray.length; i++) {
+      stepArray[i] = new StackTraceElementProxy(decodeStackTraceElement(in));
+      if (in.readBoolean()) {
+        String codeLocation = in.readDictionaryString();
+        String version = in.readDictionaryString();
+        boolean exact = in.readBoolean();
+        stepArray[i].setClassPackagingData(new ClassPackagingData(
+            codeLocation, version, exact));
+      }
+    }
+    tpvo.stackTraceElementProxyArray = stepArray;
+    if (in.readBoolean()) {
+      tpvo.cause = decodeThrowableProxy(in);
+    }
+    return tpvo;
+  }
+
+  private StackTraceElement decodeStackTraceElement(BinaryInput in)
+      throws IOException {
+    String className = in.readDictionaryString();
+    String methodName = in.readDictionaryString();
+    String fileName = in.readDictionaryString();
+    int lineNumber = in.readSignedVarInt();
+    return new StackTraceElement(className, methodName, fileName, lineNumber);
+  }
+}
@@ -36,18 +36,18 @@ public class LoggingEventVO implements ILoggingEvent, Serializable {
 
   private static final long serialVersionUID = 6553722650255690312L;
 
-  private String threadName;
-  private String loggerName;
-  private LoggerContextVO loggerContextVO;
-
-  private transient Level level;
-  private Message message;
-
-  private ThrowableProxyVO throwableProxy;
-  private StackTraceElement[] callerDataArray;
-  private Marker marker;
-  private Map<String, String> mdcPropertyMap;
-  private long timeStamp;
+  String threadName;
+  String loggerName;
+  LoggerContextVO loggerContextVO;
+
+  transient Level level;
+  Message message;
+
+  ThrowableProxyVO throwableProxy;
+  StackTraceElement[] callerDataArray;
+  Marker marker;
+  Map<String, String> mdcPropertyMap;
+  long timeStamp;
 
   public static LoggingEventVO build(ILoggingEvent le) {
     LoggingEventVO ledo = new LoggingEventVO();
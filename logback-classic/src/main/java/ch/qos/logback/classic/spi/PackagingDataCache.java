@@ -0,0 +1,176 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe and size-bounded cache of {@link ClassPackagingData} keyed by
+ * class name and class loader. A single instance is shared by all
+ * {@link ThrowableProxy} instances of a {@link ch.qos.logback.classic.LoggerContext}
+ * so that the cost of locating the jar and version of a class is paid once per
+ * class instead of once per logged exception.
+ * 
+ * <p>
+ * Class loaders are only weakly referenced. When the cache is full, arbitrary
+ * entries are evicted to make room for new ones.
+ */
+public class PackagingDataCache {
+
+  public static final int DEFAULT_MAX_SIZE = 2048;
+
+  final ConcurrentHashMap<Key, ClassPackagingData> map = new ConcurrentHashMap<Key, ClassPackagingData>();
+  final int maxSize;
+  final AtomicInteger size = new AtomicInteger(0);
+
+  final AtomicLong hitCount = new AtomicLong(0);
+  final AtomicLong missCount = new AtomicLong(0);
+
+  public PackagingDataCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public PackagingDataCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Return the packaging data cached for the given class or null if there is
+   * none.
+   * 
+   * @param classLoader
+   *                the loader which defined the class if <code>exact</code>
+   *                is true, or the loader used to look the class up
+   *                otherwise; may be null
+   */
+  public ClassPackagingData get(String className, ClassLoader classLoader,
+      boolean exact) {
+    ClassPackagingData cpd = map.get(new Key(className, classLoader, exact));
+    if (cpd == null) {
+      missCount.incrementAndGet();
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return cpd;
+  }
+
+  public void put(String className, ClassLoader classLoader, boolean exact,
+      ClassPackagingData cpd) {
+    if (map.putIfAbsent(new Key(className, classLoader, exact), cpd) != null) {
+      return;
+    }
+    if (size.incrementAndGet() > maxSize) {
+      evict();
+    }
+  }
+
+  private void evict() {
+    Iterator<Key> it = map.keySet().iterator();
+    // evict an eighth of the entries at once so that eviction does not occur
+    // on every insertion once the cache is full
+    int toEvict = Math.max(1, maxSize / 8);
+    while (toEvict > 0 && it.hasNext()) {
+      // another thread may be evicting the same entry
+      if (map.remove(it.next()) != null) {
+        size.decrementAndGet();
+        toEvict--;
+      }
+    }
+  }
+
+  public void clear() {
+    Iterator<Key> it = map.keySet().iterator();
+    while (it.hasNext()) {
+      if (map.remove(it.next()) != null) {
+        size.decrementAndGet();
+      }
+    }
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * The number of lookups which found an entry.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * The number of lookups which did not find an entry.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  static class Key {
+    final String className;
+    final WeakReference<ClassLoader> classLoaderRef;
+    final boolean exact;
+    final int hashCode;
+
+    Key(String className, ClassLoader classLoader, boolean exact) {
+      this.className = className;
+      this.classLoaderRef = classLoader == null ? null
+          : new WeakReference<ClassLoader>(classLoader);
+      this.exact = exact;
+      this.hashCode = 31 * (31 * className.hashCode() + System
+          .identityHashCode(classLoader))
+          + (exact ? 1 : 0);
+    }
+
+    ClassLoader getClassLoader() {
+      return classLoaderRef == null ? null : classLoaderRef.get();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      if (hashCode != other.hashCode || exact != other.exact
+          || !className.equals(other.className)) {
+        return false;
+      }
+      if (classLoaderRef == null || other.classLoaderRef == null) {
+        return classLoaderRef == other.classLoaderRef;
+      }
+      ClassLoader cl = getClassLoader();
+      // a collected class loader only matches its own key
+      return cl != null && cl == other.getClassLoader();
+    }
+  }
+}
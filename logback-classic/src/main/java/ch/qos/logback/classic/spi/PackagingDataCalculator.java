@@ -14,7 +14,6 @@
 package ch.qos.logback.classic.spi;
 
 import java.net.URL;
-import java.util.HashMap;
 
 import sun.reflect.Reflection;
 
@@ -29,7 +28,7 @@ public class PackagingDataCalculator {
 
   final static StackTraceElementProxy[] STEP_ARRAY_TEMPLATE = new StackTraceElementProxy[0];
 
-  HashMap<String, ClassPackagingData> cache = new HashMap<String, ClassPackagingData>();
+  final PackagingDataCache cache;
 
   private static boolean GET_CALLER_CLASS_METHOD_AVAILABLE = false;
 
@@ -51,6 +50,15 @@ public class PackagingDataCalculator {
   }
 
   public PackagingDataCalculator() {
+    this(new PackagingDataCache());
+  }
+
+  /**
+   * @param cache
+   *                a cache which may be shared with other calculators
+   */
+  public PackagingDataCalculator(PackagingDataCache cache) {
+    this.cache = cache;
   }
 
   public void calculate(IThrowableProxy tp) {
@@ -111,21 +119,27 @@ public class PackagingDataCalculator {
 
   private ClassPackagingData calculateByExactType(Class type) {
     String className = type.getName();
-    ClassPackagingData cpd = cache.get(className);
+    ClassLoader classLoader = type.getClassLoader();
+    ClassPackagingData cpd = cache.get(className, classLoader, true);
     if (cpd != null) {
       return cpd;
     }
     String version = getImplementationVersion(type);
     String codeLocation = getCodeLocation(type);
     cpd = new ClassPackagingData(codeLocation, version);
-    cache.put(className, cpd);
+    cache.put(className, classLoader, true, cpd);
     return cpd;
   }
 
   private ClassPackagingData computeBySTEP(StackTraceElementProxy step,
       ClassLoader lastExactClassLoader) {
     String className = step.ste.getClassName();
-    ClassPackagingData cpd = cache.get(className);
+    // the class is looked up through this loader first
+    ClassLoader classLoader = lastExactClassLoader;
+    if (classLoader == null) {
+      classLoader = Thread.currentThread().getContextClassLoader();
+    }
+    ClassPackagingData cpd = cache.get(className, classLoader, false);
     if (cpd != null) {
       return cpd;
     }
@@ -133,7 +147,7 @@ public class PackagingDataCalculator {
     String version = getImplementationVersion(type);
     String codeLocation = getCodeLocation(type);
     cpd = new ClassPackagingData(codeLocation, version, false);
-    cache.put(className, cpd);
+    cache.put(className, classLoader, false, cpd);
     return cpd;
   }
 
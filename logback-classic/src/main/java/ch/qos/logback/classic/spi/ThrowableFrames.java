@@ -0,0 +1,96 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.lang.reflect.Method;
+
+/**
+ * Read-only view of the frames of a Throwable. Where the JVM allows it, frames
+ * are fetched one at a time by means of the package-private
+ * <code>Throwable.getStackTraceDepth()</code> and
+ * <code>Throwable.getStackTraceElement(int)</code> methods, so that only the
+ * frames actually inspected are turned into StackTraceElement instances. On
+ * other JVMs, the whole stack trace is obtained via
+ * {@link Throwable#getStackTrace()}.
+ */
+class ThrowableFrames {
+
+  static final Method DEPTH_METHOD;
+  static final Method ELEMENT_METHOD;
+
+  static {
+    Method depthMethod = null;
+    Method elementMethod = null;
+    try {
+      depthMethod = Throwable.class.getDeclaredMethod("getStackTraceDepth");
+      elementMethod = Throwable.class.getDeclaredMethod(
+          "getStackTraceElement", int.class);
+      depthMethod.setAccessible(true);
+      elementMethod.setAccessible(true);
+      // make sure that the methods behave as expected
+      Throwable probe = new Throwable();
+      int depth = (Integer) depthMethod.invoke(probe);
+      if (depth < 1 || !(elementMethod.invoke(probe, 0) instanceof StackTraceElement)) {
+        depthMethod = null;
+        elementMethod = null;
+      }
+    } catch (Throwable e) {
+      // methods absent or inaccessible, fall back to getStackTrace()
+      depthMethod = null;
+      elementMethod = null;
+    }
+    DEPTH_METHOD = depthMethod;
+    ELEMENT_METHOD = elementMethod;
+  }
+
+  final Throwable throwable;
+  StackTraceElement[] steArray;
+  final int depth;
+
+  ThrowableFrames(Throwable throwable) {
+    this.throwable = throwable;
+    int d = -1;
+    if (DEPTH_METHOD != null) {
+      try {
+        d = (Integer) DEPTH_METHOD.invoke(throwable);
+      } catch (Exception e) {
+        d = -1;
+      }
+    }
+    if (d < 0) {
+      steArray = throwable.getStackTrace();
+      d = steArray.length;
+    }
+    this.depth = d;
+  }
+
+  static boolean isFrameAccessSupported() {
+    return ELEMENT_METHOD != null;
+  }
+
+  int getDepth() {
+    return depth;
+  }
+
+  StackTraceElement get(int index) {
+    if (steArray == null) {
+      try {
+        return (StackTraceElement) ELEMENT_METHOD.invoke(throwable, index);
+      } catch (Exception e) {
+        steArray = throwable.getStackTrace();
+      }
+    }
+    return steArray[index];
+  }
+}
@@ -25,7 +25,10 @@ public class ThrowableProxy implements IThrowableProxy {
   ThrowableProxy cause;
 
   private transient PackagingDataCalculator packagingDataCalculator;
+  private transient PackagingDataCache packagingDataCache;
   private boolean calculatedPackageData = false;
+  private boolean packagingDataDeferred = false;
+  private volatile String fingerprint;
 
   public ThrowableProxy(Throwable throwable) {
    
@@ -80,17 +83,36 @@ public class ThrowableProxy implements IThrowableProxy {
     return cause;
   }
 
+  /**
+   * The fingerprint of this proxy's stack trace, computed once.
+   * 
+   * @see ThrowableProxyUtil#fingerprint(IThrowableProxy)
+   */
+  public String getFingerprint() {
+    String fp = fingerprint;
+    if (fp == null) {
+      fp = ThrowableProxyUtil.computeFingerprint(this);
+      fingerprint = fp;
+    }
+    return fp;
+  }
+
   public PackagingDataCalculator getPackagingDataCalculator() {
     // if original instance (non-deserialized), and packagingDataCalculator
     // is not already initialized, then create an instance.
     // here we assume that (throwable == null) for deserialized instances
     if (throwable != null && packagingDataCalculator == null) {
-      packagingDataCalculator = new PackagingDataCalculator();
+      if (packagingDataCache == null) {
+        packagingDataCalculator = new PackagingDataCalculator();
+      } else {
+        packagingDataCalculator = new PackagingDataCalculator(
+            packagingDataCache);
+      }
     }
     return packagingDataCalculator;
   }
 
-  public void calculatePackagingData() {
+  public synchronized void calculatePackagingData() {
     if (calculatedPackageData) {
       return;
     }
@@ -101,6 +123,41 @@ public class ThrowableProxy implements IThrowableProxy {
     }
   }
 
+  /**
+   * Compute packaging data using <code>cache</code>, typically the cache
+   * shared by all proxies of a logger context.
+   */
+  public synchronized void calculatePackagingData(PackagingDataCache cache) {
+    this.packagingDataCache = cache;
+    calculatePackagingData();
+  }
+
+  /**
+   * Request packaging data to be computed using <code>cache</code> but only
+   * when {@link #calculateDeferredPackagingData()} is invoked, i.e. when the
+   * packaging data is actually needed.
+   * 
+   * <p>
+   * Packaging data computed from a thread other than the one which created
+   * this proxy is less precise, as classes then need to be looked up by name.
+   */
+  public synchronized void deferPackagingData(PackagingDataCache cache) {
+    this.packagingDataCache = cache;
+    this.packagingDataDeferred = true;
+  }
+
+  /**
+   * Compute packaging data if it was requested by
+   * {@link #deferPackagingData(PackagingDataCache)} and has not been computed
+   * yet.
+   */
+  public synchronized void calculateDeferredPackagingData() {
+    if (packagingDataDeferred) {
+      packagingDataDeferred = false;
+      calculatePackagingData();
+    }
+  }
+
 
 
   public void fullDump() {
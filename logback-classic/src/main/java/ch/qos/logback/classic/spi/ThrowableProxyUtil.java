@@ -69,6 +69,56 @@ public class ThrowableProxyUtil {
     return count;
   }
 
+  static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * Return a fingerprint of the stack trace of <code>tp</code>, including its
+   * causes, as a string of 16 hexadecimal digits. Exceptions of the same
+   * classes thrown from the same code paths share the same fingerprint,
+   * regardless of their messages.
+   */
+  static public String fingerprint(IThrowableProxy tp) {
+    if (tp instanceof ThrowableProxy) {
+      // cached by the proxy
+      return ((ThrowableProxy) tp).getFingerprint();
+    }
+    return computeFingerprint(tp);
+  }
+
+  static String computeFingerprint(IThrowableProxy tp) {
+    long h = FNV_OFFSET_BASIS;
+    while (tp != null) {
+      h = hash(h, tp.getClassName());
+      StackTraceElementProxy[] stepArray = tp.getStackTraceElementProxyArray();
+      for (StackTraceElementProxy step : stepArray) {
+        StackTraceElement ste = step.getStackTraceElement();
+        h = hash(h, ste.getClassName());
+        h = hash(h, ste.getMethodName());
+        h = hash(h, ste.getFileName());
+        h = (h ^ ste.getLineNumber()) * FNV_PRIME;
+      }
+      tp = tp.getCause();
+    }
+    String hex = Long.toHexString(h);
+    StringBuilder sb = new StringBuilder(16);
+    for (int i = hex.length(); i < 16; i++) {
+      sb.append('0');
+    }
+    return sb.append(hex).toString();
+  }
+
+  // FNV-1a over the characters of s, followed by a separator
+  private static long hash(long h, String s) {
+    if (s != null) {
+      final int len = s.length();
+      for (int i = 0; i < len; i++) {
+        h = (h ^ s.charAt(i)) * FNV_PRIME;
+      }
+    }
+    return (h ^ 0xFFFF) * FNV_PRIME;
+  }
+
   static public String asString(IThrowableProxy tp) {
     StringBuilder sb = new StringBuilder();
 
@@ -20,11 +20,11 @@ public class ThrowableProxyVO implements IThrowableProxy, Serializable {
 
   private static final long serialVersionUID = 685387990886325422L;
   
-  private String className;
-  private String message;
-  private int commonFramesCount;
-  private StackTraceElementProxy[] stackTraceElementProxyArray;
-  private IThrowableProxy cause;
+  String className;
+  String message;
+  int commonFramesCount;
+  StackTraceElementProxy[] stackTraceElementProxyArray;
+  IThrowableProxy cause;
 
 
   public String getMessage() {
@@ -88,6 +88,10 @@ public class ThrowableProxyVO implements IThrowableProxy, Serializable {
     if(throwableProxy == null) {
       return null;
     }
+    if (throwableProxy instanceof ThrowableProxy) {
+      // packaging data cannot be computed once serialized
+      ((ThrowableProxy) throwableProxy).calculateDeferredPackagingData();
+    }
     ThrowableProxyVO tpvo = new ThrowableProxyVO();
     tpvo.className = throwableProxy.getClassName();
     tpvo.message = throwableProxy.getMessage();
@@ -13,17 +13,40 @@
  */
 package ch.qos.logback.classic.turbo;
 
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Marker;
+import org.slf4j.message.ParameterizedMessage;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.turbo.LRUMessageCache.Occurrences;
 import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
 
 /**
  * 
  * See {@link http://logback.qos.ch/manual/filters.html#DuplicateMessageFilter}
  * for details.
  * 
+ * <p>This filter may be invoked concurrently by any number of threads.
+ * 
+ * <p>If the <b>windowDuration</b> option is set, repetitions are counted per
+ * window: the first occurrence of a message opens a window of the given
+ * duration, and the count of the message starts from zero in the next window.
+ * Once a window has closed, and if occurrences of the message were suppressed
+ * in it, a summary event is logged to the logger and at the level of the last
+ * suppressed occurrence. The summary is logged either when the message recurs
+ * or by a background thread which sweeps closed windows once per window
+ * duration, whichever comes first. Summaries of windows still open are logged
+ * when the filter is stopped. Without a window, counts are kept until the
+ * message is evicted from the cache.
+ * 
  * @author Ceki Gulcu
  * 
  */
@@ -38,19 +61,44 @@ public class DuplicateMessageFilter extends TurboFilter {
    */
   public static final int DEFAULT_ALLOWED_REPETITIONS = 5;
 
+  static final String SUMMARY_FORMAT = "Suppressed {} repetitions of message [{}]";
+
   public int allowedRepetitions = DEFAULT_ALLOWED_REPETITIONS;
   public int cacheSize = DEFAULT_CACHE_SIZE;
+  long windowDurationInMillis = 0;
 
   private LRUMessageCache msgCache;
+  private ScheduledExecutorService sweeper;
 
   @Override
   public void start() {
     msgCache = new LRUMessageCache(cacheSize);
+    if (windowDurationInMillis > 0) {
+      sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "DuplicateMessageFilter-Sweeper");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      sweeper.scheduleWithFixedDelay(new Runnable() {
+        public void run() {
+          flushWindows(false);
+        }
+      }, windowDurationInMillis, windowDurationInMillis,
+          TimeUnit.MILLISECONDS);
+    }
     super.start();
   }
 
   @Override
   public void stop() {
+    if (sweeper != null) {
+      sweeper.shutdownNow();
+      sweeper = null;
+      // summaries of the windows still open
+      flushWindows(true);
+    }
     msgCache.clear();
     msgCache = null;
     super.stop();
@@ -59,7 +107,40 @@ public class DuplicateMessageFilter extends TurboFilter {
   @Override
   public FilterReply decide(Marker marker, Logger logger, Level level,
       String format, Object[] params, Throwable t) {
-    int count = msgCache.getMessageCountAndThenIncrement(format);
+    Occurrences occurrences = msgCache.getOccurrences(format);
+    if (occurrences == null) {
+      return FilterReply.NEUTRAL;
+    }
+
+    int count;
+    int suppressedInClosedWindow = 0;
+    Logger summaryLogger = null;
+    Level summaryLevel = null;
+    synchronized (occurrences) {
+      if (windowDurationInMillis > 0) {
+        long now = System.currentTimeMillis();
+        if (now - occurrences.windowStart >= windowDurationInMillis) {
+          suppressedInClosedWindow = occurrences.suppressed;
+          summaryLogger = occurrences.logger;
+          summaryLevel = occurrences.level;
+          occurrences.count = 0;
+          occurrences.suppressed = 0;
+          occurrences.windowStart = now;
+        }
+      }
+      count = occurrences.count++;
+      if (count > allowedRepetitions && isEnabled(logger, level)) {
+        occurrences.suppressed++;
+        occurrences.logger = logger;
+        occurrences.level = level;
+      }
+    }
+
+    // log the summary outside of the lock
+    if (suppressedInClosedWindow > 0) {
+      logSummary(summaryLogger, summaryLevel, format, suppressedInClosedWindow);
+    }
+
     if (count <= allowedRepetitions) {
       return FilterReply.NEUTRAL;
     } else {
@@ -67,6 +148,60 @@ public class DuplicateMessageFilter extends TurboFilter {
     }
   }
 
+  /**
+   * Log the summaries of closed windows in which occurrences were suppressed,
+   * or of all such windows if <code>all</code> is true.
+   */
+  void flushWindows(boolean all) {
+    LRUMessageCache cache = msgCache;
+    if (cache == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    for (Map.Entry<String, Occurrences> entry : cache.snapshot().entrySet()) {
+      Occurrences occurrences = entry.getValue();
+      int suppressed;
+      Logger summaryLogger;
+      Level summaryLevel;
+      synchronized (occurrences) {
+        if (occurrences.suppressed == 0) {
+          continue;
+        }
+        if (!all && now - occurrences.windowStart < windowDurationInMillis) {
+          continue;
+        }
+        suppressed = occurrences.suppressed;
+        summaryLogger = occurrences.logger;
+        summaryLevel = occurrences.level;
+        // the next occurrence opens a new window
+        occurrences.count = 0;
+        occurrences.suppressed = 0;
+      }
+      logSummary(summaryLogger, summaryLevel, entry.getKey(), suppressed);
+    }
+  }
+
+  /**
+   * Would the event have been logged had it not been suppressed? Only such
+   * events are reported in summaries.
+   */
+  private boolean isEnabled(Logger logger, Level level) {
+    return logger != null && level != null
+        && level.isGreaterOrEqual(logger.getEffectiveLevel());
+  }
+
+  /**
+   * The summary is handed directly to the appenders of the logger so that it
+   * is not subject to turbo filtering, including by this filter.
+   */
+  private void logSummary(Logger logger, Level level, String format,
+      int suppressed) {
+    LoggingEvent le = new LoggingEvent(DuplicateMessageFilter.class.getName(),
+        logger, level, new ParameterizedMessage(SUMMARY_FORMAT, suppressed,
+            format), null);
+    logger.callAppenders(le);
+  }
+
   public int getAllowedRepetitions() {
     return allowedRepetitions;
   }
@@ -88,4 +223,18 @@ public class DuplicateMessageFilter extends TurboFilter {
     this.cacheSize = cacheSize;
   }
 
+  public Duration getWindowDuration() {
+    return (windowDurationInMillis > 0) ? Duration
+        .buildByMilliseconds(windowDurationInMillis) : null;
+  }
+
+  /**
+   * The duration of the window over which repetitions are counted. By
+   * default, there is no window.
+   */
+  public void setWindowDuration(Duration windowDuration) {
+    this.windowDurationInMillis = (windowDuration == null) ? 0
+        : windowDuration.getMilliseconds();
+  }
+
 }
@@ -13,42 +13,138 @@
  */
 package ch.qos.logback.classic.turbo;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-class LRUMessageCache extends LinkedHashMap<String, Integer> {
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * A thread-safe cache of {@link Occurrences}, keyed by message format, for use
+ * by {@link DuplicateMessageFilter}.
+ * 
+ * <p>The cache is split into segments, each of which is an access-ordered
+ * LinkedHashMap guarded by its own lock. Keys are assigned to segments by
+ * hash, so that threads logging different messages seldom contend. Eviction
+ * is least-recently-used within a segment, and thus approximately LRU for the
+ * cache as a whole. Caches too small to be split in segments of at least
+ * {@link #MIN_SEGMENT_SIZE} entries have a single segment and are exactly
+ * LRU.
+ * 
+ * @author Ceki G&uuml;lc&uuml;
+ */
+class LRUMessageCache {
+
+  static final int MIN_SEGMENT_SIZE = 64;
+  static final int MAX_SEGMENTS = 16;
 
-  // LinkedHashMap permits null elements to be inserted
-  
-  private static final long serialVersionUID = 1L;
-  
   final int cacheSize;
-  
+  final Segment[] segments;
+  final int segmentMask;
+
   LRUMessageCache(int cacheSize) {
-    super((int) (cacheSize * (4.0f / 3)), 0.75f, true);
     if (cacheSize < 1) {
       throw new IllegalArgumentException("Cache size cannnot be smaller than 1");
     }
     this.cacheSize = cacheSize;
+    int segmentCount = 1;
+    while (segmentCount < MAX_SEGMENTS
+        && cacheSize / (segmentCount * 2) >= MIN_SEGMENT_SIZE) {
+      segmentCount <<= 1;
+    }
+    this.segmentMask = segmentCount - 1;
+    this.segments = new Segment[segmentCount];
+    int segmentSize = cacheSize / segmentCount;
+    for (int i = 0; i < segmentCount; i++) {
+      // spread the remainder over the first segments
+      int extra = (i < cacheSize % segmentCount) ? 1 : 0;
+      segments[i] = new Segment(segmentSize + extra);
+    }
   }
-  
-  int getMessageCountAndThenIncrement(String msg) {
+
+  /**
+   * Returns the occurrences of the message, creating them if necessary.
+   * Callers must synchronize on the returned instance when accessing its
+   * fields.
+   * 
+   * @return the occurrences of the message, null if msg is null
+   */
+  Occurrences getOccurrences(String msg) {
     // don't insert null elements
-    if(msg == null) {
-      return 0;
-    }
-    
-    Integer i = super.get(msg);
-    if(i == null) {
-      i = 0;
-    } else {
-      i = new Integer(i.intValue()+1);
-    }
-    super.put(msg, i);
-    return i;
+    if (msg == null) {
+      return null;
+    }
+    int h = msg.hashCode();
+    h ^= (h >>> 16);
+    Segment segment = segments[h & segmentMask];
+    synchronized (segment) {
+      Occurrences o = segment.get(msg);
+      if (o == null) {
+        o = new Occurrences();
+        segment.put(msg, o);
+      }
+      return o;
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * A copy of the cache, taken segment by segment. Reading the copy does not
+   * affect the eviction order.
+   */
+  Map<String, Occurrences> snapshot() {
+    Map<String, Occurrences> map = new HashMap<String, Occurrences>();
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        map.putAll(segment);
+      }
+    }
+    return map;
+  }
+
+  void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * Occurrences of a message within the current window.
+   */
+  static class Occurrences {
+    int count;
+    int suppressed;
+    long windowStart;
+    // where the last suppressed occurrence was logged
+    Logger logger;
+    Level level;
   }
-  
-  protected boolean removeEldestEntry(Map.Entry eldest) {
-    return (size() > cacheSize);
+
+  static class Segment extends LinkedHashMap<String, Occurrences> {
+
+    private static final long serialVersionUID = 1L;
+
+    final int maxSize;
+
+    Segment(int maxSize) {
+      super((int) (maxSize * (4.0f / 3)) + 1, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    protected boolean removeEldestEntry(Map.Entry<String, Occurrences> eldest) {
+      return (size() > maxSize);
+    }
   }
 }
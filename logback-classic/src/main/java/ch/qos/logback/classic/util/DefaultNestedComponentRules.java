@@ -15,8 +15,10 @@ package ch.qos.logback.classic.util;
 
 import ch.qos.logback.classic.PatternLayout;
 import ch.qos.logback.classic.boolex.JaninoEventEvaluator;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.WriterAppender;
 import ch.qos.logback.core.filter.EvaluatorFilter;
 import ch.qos.logback.core.joran.spi.DefaultNestedComponentRegistry;
 
@@ -33,6 +35,7 @@ public class DefaultNestedComponentRules {
       DefaultNestedComponentRegistry registry) {
     registry.add(AppenderBase.class, "layout", PatternLayout.class);
     registry.add(UnsynchronizedAppenderBase.class, "layout", PatternLayout.class);
+    registry.add(WriterAppender.class, "encoder", PatternLayoutEncoder.class);
     registry
         .add(EvaluatorFilter.class, "evaluator", JaninoEventEvaluator.class);
 
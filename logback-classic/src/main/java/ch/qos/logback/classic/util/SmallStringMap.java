@@ -0,0 +1,252 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.util;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact map of String keys to String values backed by two parallel
+ * arrays. Lookups are performed by linear scan, which for the handful of
+ * entries typically found in an MDC is both faster and much leaner than a
+ * {@link java.util.HashMap}: the map allocates no entry objects and copying
+ * it amounts to two array copies.
+ * 
+ * <p>Keys may not be null, values may. This class is not thread safe.
+ */
+public class SmallStringMap extends AbstractMap<String, String> implements
+    Serializable {
+
+  private static final long serialVersionUID = 6542317254187629394L;
+
+  /**
+   * Maps larger than this size are better served by a HashMap.
+   */
+  public static final int MAX_SIZE = 16;
+
+  static final int INITIAL_CAPACITY = 4;
+
+  String[] keys;
+  String[] values;
+  int size;
+
+  public SmallStringMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  public SmallStringMap(int capacity) {
+    keys = new String[capacity];
+    values = new String[capacity];
+  }
+
+  /**
+   * Create a copy of the map passed as parameter with room for at least
+   * <code>extra</code> additional entries.
+   */
+  public SmallStringMap(Map<String, String> map, int extra) {
+    this(map.size() + extra);
+    if (map instanceof SmallStringMap) {
+      SmallStringMap other = (SmallStringMap) map;
+      System.arraycopy(other.keys, 0, keys, 0, other.size);
+      System.arraycopy(other.values, 0, values, 0, other.size);
+      size = other.size;
+    } else {
+      for (Map.Entry<String, String> e : map.entrySet()) {
+        put(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  int indexOf(Object key) {
+    if (key == null) {
+      return -1;
+    }
+    for (int i = 0; i < size; i++) {
+      if (keys[i] == key || keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) != -1;
+  }
+
+  @Override
+  public String get(Object key) {
+    int i = indexOf(key);
+    return i == -1 ? null : values[i];
+  }
+
+  @Override
+  public String put(String key, String value) {
+    if (key == null) {
+      throw new IllegalArgumentException("key cannot be null");
+    }
+    int i = indexOf(key);
+    if (i != -1) {
+      String old = values[i];
+      values[i] = value;
+      return old;
+    }
+    if (size == keys.length) {
+      int newCapacity = Math.max(INITIAL_CAPACITY, size * 2);
+      String[] newKeys = new String[newCapacity];
+      String[] newValues = new String[newCapacity];
+      System.arraycopy(keys, 0, newKeys, 0, size);
+      System.arraycopy(values, 0, newValues, 0, size);
+      keys = newKeys;
+      values = newValues;
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+    return null;
+  }
+
+  @Override
+  public String remove(Object key) {
+    int i = indexOf(key);
+    if (i == -1) {
+      return null;
+    }
+    String old = values[i];
+    removeAt(i);
+    return old;
+  }
+
+  void removeAt(int i) {
+    int numMoved = size - i - 1;
+    if (numMoved > 0) {
+      System.arraycopy(keys, i + 1, keys, i, numMoved);
+      System.arraycopy(values, i + 1, values, i, numMoved);
+    }
+    size--;
+    keys[size] = null;
+    values[size] = null;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      keys[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    return new EntrySet();
+  }
+
+  class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  class EntryIterator implements Iterator<Map.Entry<String, String>> {
+    int next = 0;
+    int last = -1;
+
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    public Map.Entry<String, String> next() {
+      if (next >= size) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      return new Entry(last);
+    }
+
+    public void remove() {
+      if (last == -1) {
+        throw new IllegalStateException();
+      }
+      removeAt(last);
+      next = last;
+      last = -1;
+    }
+  }
+
+  class Entry implements Map.Entry<String, String> {
+    final String key;
+    String value;
+
+    Entry(int index) {
+      this.key = keys[index];
+      this.value = values[index];
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public String getValue() {
+      return value;
+    }
+
+    public String setValue(String value) {
+      String old = this.value;
+      this.value = value;
+      SmallStringMap.this.put(key, value);
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return eq(getKey(), e.getKey()) && eq(getValue(), e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  static boolean eq(Object o1, Object o2) {
+    return o1 == null ? o2 == null : o1.equals(o2);
+  }
+}
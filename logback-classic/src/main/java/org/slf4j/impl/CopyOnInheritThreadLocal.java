@@ -13,7 +13,7 @@
  */
 package org.slf4j.impl;
 
-import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This class extends InheritableThreadLocal so that children threads get a copy
@@ -22,19 +22,17 @@ import java.util.HashMap;
  * @author Ceki G&uuml;lc&uuml;
  */
 public class CopyOnInheritThreadLocal extends
-    InheritableThreadLocal<HashMap<String, String>> {
+    InheritableThreadLocal<Map<String, String>> {
 
   /**
-   * Child threads should get a copy of the parent's hashmap.
+   * Child threads should get a copy of the parent's map.
    */
   @Override
-  protected HashMap<String, String> childValue(
-      HashMap<String, String> parentValue) {
+  protected Map<String, String> childValue(Map<String, String> parentValue) {
     if (parentValue == null) {
       return null;
     } else {
-      HashMap<String, String> hm = new HashMap<String, String>(parentValue);
-      return hm;
+      return LogbackMDCAdapter.duplicate(parentValue, 0);
     }
   }
 
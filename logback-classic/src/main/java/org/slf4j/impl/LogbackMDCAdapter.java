@@ -19,6 +19,8 @@ import java.util.Set;
 
 import org.slf4j.spi.MDCAdapter;
 
+import ch.qos.logback.classic.util.SmallStringMap;
+
 /**
  * A <em>Mapped Diagnostic Context</em>, or MDC in short, is an instrument
  * for distinguishing interleaved log output from different sources. Log output
@@ -27,6 +29,13 @@ import org.slf4j.spi.MDCAdapter;
  * A child thread automatically inherits a <em>copy</em> of the mapped
  * diagnostic context of its parent. <p>
  * 
+ * Once the map of a thread has been handed out by {@link #getPropertyMap()},
+ * typically to a logging event, it is never modified again. Instead, the next
+ * modification copies the map. Modifications made in between two logging
+ * events are applied in place, so that setting several keys costs a single
+ * copy at most. Maps with fewer than {@link SmallStringMap#MAX_SIZE} entries
+ * are held in a compact {@link SmallStringMap}. <p>
+ * 
  * For more information about MDC, please refer to the online manual at
  * http://logback.qos.ch/manual/mdc.html
  * 
@@ -34,14 +43,42 @@ import org.slf4j.spi.MDCAdapter;
  */
 public class LogbackMDCAdapter implements MDCAdapter {
 
-  // final CopyOnInheritThreadLocal copyOnInheritThreadLocal = new
-  // CopyOnInheritThreadLocal();
-
   final CopyOnInheritThreadLocal copyOnInheritThreadLocal = new CopyOnInheritThreadLocal();
 
+  private static final Integer WRITE_OPERATION = 1;
+  private static final Integer READ_OPERATION = 2;
+
+  // keeps track of the last operation performed on the map of the current
+  // thread. If the map was handed out by the last operation, it must be
+  // copied before being modified.
+  final ThreadLocal<Integer> lastOperation = new ThreadLocal<Integer>();
+
   LogbackMDCAdapter() {
   }
 
+  private Integer getAndSetLastOperation(Integer op) {
+    Integer lastOp = lastOperation.get();
+    if (lastOp != op) {
+      lastOperation.set(op);
+    }
+    return lastOp;
+  }
+
+  /**
+   * Return a private copy of the map passed as parameter, with room for
+   * <code>extra</code> additional entries.
+   */
+  static Map<String, String> duplicate(Map<String, String> map, int extra) {
+    if (map == null) {
+      return new SmallStringMap();
+    }
+    if (map.size() + extra <= SmallStringMap.MAX_SIZE) {
+      return new SmallStringMap(map, extra);
+    } else {
+      return new HashMap<String, String>(map);
+    }
+  }
+
   /**
    * Put a context value (the <code>val</code> parameter) as identified with
    * the <code>key</code> parameter into the current thread's context map.
@@ -50,10 +87,10 @@ public class LogbackMDCAdapter implements MDCAdapter {
    * <p> If the current thread does not have a context map it is created as a
    * side effect of this call.
    * 
-   * <p> Each time a value is added, a new instance of the map is created. This
-   * is to be certain that the serialization process will operate on the updated
-   * map and not send a reference to the old map, thus not allowing the remote
-   * logback component to see the latest changes.
+   * <p> If the current map has been handed out since it was last modified, a
+   * new instance of the map is created. This is to be certain that logging
+   * events, as well as the serialization process, operate on the map as it
+   * was at the time of the event.
    * 
    * @throws IllegalArgumentException
    *                 in case the "key" parameter is null
@@ -63,15 +100,23 @@ public class LogbackMDCAdapter implements MDCAdapter {
       throw new IllegalArgumentException("key cannot be null");
     }
 
-    HashMap<String, String> oldMap = copyOnInheritThreadLocal.get();
-
-    HashMap<String, String> newMap = new HashMap<String, String>();
-    if (oldMap != null) {
-      newMap.putAll(oldMap);
+    Map<String, String> oldMap = copyOnInheritThreadLocal.get();
+    Integer lastOp = getAndSetLastOperation(WRITE_OPERATION);
+
+    if (oldMap == null || lastOp == READ_OPERATION) {
+      Map<String, String> newMap = duplicate(oldMap, 1);
+      newMap.put(key, val);
+      copyOnInheritThreadLocal.set(newMap);
+    } else if (oldMap instanceof SmallStringMap
+        && oldMap.size() >= SmallStringMap.MAX_SIZE
+        && !oldMap.containsKey(key)) {
+      // the map outgrew the compact representation
+      Map<String, String> newMap = new HashMap<String, String>(oldMap);
+      newMap.put(key, val);
+      copyOnInheritThreadLocal.set(newMap);
+    } else {
+      oldMap.put(key, val);
     }
-    // the newMap replaces the old one for serialisation's sake
-    copyOnInheritThreadLocal.set(newMap);
-    newMap.put(key, val);
   }
 
   /**
@@ -80,10 +125,10 @@ public class LogbackMDCAdapter implements MDCAdapter {
    * <p> This method has no side effects.
    */
   public String get(String key) {
-    HashMap<String, String> hashMap = copyOnInheritThreadLocal.get();
+    Map<String, String> map = copyOnInheritThreadLocal.get();
 
-    if ((hashMap != null) && (key != null)) {
-      return hashMap.get(key);
+    if ((map != null) && (key != null)) {
+      return map.get(key);
     } else {
       return null;
     }
@@ -92,40 +137,43 @@ public class LogbackMDCAdapter implements MDCAdapter {
   /**
    * Remove the the context identified by the <code>key</code> parameter.
    * 
-   * <p> Each time a value is removed, a new instance of the map is created.
-   * This is to be certain that the serialization process will operate on the
-   * updated map and not send a reference to the old map, thus not allowing the
-   * remote logback component to see the latest changes.
+   * <p> As for {@link #put(String, String)}, the map is copied first if it
+   * has been handed out since it was last modified.
    */
   public void remove(String key) {
-    HashMap<String, String> oldMap = copyOnInheritThreadLocal.get();
+    Map<String, String> oldMap = copyOnInheritThreadLocal.get();
+    if (oldMap == null || !oldMap.containsKey(key)) {
+      return;
+    }
+    Integer lastOp = getAndSetLastOperation(WRITE_OPERATION);
 
-    HashMap<String, String> newMap = new HashMap<String, String>();
-    if (oldMap != null) {
-      newMap.putAll(oldMap);
+    if (lastOp == READ_OPERATION) {
+      Map<String, String> newMap = duplicate(oldMap, 0);
+      newMap.remove(key);
+      copyOnInheritThreadLocal.set(newMap);
+    } else {
+      oldMap.remove(key);
     }
-    // the newMap replaces the old one for serialisation's sake
-    copyOnInheritThreadLocal.set(newMap);
-    newMap.remove(key);
   }
 
   /**
    * Clear all entries in the MDC.
+   * 
+   * <p> The map itself is left untouched as it may be referenced by logging
+   * events.
    */
   public void clear() {
-    HashMap<String, String> hashMap = copyOnInheritThreadLocal.get();
-
-    if (hashMap != null) {
-      hashMap.clear();
-      copyOnInheritThreadLocal.remove();
-    }
+    lastOperation.set(WRITE_OPERATION);
+    copyOnInheritThreadLocal.remove();
   }
 
   /**
    * Get the current thread's MDC as a map. This method is intended to be used
-   * internally.
+   * internally. The returned map must not be modified; it will not reflect
+   * later changes to the MDC.
    */
   public Map<String, String> getPropertyMap() {
+    lastOperation.set(READ_OPERATION);
     return copyOnInheritThreadLocal.get();
   }
 
@@ -134,11 +182,11 @@ public class LogbackMDCAdapter implements MDCAdapter {
    * null.
    */
   public Map getCopyOfContextMap() {
-    HashMap<String, String> hashMap = copyOnInheritThreadLocal.get();
-    if (hashMap == null) {
+    Map<String, String> map = copyOnInheritThreadLocal.get();
+    if (map == null) {
       return null;
     } else {
-      return new HashMap<String, String>(hashMap);
+      return new HashMap<String, String>(map);
     }
   }
 
@@ -147,10 +195,10 @@ public class LogbackMDCAdapter implements MDCAdapter {
    * null.
    */
   public Set<String> getKeys() {
-    HashMap<String, String> hashMap = copyOnInheritThreadLocal.get();
+    Map<String, String> map = getPropertyMap();
 
-    if (hashMap != null) {
-      return hashMap.keySet();
+    if (map != null) {
+      return map.keySet();
     } else {
       return null;
     }
@@ -158,18 +206,8 @@ public class LogbackMDCAdapter implements MDCAdapter {
 
   @SuppressWarnings("unchecked")
   public void setContextMap(Map contextMap) {
-    HashMap<String, String> oldMap = copyOnInheritThreadLocal.get();
-
-    HashMap<String, String> newMap = new HashMap<String, String>();
-    newMap.putAll(contextMap);
-
-    // the newMap replaces the old one for serialisation's sake
+    lastOperation.set(WRITE_OPERATION);
+    Map<String, String> newMap = duplicate((Map<String, String>) contextMap, 0);
     copyOnInheritThreadLocal.set(newMap);
-
-    // hints for the garbage collector
-    if (oldMap != null) {
-      oldMap.clear();
-      oldMap = null;
-    }
   }
 }
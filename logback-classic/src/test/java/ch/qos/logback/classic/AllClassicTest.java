@@ -30,6 +30,7 @@ import org.junit.runners.Suite.SuiteClasses;
     ch.qos.logback.classic.html.PackageTest.class,
     ch.qos.logback.classic.net.PackageTest.class,
     ch.qos.logback.classic.pattern.PackageTest.class,
+    ch.qos.logback.classic.encoder.PackageTest.class,
     ch.qos.logback.classic.db.PackageTest.class,
     ch.qos.logback.classic.spi.PackageTest.class,
     ch.qos.logback.classic.turbo.PackageTest.class,
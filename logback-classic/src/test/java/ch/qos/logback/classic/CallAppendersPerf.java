@@ -0,0 +1,107 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import org.slf4j.message.SimpleMessage;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.appender.NOPAppender;
+import ch.qos.logback.core.contention.RunnableWithCounterAndDone;
+import ch.qos.logback.core.contention.ThreadedThroughputCalculator;
+
+/**
+ * Measures the throughput of {@link Logger#callAppenders(ILoggingEvent)} for
+ * a logger located deep in the hierarchy, as the number of threads increases.
+ * The event is created only once so that only the walk through the additive
+ * ancestors and the dispatch to their appenders is measured.
+ * 
+ * <p>Usage: CallAppendersPerf [maxThreadCount [durationInMillis]]
+ */
+public class CallAppendersPerf {
+
+  static int MAX_THREAD_COUNT = 2 * Runtime.getRuntime().availableProcessors();
+  static long OVERALL_DURATION_IN_MILLIS = 3000;
+
+  // a logger at depth 10, with appenders attached to the root logger and to
+  // an ancestor at depth 3
+  static final String LOGGER_NAME = "com.foo.bar.d4.d5.d6.d7.d8.d9.Leaf";
+  static final String ANCESTOR_NAME = "com.foo.bar";
+
+  public static void main(String args[]) throws InterruptedException {
+    if (args.length > 0) {
+      MAX_THREAD_COUNT = Integer.parseInt(args[0]);
+    }
+    if (args.length > 1) {
+      OVERALL_DURATION_IN_MILLIS = Long.parseLong(args[1]);
+    }
+
+    ThreadedThroughputCalculator tp = new ThreadedThroughputCalculator(
+        OVERALL_DURATION_IN_MILLIS);
+    tp.printEnvironmentInfo("CallAppendersPerf");
+
+    LoggerContext lc = new LoggerContext();
+    Logger logger = buildLoggerContext(lc);
+    ILoggingEvent event = new LoggingEvent(CallAppendersPerf.class.getName(),
+        logger, Level.INFO, new SimpleMessage("hello"), null);
+
+    for (int threadCount = 1; threadCount <= MAX_THREAD_COUNT; threadCount *= 2) {
+      // warm up
+      tp.execute(buildArray(logger, event, threadCount));
+      tp.execute(buildArray(logger, event, threadCount));
+      tp.printThroughput("Threads " + threadCount + ": ");
+    }
+    lc.stop();
+  }
+
+  static Logger buildLoggerContext(LoggerContext lc) {
+    NOPAppender<ILoggingEvent> rootAppender = new NOPAppender<ILoggingEvent>();
+    rootAppender.setContext(lc);
+    rootAppender.start();
+    lc.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(rootAppender);
+
+    NOPAppender<ILoggingEvent> ancestorAppender = new NOPAppender<ILoggingEvent>();
+    ancestorAppender.setContext(lc);
+    ancestorAppender.start();
+    lc.getLogger(ANCESTOR_NAME).addAppender(ancestorAppender);
+
+    return lc.getLogger(LOGGER_NAME);
+  }
+
+  static CallAppendersRunnable[] buildArray(Logger logger,
+      ILoggingEvent event, int threadCount) {
+    CallAppendersRunnable[] array = new CallAppendersRunnable[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      array[i] = new CallAppendersRunnable(logger, event);
+    }
+    return array;
+  }
+
+  static class CallAppendersRunnable extends RunnableWithCounterAndDone {
+    final Logger logger;
+    final ILoggingEvent event;
+
+    CallAppendersRunnable(Logger logger, ILoggingEvent event) {
+      this.logger = logger;
+      this.event = event;
+    }
+
+    public void run() {
+      while (!isDone()) {
+        logger.callAppenders(event);
+        counter++;
+      }
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import ch.qos.logback.classic.spi.BoundedCallerDataExtractor;
+import ch.qos.logback.classic.spi.CallerDataExtractor;
+import ch.qos.logback.classic.spi.FullStackCallerDataExtractor;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+/**
+ * Compares the cost of caller data extraction with
+ * {@link FullStackCallerDataExtractor} and {@link BoundedCallerDataExtractor}.
+ * Events are logged from the bottom of a stack of <b>stackDepth</b> frames,
+ * mimicking the deep stacks of typical application servers, by a logger
+ * whose appender requests caller data for every event.
+ * 
+ * <p>Usage: CallerDataExtractionPerf [stackDepth [maxCallerDataDepth]]
+ */
+public class CallerDataExtractionPerf {
+
+  static int STACK_DEPTH = 200;
+  static int MAX_CALLER_DATA_DEPTH = 1;
+  static final int RUN_LENGTH = 100 * 1000;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0) {
+      STACK_DEPTH = Integer.parseInt(args[0]);
+    }
+    if (args.length > 1) {
+      MAX_CALLER_DATA_DEPTH = Integer.parseInt(args[1]);
+    }
+    System.out.println("stackDepth=" + STACK_DEPTH + ", maxCallerDataDepth="
+        + MAX_CALLER_DATA_DEPTH);
+
+    CallerDataExtractor[] extractors = new CallerDataExtractor[] {
+        new FullStackCallerDataExtractor(), new BoundedCallerDataExtractor() };
+    // two rounds, the first one serving as warm up
+    for (int round = 0; round < 2; round++) {
+      for (CallerDataExtractor extractor : extractors) {
+        long durationInNanos = run(extractor);
+        if (round > 0) {
+          System.out.println(extractor.getClass().getSimpleName() + ": "
+              + durationInNanos / RUN_LENGTH + " nanoseconds per event");
+        }
+      }
+    }
+  }
+
+  static long run(CallerDataExtractor extractor) {
+    LoggerContext lc = new LoggerContext();
+    lc.setMaxCallerDataDepth(MAX_CALLER_DATA_DEPTH);
+    lc.setCallerDataExtractor(extractor);
+    CallerDataAppender appender = new CallerDataAppender();
+    appender.setContext(lc);
+    appender.start();
+    Logger logger = lc.getLogger(CallerDataExtractionPerf.class);
+    logger.addAppender(appender);
+
+    long start = System.nanoTime();
+    descendAndLog(logger, STACK_DEPTH);
+    long durationInNanos = System.nanoTime() - start;
+    lc.stop();
+    return durationInNanos;
+  }
+
+  static void descendAndLog(Logger logger, int remaining) {
+    if (remaining > 0) {
+      descendAndLog(logger, remaining - 1);
+      return;
+    }
+    for (int i = 0; i < RUN_LENGTH; i++) {
+      logger.info("hello");
+    }
+  }
+
+  static class CallerDataAppender extends
+      UnsynchronizedAppenderBase<ILoggingEvent> {
+    int lineSum;
+
+    protected void append(ILoggingEvent event) {
+      StackTraceElement[] cda = event.getCallerData();
+      if (cda.length > 0) {
+        lineSum += cda[0].getLineNumber();
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.contention.RunnableWithCounterAndDone;
+import ch.qos.logback.core.contention.ThreadedThroughputCalculator;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+/**
+ * Measures how the throughput of logging to a single {@link FileAppender}
+ * scales as the number of logging threads increases, with and without the
+ * <b>CombineWrites</b> option.
+ * 
+ * <p>Usage: FileAppenderContentionPerf [maxThreadCount [durationInMillis]]
+ */
+public class FileAppenderContentionPerf {
+
+  static int MAX_THREAD_COUNT = 2 * Runtime.getRuntime().availableProcessors();
+  static long OVERALL_DURATION_IN_MILLIS = 3000;
+
+  public static void main(String args[]) throws InterruptedException {
+    if (args.length > 0) {
+      MAX_THREAD_COUNT = Integer.parseInt(args[0]);
+    }
+    if (args.length > 1) {
+      OVERALL_DURATION_IN_MILLIS = Long.parseLong(args[1]);
+    }
+
+    ThreadedThroughputCalculator tp = new ThreadedThroughputCalculator(
+        OVERALL_DURATION_IN_MILLIS);
+    tp.printEnvironmentInfo("FileAppenderContentionPerf");
+
+    for (int threadCount = 1; threadCount <= MAX_THREAD_COUNT; threadCount *= 2) {
+      measure(tp, threadCount, false);
+      measure(tp, threadCount, true);
+    }
+  }
+
+  static void measure(ThreadedThroughputCalculator tp, int threadCount,
+      boolean combineWrites) throws InterruptedException {
+    LoggerContext lc = new LoggerContext();
+    Logger logger = buildLoggerContext(lc, combineWrites);
+    // warm up
+    tp.execute(buildArray(logger, threadCount));
+    tp.execute(buildArray(logger, threadCount));
+    tp.printThroughput("Threads " + threadCount + ", combineWrites="
+        + combineWrites + ": ");
+    lc.stop();
+  }
+
+  static Logger buildLoggerContext(LoggerContext lc, boolean combineWrites) {
+    Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+
+    PatternLayout patternLayout = new PatternLayout();
+    patternLayout.setContext(lc);
+    patternLayout.setPattern("%d %level [%thread] %logger - %msg%n");
+    patternLayout.start();
+    FileAppender<ILoggingEvent> fileAppender = new FileAppender<ILoggingEvent>();
+    fileAppender.setContext(lc);
+    fileAppender.setFile(CoreTestConstants.OUTPUT_DIR_PREFIX
+        + "fileAppenderContentionPerf.log");
+    fileAppender.setLayout(patternLayout);
+    fileAppender.setAppend(false);
+    fileAppender.setCombineWrites(combineWrites);
+    fileAppender.start();
+    root.addAppender(fileAppender);
+    return lc.getLogger(FileAppenderContentionPerf.class);
+  }
+
+  static LoggingRunnable[] buildArray(Logger logger, int threadCount) {
+    LoggingRunnable[] array = new LoggingRunnable[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      array[i] = new LoggingRunnable(logger);
+    }
+    return array;
+  }
+
+  static class LoggingRunnable extends RunnableWithCounterAndDone {
+    final Logger logger;
+
+    LoggingRunnable(Logger logger) {
+      this.logger = logger;
+    }
+
+    public void run() {
+      while (!isDone()) {
+        logger.info("hello world ABCDEFGHI");
+        counter++;
+      }
+    }
+  }
+}
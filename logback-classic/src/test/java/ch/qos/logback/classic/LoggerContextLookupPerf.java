@@ -0,0 +1,123 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import ch.qos.logback.core.contention.RunnableWithCounterAndDone;
+import ch.qos.logback.core.contention.ThreadedThroughputCalculator;
+
+/**
+ * Measures the throughput of {@link LoggerContext#getLogger(String)} as the
+ * number of threads increases.
+ * 
+ * <p>In the cold phase, all threads resolve the same set of not yet existing
+ * logger names, each thread starting at a different offset, so that logger
+ * creation is contended. The names are spread over many packages directly
+ * under the root logger. In the warm phase, threads look up loggers which
+ * already exist.
+ * 
+ * <p>Usage: LoggerContextLookupPerf [maxThreadCount [durationInMillis]]
+ */
+public class LoggerContextLookupPerf {
+
+  static int MAX_THREAD_COUNT = 2 * Runtime.getRuntime().availableProcessors();
+  static long OVERALL_DURATION_IN_MILLIS = 3000;
+
+  static final int PACKAGE_COUNT = 2000;
+  static final int NAME_COUNT = 50 * 1000;
+
+  static String[] NAMES = new String[NAME_COUNT];
+  static {
+    for (int i = 0; i < NAME_COUNT; i++) {
+      NAMES[i] = "tenant" + (i % PACKAGE_COUNT) + ".service.Component" + i;
+    }
+  }
+
+  public static void main(String args[]) throws InterruptedException {
+    if (args.length > 0) {
+      MAX_THREAD_COUNT = Integer.parseInt(args[0]);
+    }
+    if (args.length > 1) {
+      OVERALL_DURATION_IN_MILLIS = Long.parseLong(args[1]);
+    }
+
+    ThreadedThroughputCalculator tp = new ThreadedThroughputCalculator(
+        OVERALL_DURATION_IN_MILLIS);
+    tp.printEnvironmentInfo("LoggerContextLookupPerf");
+
+    for (int threadCount = 1; threadCount <= MAX_THREAD_COUNT; threadCount *= 2) {
+      LoggerContext lc = new LoggerContext();
+      measureCold(lc, threadCount);
+
+      // warm up
+      tp.execute(buildArray(lc, threadCount));
+      tp.execute(buildArray(lc, threadCount));
+      tp.printThroughput("Warm lookup, threads " + threadCount + ": ");
+    }
+  }
+
+  static void measureCold(final LoggerContext lc, int threadCount)
+      throws InterruptedException {
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final int offset = t * (NAME_COUNT / threadCount);
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < NAME_COUNT; i++) {
+            lc.getLogger(NAMES[(offset + i) % NAME_COUNT]);
+          }
+        }
+      };
+    }
+    long start = System.nanoTime();
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long durationInMillis = (System.nanoTime() - start) / (1000 * 1000);
+    long total = (long) NAME_COUNT * threadCount;
+    System.out.println("Cold lookup, threads " + threadCount + ": total of "
+        + total + " operations in " + durationInMillis + " ms, "
+        + lc.size() + " loggers created");
+  }
+
+  static LookupRunnable[] buildArray(LoggerContext lc, int threadCount) {
+    LookupRunnable[] array = new LookupRunnable[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      array[i] = new LookupRunnable(lc, i * (NAME_COUNT / threadCount));
+    }
+    return array;
+  }
+
+  static class LookupRunnable extends RunnableWithCounterAndDone {
+    final LoggerContext lc;
+    int index;
+
+    LookupRunnable(LoggerContext lc, int offset) {
+      this.lc = lc;
+      this.index = offset;
+    }
+
+    public void run() {
+      while (!isDone()) {
+        lc.getLogger(NAMES[index]);
+        if (++index == NAME_COUNT) {
+          index = 0;
+        }
+        counter++;
+      }
+    }
+  }
+}
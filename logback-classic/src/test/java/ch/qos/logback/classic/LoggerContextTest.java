@@ -20,10 +20,15 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.ExecutorService;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.turbo.NOPTurboFilter;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.rolling.helper.CompressionExecutor;
 import ch.qos.logback.core.status.StatusManager;
 
 public class LoggerContextTest {
@@ -215,4 +220,45 @@ public class LoggerContextTest {
     assertTrue(root.isDebugEnabled());
   }
   
-}
\ No newline at end of file
+  @Test
+  public void compressionExecutorOutlivesTheAppenders() {
+    final ExecutorService executor = CompressionExecutor.getInstance(lc);
+    final boolean[] shutDownWhileStopping = new boolean[1];
+    AppenderBase<ILoggingEvent> appender = new AppenderBase<ILoggingEvent>() {
+      @Override
+      protected void append(ILoggingEvent event) {
+      }
+
+      @Override
+      public void stop() {
+        shutDownWhileStopping[0] = executor.isShutdown();
+        super.stop();
+      }
+    };
+    appender.setContext(lc);
+    appender.start();
+    lc.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+    lc.reset();
+    assertFalse(appender.isStarted());
+    assertFalse(shutDownWhileStopping[0]);
+    assertTrue(executor.isShutdown());
+  }
+
+  @Test
+  public void wideNode() {
+    int count = 3 * Logger.CHILDREN_MAP_THRESHOLD;
+    for (int i = 0; i < count; i++) {
+      Logger logger = lc.getLogger("p" + i + ".X");
+      assertEquals("p" + i + ".X", logger.getName());
+      assertEquals("p" + i, lc.exists("p" + i).getName());
+    }
+    // root plus two loggers per iteration
+    assertEquals(1 + 2 * count, lc.size());
+    Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    for (int i = 0; i < count; i++) {
+      assertTrue(lc.getLogger("p" + i) == root.getChildByName("p" + i));
+    }
+    assertNull(root.getChildByName("p" + count));
+  }
+
+}
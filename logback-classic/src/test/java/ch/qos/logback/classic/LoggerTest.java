@@ -224,4 +224,39 @@ public class LoggerTest {
     assertEquals(root.getEffectiveLevel(), child.getEffectiveLevel());
   }
 
+  @Test
+  public void appenderChangesAfterFirstLog() {
+    listAppender.start();
+    Logger child = lc.getLogger(loggerTest.getName() + ".child");
+    child.debug("no appenders yet");
+    assertEquals(0, listAppender.list.size());
+
+    // changes to an ancestor must be visible to descendants which already
+    // logged
+    root.addAppender(listAppender);
+    child.debug("hello");
+    assertEquals(1, listAppender.list.size());
+
+    loggerTest.addAppender(listAppender);
+    child.debug("hello");
+    assertEquals(3, listAppender.list.size());
+
+    loggerTest.setAdditive(false);
+    child.debug("hello");
+    assertEquals(4, listAppender.list.size());
+
+    loggerTest.detachAppender(listAppender);
+    child.debug("hello");
+    assertEquals(4, listAppender.list.size());
+
+    loggerTest.setAdditive(true);
+    child.debug("hello");
+    assertEquals(5, listAppender.list.size());
+
+    lc.reset();
+    listAppender.start();
+    child.debug("hello");
+    assertEquals(5, listAppender.list.size());
+  }
+
 }
@@ -0,0 +1,112 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.appender.NOPAppender;
+
+/**
+ * Measures the time and, where the JVM supports it, the number of bytes
+ * allocated per simulated request. A request puts {@link #KEY_COUNT} keys into
+ * the MDC, logs {@link #EVENT_COUNT} events and clears the MDC, which is what a
+ * typical servlet filter would do.
+ * 
+ * <p>Allocated bytes are obtained from
+ * <code>com.sun.management.ThreadMXBean.getThreadAllocatedBytes</code> via
+ * reflection, and are not reported on JVMs lacking that method.
+ * 
+ * <p>Usage: MDCAllocationPerf [keyCount [eventCount]]
+ */
+public class MDCAllocationPerf {
+
+  static int KEY_COUNT = 8;
+  static int EVENT_COUNT = 2;
+  static final int RUN_LENGTH = 200 * 1000;
+
+  static String[] KEYS;
+  static String[] VALUES;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0) {
+      KEY_COUNT = Integer.parseInt(args[0]);
+    }
+    if (args.length > 1) {
+      EVENT_COUNT = Integer.parseInt(args[1]);
+    }
+    KEYS = new String[KEY_COUNT];
+    VALUES = new String[KEY_COUNT];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      KEYS[i] = "key" + i;
+      VALUES[i] = "value" + i;
+    }
+
+    LoggerContext lc = new LoggerContext();
+    NOPAppender<ILoggingEvent> nopAppender = new NOPAppender<ILoggingEvent>();
+    nopAppender.setContext(lc);
+    nopAppender.start();
+    lc.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(nopAppender);
+    Logger logger = lc.getLogger(MDCAllocationPerf.class);
+
+    // warm up
+    loop(logger, RUN_LENGTH);
+
+    long bytesBefore = allocatedBytes();
+    long start = System.nanoTime();
+    loop(logger, RUN_LENGTH);
+    long durationInNanos = System.nanoTime() - start;
+    long bytesAfter = allocatedBytes();
+
+    System.out.println("keyCount=" + KEY_COUNT + ", eventCount=" + EVENT_COUNT);
+    System.out.println("Duration per request: " + durationInNanos / RUN_LENGTH
+        + " nanoseconds");
+    if (bytesBefore != -1) {
+      System.out.println("Allocated per request: " + (bytesAfter - bytesBefore)
+          / RUN_LENGTH + " bytes");
+    } else {
+      System.out.println("Allocated bytes are not available on this JVM");
+    }
+    lc.stop();
+  }
+
+  static void loop(Logger logger, int len) {
+    for (int r = 0; r < len; r++) {
+      for (int i = 0; i < KEY_COUNT; i++) {
+        MDC.put(KEYS[i], VALUES[i]);
+      }
+      for (int e = 0; e < EVENT_COUNT; e++) {
+        logger.info("request handled");
+      }
+      MDC.clear();
+    }
+  }
+
+  static long allocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    try {
+      Class<?> sunThreadMXBeanClass = Class
+          .forName("com.sun.management.ThreadMXBean");
+      Method m = sunThreadMXBeanClass.getMethod("getThreadAllocatedBytes",
+          long.class);
+      return (Long) m.invoke(threadMXBean, Thread.currentThread().getId());
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+}
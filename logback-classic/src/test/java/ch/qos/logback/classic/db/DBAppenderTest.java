@@ -16,9 +16,11 @@ package ch.qos.logback.classic.db;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.After;
@@ -162,6 +164,73 @@ public class DBAppenderTest  {
     stmt.close();
   }
 
+  @Test
+  public void testBatchedAppend() throws SQLException {
+    appender.stop();
+    appender.setBatchSize(4);
+    appender.setMaxBatchDelay(50);
+    appender.start();
+    lc.putProperty("testKey1", "testValue1");
+
+    int total = 10;
+    for (int i = 0; i < total; i++) {
+      appender.doAppend(createLoggingEvent());
+    }
+    // stopping the appender flushes all pending batches
+    appender.stop();
+
+    Statement stmt = connectionSource.getConnection().createStatement();
+    assertEquals(total, count(stmt, "SELECT * FROM logging_event"));
+    // every event must reference its own property and exception rows
+    assertEquals(total, count(stmt,
+        "SELECT DISTINCT event_id FROM logging_event_property"));
+    assertEquals(total, count(stmt,
+        "SELECT DISTINCT event_id FROM logging_event_exception"));
+    assertEquals(0, count(stmt, "SELECT * FROM logging_event_property p "
+        + "WHERE NOT EXISTS (SELECT * FROM logging_event e "
+        + "WHERE e.event_id = p.event_id)"));
+    stmt.close();
+  }
+
+  @Test
+  public void testBatchedAppendOneByOne() throws SQLException {
+    appender.stop();
+    appender = new DBAppender() {
+      @Override
+      protected void subAppendBatch(List<ILoggingEvent> events,
+          Connection connection) throws Throwable {
+        subAppendOneByOne(events, connection);
+      }
+    };
+    appender.setContext(lc);
+    appender.setConnectionSource(connectionSource);
+    appender.setBatchSize(4);
+    appender.setMaxBatchDelay(50);
+    appender.start();
+
+    int total = 10;
+    for (int i = 0; i < total; i++) {
+      appender.doAppend(createLoggingEvent());
+    }
+    appender.stop();
+
+    // the events of each batch are inserted one by one
+    Statement stmt = connectionSource.getConnection().createStatement();
+    assertEquals(total, count(stmt, "SELECT * FROM logging_event"));
+    assertEquals(total, count(stmt,
+        "SELECT DISTINCT event_id FROM logging_event_exception"));
+    stmt.close();
+  }
+
+  int count(Statement stmt, String query) throws SQLException {
+    ResultSet rs = stmt.executeQuery(query);
+    int count = 0;
+    while (rs.next()) {
+      count++;
+    }
+    rs.close();
+    return count;
+  }
 
   private ILoggingEvent createLoggingEvent() {
     ILoggingEvent le = new LoggingEvent(this.getClass().getName(), logger,
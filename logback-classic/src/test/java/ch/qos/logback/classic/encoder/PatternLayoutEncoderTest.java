@@ -0,0 +1,81 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.encoder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.message.SimpleMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+public class PatternLayoutEncoderTest {
+
+  static final String PATTERN = "%d %level [%thread] %logger - %msg%n";
+
+  LoggerContext lc = new LoggerContext();
+  Logger logger = lc.getLogger(PatternLayoutEncoderTest.class);
+  PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+  Charset utf8 = Charset.forName("UTF-8");
+
+  @Before
+  public void setUp() {
+    encoder.setContext(lc);
+    encoder.setPattern(PATTERN);
+    encoder.setEncoding("UTF-8");
+    encoder.start();
+  }
+
+  ILoggingEvent makeLoggingEvent(String msg) {
+    return new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+        new SimpleMessage(msg), null);
+  }
+
+  @Test
+  public void sameOutputAsPatternLayout() {
+    PatternLayout pl = new PatternLayout();
+    pl.setContext(lc);
+    pl.setPattern(PATTERN);
+    pl.start();
+
+    ILoggingEvent le = makeLoggingEvent("hello \u20ac");
+    ByteBuffer bb = encoder.encode(le);
+    assertEquals(pl.doLayout(le), utf8.decode(bb).toString());
+  }
+
+  @Test
+  public void consecutiveEvents() {
+    for (int i = 0; i < 10; i++) {
+      ILoggingEvent le = makeLoggingEvent("message " + i);
+      String result = utf8.decode(encoder.encode(le)).toString();
+      assertEquals(true, result.endsWith("message " + i
+          + System.getProperty("line.separator")));
+    }
+  }
+
+  @Test
+  public void noHeaderNorFooterByDefault() {
+    assertEquals(null, encoder.headerBytes());
+    assertEquals(null, encoder.footerBytes());
+  }
+}
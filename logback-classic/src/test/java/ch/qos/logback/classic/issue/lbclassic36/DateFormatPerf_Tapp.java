@@ -19,6 +19,8 @@ import java.util.Date;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
+import ch.qos.logback.core.util.CachingDateFormatter;
+
 public class DateFormatPerf_Tapp {
   public static final String ISO8601_PATTERN = "yyyy-MM-dd HH:mm:ss,SSS";
   static final long NANOS_IN_ONE_SEC = 1000 * 1000 * 1000L;
@@ -29,10 +31,12 @@ public class DateFormatPerf_Tapp {
     for (int i = 0; i < 5; i++) {
       doRawJoda();
       doRawSDF();
+      doCaching();
     }
 
     print("Raw Joda:     ", doRawJoda());
     print("Raw SDF:      ", doRawSDF());
+    print("Caching:      ", doCaching());
   }
 
   static void print(String msg, double avg) {
@@ -59,4 +63,17 @@ public class DateFormatPerf_Tapp {
     return (System.nanoTime() - start) * 1.0d / RUN_LENGTH;
   }
 
+  // successive timestamps advance by one millisecond so that the millisecond
+  // digits need patching on every call
+  static double doCaching() {
+    CachingDateFormatter cachingFormat = new CachingDateFormatter(
+        ISO8601_PATTERN);
+    long timeInMillis = new Date().getTime();
+    long start = System.nanoTime();
+    for (int i = 0; i < RUN_LENGTH; ++i) {
+      cachingFormat.format(timeInMillis + i);
+    }
+    return (System.nanoTime() - start) * 1.0d / RUN_LENGTH;
+  }
+
 }
@@ -36,6 +36,7 @@ public class DateFormattingThreadedThroughputCalculator {
     for (int i = 0; i < 2; i++) {
       tp.execute(buildArray(FormattingModel.SDF));
       tp.execute(buildArray(FormattingModel.JODA));
+      tp.execute(buildArray(FormattingModel.CACHING));
     }
 
     tp.execute(buildArray(FormattingModel.JODA));
@@ -44,6 +45,9 @@ public class DateFormattingThreadedThroughputCalculator {
     tp.execute(buildArray(FormattingModel.SDF));
     tp.printThroughput("SDF:  ");
 
+    tp.execute(buildArray(FormattingModel.CACHING));
+    tp.printThroughput("CACHING: ");
+
 
   }
 
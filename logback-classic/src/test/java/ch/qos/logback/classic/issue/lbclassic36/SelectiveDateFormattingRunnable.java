@@ -18,6 +18,7 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 import ch.qos.logback.core.contention.RunnableWithCounterAndDone;
+import ch.qos.logback.core.util.CachingDateFormatter;
 
 /**
  * A runnable which behaves differently depending on the desired locking model.
@@ -31,7 +32,7 @@ public class SelectiveDateFormattingRunnable extends
   public static final String ISO8601_PATTERN = "yyyy-MM-dd HH:mm:ss,SSS";
 
   enum FormattingModel {
-    SDF, JODA;
+    SDF, JODA, CACHING;
   }
 
   FormattingModel model;
@@ -40,6 +41,8 @@ public class SelectiveDateFormattingRunnable extends
   static SimpleDateFormat SDF = new SimpleDateFormat(ISO8601_PATTERN);
   static final DateTimeFormatter JODA = DateTimeFormat
       .forPattern(ISO8601_PATTERN);
+  static final CachingDateFormatter CACHING = new CachingDateFormatter(
+      ISO8601_PATTERN);
 
   SelectiveDateFormattingRunnable(FormattingModel model) {
     this.model = model;
@@ -53,6 +56,9 @@ public class SelectiveDateFormattingRunnable extends
     case JODA:
       jodaRun();
       break;
+    case CACHING:
+      cachingRun();
+      break;
     }
   }
 
@@ -86,6 +92,16 @@ public class SelectiveDateFormattingRunnable extends
     }
   }
   
+  void cachingRun() {
+    for (;;) {
+      CACHING.format(System.currentTimeMillis());
+      counter++;
+      if (done) {
+        return;
+      }
+    }
+  }
+
   private static boolean isCacheStale(long now) {
     synchronized (JODA) {
       if (CACHE != now) {
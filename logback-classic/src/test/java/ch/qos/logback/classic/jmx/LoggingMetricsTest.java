@@ -0,0 +1,171 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.jmx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.MarkerFilter;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+public class LoggingMetricsTest {
+
+  MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+  LoggerContext lc = new LoggerContext();
+  Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+  int diff = RandomUtil.getPositiveInt();
+  ObjectName objectName;
+
+  @Before
+  public void setUp() throws Exception {
+    lc.setName("context-" + diff);
+    objectName = new ObjectName("ch.qos.logback." + diff + ":Name="
+        + lc.getName() + ",Type=" + this.getClass().getName());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    lc.stop();
+  }
+
+  @Test
+  public void countsAreExposed() throws Exception {
+    LoggingMetrics loggingMetrics = new LoggingMetrics(lc, mbs, objectName);
+    mbs.registerMBean(loggingMetrics, objectName);
+
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(lc);
+    listAppender.setName("LIST");
+    AsyncAppender asyncAppender = new AsyncAppender();
+    asyncAppender.setContext(lc);
+    asyncAppender.setName("ASYNC");
+    asyncAppender.addAppender(listAppender);
+    listAppender.start();
+    asyncAppender.start();
+    root.addAppender(asyncAppender);
+
+    MarkerFilter markerFilter = new MarkerFilter();
+    markerFilter.setMarker("NONE");
+    markerFilter.setOnMatch(FilterReply.DENY.toString());
+    markerFilter.start();
+    lc.addTurboFilter(markerFilter);
+
+    root.setLevel(Level.INFO);
+    root.debug("not enabled");
+    root.info("hello");
+    root.warn("hello");
+    root.warn("hello");
+    // the worker thread delivers events to the list appender asynchronously
+    for (int i = 0; i < 100 && loggingMetrics.getAppendedCount("LIST") < 3; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(3, listAppender.list.size());
+
+    assertEquals(0L, mbs.getAttribute(objectName, "DebugEventCount"));
+    assertEquals(1L, mbs.getAttribute(objectName, "InfoEventCount"));
+    assertEquals(2L, mbs.getAttribute(objectName, "WarnEventCount"));
+    assertEquals(4L, mbs.getAttribute(objectName, "TurboFilterNeutralCount"));
+
+    assertTrue(loggingMetrics.getAppenderNames().contains("ASYNC"));
+    assertTrue(loggingMetrics.getAppenderNames().contains("LIST"));
+    assertEquals(3, loggingMetrics.getAppendedCount("ASYNC"));
+    assertEquals(3, loggingMetrics.getAppendedCount("LIST"));
+    assertEquals(-1, loggingMetrics.getAppendedCount("inexistent"));
+    assertEquals(6L, mbs.getAttribute(objectName, "TotalAppendedCount"));
+
+    loggingMetrics.resetMetrics();
+    assertEquals(0, loggingMetrics.getAppendedCount("LIST"));
+    assertEquals(0, loggingMetrics.getWarnEventCount());
+  }
+
+  @Test
+  public void eventsAreOnlyCountedWhileRegistered() throws Exception {
+    root.info("not counted");
+    assertEquals(0, lc.getMetrics().getEventCount(Level.INFO));
+
+    LoggingMetrics loggingMetrics = new LoggingMetrics(lc, mbs, objectName);
+    mbs.registerMBean(loggingMetrics, objectName);
+    root.info("counted");
+    assertEquals(1, lc.getMetrics().getEventCount(Level.INFO));
+
+    mbs.unregisterMBean(objectName);
+    root.info("not counted");
+    assertEquals(1, lc.getMetrics().getEventCount(Level.INFO));
+  }
+
+  @Test
+  public void appenderMetricsAreOnlyMaintainedWhileRegistered()
+      throws Exception {
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(lc);
+    listAppender.setName("LIST");
+    listAppender.start();
+    root.addAppender(listAppender);
+    root.info("not counted");
+    assertFalse(listAppender.isMetricsEnabled());
+
+    LoggingMetrics loggingMetrics = new LoggingMetrics(lc, mbs, objectName);
+    mbs.registerMBean(loggingMetrics, objectName);
+    assertTrue(listAppender.isMetricsEnabled());
+    root.info("counted");
+    assertEquals(1, loggingMetrics.getAppendedCount("LIST"));
+
+    // appenders configured after a reset maintain their metrics as well
+    lc.reset();
+    ListAppender<ILoggingEvent> other = new ListAppender<ILoggingEvent>();
+    other.setContext(lc);
+    other.start();
+    root.addAppender(other);
+    assertTrue(other.isMetricsEnabled());
+
+    mbs.unregisterMBean(objectName);
+    assertFalse(other.isMetricsEnabled());
+    ListAppender<ILoggingEvent> late = new ListAppender<ILoggingEvent>();
+    late.setContext(lc);
+    late.start();
+    assertFalse(late.isMetricsEnabled());
+  }
+
+  @Test
+  public void configuredAndUnregisteredOnStop() throws Exception {
+    String configuration = "<configuration><jmxMetrics objectName='"
+        + objectName + "'/></configuration>";
+    JoranConfigurator jc = new JoranConfigurator();
+    jc.setContext(lc);
+    jc.doConfigure(new ByteArrayInputStream(configuration.getBytes()));
+
+    assertTrue(mbs.isRegistered(objectName));
+    lc.stop();
+    assertFalse(mbs.isRegistered(objectName));
+  }
+}
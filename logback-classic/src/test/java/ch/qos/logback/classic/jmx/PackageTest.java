@@ -19,7 +19,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses(JMXConfiguratorTest.class)
+@SuiteClasses({ JMXConfiguratorTest.class, LoggingMetricsTest.class })
 public class PackageTest  {
   
 }
\ No newline at end of file
@@ -17,7 +17,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -109,6 +111,19 @@ public class JoranConfiguratorTest {
     System.clearProperty(propertyName);
   }
 
+  @Test
+  public void encoder() throws JoranException, IOException {
+    configure(TeztConstants.TEST_DIR_PREFIX + "input/joran/encoder.xml");
+    logger.debug("hello world");
+    loggerContext.stop();
+
+    BufferedReader in = new BufferedReader(new FileReader(
+        "target/test-output/joranEncoder.log"));
+    String line = in.readLine();
+    in.close();
+    assertEquals("DEBUG JoranConfiguratorTest - hello world", line);
+  }
+
   @Test
   public void statusListener() throws JoranException {
     configure(TeztConstants.TEST_DIR_PREFIX + "input/joran/statusListener.xml");
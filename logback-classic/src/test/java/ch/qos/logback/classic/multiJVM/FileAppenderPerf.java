@@ -28,7 +28,11 @@ public class FileAppenderPerf {
   static int DIFF = RandomUtil.getPositiveInt() % 1000;
   static String FILENAME;
 
-  static LoggerContext buildLoggerContext(String filename, boolean safetyMode) {
+  enum Mode {
+    IMMEDIATE_FLUSH, BUFFERED, PRUDENT, MEMORY_MAPPED;
+  }
+
+  static LoggerContext buildLoggerContext(String filename, Mode mode) {
     LoggerContext loggerContext = new LoggerContext();
 
     FileAppender<ILoggingEvent> fa = new FileAppender<ILoggingEvent>();
@@ -41,9 +45,10 @@ public class FileAppenderPerf {
     fa.setLayout(patternLayout);
     fa.setFile(filename);
     fa.setAppend(false);
-    fa.setImmediateFlush(true);
-    fa.setBufferedIO(false);
-    fa.setPrudent(safetyMode);
+    fa.setImmediateFlush(mode != Mode.BUFFERED);
+    fa.setBufferedIO(mode == Mode.BUFFERED);
+    fa.setPrudent(mode == Mode.PRUDENT);
+    fa.setMemoryMapped(mode == Mode.MEMORY_MAPPED);
     fa.setContext(loggerContext);
     fa.start();
 
@@ -73,13 +78,13 @@ public class FileAppenderPerf {
       FILENAME = argv[0];
     }
 
-    perfCase(false);
-    perfCase(true);
+    for (Mode mode : Mode.values()) {
+      perfCase(mode);
+    }
   }
 
-  static void perfCase(boolean safetyMode) throws Exception {
-    LoggerContext lc = buildLoggerContext(FILENAME + "-" + safetyMode + ".log",
-        safetyMode);
+  static void perfCase(Mode mode) throws Exception {
+    LoggerContext lc = buildLoggerContext(FILENAME + "-" + mode + ".log", mode);
     Logger logger = lc.getLogger(FileAppenderPerf.class);
 
     long start = System.nanoTime();
@@ -92,7 +97,7 @@ public class FileAppenderPerf {
     lc.stop();
 
     System.out.println("Average duration of " + (durationPerLog)
-        + " microseconds per log. Prudent mode=" + safetyMode);
+        + " microseconds per log. Mode=" + mode);
     System.out.println("------------------------------------------------");
   }
 
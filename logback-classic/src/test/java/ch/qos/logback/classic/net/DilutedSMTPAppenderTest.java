@@ -30,6 +30,7 @@ import ch.qos.logback.classic.PatternLayout;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.sift.DefaultDiscriminator;
 
 public class DilutedSMTPAppenderTest {
 
@@ -93,7 +94,8 @@ public class DilutedSMTPAppenderTest {
     event.setThreadName("thead name");
     event.setLevel(Level.DEBUG);
     appender.subAppend(event);
-    assertEquals(1, appender.cb.length());
+    assertEquals(1, appender.getCyclicBufferTracker().get(
+        DefaultDiscriminator.DEFAULT).length());
   }
 
   @Test
@@ -14,6 +14,7 @@
 package ch.qos.logback.classic.net;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -35,12 +36,14 @@ import ch.qos.logback.classic.PatternLayout;
 import ch.qos.logback.classic.html.HTMLLayout;
 import ch.qos.logback.classic.html.XHTMLEntityResolver;
 import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.sift.MDCBasedDiscriminator;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.util.TeztConstants;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.Layout;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.Duration;
 import ch.qos.logback.core.util.StatusPrinter;
 
 import com.icegreen.greenmail.util.GreenMail;
@@ -200,6 +203,76 @@ public class SMTPAppender_GreenTest {
     reader.read(mp.getBodyPart(0).getInputStream());
   }
 
+  @Test
+  public void asynchronousSending() throws Exception {
+    buildSMTPAppender();
+    smtpAppender.setLayout(buildPatternLayout(lc));
+    smtpAppender.setAsynchronousSending(true);
+    smtpAppender.start();
+    logger.addAppender(smtpAppender);
+    logger.debug("hello");
+    logger.error("en error");
+
+    assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+    MimeMultipart mp = verify(TEST_SUBJECT);
+    String body = GreenMailUtil.getBody(mp.getBodyPart(0));
+    assertTrue(body.contains("hello"));
+    assertTrue(body.contains("en error"));
+  }
+
+  @Test
+  public void rateLimitedNotificationsAreMergedIntoADigest() throws Exception {
+    buildSMTPAppender();
+    smtpAppender.setLayout(buildPatternLayout(lc));
+    smtpAppender.setMaxEmailsPerInterval(1);
+    smtpAppender.setRateLimitInterval(Duration.buildByMilliseconds(500));
+    smtpAppender.start();
+    logger.addAppender(smtpAppender);
+    logger.error("error 0");
+    logger.error("error 1");
+    logger.error("error 2");
+
+    assertTrue(greenMail.waitForIncomingEmail(5000, 2));
+    // give a spurious third e-mail the chance to arrive
+    Thread.sleep(600);
+    MimeMessage[] mma = greenMail.getReceivedMessages();
+    assertEquals(2, mma.length);
+    assertEquals(TEST_SUBJECT, mma[0].getSubject());
+    assertEquals("[Digest of 2 notifications] " + TEST_SUBJECT, mma[1]
+        .getSubject());
+    String body = GreenMailUtil.getBody(((MimeMultipart) mma[1].getContent())
+        .getBodyPart(0));
+    assertTrue(body.contains("error 1"));
+    assertTrue(body.contains("error 2"));
+    assertFalse(body.contains("error 0"));
+  }
+
+  @Test
+  public void buffersArePerDiscriminatingValue() throws Exception {
+    buildSMTPAppender();
+    smtpAppender.setLayout(buildPatternLayout(lc));
+    MDCBasedDiscriminator discriminator = new MDCBasedDiscriminator();
+    discriminator.setContext(lc);
+    discriminator.setKey("component");
+    discriminator.setDefaultValue("none");
+    discriminator.start();
+    smtpAppender.setDiscriminator(discriminator);
+    smtpAppender.start();
+    logger.addAppender(smtpAppender);
+
+    MDC.put("component", "a");
+    logger.debug("hello from a");
+    MDC.put("component", "b");
+    logger.debug("hello from b");
+    MDC.put("component", "a");
+    logger.error("error in a");
+
+    MimeMultipart mp = verify(TEST_SUBJECT);
+    String body = GreenMailUtil.getBody(mp.getBodyPart(0));
+    assertTrue(body.contains("hello from a"));
+    assertFalse(body.contains("hello from b"));
+  }
+
   private void configure(String file) throws JoranException {
     JoranConfigurator jc = new JoranConfigurator();
     jc.setContext(lc);
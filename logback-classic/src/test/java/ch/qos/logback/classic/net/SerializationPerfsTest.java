@@ -15,16 +15,22 @@ package ch.qos.logback.classic.net;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 
 import junit.framework.TestCase;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEventBinaryCodec;
+import ch.qos.logback.core.net.BinaryOutput;
 import ch.qos.logback.classic.net.testObjectBuilders.Builder;
 import ch.qos.logback.classic.net.testObjectBuilders.TrivialLoggingEventBuilder;
 import ch.qos.logback.classic.net.testObjectBuilders.MinimalSerBuilder;
 
 public class SerializationPerfsTest extends TestCase {
 
+  OutputStream os;
   ObjectOutputStream oos;
+  LoggingEventPreSerializationTransformer pst = new LoggingEventPreSerializationTransformer();
 
   int loopNumber = 10000;
   int resetFrequency = 100;
@@ -104,11 +110,12 @@ public class SerializationPerfsTest extends TestCase {
   public void setUp() throws Exception {
     super.setUp();
     if (runWithExternalMockServer) {
-      oos = new ObjectOutputStream(new Socket("pixie",
-          ExternalMockSocketServer.PORT).getOutputStream());
+      os = new Socket("pixie", ExternalMockSocketServer.PORT)
+          .getOutputStream();
     } else {
-      oos = new ObjectOutputStream(new NOPOutputStream());
+      os = new NOPOutputStream();
     }
+    oos = new ObjectOutputStream(os);
   }
 
   public void tearDown() throws Exception {
@@ -127,7 +134,7 @@ public class SerializationPerfsTest extends TestCase {
     int pauseCounter = 0;
     for (int i = 0; i < loopNumber; i++) {
       try {
-        oos.writeObject(builder.build(i));
+        oos.writeObject(toSerializable(builder.build(i)));
         oos.flush();
         if (++resetCounter >= resetFrequency) {
           oos.reset();
@@ -153,7 +160,7 @@ public class SerializationPerfsTest extends TestCase {
     for (int i = 0; i < loopNumber; i++) {
       try {
         t1 = System.nanoTime();
-        oos.writeObject(builder.build(i));
+        oos.writeObject(toSerializable(builder.build(i)));
         oos.flush();
         t2 = System.nanoTime();
         total += (t2 - t1);
@@ -172,12 +179,71 @@ public class SerializationPerfsTest extends TestCase {
     total /= 1000;
     System.out.println(label + " : average time = " + total / loopNumber
         + " microsecs after " + loopNumber + " writes.");
+    printDataSent(label);
 
     // long time2 = System.nanoTime();
     // System.out.println("********* -> Time needed to run the test method: " +
     // Long.toString(time2-time1));
   }
 
+  // LoggingEvent instances are sent as LoggingEventVO by SocketAppender
+  Object toSerializable(Object o) {
+    if (o instanceof ILoggingEvent) {
+      return pst.transform((ILoggingEvent) o);
+    }
+    return o;
+  }
+
+  /**
+   * Same as {@link #runPerfTest(Builder, String)} but with events encoded by
+   * the compact binary codec instead of Java serialization.
+   */
+  public void runBinaryPerfTest(Builder builder, String label)
+      throws Exception {
+    LoggingEventBinaryCodec codec = new LoggingEventBinaryCodec();
+    BinaryOutput binaryOutput = new BinaryOutput();
+    BinaryOutput.writeMagic(os);
+
+    // first run for just in time compiler
+    int pauseCounter = 0;
+    for (int i = 0; i < loopNumber; i++) {
+      codec.encode((ILoggingEvent) builder.build(i), binaryOutput);
+      binaryOutput.writeRecordTo(os);
+      os.flush();
+      if (++pauseCounter >= pauseFrequency) {
+        Thread.sleep(pauseLengthInMillis);
+        pauseCounter = 0;
+      }
+    }
+
+    // second run
+    long total = 0L;
+    pauseCounter = 0;
+    for (int i = 0; i < loopNumber; i++) {
+      long t1 = System.nanoTime();
+      codec.encode((ILoggingEvent) builder.build(i), binaryOutput);
+      binaryOutput.writeRecordTo(os);
+      os.flush();
+      total += System.nanoTime() - t1;
+      if (++pauseCounter >= pauseFrequency) {
+        Thread.sleep(pauseLengthInMillis);
+        pauseCounter = 0;
+      }
+    }
+    total /= 1000;
+    System.out.println(label + " : average time = " + total / loopNumber
+        + " microsecs after " + loopNumber + " writes.");
+    printDataSent(label);
+  }
+
+  void printDataSent(String label) {
+    if (os instanceof NOPOutputStream) {
+      NOPOutputStream nop = (NOPOutputStream) os;
+      System.out.println(label + " : data sent = " + nop.size() / 1024
+          + " kilobytes for " + 2 * loopNumber + " writes.");
+    }
+  }
+
   // public void testWithMinimalExternalization() throws Exception {
   // Builder builder = new MinimalExtBuilder();
   // runPerfTest(builder, "Minimal object externalization");
@@ -197,4 +263,9 @@ public class SerializationPerfsTest extends TestCase {
     Builder builder = new TrivialLoggingEventBuilder();
     runPerfTest(builder, "LoggingEvent object serialization");
   }
+
+  public void testWithBinaryCodec() throws Exception {
+    Builder builder = new TrivialLoggingEventBuilder();
+    runBinaryPerfTest(builder, "LoggingEvent binary codec");
+  }
 }
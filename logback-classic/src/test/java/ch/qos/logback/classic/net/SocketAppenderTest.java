@@ -233,6 +233,60 @@ public class SocketAppenderTest {
     assertEquals(Level.DEBUG, remoteEvent.getLevel());
   }
 
+  @Test
+  public void binaryCodec() throws InterruptedException {
+    socketAppender.setBinaryCodec(true);
+    fireServer();
+    waitForServerToStart();
+    configureClient();
+
+    Logger logger = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    MDC.put("key", "testValue");
+    logger.debug(MarkerFactory.getMarker("testMarker"), "test {}", "msg");
+    logger.info("test msg 2");
+
+    Thread.sleep(SLEEP_AFTER_LOG);
+    simpleSocketServer.close();
+    simpleSocketServer.join(JOIN_OR_WAIT_TIMEOUT);
+    assertTrue(simpleSocketServer.isClosed());
+    assertEquals(2, la.list.size());
+
+    ILoggingEvent remoteEvent = la.list.get(0);
+    assertEquals("test msg", remoteEvent.getFormattedMessage());
+    assertEquals(Level.DEBUG, remoteEvent.getLevel());
+    assertEquals("testValue", remoteEvent.getMDCPropertyMap().get("key"));
+    assertEquals("testMarker", remoteEvent.getMarker().getName());
+    assertEquals("test", remoteEvent.getLoggerContextVO().getName());
+    assertNull(remoteEvent.getCallerData());
+
+    remoteEvent = la.list.get(1);
+    assertEquals("test msg 2", remoteEvent.getFormattedMessage());
+    assertEquals("testValue", remoteEvent.getLoggerContextVO()
+        .getPropertyMap().get("testKey"));
+  }
+
+  @Test
+  public void batchedWrites() throws InterruptedException {
+    socketAppender.setBinaryCodec(true);
+    socketAppender.setMaxBatchDelay(20);
+    fireServer();
+    waitForServerToStart();
+    configureClient();
+
+    Logger logger = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    for (int i = 0; i < 10; i++) {
+      logger.debug("test msg " + i);
+    }
+
+    // wait for the flusher to kick in
+    Thread.sleep(SLEEP_AFTER_LOG);
+    simpleSocketServer.close();
+    simpleSocketServer.join(JOIN_OR_WAIT_TIMEOUT);
+    assertTrue(simpleSocketServer.isClosed());
+    assertEquals(10, la.list.size());
+    assertEquals("test msg 9", la.list.get(9).getFormattedMessage());
+  }
+
   private void waitForServerToStart() throws InterruptedException {
     synchronized (simpleSocketServer) {
       simpleSocketServer.wait(JOIN_OR_WAIT_TIMEOUT);
@@ -138,6 +138,46 @@ public class SyslogAppenderTest {
     checkRegexMatch(msg, regex);
   }
 
+  @Test
+  public void channel() throws InterruptedException {
+    int port = RandomUtil.getRandomServerPort();
+
+    MockSyslogServer mockServer = new MockSyslogServer(21, port);
+    mockServer.start();
+    // give MockSyslogServer head start
+    Thread.sleep(100);
+
+    LoggerContext lc = new LoggerContext();
+    lc.setName("test");
+    SyslogAppender sa = new SyslogAppender();
+    sa.setContext(lc);
+    sa.setSyslogHost("localhost");
+    sa.setFacility("MAIL");
+    sa.setPort(port);
+    sa.setChannel("UDP");
+    sa.setSuffixPattern("[%thread] %logger %msg");
+    sa.start();
+    assertTrue(sa.isStarted());
+
+    String loggerName = this.getClass().getName();
+    Logger logger = lc.getLogger(loggerName);
+    logger.addAppender(sa);
+    String logMsg = "hello";
+    logger.debug(logMsg, new Exception("just testing"));
+
+    mockServer.join(8000);
+    sa.stop();
+    assertTrue(mockServer.isFinished());
+
+    // message + 20 lines of stacktrace, sent by the sender thread
+    assertEquals(21, mockServer.getMessageList().size());
+    String msg = mockServer.getMessageList().get(0);
+    String expectedPrefix = "<\\d{2}>\\w{3} \\d{2} \\d{2}(:\\d{2}){2} [\\w.-]* ";
+    String threadName = Thread.currentThread().getName();
+    checkRegexMatch(msg, expectedPrefix + "\\[" + threadName + "\\] "
+        + loggerName + " " + logMsg);
+  }
+
   private void checkRegexMatch(String s, String regex) {
     assertTrue("The string ["+s+"] did not match regex ["+regex+"]", s.matches(regex));
   }
@@ -14,9 +14,13 @@
 package ch.qos.logback.classic.pattern;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -28,6 +32,7 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.classic.util.TeztHelper;
+import ch.qos.logback.core.CoreConstants;
 import org.slf4j.message.SimpleMessage;
 
 public class ThrowableProxyConverterTest {
@@ -65,6 +70,59 @@ public class ThrowableProxyConverterTest {
     verify(t);
   }
 
+  Exception makeException(String msg) {
+    return new Exception(msg);
+  }
+
+  @Test
+  public void fingerprint() {
+    ThrowableFingerprintConverter fpc = new ThrowableFingerprintConverter();
+    fpc.setContext(lc);
+    fpc.start();
+
+    List<String> fingerprints = new ArrayList<String>();
+    for (int i = 0; i < 2; i++) {
+      fingerprints.add(fpc.convert(createLoggingEvent(makeException("x" + i))));
+    }
+    // same code path, different message
+    assertEquals(fingerprints.get(0), fingerprints.get(1));
+    assertEquals(16, fingerprints.get(0).length());
+
+    String other = fpc.convert(createLoggingEvent(new Exception("x0")));
+    assertFalse(other.equals(fingerprints.get(0)));
+    String nested = fpc.convert(createLoggingEvent(new Exception("x0",
+        makeException("cause"))));
+    assertFalse(nested.equals(other));
+    assertEquals("", fpc.convert(createLoggingEvent(null)));
+  }
+
+  @Test
+  public void repeatedTracesAreCompressed() {
+    tpc = new ThrowableProxyConverter();
+    List<String> optionList = new ArrayList<String>();
+    optionList.add("full");
+    optionList.add("FULL_EVERY=3");
+    tpc.setOptionList(optionList);
+    tpc.setContext(lc);
+    tpc.start();
+
+    List<String> results = new ArrayList<String>();
+    for (int i = 0; i < 4; i++) {
+      results.add(tpc.convert(createLoggingEvent(makeException("x" + i))));
+    }
+    String fingerprint = tpc.recentTraces.keySet().iterator().next();
+
+    // full traces for the first and fourth occurrences
+    assertTrue(results.get(0).contains("\tat "));
+    assertTrue(results.get(0).contains("... stack trace " + fingerprint));
+    assertTrue(results.get(3).contains("\tat "));
+    String expected = "java.lang.Exception: x1" + CoreConstants.LINE_SEPARATOR
+        + "\t... stack trace " + fingerprint + " seen 2 times"
+        + CoreConstants.LINE_SEPARATOR;
+    assertEquals(expected, results.get(1));
+    assertTrue(results.get(2).contains("seen 3 times"));
+  }
+
   void verify(Throwable t) {
     t.printStackTrace(pw);
 
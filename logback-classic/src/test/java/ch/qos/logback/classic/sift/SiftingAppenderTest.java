@@ -91,7 +91,7 @@ public class SiftingAppenderTest {
   }
 
   @Test
-  public void testWholeCycle() throws JoranException {
+  public void testWholeCycle() throws JoranException, InterruptedException {
     String mdcKey = "cycle";
     configure(PREFIX + "completeCycle.xml");
     MDC.put(mdcKey, "a");
@@ -111,6 +111,10 @@ public class SiftingAppenderTest {
     LoggingEvent le = new LoggingEvent("x", logger, Level.INFO, new SimpleMessage("hello"), null);
     le.setTimeStamp(timestamp + AppenderTracker.THRESHOLD * 2);
     ha.doAppend(le);
+    // stale appenders are looked for, and stopped, by background threads
+    for (int i = 0; i < 300 && listAppender.isStarted(); i++) {
+      Thread.sleep(10);
+    }
     assertFalse(listAppender.isStarted());
     assertEquals(1, ha.getAppenderTracker().keyList().size());
     assertEquals("cycleDefault", ha.getAppenderTracker().keyList().get(0));
@@ -0,0 +1,84 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.slf4j.message.SimpleMessage;
+
+public class BoundedCallerDataExtractorTest {
+
+  static final String FQCN = BoundedCallerDataExtractorTest.class.getName();
+
+  BoundedCallerDataExtractor bcde = new BoundedCallerDataExtractor();
+
+  Throwable capture(int extraFrames) {
+    if (extraFrames == 0) {
+      return new Throwable();
+    }
+    return capture(extraFrames - 1);
+  }
+
+  void assertSameAsFullStack(Throwable t, String fqn, int maxDepth) {
+    StackTraceElement[] witness = CallerData.extract(t, fqn, maxDepth);
+    StackTraceElement[] result = bcde.extract(t, fqn, maxDepth);
+    assertEquals(witness.length, result.length);
+    for (int i = 0; i < witness.length; i++) {
+      assertEquals(witness[i].getClassName(), result[i].getClassName());
+      assertEquals(witness[i].getMethodName(), result[i].getMethodName());
+      assertEquals(witness[i].getLineNumber(), result[i].getLineNumber());
+    }
+  }
+
+  @Test
+  public void smoke() {
+    assertSameAsFullStack(new Throwable(), FQCN, 50);
+    assertSameAsFullStack(new Throwable(), FQCN, 2);
+  }
+
+  @Test
+  public void varyingBoundary() {
+    for (int i = 1; i < 10; i++) {
+      assertSameAsFullStack(capture(i), FQCN, 3);
+    }
+  }
+
+  @Test
+  public void unknownInvokingClass() {
+    StackTraceElement[] cda = bcde.extract(new Throwable(),
+        "com.inexistent.foo", 10);
+    assertEquals(0, cda.length);
+    assertNull(bcde.extract(null, FQCN, 10));
+  }
+
+  @Test
+  public void pluggedIntoLoggerContext() {
+    LoggerContext lc = new LoggerContext();
+    lc.setCallerDataExtractor(bcde);
+    Logger logger = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    LoggingEvent le = new LoggingEvent(FQCN, logger, Level.INFO,
+        new SimpleMessage("hello"), null);
+    StackTraceElement[] cda = le.getCallerData();
+    assertTrue(cda.length > 0);
+    assertFalse(FQCN.equals(cda[0].getClassName()));
+  }
+}
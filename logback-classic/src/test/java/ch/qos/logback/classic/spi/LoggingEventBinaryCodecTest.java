@@ -0,0 +1,249 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.slf4j.message.Message;
+import org.slf4j.message.ParameterizedMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.net.BinaryInput;
+import ch.qos.logback.core.net.BinaryOutput;
+
+public class LoggingEventBinaryCodecTest {
+
+  LoggerContext lc = new LoggerContext();
+  Logger logger = lc.getLogger(LoggingEventBinaryCodecTest.class);
+
+  ByteArrayOutputStream bos = new ByteArrayOutputStream();
+  BinaryOutput out = new BinaryOutput();
+  LoggingEventBinaryCodec encoder = new LoggingEventBinaryCodec();
+
+  BinaryInput in;
+  LoggingEventBinaryCodec decoder = new LoggingEventBinaryCodec();
+
+  @Before
+  public void setUp() {
+    lc.setName("testContext");
+    lc.putProperty("testKey", "testValue");
+  }
+
+  @After
+  public void tearDown() {
+    MDC.clear();
+  }
+
+  LoggingEvent createLoggingEvent(Level level, Object[] args, Throwable t) {
+    return new LoggingEvent(this.getClass().getName(), logger, level,
+        new ParameterizedMessage("test {} {}", args), t);
+  }
+
+  void write(ILoggingEvent event) throws IOException {
+    encoder.encode(event, out);
+    out.writeRecordTo(bos);
+  }
+
+  ILoggingEvent read() throws IOException {
+    if (in == null) {
+      in = new BinaryInput(new ByteArrayInputStream(bos.toByteArray()));
+    }
+    in.readRecord();
+    return decoder.decode(in);
+  }
+
+  @Test
+  public void smoke() throws IOException {
+    LoggingEvent event = createLoggingEvent(Level.WARN, new Object[] { 1, "a" },
+        null);
+    write(event);
+    ILoggingEvent remoteEvent = read();
+
+    assertEquals(Level.WARN, remoteEvent.getLevel());
+    assertEquals(event.getLoggerName(), remoteEvent.getLoggerName());
+    assertEquals(event.getThreadName(), remoteEvent.getThreadName());
+    assertEquals(event.getTimeStamp(), remoteEvent.getTimeStamp());
+    assertEquals("test 1 a", remoteEvent.getFormattedMessage());
+    assertNull(remoteEvent.getThrowableProxy());
+    assertNull(remoteEvent.getMarker());
+    assertNull(remoteEvent.getCallerData());
+
+    LoggerContextVO contextVO = remoteEvent.getLoggerContextVO();
+    assertEquals("testContext", contextVO.getName());
+    assertEquals(lc.getBithTime(), contextVO.getBirthTime());
+    assertEquals("testValue", contextVO.getPropertyMap().get("testKey"));
+  }
+
+  @Test
+  public void contextAndNamesAreSentOnce() throws IOException {
+    write(createLoggingEvent(Level.INFO, null, null));
+    int firstSize = bos.size();
+    write(createLoggingEvent(Level.INFO, null, null));
+    int secondSize = bos.size() - firstSize;
+    assertTrue("second record of " + secondSize + " bytes",
+        secondSize < firstSize / 2);
+
+    ILoggingEvent e1 = read();
+    ILoggingEvent e2 = read();
+    assertSame(e1.getLoggerContextVO(), e2.getLoggerContextVO());
+    assertEquals(logger.getName(), e2.getLoggerName());
+  }
+
+  @Test
+  public void mdcAndMarker() throws IOException {
+    MDC.put("k0", "v0");
+    MDC.put("k1", null);
+    Marker marker = MarkerFactory.getDetachedMarker("parent");
+    marker.add(MarkerFactory.getDetachedMarker("child"));
+    LoggingEvent event = createLoggingEvent(Level.DEBUG, null, null);
+    event.setMarker(marker);
+    write(event);
+    ILoggingEvent remoteEvent = read();
+
+    Map<String, String> mdc = remoteEvent.getMDCPropertyMap();
+    assertEquals(2, mdc.size());
+    assertEquals("v0", mdc.get("k0"));
+    assertTrue(mdc.containsKey("k1"));
+    assertEquals("parent", remoteEvent.getMarker().getName());
+    assertTrue(remoteEvent.getMarker().contains("child"));
+  }
+
+  @Test
+  public void throwableAndCallerData() throws IOException {
+    Exception cause = new IllegalStateException("cause");
+    LoggingEvent event = createLoggingEvent(Level.ERROR, null,
+        new Exception("just testing", cause));
+    ((ThrowableProxy) event.getThrowableProxy()).calculatePackagingData();
+    event.getCallerData();
+    write(event);
+    ILoggingEvent remoteEvent = read();
+
+    IThrowableProxy remoteTP = remoteEvent.getThrowableProxy();
+    checkForEquality(event.getThrowableProxy(), remoteTP);
+    assertEquals("cause", remoteTP.getCause().getMessage());
+    assertNotNull(remoteTP.getStackTraceElementProxyArray()[0]
+        .getClassPackagingData());
+
+    StackTraceElement[] callerData = remoteEvent.getCallerData();
+    assertEquals(event.getCallerData().length, callerData.length);
+    for (int i = 0; i < callerData.length; i++) {
+      checkForEquality(event.getCallerData()[i], callerData[i]);
+    }
+  }
+
+  @Test
+  public void failedEncodingLeavesTheStreamIntact() throws IOException {
+    write(createLoggingEvent(Level.INFO, null, null));
+
+    Logger otherLogger = lc.getLogger("other");
+    LoggingEvent failing = new LoggingEvent(this.getClass().getName(),
+        otherLogger, Level.INFO, new ToStringMessage(new Object() {
+          public String toString() {
+            throw new IllegalStateException("toString failed");
+          }
+        }), null);
+    failing.setTimeStamp(failing.getTimeStamp() + 1000);
+    try {
+      encoder.encode(failing, out);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // as done by SocketAppenderBase
+      out.discardRecord();
+    }
+
+    LoggingEvent event = new LoggingEvent(this.getClass().getName(),
+        otherLogger, Level.WARN, new ParameterizedMessage("after", null), null);
+    write(event);
+    write(createLoggingEvent(Level.INFO, null, null));
+
+    read();
+    ILoggingEvent remoteEvent = read();
+    assertEquals("other", remoteEvent.getLoggerName());
+    assertEquals("after", remoteEvent.getFormattedMessage());
+    assertEquals(event.getTimeStamp(), remoteEvent.getTimeStamp());
+    assertEquals("testContext", remoteEvent.getLoggerContextVO().getName());
+    assertEquals(logger.getName(), read().getLoggerName());
+  }
+
+  // formats its argument without the protection of MessageFormatter
+  static class ToStringMessage implements Message {
+    private static final long serialVersionUID = 1L;
+    final Object arg;
+
+    ToStringMessage(Object arg) {
+      this.arg = arg;
+    }
+
+    public String getFormattedMessage() {
+      return arg.toString();
+    }
+
+    public String getMessageFormat() {
+      return "{}";
+    }
+
+    public Object[] getParameters() {
+      return new Object[] { arg };
+    }
+  }
+
+  void checkForEquality(IThrowableProxy original, IThrowableProxy decoded) {
+    if (original == null) {
+      assertNull(decoded);
+      return;
+    }
+    assertEquals(original.getClassName(), decoded.getClassName());
+    assertEquals(original.getMessage(), decoded.getMessage());
+    assertEquals(original.getCommonFrames(), decoded.getCommonFrames());
+    StackTraceElementProxy[] originalArray = original
+        .getStackTraceElementProxyArray();
+    StackTraceElementProxy[] decodedArray = decoded
+        .getStackTraceElementProxyArray();
+    assertEquals(originalArray.length, decodedArray.length);
+    for (int i = 0; i < originalArray.length; i++) {
+      checkForEquality(originalArray[i].getStackTraceElement(), decodedArray[i]
+          .getStackTraceElement());
+      assertEquals(originalArray[i].getClassPackagingData(), decodedArray[i]
+          .getClassPackagingData());
+    }
+    checkForEquality(original.getCause(), decoded.getCause());
+  }
+
+  // StackTraceElement.equals() may take into account more fields than those
+  // which are transmitted
+  void checkForEquality(StackTraceElement original, StackTraceElement decoded) {
+    assertEquals(original.getClassName(), decoded.getClassName());
+    assertEquals(original.getMethodName(), decoded.getMethodName());
+    assertEquals(original.getFileName(), decoded.getFileName());
+    assertEquals(original.getLineNumber(), decoded.getLineNumber());
+  }
+}
@@ -21,6 +21,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses( { ContextListenerTest.class, CallerDataTest.class,
     LoggerComparatorTest.class, LoggingEventSerializationTest.class,
     LoggingEventSerializationPerfTest.class, ThrowableProxyTest.class,
-    PackagingDataCalculatorTest.class })
+    PackagingDataCalculatorTest.class, LoggingEventBinaryCodecTest.class,
+    PackagingDataCacheTest.class, BoundedCallerDataExtractorTest.class })
 public class PackageTest  {
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+import org.slf4j.message.SimpleMessage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.pattern.ExtendedThrowableProxyConverter;
+
+public class PackagingDataCacheTest {
+
+  PackagingDataCache cache = new PackagingDataCache(16);
+  ClassPackagingData cpd = new ClassPackagingData("a.jar", "1.0");
+
+  @Test
+  public void hitsAndMisses() {
+    ClassLoader cl = this.getClass().getClassLoader();
+    assertNull(cache.get("x.Y", cl, true));
+    cache.put("x.Y", cl, true, cpd);
+    assertSame(cpd, cache.get("x.Y", cl, true));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void keyedByClassLoader() {
+    ClassLoader cl = this.getClass().getClassLoader();
+    ClassLoader other = new URLClassLoader(new URL[0], cl);
+    cache.put("x.Y", cl, true, cpd);
+    assertNull(cache.get("x.Y", other, true));
+    assertNull(cache.get("x.Y", null, true));
+    assertNull(cache.get("x.Y", cl, false));
+    cache.put("x.Y", null, true, cpd);
+    assertSame(cpd, cache.get("x.Y", null, true));
+  }
+
+  @Test
+  public void bounded() {
+    for (int i = 0; i < 1000; i++) {
+      cache.put("x.Y" + i, null, true, cpd);
+    }
+    assertTrue(cache.size() <= cache.getMaxSize());
+    // the latest entry survives eviction
+    assertSame(cpd, cache.get("x.Y999", null, true));
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void sharedAcrossEvents() {
+    LoggerContext lc = new LoggerContext();
+    Logger logger = lc.getLogger(this.getClass());
+    PackagingDataCache contextCache = lc.getPackagingDataCache();
+
+    makeEvent(logger);
+    long misses = contextCache.getMissCount();
+    assertTrue(misses > 0);
+    LoggingEvent event = makeEvent(logger);
+    // the second event finds everything in the cache
+    assertEquals(misses, contextCache.getMissCount());
+    assertNotNull(event.getThrowableProxy().getStackTraceElementProxyArray()[0]
+        .getClassPackagingData());
+  }
+
+  @Test
+  public void lazy() {
+    LoggerContext lc = new LoggerContext();
+    lc.setLazyPackagingData(true);
+    Logger logger = lc.getLogger(this.getClass());
+    LoggingEvent event = makeEvent(logger);
+    StackTraceElementProxy step = event.getThrowableProxy()
+        .getStackTraceElementProxyArray()[0];
+    assertNull(step.getClassPackagingData());
+
+    ExtendedThrowableProxyConverter converter = new ExtendedThrowableProxyConverter();
+    converter.setContext(lc);
+    converter.start();
+    String result = converter.convert(event);
+    assertNotNull(step.getClassPackagingData());
+    assertTrue(result, result.contains("["));
+  }
+
+  LoggingEvent makeEvent(Logger logger) {
+    return new LoggingEvent(this.getClass().getName(), logger, Level.ERROR,
+        new SimpleMessage("x"), new Exception("x"));
+  }
+}
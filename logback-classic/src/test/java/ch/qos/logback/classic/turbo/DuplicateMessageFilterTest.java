@@ -15,9 +15,17 @@ package ch.qos.logback.classic.turbo;
 
 import static org.junit.Assert.*;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
 
 public class DuplicateMessageFilterTest {
 
@@ -86,4 +94,134 @@ public class DuplicateMessageFilterTest {
         null));
   }
 
+  @Test
+  public void countsAreResetWhenTheWindowCloses() throws InterruptedException {
+    LoggerContext lc = new LoggerContext();
+    Logger logger = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(lc);
+    listAppender.start();
+    logger.addAppender(listAppender);
+
+    DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+    dmf.setAllowedRepetitions(1);
+    dmf.setWindowDuration(Duration.buildByMilliseconds(100));
+    dmf.start();
+    lc.addTurboFilter(dmf);
+
+    for (int i = 0; i < 5; i++) {
+      logger.info("x");
+    }
+    assertEquals(2, listAppender.list.size());
+
+    Thread.sleep(150);
+    logger.info("x");
+    // the summary of the closed window precedes the new occurrence
+    assertEquals(4, listAppender.list.size());
+    ILoggingEvent summary = listAppender.list.get(2);
+    assertEquals(Level.INFO, summary.getLevel());
+    assertEquals("Suppressed 3 repetitions of message [x]", summary
+        .getFormattedMessage());
+    assertEquals("x", listAppender.list.get(3).getFormattedMessage());
+  }
+
+  @Test
+  public void summaryOfBurstWhichDoesNotRecur() throws InterruptedException {
+    LoggerContext lc = new LoggerContext();
+    Logger logger = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(lc);
+    listAppender.start();
+    logger.addAppender(listAppender);
+
+    DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+    dmf.setAllowedRepetitions(1);
+    dmf.setWindowDuration(Duration.buildByMilliseconds(50));
+    dmf.start();
+    lc.addTurboFilter(dmf);
+
+    for (int i = 0; i < 5; i++) {
+      logger.warn("x");
+    }
+    assertEquals(2, listAppender.list.size());
+
+    // the sweeper logs the summary although "x" is not logged again
+    for (int i = 0; i < 100 && listAppender.list.size() < 3; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(3, listAppender.list.size());
+    ILoggingEvent summary = listAppender.list.get(2);
+    assertEquals(Level.WARN, summary.getLevel());
+    assertEquals("Suppressed 3 repetitions of message [x]", summary
+        .getFormattedMessage());
+    dmf.stop();
+    assertEquals(3, listAppender.list.size());
+  }
+
+  @Test
+  public void pendingSummariesAreLoggedOnStop() {
+    LoggerContext lc = new LoggerContext();
+    Logger logger = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(lc);
+    listAppender.start();
+    logger.addAppender(listAppender);
+
+    DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+    dmf.setAllowedRepetitions(0);
+    dmf.setWindowDuration(Duration.buildByMilliseconds(60 * 60 * 1000));
+    dmf.start();
+    lc.addTurboFilter(dmf);
+
+    for (int i = 0; i < 3; i++) {
+      logger.info("y");
+    }
+    assertEquals(1, listAppender.list.size());
+    dmf.stop();
+    assertEquals(2, listAppender.list.size());
+    assertEquals("Suppressed 2 repetitions of message [y]", listAppender.list
+        .get(1).getFormattedMessage());
+  }
+
+  @Test
+  public void concurrentAccess() throws InterruptedException {
+    final DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+    dmf.setAllowedRepetitions(0);
+    dmf.setCacheSize(2048);
+    dmf.start();
+
+    final AtomicInteger neutralCount = new AtomicInteger();
+    final int keyCount = 500;
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          for (int j = 0; j < keyCount; j++) {
+            FilterReply reply = dmf.decide(null, null, null, "m" + j, null,
+                null);
+            if (reply == FilterReply.NEUTRAL) {
+              neutralCount.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    // each key is let through exactly once
+    assertEquals(keyCount, neutralCount.get());
+  }
+
+  @Test
+  public void largeCachesAreSegmented() {
+    LRUMessageCache cache = new LRUMessageCache(2048);
+    assertEquals(LRUMessageCache.MAX_SEGMENTS, cache.segments.length);
+    for (int i = 0; i < 4096; i++) {
+      cache.getOccurrences("m" + i);
+    }
+    assertTrue(cache.size() <= 2048);
+    assertEquals(1, new LRUMessageCache(100).segments.length);
+  }
 }
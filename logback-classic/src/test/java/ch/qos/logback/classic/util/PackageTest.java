@@ -19,7 +19,8 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({InitializationTest.class, LevelToSyslogSeverityTest.class} )
+@SuiteClasses({InitializationTest.class, LevelToSyslogSeverityTest.class,
+    SmallStringMapTest.class} )
 
 public class PackageTest {
 }
\ No newline at end of file
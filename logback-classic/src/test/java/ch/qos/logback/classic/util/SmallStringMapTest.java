@@ -0,0 +1,102 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SmallStringMapTest {
+
+  SmallStringMap map = new SmallStringMap();
+  Map<String, String> witness = new HashMap<String, String>();
+
+  void put(String k, String v) {
+    assertEquals(witness.put(k, v), map.put(k, v));
+  }
+
+  void remove(String k) {
+    assertEquals(witness.remove(k), map.remove(k));
+  }
+
+  @Test
+  public void behavesLikeHashMap() {
+    for (int i = 0; i < 20; i++) {
+      put("k" + i, "v" + i);
+    }
+    put("k3", "other");
+    put("k4", null);
+    remove("k0");
+    remove("k19");
+    remove("k7");
+    remove("absent");
+    assertEquals(witness, map);
+    assertEquals(map, witness);
+    assertEquals(witness.hashCode(), map.hashCode());
+    assertTrue(map.containsKey("k4"));
+    assertNull(map.get("k4"));
+    assertFalse(map.containsKey("k0"));
+  }
+
+  @Test
+  public void iteratorRemove() {
+    for (int i = 0; i < 5; i++) {
+      put("k" + i, "v" + i);
+    }
+    Iterator<Map.Entry<String, String>> it = map.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, String> e = it.next();
+      if (e.getKey().equals("k1") || e.getKey().equals("k4")) {
+        it.remove();
+        witness.remove(e.getKey());
+      }
+    }
+    assertEquals(witness, map);
+  }
+
+  @Test
+  public void copy() {
+    put("a", "1");
+    put("b", "2");
+    SmallStringMap copy = new SmallStringMap(map, 1);
+    copy.put("c", "3");
+    assertEquals(witness, map);
+    assertEquals(3, copy.size());
+    assertEquals(witness, new SmallStringMap(witness, 0));
+  }
+
+  @Test
+  public void serialization() throws Exception {
+    put("a", "1");
+    put("b", null);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(map);
+    oos.close();
+    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos
+        .toByteArray()));
+    assertEquals(witness, ois.readObject());
+  }
+}
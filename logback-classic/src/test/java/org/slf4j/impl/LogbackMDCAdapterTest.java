@@ -16,9 +16,10 @@ package org.slf4j.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import org.junit.Test;
@@ -40,7 +41,7 @@ public class LogbackMDCAdapterTest {
   public void lbclassic77() throws InterruptedException {
     LogbackMDCAdapter lma = new LogbackMDCAdapter();
 
-    HashMap<String, String> parentHM = getHashMapFromMDCAdapter(lma);
+    Map<String, String> parentHM = getHashMapFromMDCAdapter(lma);
     assertNull(parentHM);
     
     ChildThreadForMDCAdapter childThread = new ChildThreadForMDCAdapter(lma);
@@ -54,7 +55,7 @@ public class LogbackMDCAdapterTest {
 
     LogbackMDCAdapter logbackMDCAdapter;
     boolean successul;
-    HashMap<String, String> childHM;
+    Map<String, String> childHM;
 
     ChildThreadForMDCAdapter(LogbackMDCAdapter logbackMDCAdapter) {
       this.logbackMDCAdapter = logbackMDCAdapter;
@@ -81,7 +82,7 @@ public class LogbackMDCAdapterTest {
     String otherMDCKey = "o" + diff;
     MDC.put(mdcKey, mdcKey + A_SUFFIX);
 
-    HashMap<String, String> parentHM = getHashMapFromMDC();
+    Map<String, String> parentHM = getHashMapFromMDC();
 
     ChildThreadForMDC childThread = new ChildThreadForMDC(mdcKey, otherMDCKey);
     childThread.start();
@@ -98,7 +99,7 @@ public class LogbackMDCAdapterTest {
     String mdcKey;
     String otherMDCKey;
     boolean successul;
-    HashMap<String, String> childHM;
+    Map<String, String> childHM;
 
     ChildThreadForMDC(String mdcKey, String otherMDCKey) {
       this.mdcKey = mdcKey;
@@ -117,12 +118,57 @@ public class LogbackMDCAdapterTest {
     }
   }
 
-  HashMap<String, String> getHashMapFromMDCAdapter(LogbackMDCAdapter lma) {
+  // =================================================
+  /**
+   * Test that a map handed out to a logging event is not affected by later
+   * changes to the MDC, and that the MDC is modified in place otherwise.
+   */
+  @Test
+  public void handedOutMapIsNeverModified() {
+    LogbackMDCAdapter lma = new LogbackMDCAdapter();
+    lma.put("k0", "v0");
+    Map<String, String> before = getHashMapFromMDCAdapter(lma);
+    lma.put("k1", "v1");
+    // no event captured the map in between, so it is modified in place
+    assertSame(before, getHashMapFromMDCAdapter(lma));
+
+    Map<String, String> captured = lma.getPropertyMap();
+    lma.put("k2", "v2");
+    lma.remove("k0");
+    assertEquals(2, captured.size());
+    assertEquals("v0", captured.get("k0"));
+    assertNull(captured.get("k2"));
+    assertNull(lma.get("k0"));
+    assertEquals("v2", lma.get("k2"));
+
+    Map<String, String> captured2 = lma.getPropertyMap();
+    lma.clear();
+    assertEquals(2, captured2.size());
+    assertNull(lma.getPropertyMap());
+  }
+
+  @Test
+  public void largeMap() {
+    LogbackMDCAdapter lma = new LogbackMDCAdapter();
+    int count = 3 * ch.qos.logback.classic.util.SmallStringMap.MAX_SIZE;
+    for (int i = 0; i < count; i++) {
+      lma.put("k" + i, "v" + i);
+      if (i % 5 == 0) {
+        lma.getPropertyMap();
+      }
+    }
+    assertEquals(count, lma.getPropertyMap().size());
+    for (int i = 0; i < count; i++) {
+      assertEquals("v" + i, lma.get("k" + i));
+    }
+  }
+
+  Map<String, String> getHashMapFromMDCAdapter(LogbackMDCAdapter lma) {
     CopyOnInheritThreadLocal copyOnInheritThreadLocal = lma.copyOnInheritThreadLocal;
     return copyOnInheritThreadLocal.get();
   }
 
-  HashMap<String, String> getHashMapFromMDC() {
+  Map<String, String> getHashMapFromMDC() {
     LogbackMDCAdapter lma = (LogbackMDCAdapter) MDC.getMDCAdapter();
     CopyOnInheritThreadLocal copyOnInheritThreadLocal = lma.copyOnInheritThreadLocal;
     return copyOnInheritThreadLocal.get();
@@ -20,7 +20,8 @@ import org.junit.runners.Suite.SuiteClasses;
 import ch.qos.logback.classic.LoggerPerfTest;
 
 @RunWith(Suite.class)
-@SuiteClasses( { RecursiveInitializationTest.class, LoggerPerfTest.class})
+@SuiteClasses( { RecursiveInitializationTest.class, LogbackMDCAdapterTest.class,
+    LoggerPerfTest.class })
 public class PackageTest {
 
 }
\ No newline at end of file
@@ -16,6 +16,8 @@ package ch.qos.logback.core;
 import java.util.List;
 
 import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.AppenderMetrics;
+import ch.qos.logback.core.spi.AppenderMetricsAware;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.spi.FilterAttachableImpl;
 import ch.qos.logback.core.spi.FilterReply;
@@ -30,7 +32,7 @@ import ch.qos.logback.core.status.WarnStatus;
  * @author Ceki G&uuml;lc&uuml;
  */
 abstract public class AppenderBase<E> extends ContextAwareBase implements
-    Appender<E> {
+    Appender<E>, AppenderMetricsAware {
 
   /**
    * The layout variable does not need to be set depending on the appender. Some
@@ -53,6 +55,8 @@ abstract public class AppenderBase<E> extends ContextAwareBase implements
 
   private FilterAttachableImpl<E> fai = new FilterAttachableImpl<E>();
 
+  private volatile AppenderMetrics metrics = AppenderMetrics.NOP;
+
   public String getName() {
     return name;
   }
@@ -71,10 +75,12 @@ abstract public class AppenderBase<E> extends ContextAwareBase implements
       return;
     }
 
+    AppenderMetrics metrics = this.metrics;
     try {
       guard = true;
 
       if (!this.started) {
+        metrics.recordDropped();
         if (statusRepeatCount++ < ALLOWED_REPEATS) {
           addStatus(new WarnStatus(
               "Attempted to append to non started appender [" + name + "].",
@@ -84,13 +90,21 @@ abstract public class AppenderBase<E> extends ContextAwareBase implements
       }
 
       if (getFilterChainDecision(eventObject) == FilterReply.DENY) {
+        metrics.recordDenied();
         return;
       }
 
       // ok, we now invoke derived class' implementation of append
-      this.append(eventObject);
+      if (metrics == AppenderMetrics.NOP) {
+        this.append(eventObject);
+      } else {
+        long start = System.nanoTime();
+        this.append(eventObject);
+        metrics.recordAppended(System.nanoTime() - start);
+      }
 
     } catch (Exception e) {
+      metrics.recordFailed();
       if (exceptionCount++ < ALLOWED_REPEATS) {
         addError("Appender [" + name + "] failed to append.", e);
       }
@@ -109,6 +123,10 @@ abstract public class AppenderBase<E> extends ContextAwareBase implements
   }
 
   public void start() {
+    if (context != null
+        && context.getObject(CoreConstants.APPENDER_METRICS_ENABLED) != null) {
+      setMetricsEnabled(true);
+    }
     started = true;
   }
 
@@ -144,6 +162,24 @@ abstract public class AppenderBase<E> extends ContextAwareBase implements
     return fai.getFilterChainDecision(event);
   }
 
+  /**
+   * Counters about the events handed to this appender. See
+   * {@link AppenderMetrics}.
+   */
+  public AppenderMetrics getMetrics() {
+    return metrics;
+  }
+
+  public boolean isMetricsEnabled() {
+    return metrics != AppenderMetrics.NOP;
+  }
+
+  public void setMetricsEnabled(boolean enabled) {
+    if (enabled != isMetricsEnabled()) {
+      metrics = enabled ? new AppenderMetrics() : AppenderMetrics.NOP;
+    }
+  }
+
   /**
    * Returns the layout of this appender. The returned value may be null if this
    * appender does not have a layout.
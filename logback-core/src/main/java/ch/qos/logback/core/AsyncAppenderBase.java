@@ -0,0 +1,368 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ch.qos.logback.core.helpers.ConcurrentRingBuffer;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * This appender hands events over to a single worker thread which in turn
+ * dispatches them to the attached appenders. The calling thread therefore
+ * never performs any I/O.
+ *
+ * <p>Events are stored in a preallocated {@link ConcurrentRingBuffer} of
+ * <b>queueSize</b> slots. When fewer than <b>discardingThreshold</b> slots
+ * remain free, events deemed discardable by {@link #isDiscardable(Object)} are
+ * dropped. When the buffer is full, the calling thread waits for a free slot
+ * unless <b>neverBlock</b> is set, in which case the event is dropped. The wait
+ * is not cut short by interrupting the calling thread.
+ *
+ * <p>On {@link #stop()}, the attached appender is detached and stopped. It
+ * must be attached again before this appender can be restarted.
+ */
+public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E>
+    implements AppenderAttachable<E> {
+
+  /**
+   * The default size of the ring buffer.
+   */
+  public static final int DEFAULT_QUEUE_SIZE = 256;
+
+  static final int UNDEFINED = -1;
+
+  /**
+   * The default maximum time in milliseconds to wait for the worker thread to
+   * drain the buffer on {@link #stop()}.
+   */
+  public static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+
+  AppenderAttachableImpl<E> aai = new AppenderAttachableImpl<E>();
+  ConcurrentRingBuffer<E> ringBuffer;
+
+  int queueSize = DEFAULT_QUEUE_SIZE;
+  int discardingThreshold = UNDEFINED;
+  boolean neverBlock = false;
+  int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+
+  volatile int appenderCount = 0;
+
+  final AtomicLong discardedCount = new AtomicLong(0);
+
+  // producers waiting for a free slot park on this condition
+  final ReentrantLock notFullLock = new ReentrantLock();
+  final Condition notFull = notFullLock.newCondition();
+  final AtomicInteger waitingProducers = new AtomicInteger(0);
+
+  Worker worker;
+
+  @Override
+  public void start() {
+    if (appenderCount == 0) {
+      addError("No attached appenders found.");
+      return;
+    }
+    if (queueSize < 1) {
+      addError("Invalid queue size [" + queueSize + "]");
+      return;
+    }
+    ringBuffer = new ConcurrentRingBuffer<E>(queueSize);
+    if (discardingThreshold == UNDEFINED) {
+      discardingThreshold = ringBuffer.getCapacity() / 5;
+    }
+    addInfo("Setting discardingThreshold to " + discardingThreshold);
+
+    worker = new Worker();
+    worker.setDaemon(true);
+    worker.setName("AsyncAppender-Worker-" + getName());
+    // make sure this instance is marked as "started" before starting the
+    // worker thread
+    super.start();
+    worker.start();
+  }
+
+  @Override
+  public void stop() {
+    if (!isStarted()) {
+      return;
+    }
+    // mark this appender as stopped so that the worker can also stop
+    super.stop();
+    // interrupting the worker also makes the change in the started flag
+    // visible to it
+    worker.interrupt();
+    signalNotFull();
+    try {
+      worker.join(maxFlushTime);
+      if (worker.isAlive()) {
+        addWarn("Max flush time of " + maxFlushTime
+            + " ms exceeded. Remaining events in the queue may be discarded.");
+      }
+    } catch (InterruptedException e) {
+      addError("Failed to join worker thread", e);
+    }
+  }
+
+  @Override
+  protected void append(E eventObject) {
+    if (isQueueBelowDiscardingThreshold() && isDiscardable(eventObject)) {
+      discard();
+      return;
+    }
+    preprocess(eventObject);
+    put(eventObject);
+  }
+
+  private void discard() {
+    discardedCount.incrementAndGet();
+    getMetrics().recordDroppedByAppender();
+  }
+
+  private boolean isQueueBelowDiscardingThreshold() {
+    return ringBuffer.remainingCapacity() < discardingThreshold;
+  }
+
+  /**
+   * Is the event passed as parameter discardable? The base class
+   * implementation returns false, i.e. no event is discarded before the buffer
+   * fills up.
+   */
+  protected boolean isDiscardable(E eventObject) {
+    return false;
+  }
+
+  /**
+   * Pre-process the event prior to queueing. Derived classes should extract
+   * any data which depends on the calling thread here.
+   */
+  protected void preprocess(E eventObject) {
+  }
+
+  private void put(E eventObject) {
+    if (ringBuffer.offer(eventObject)) {
+      wakeUpWorker();
+      return;
+    }
+    if (neverBlock) {
+      discard();
+      return;
+    }
+    putUninterruptibly(eventObject);
+  }
+
+  private void putUninterruptibly(E eventObject) {
+    boolean interrupted = false;
+    waitingProducers.incrementAndGet();
+    notFullLock.lock();
+    try {
+      while (!ringBuffer.offer(eventObject)) {
+        if (!isStarted()) {
+          discard();
+          return;
+        }
+        try {
+          // the timeout guards against a missed signal
+          notFull.awaitNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      notFullLock.unlock();
+      waitingProducers.decrementAndGet();
+      if (interrupted) {
+        // preserve the interruption status of the calling thread
+        Thread.currentThread().interrupt();
+      }
+    }
+    wakeUpWorker();
+  }
+
+  private void wakeUpWorker() {
+    Worker w = worker;
+    if (w.idle) {
+      LockSupport.unpark(w);
+    }
+  }
+
+  void signalNotFull() {
+    if (waitingProducers.get() == 0) {
+      return;
+    }
+    notFullLock.lock();
+    try {
+      notFull.signalAll();
+    } finally {
+      notFullLock.unlock();
+    }
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getDiscardingThreshold() {
+    return discardingThreshold;
+  }
+
+  public void setDiscardingThreshold(int discardingThreshold) {
+    this.discardingThreshold = discardingThreshold;
+  }
+
+  public boolean isNeverBlock() {
+    return neverBlock;
+  }
+
+  /**
+   * If true, the calling thread drops its event instead of waiting when the
+   * buffer is full.
+   */
+  public void setNeverBlock(boolean neverBlock) {
+    this.neverBlock = neverBlock;
+  }
+
+  public int getMaxFlushTime() {
+    return maxFlushTime;
+  }
+
+  public void setMaxFlushTime(int maxFlushTime) {
+    this.maxFlushTime = maxFlushTime;
+  }
+
+  /**
+   * The number of events which were dropped, either because they were
+   * discardable or because the buffer was full in never-block mode.
+   */
+  public long getDiscardedCount() {
+    return discardedCount.get();
+  }
+
+  /**
+   * Returns the number of elements currently in the buffer.
+   */
+  public int getNumberOfElementsInQueue() {
+    return ringBuffer == null ? 0 : ringBuffer.size();
+  }
+
+  /**
+   * The remaining capacity available in the buffer.
+   */
+  public int getRemainingCapacity() {
+    return ringBuffer == null ? 0 : ringBuffer.remainingCapacity();
+  }
+
+  public void addAppender(Appender<E> newAppender) {
+    if (appenderCount == 0) {
+      appenderCount++;
+      addInfo("Attaching appender named [" + newAppender.getName()
+          + "] to AsyncAppender.");
+      aai.addAppender(newAppender);
+    } else {
+      addWarn("One and only one appender may be attached to AsyncAppender.");
+      addWarn("Ignoring additional appender named [" + newAppender.getName()
+          + "]");
+    }
+  }
+
+  public Iterator<Appender<E>> iteratorForAppenders() {
+    return aai.iteratorForAppenders();
+  }
+
+  public Appender<E> getAppender(String name) {
+    return aai.getAppender(name);
+  }
+
+  public boolean isAttached(Appender<E> eAppender) {
+    return aai.isAttached(eAppender);
+  }
+
+  public void detachAndStopAllAppenders() {
+    aai.detachAndStopAllAppenders();
+    appenderCount = 0;
+  }
+
+  public boolean detachAppender(Appender<E> eAppender) {
+    boolean detached = aai.detachAppender(eAppender);
+    if (detached) {
+      appenderCount = 0;
+    }
+    return detached;
+  }
+
+  public boolean detachAppender(String name) {
+    boolean detached = aai.detachAppender(name);
+    if (detached) {
+      appenderCount = 0;
+    }
+    return detached;
+  }
+
+  class Worker extends Thread {
+
+    volatile boolean idle = false;
+
+    public void run() {
+      AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
+      AppenderAttachableImpl<E> aai = parent.aai;
+      ConcurrentRingBuffer<E> buffer = parent.ringBuffer;
+
+      while (parent.isStarted() && !isInterrupted()) {
+        E e = buffer.poll();
+        if (e == null) {
+          waitForEvents(buffer);
+          continue;
+        }
+        aai.appendLoopOnAppenders(e);
+        signalNotFull();
+      }
+
+      // clear the interrupt status so that the attached appenders are not
+      // disturbed while flushing
+      Thread.interrupted();
+      addInfo("Worker thread will flush remaining events before exiting.");
+      E e;
+      while ((e = buffer.poll()) != null) {
+        aai.appendLoopOnAppenders(e);
+      }
+      parent.detachAndStopAllAppenders();
+    }
+
+    private void waitForEvents(ConcurrentRingBuffer<E> buffer) {
+      if (buffer.size() > 0) {
+        // a producer has claimed a slot but not yet published it
+        Thread.yield();
+        return;
+      }
+      idle = true;
+      // re-check after announcing that we are idle, otherwise an event
+      // published in between would not wake us up
+      if (buffer.size() == 0 && !isInterrupted()) {
+        LockSupport.park(this);
+      }
+      idle = false;
+    }
+  }
+}
@@ -73,7 +73,13 @@ public class ConsoleAppender<E> extends WriterAppender<E> {
     }
 
     public void start() {
-      if (target.equals(SYSTEM_OUT)) {
+      if (encoder != null) {
+        if (target.equals(SYSTEM_OUT)) {
+          setOutputStream(System.out);
+        } else {
+          setOutputStream(System.err);
+        }
+      } else if (target.equals(SYSTEM_OUT)) {
         setWriter(createWriter(System.out));
       } else {
         setWriter(createWriter(System.err));
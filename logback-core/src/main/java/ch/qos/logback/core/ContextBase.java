@@ -15,6 +15,7 @@ package ch.qos.logback.core;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import ch.qos.logback.core.status.StatusManager;
 
@@ -80,9 +81,16 @@ public class ContextBase implements Context {
   }
 
   /**
-   * Clear the internal objectMap and all properties.
+   * Clear the internal objectMap and all properties. The compression executor,
+   * if any, is shut down after completing pending compressions. Derived
+   * classes should stop their appenders before invoking this method, since
+   * compressions submitted afterwards run on the submitting thread.
    */
   public void reset() {
+    Object executor = objectMap.get(CoreConstants.COMPRESSION_EXECUTOR);
+    if (executor instanceof ExecutorService) {
+      ((ExecutorService) executor).shutdown();
+    }
     propertyMap.clear();
     objectMap.clear();
   }
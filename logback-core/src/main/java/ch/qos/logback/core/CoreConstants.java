@@ -46,6 +46,20 @@ public class CoreConstants {
    */
   static public final String EVALUATOR_MAP = "EVALUATOR_MAP";
 
+  /**
+   * The executor shared by all rolling policies of a context for compressing
+   * archived files is stored under this key in the {@link Context} object
+   * store.
+   */
+  static public final String COMPRESSION_EXECUTOR = "COMPRESSION_EXECUTOR";
+
+  /**
+   * Appenders started while an object is stored under this key in the
+   * {@link Context} object store maintain their
+   * {@link ch.qos.logback.core.spi.AppenderMetrics metrics}.
+   */
+  static public final String APPENDER_METRICS_ENABLED = "APPENDER_METRICS_ENABLED";
+
   /**
    * By convention, we assume that the static method named "valueOf" taking 
    * a string argument can restore a given object from its string 
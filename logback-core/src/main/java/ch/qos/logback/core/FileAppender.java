@@ -13,15 +13,20 @@
  */
 package ch.qos.logback.core;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
+import ch.qos.logback.core.util.CountingOutputStream;
+import ch.qos.logback.core.util.FileSize;
 import ch.qos.logback.core.util.FileUtil;
+import ch.qos.logback.core.util.MappedFileOutputStream;
 
 /**
  * FileAppender appends log events to a file.
@@ -55,10 +60,22 @@ public class FileAppender<E> extends WriterAppender<E> {
    */
   protected int bufferSize = 8 * 1024;
 
+  /**
+   * Do we write through a memory mapped region of the file?
+   */
+  protected boolean memoryMapped = false;
+
+  /**
+   * The size of the memory mapped region. Default is 8MB.
+   */
+  protected int mappedRegionSize = MappedFileOutputStream.DEFAULT_REGION_SIZE;
+
   private boolean prudent = false;
 
   private FileChannel fileChannel = null;
 
+  private volatile CountingOutputStream countingOutputStream = null;
+
   /**
    * As in most cases, the default constructor does nothing.
    */
@@ -138,6 +155,17 @@ public class FileAppender<E> extends WriterAppender<E> {
           setBufferedIO(false);
           addWarn("Setting \"BufferedIO\" property to false on account of \"Prudent\" mode");
         }
+
+        if (memoryMapped == true) {
+          setMemoryMapped(false);
+          addWarn("Setting \"MemoryMapped\" property to false on account of \"Prudent\" mode");
+        }
+      }
+
+      // the mapped region already acts as a buffer
+      if (memoryMapped && bufferedIO) {
+        setBufferedIO(false);
+        addInfo("Setting \"BufferedIO\" property to false on account of \"MemoryMapped\" property");
       }
 
       // In case both bufferedIO and immediateFlush are set, the former
@@ -195,15 +223,54 @@ public class FileAppender<E> extends WriterAppender<E> {
       }
     }
 
-    FileOutputStream fileOutputStream = new FileOutputStream(file_name, append);
-    if (prudent) {
-      fileChannel = fileOutputStream.getChannel();
+    OutputStream os;
+    long initialLength;
+    if (memoryMapped) {
+      MappedFileOutputStream mos = new MappedFileOutputStream(file, append,
+          mappedRegionSize);
+      // the file system would count the unused part of the mapping
+      initialLength = mos.getPosition();
+      os = mos;
+    } else {
+      FileOutputStream fileOutputStream = new FileOutputStream(file_name,
+          append);
+      if (prudent) {
+        fileChannel = fileOutputStream.getChannel();
+      }
+      initialLength = fileOutputStream.getChannel().size();
+      os = fileOutputStream;
+      if (encoder != null && bufferedIO) {
+        os = new BufferedOutputStream(os, bufferSize);
+      }
     }
-    Writer w = createWriter(fileOutputStream);
-    if (bufferedIO) {
-      w = new BufferedWriter(w, bufferSize);
+
+    // in prudent mode, other JVMs write to the file as well
+    CountingOutputStream cos = null;
+    if (!prudent) {
+      cos = new CountingOutputStream(os, initialLength);
+      os = cos;
     }
-    setWriter(w);
+
+    if (encoder != null) {
+      setOutputStream(os);
+    } else {
+      Writer w = createWriter(os);
+      if (bufferedIO) {
+        w = new BufferedWriter(w, bufferSize);
+      }
+      setWriter(w);
+    }
+    countingOutputStream = cos;
+  }
+
+  /**
+   * The stream counting the bytes written to the currently open file, or null
+   * in prudent mode. The count includes the initial length of the file.
+   * Layout output is counted when the writer passes it on to the stream, i.e.
+   * on flush or when the writer's buffer is full.
+   */
+  protected CountingOutputStream getCountingOutputStream() {
+    return countingOutputStream;
   }
 
   public boolean isBufferedIO() {
@@ -222,6 +289,44 @@ public class FileAppender<E> extends WriterAppender<E> {
     this.bufferSize = bufferSize;
   }
 
+  public boolean isMemoryMapped() {
+    return memoryMapped;
+  }
+
+  /**
+   * When set to true, log output is copied into a memory mapped region of the
+   * file instead of being written by a system call per event. The file grows
+   * by <b>MappedRegionSize</b> bytes at a time and is truncated to its actual
+   * length when the appender is stopped or the file is rolled over. Until
+   * then, the length of the file as reported by the file system includes the
+   * unused part of the region. Size based triggering policies are not
+   * affected as they rely on the number of bytes counted by this appender.
+   * While the file is open, its actual length is recorded in a companion
+   * file, so that the unused part of the region can be trimmed should the JVM
+   * die before the appender is stopped.
+   * 
+   * <p>This mode is incompatible with prudent mode.
+   * 
+   * @param memoryMapped
+   */
+  public void setMemoryMapped(boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+  }
+
+  public FileSize getMappedRegionSize() {
+    return FileSize.valueOf(Integer.toString(mappedRegionSize));
+  }
+
+  public void setMappedRegionSize(FileSize mappedRegionSize) {
+    long size = mappedRegionSize.getSize();
+    if (size < 1 || size > Integer.MAX_VALUE) {
+      addWarn("Invalid mapped region size [" + size + "], using default");
+      this.mappedRegionSize = MappedFileOutputStream.DEFAULT_REGION_SIZE;
+    } else {
+      this.mappedRegionSize = (int) size;
+    }
+  }
+
   /**
    * @see #setPrudent(boolean)
    * 
@@ -248,12 +353,7 @@ public class FileAppender<E> extends WriterAppender<E> {
   final private void safeWrite(String s) throws IOException {
     FileLock fileLock = null;
     try {
-      fileLock = fileChannel.lock();
-      long position = fileChannel.position();
-      long size = fileChannel.size();
-      if (size != position) {
-        fileChannel.position(size);
-      }
+      fileLock = lockAndSeekToEnd();
       super.writerWrite(s, true);
     } finally {
       if (fileLock != null) {
@@ -262,6 +362,28 @@ public class FileAppender<E> extends WriterAppender<E> {
     }
   }
 
+  final private void safeWrite(byte[] b, int off, int len) throws IOException {
+    FileLock fileLock = null;
+    try {
+      fileLock = lockAndSeekToEnd();
+      super.outputStreamWrite(b, off, len, true);
+    } finally {
+      if (fileLock != null) {
+        fileLock.release();
+      }
+    }
+  }
+
+  private FileLock lockAndSeekToEnd() throws IOException {
+    FileLock fileLock = fileChannel.lock();
+    long position = fileChannel.position();
+    long size = fileChannel.size();
+    if (size != position) {
+      fileChannel.position(size);
+    }
+    return fileLock;
+  }
+
   @Override
   protected void writerWrite(String s, boolean flush) throws IOException {
     if (prudent && fileChannel != null) {
@@ -270,4 +392,14 @@ public class FileAppender<E> extends WriterAppender<E> {
       super.writerWrite(s, flush);
     }
   }
+
+  @Override
+  protected void outputStreamWrite(byte[] b, int off, int len, boolean flush)
+      throws IOException {
+    if (prudent && fileChannel != null) {
+      safeWrite(b, off, len);
+    } else {
+      super.outputStreamWrite(b, off, len, flush);
+    }
+  }
 }
@@ -16,6 +16,8 @@ package ch.qos.logback.core;
 import java.util.List;
 
 import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.AppenderMetrics;
+import ch.qos.logback.core.spi.AppenderMetricsAware;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.spi.FilterAttachableImpl;
 import ch.qos.logback.core.spi.FilterReply;
@@ -29,7 +31,7 @@ import ch.qos.logback.core.status.WarnStatus;
  * @author Ralph Goers
  */
 abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase implements
-    Appender<E> {
+    Appender<E>, AppenderMetricsAware {
 
   protected Layout<E> layout;
   
@@ -55,6 +57,8 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
 
   private FilterAttachableImpl<E> fai = new FilterAttachableImpl<E>();
 
+  private volatile AppenderMetrics metrics = AppenderMetrics.NOP;
+
   public String getName() {
     return name;
   }
@@ -73,10 +77,12 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
       return;
     }
 
+    AppenderMetrics metrics = this.metrics;
     try {
       guard.set(true);
 
       if (!this.started) {
+        metrics.recordDropped();
         if (statusRepeatCount++ < ALLOWED_REPEATS) {
           addStatus(new WarnStatus(
               "Attempted to append to non started appender [" + name + "].",
@@ -86,13 +92,21 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
       }
 
       if (getFilterChainDecision(eventObject) == FilterReply.DENY) {
+        metrics.recordDenied();
         return;
       }
 
       // ok, we now invoke derived class' implementation of append
-      this.append(eventObject);
+      if (metrics == AppenderMetrics.NOP) {
+        this.append(eventObject);
+      } else {
+        long start = System.nanoTime();
+        this.append(eventObject);
+        metrics.recordAppended(System.nanoTime() - start);
+      }
 
     } catch (Exception e) {
+      metrics.recordFailed();
       if (exceptionCount++ < ALLOWED_REPEATS) {
         addError("Appender [" + name + "] failed to append.", e);
       }
@@ -111,6 +125,10 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
   }
 
   public void start() {
+    if (context != null
+        && context.getObject(CoreConstants.APPENDER_METRICS_ENABLED) != null) {
+      setMetricsEnabled(true);
+    }
     started = true;
   }
 
@@ -147,6 +165,24 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
     return fai.getFilterChainDecision(event);
   }
 
+  /**
+   * Counters about the events handed to this appender. See
+   * {@link AppenderMetrics}.
+   */
+  public AppenderMetrics getMetrics() {
+    return metrics;
+  }
+
+  public boolean isMetricsEnabled() {
+    return metrics != AppenderMetrics.NOP;
+  }
+
+  public void setMetricsEnabled(boolean enabled) {
+    if (enabled != isMetricsEnabled()) {
+      metrics = enabled ? new AppenderMetrics() : AppenderMetrics.NOP;
+    }
+  }
+
   public Layout<E> getLayout() {
     return layout;
   }
@@ -17,13 +17,20 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import ch.qos.logback.core.encoder.Encoder;
 import ch.qos.logback.core.status.ErrorStatus;
 
 /**
  * WriterAppender appends events to a hava.io.Writer. This class provides basic
  * services that other appenders build upon.
  * 
+ * <p>If an {@link Encoder} is set, events are encoded directly into bytes and
+ * written to a java.io.OutputStream instead, bypassing the layout and the
+ * writer altogether.
+ * 
  * For more information about this appender, please refer to the online manual
  * at http://logback.qos.ch/manual/appenders.html#WriterAppender
  * 
@@ -53,11 +60,44 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
    */
   private String encoding;
 
+  /**
+   * If <code>true</code>, threads contending for the writer hand their output
+   * over to whichever thread currently holds the writer lock. That thread
+   * writes and flushes all pending output in one go.
+   * 
+   * <p>
+   * The <code>combineWrites</code> variable is set to <code>false</code> by
+   * default.
+   */
+  private boolean combineWrites = false;
+
+  /**
+   * The maximum number of characters written at once when combining writes.
+   */
+  static final int MAX_COMBINED_WRITE_SIZE = 64 * 1024;
+
+  /**
+   * Output of events waiting to be written by the thread holding the writer
+   * lock. Only used when <code>combineWrites</code> is true.
+   */
+  private final ConcurrentLinkedQueue<PendingOutput> pendingOutput = new ConcurrentLinkedQueue<PendingOutput>();
+
   /**
    * This is the {@link Writer Writer} where we will write to.
    */
   private Writer writer;
 
+  /**
+   * When an encoder is set, this is the {@link OutputStream} where we will
+   * write to.
+   */
+  private OutputStream outputStream;
+
+  /**
+   * The encoder takes precedence over the layout if both are set.
+   */
+  protected Encoder<E> encoder;
+
   /**
    * The default constructor does nothing.
    */
@@ -88,19 +128,53 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
     return immediateFlush;
   }
 
+  /**
+   * If the <b>CombineWrites</b> option is set to <code>true</code>, the
+   * formatted output of concurrent events is written to the underlying writer
+   * in batches. Each thread still returns only once its own output has been
+   * written (and flushed if <b>ImmediateFlush</b> is set), but the lock
+   * holder performs a single write and a single flush on behalf of all waiting
+   * threads. Under contention this markedly reduces the number of system
+   * calls.
+   * 
+   * <p>
+   * This option only applies to appenders using a layout.
+   */
+  public void setCombineWrites(boolean value) {
+    combineWrites = value;
+  }
+
+  /**
+   * Returns value of the <b>CombineWrites</b> option.
+   */
+  public boolean isCombineWrites() {
+    return combineWrites;
+  }
+
   /**
    * Checks that requires parameters are set and if everything is in order,
    * activates this appender.
    */
   public void start() {
     int errors = 0;
-    if (this.layout == null) {
+    if (this.layout == null && this.encoder == null) {
       addStatus(new ErrorStatus("No layout set for the appender named \""
           + name + "\".", this));
       errors++;
     }
+    if (this.layout != null && this.encoder != null) {
+      addWarn("Both a layout and an encoder were set for the appender named \""
+          + name + "\". The encoder takes precedence.");
+    }
 
-    if (this.writer == null) {
+    if (this.encoder != null) {
+      if (this.outputStream == null) {
+        addStatus(new ErrorStatus(
+            "No output stream set for the appender named \"" + name + "\".",
+            this));
+        errors++;
+      }
+    } else if (this.writer == null) {
       addStatus(new ErrorStatus("No writer set for the appender named \""
           + name + "\".", this));
       errors++;
@@ -133,9 +207,20 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
   }
 
   /**
-   * Close the underlying {@link java.io.Writer}.
+   * Close the underlying {@link java.io.Writer} or
+   * {@link java.io.OutputStream}.
    */
   protected void closeWriter() {
+    if (this.outputStream != null) {
+      try {
+        writeFooter();
+        this.outputStream.close();
+        this.outputStream = null;
+      } catch (IOException e) {
+        addStatus(new ErrorStatus(
+            "Could not close output stream for WriterAppender.", this, e));
+      }
+    }
     if (this.writer != null) {
       try {
         // before closing we have to output out layout's footer
@@ -184,7 +269,32 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
     encoding = value;
   }
 
+  public Encoder<E> getEncoder() {
+    return encoder;
+  }
+
+  /**
+   * Set the encoder for this appender. An encoder converts events directly
+   * into bytes and requires the appender to write to an output stream.
+   */
+  public void setEncoder(Encoder<E> encoder) {
+    this.encoder = encoder;
+  }
+
   void writeHeader() {
+    if (encoder != null && this.outputStream != null) {
+      try {
+        byte[] header = encoder.headerBytes();
+        if (header != null) {
+          outputStreamWrite(header, 0, header.length, true);
+        }
+      } catch (IOException ioe) {
+        this.started = false;
+        addStatus(new ErrorStatus("Failed to write header for appender named ["
+            + name + "].", this, ioe));
+      }
+      return;
+    }
     if (layout != null && (this.writer != null)) {
       try {
         StringBuilder sb = new StringBuilder();
@@ -213,6 +323,21 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
   }
 
   void writeFooter() {
+    if (encoder != null && this.outputStream != null) {
+      try {
+        byte[] footer = encoder.footerBytes();
+        if (footer != null) {
+          outputStreamWrite(footer, 0, footer.length, true);
+        } else {
+          this.outputStream.flush();
+        }
+      } catch (IOException ioe) {
+        this.started = false;
+        addStatus(new ErrorStatus("Failed to write footer for appender named ["
+            + name + "].", this, ioe));
+      }
+      return;
+    }
     if (layout != null && this.writer != null) {
       try {
         StringBuilder sb = new StringBuilder();
@@ -246,6 +371,38 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
     writeHeader();
   }
 
+  /**
+   * <p>
+   * Sets the OutputStream where the encoded log output will go. The specified
+   * stream must be opened by the user and be writable. The stream will be
+   * closed when the appender instance is closed.
+   * 
+   * <p>
+   * An output stream is only used in conjunction with an {@link Encoder}.
+   * 
+   * @param outputStream
+   *          An already opened OutputStream.
+   */
+  public synchronized void setOutputStream(OutputStream outputStream) {
+    // close any previously opened writer or stream
+    closeWriter();
+
+    this.outputStream = outputStream;
+    writeHeader();
+  }
+
+  protected OutputStream getOutputStream() {
+    return outputStream;
+  }
+
+  protected void outputStreamWrite(byte[] b, int off, int len, boolean flush)
+      throws IOException {
+    this.outputStream.write(b, off, len);
+    if (flush) {
+      this.outputStream.flush();
+    }
+  }
+
   protected void writerWrite(String s, boolean flush) throws IOException {
     this.writer.write(s);
     if (flush) {
@@ -267,9 +424,23 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
     }
 
     try {
+      if (this.encoder != null) {
+        // encoding takes place outside the lock, in a buffer owned by the
+        // calling thread
+        ByteBuffer bb = this.encoder.encode(event);
+        synchronized (this) {
+          outputStreamWrite(bb.array(), bb.arrayOffset() + bb.position(), bb
+              .remaining(), this.immediateFlush);
+        }
+        return;
+      }
       String output = this.layout.doLayout(event);
-      synchronized (this) {
-        writerWrite(output, this.immediateFlush);
+      if (combineWrites) {
+        combiningWrite(output);
+      } else {
+        synchronized (this) {
+          writerWrite(output, this.immediateFlush);
+        }
       }
     } catch (IOException ioe) {
       // as soon as an exception occurs, move to non-started state
@@ -278,4 +449,66 @@ public class WriterAppender<E> extends UnsynchronizedAppenderBase<E> {
       addStatus(new ErrorStatus("IO failure in appender", this, ioe));
     }
   }
+
+  /**
+   * Enqueue the output and then drain the queue while holding the writer lock,
+   * in batches of at most {@link #MAX_COMBINED_WRITE_SIZE} characters. If
+   * another thread already wrote our output while we were waiting for the
+   * lock, there is nothing left to do. Otherwise, we write the output of other
+   * threads on their behalf, until our own output has been written.
+   */
+  private void combiningWrite(String output) throws IOException {
+    PendingOutput own = new PendingOutput(output);
+    pendingOutput.add(own);
+    synchronized (this) {
+      if (own.taken) {
+        return;
+      }
+      StringBuilder batch = new StringBuilder(output.length() * 4);
+      PendingOutput next;
+      while ((next = pendingOutput.poll()) != null) {
+        boolean last = false;
+        if (batch.length() > 0
+            && batch.length() + next.output.length() > MAX_COMBINED_WRITE_SIZE) {
+          writeBatch(batch, false);
+          batch.setLength(0);
+          // once our own output is written, next is the last one we take over
+          last = own.taken;
+        }
+        next.taken = true;
+        batch.append(next.output);
+        if (last) {
+          break;
+        }
+      }
+      writeBatch(batch, this.immediateFlush);
+    }
+  }
+
+  /**
+   * The batch may hold the output of other threads, which rely on this thread
+   * to write it. In case of failure, their loss is reported here as they will
+   * not report it themselves.
+   */
+  private void writeBatch(StringBuilder batch, boolean flush)
+      throws IOException {
+    try {
+      writerWrite(batch.toString(), flush);
+    } catch (IOException ioe) {
+      addStatus(new ErrorStatus("Failed to write " + batch.length()
+          + " characters of combined output, including output of other threads",
+          this, ioe));
+      throw ioe;
+    }
+  }
+
+  static final class PendingOutput {
+    final String output;
+    // set by the thread writing the output, guarded by the writer lock
+    boolean taken;
+
+    PendingOutput(String output) {
+      this.output = output;
+    }
+  }
 }
@@ -20,12 +20,32 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.db.dialect.DBUtil;
 import ch.qos.logback.core.db.dialect.SQLDialect;
 
 /**
+ * Base class for appenders writing events into a database.
+ * 
+ * <p>By default, each event is inserted synchronously in its own transaction.
+ * If <b>batchSize</b> is set to a value greater than 1, events are instead
+ * queued, in a queue of <b>queueSize</b> slots, and written by a background
+ * thread. The writer thread groups events into batches of at most
+ * <b>batchSize</b> events. It waits at most <b>maxBatchDelay</b>
+ * milliseconds for a batch to fill up. Each batch is written in a single
+ * transaction by {@link #subAppendBatch(List, Connection)}, which inserts
+ * the events one by one unless overridden. The calling thread
+ * blocks when the queue is full. The writer thread keeps its connection, and
+ * the statements prepared on it, open from one batch to the next.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  * @author Ray DeCampo
  * @author S&eacute;bastien Pennec
@@ -37,6 +57,25 @@ public abstract class DBAppenderBase<E> extends AppenderBase<E> {
   protected boolean cnxSupportsBatchUpdates = false;
   protected SQLDialect sqlDialect;
 
+  public static final int DEFAULT_QUEUE_SIZE = 1024;
+  public static final int DEFAULT_MAX_BATCH_DELAY = 200;
+  public static final int DEFAULT_MAX_FLUSH_TIME = 5000;
+
+  int batchSize = 1;
+  int maxBatchDelay = DEFAULT_MAX_BATCH_DELAY;
+  int queueSize = DEFAULT_QUEUE_SIZE;
+  int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+
+  BlockingQueue<E> queue;
+  BatchWriter batchWriter;
+
+  // set once the driver is found not to return the keys of batched inserts
+  boolean bulkGeneratedKeysUnsupported = false;
+
+  // only accessed by the batch writer thread
+  Connection batchConnection;
+  Map<String, PreparedStatement> batchStatements = new HashMap<String, PreparedStatement>();
+
   protected abstract Method getGeneratedKeysMethod();
 
   protected abstract String getInsertSQL();
@@ -63,8 +102,23 @@ public abstract class DBAppenderBase<E> extends AppenderBase<E> {
           "DBAppender cannot function if the JDBC driver does not support getGeneratedKeys method *and* without a specific SQL dialect");
     }
 
+    if (batchSize > 1) {
+      if (queueSize < batchSize) {
+        addWarn("queueSize [" + queueSize + "] is smaller than batchSize ["
+            + batchSize + "], setting it to " + batchSize);
+        queueSize = batchSize;
+      }
+      queue = new ArrayBlockingQueue<E>(queueSize);
+      batchWriter = new BatchWriter();
+      batchWriter.setDaemon(true);
+      batchWriter.setName("DBAppender-BatchWriter-" + getName());
+    }
+
     // all nice and dandy on the eastern front
     super.start();
+    if (batchWriter != null) {
+      batchWriter.start();
+    }
   }
 
   /**
@@ -84,6 +138,24 @@ public abstract class DBAppenderBase<E> extends AppenderBase<E> {
 
   @Override
   public void append(E eventObject) {
+    if (batchWriter != null) {
+      preprocess(eventObject);
+      try {
+        // the timeout guards against waiting forever on a stopped writer
+        while (!queue.offer(eventObject, maxBatchDelay, TimeUnit.MILLISECONDS)) {
+          if (!isStarted()) {
+            getMetrics().recordDroppedByAppender();
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        // preserve the interruption status of the calling thread
+        Thread.currentThread().interrupt();
+        getMetrics().recordDroppedByAppender();
+      }
+      return;
+    }
+
     Connection connection = null;
     try {
       connection = connectionSource.getConnection();
@@ -113,6 +185,248 @@ public abstract class DBAppenderBase<E> extends AppenderBase<E> {
   protected abstract void subAppend(Object eventObject, Connection connection,
       PreparedStatement statement) throws Throwable;
 
+  /**
+   * Pre-process the event prior to queueing, in batch mode. Derived classes
+   * should extract any data which depends on the calling thread here.
+   */
+  protected void preprocess(E eventObject) {
+  }
+
+  /**
+   * Write a batch of events. The connection is in manual commit mode. It is
+   * committed by the caller if this method returns normally, and rolled back
+   * otherwise.
+   * 
+   * <p>This implementation inserts the events one by one with
+   * {@link #subAppendOneByOne(List, Connection)}. Derived classes may override
+   * it to insert the rows of the whole batch with
+   * {@link #insertBatch(List, Connection, boolean, InsertBinder)}.
+   */
+  protected void subAppendBatch(List<E> events, Connection connection)
+      throws Throwable {
+    subAppendOneByOne(events, connection);
+  }
+
+  /**
+   * Insert each event in turn via
+   * {@link #subAppend(Object, Connection, PreparedStatement)}, without
+   * committing.
+   */
+  protected void subAppendOneByOne(List<E> events, Connection connection)
+      throws Throwable {
+    for (E event : events) {
+      PreparedStatement insertStatement = prepareInsertStatement(connection);
+      try {
+        subAppend(event, connection, insertStatement);
+      } finally {
+        DBHelper.closeStatement(insertStatement);
+      }
+    }
+  }
+
+  /**
+   * Binds the parameters of the statement returned by {@link #getInsertSQL()}
+   * for one event, on behalf of
+   * {@link DBAppenderBase#insertBatch(List, Connection, boolean, InsertBinder)}.
+   */
+  protected interface InsertBinder<E> {
+    void bind(E event, PreparedStatement insertStatement) throws SQLException;
+  }
+
+  PreparedStatement prepareInsertStatement(Connection connection)
+      throws SQLException {
+    if (cnxSupportsGetGeneratedKeys) {
+      return connection.prepareStatement(getInsertSQL(),
+          new String[] { "EVENT_ID" });
+    } else {
+      return connection.prepareStatement(getInsertSQL());
+    }
+  }
+
+  /**
+   * Insert the main row of each event using a single prepared statement.
+   * 
+   * <p>If the ids of the inserted rows are not needed, or if they can be
+   * obtained for a whole JDBC batch via getGeneratedKeys, the rows are
+   * inserted as one JDBC batch. Otherwise, rows are inserted one at a time,
+   * still reusing the same statements, and each id is obtained as in
+   * {@link #selectEventId(PreparedStatement, Connection)}.
+   * 
+   * <p>Since falling back to row by row inserts rolls back the transaction,
+   * this method must be invoked before any other statement of the batch.
+   * 
+   * @param binder
+   *                binds the insert statement for each event
+   * @return the ids of the inserted rows, in the order of the events, or null
+   *         if <code>needIds</code> is false
+   */
+  protected int[] insertBatch(List<E> events, Connection connection,
+      boolean needIds, InsertBinder<E> binder) throws SQLException,
+      InvocationTargetException {
+    boolean bulk = cnxSupportsBatchUpdates
+        && (!needIds || (cnxSupportsGetGeneratedKeys
+            && !bulkGeneratedKeysUnsupported));
+    if (bulk) {
+      int[] ids = insertAsJDBCBatch(events, connection, needIds, binder);
+      if (ids != null || !needIds) {
+        return ids;
+      }
+      // the driver did not return the generated keys, undo and fall back
+      connection.rollback();
+      bulkGeneratedKeysUnsupported = true;
+      addInfo("JDBC driver does not return generated keys for batches. "
+          + "Falling back to row by row inserts.");
+    }
+    return insertRowByRow(events, connection, binder);
+  }
+
+  private int[] insertAsJDBCBatch(List<E> events, Connection connection,
+      boolean needIds, InsertBinder<E> binder) throws SQLException,
+      InvocationTargetException {
+    PreparedStatement insertStatement = needIds
+        ? prepareBatchInsertStatement(connection)
+        : prepareBatchStatement(connection, getInsertSQL());
+    for (E event : events) {
+      binder.bind(event, insertStatement);
+      insertStatement.addBatch();
+    }
+    insertStatement.executeBatch();
+    if (!needIds) {
+      return null;
+    }
+    ResultSet rs = invokeGetGeneratedKeys(insertStatement);
+    if (rs == null) {
+      return null;
+    }
+    try {
+      int[] ids = new int[events.size()];
+      int i = 0;
+      while (i < ids.length && rs.next()) {
+        ids[i++] = rs.getInt(1);
+      }
+      return (i == ids.length) ? ids : null;
+    } finally {
+      rs.close();
+    }
+  }
+
+  private int[] insertRowByRow(List<E> events, Connection connection,
+      InsertBinder<E> binder) throws SQLException, InvocationTargetException {
+    int[] ids = new int[events.size()];
+    PreparedStatement insertStatement = prepareBatchInsertStatement(connection);
+    Statement idStatement = null;
+    try {
+      for (int i = 0; i < ids.length; i++) {
+        binder.bind(events.get(i), insertStatement);
+        insertStatement.executeUpdate();
+        ResultSet rs = null;
+        if (cnxSupportsGetGeneratedKeys) {
+          rs = invokeGetGeneratedKeys(insertStatement);
+        }
+        if (rs == null) {
+          if (idStatement == null) {
+            idStatement = connection.createStatement();
+            idStatement.setMaxRows(1);
+          }
+          rs = idStatement.executeQuery(sqlDialect.getSelectInsertId());
+        }
+        try {
+          rs.next();
+          ids[i] = rs.getInt(1);
+        } finally {
+          rs.close();
+        }
+      }
+    } finally {
+      DBHelper.closeStatement(idStatement);
+    }
+    return ids;
+  }
+
+  /**
+   * Return a statement for the given SQL, prepared on the connection passed
+   * to {@link #subAppendBatch(List, Connection)}. The statement is kept open,
+   * and reused by later batches, for as long as the connection is. It must
+   * not be closed by the caller.
+   */
+  protected PreparedStatement prepareBatchStatement(Connection connection,
+      String sql) throws SQLException {
+    PreparedStatement statement = batchStatements.get(sql);
+    if (statement == null) {
+      statement = connection.prepareStatement(sql);
+      batchStatements.put(sql, statement);
+    }
+    return statement;
+  }
+
+  private PreparedStatement prepareBatchInsertStatement(Connection connection)
+      throws SQLException {
+    if (!cnxSupportsGetGeneratedKeys) {
+      return prepareBatchStatement(connection, getInsertSQL());
+    }
+    // statements returning generated keys are cached under a distinct key
+    String key = "EVENT_ID:" + getInsertSQL();
+    PreparedStatement statement = batchStatements.get(key);
+    if (statement == null) {
+      statement = prepareInsertStatement(connection);
+      batchStatements.put(key, statement);
+    }
+    return statement;
+  }
+
+  private ResultSet invokeGetGeneratedKeys(PreparedStatement insertStatement)
+      throws SQLException, InvocationTargetException {
+    try {
+      return (ResultSet) getGeneratedKeysMethod().invoke(insertStatement,
+          (Object[]) null);
+    } catch (InvocationTargetException ex) {
+      Throwable target = ex.getTargetException();
+      if (target instanceof SQLException) {
+        throw (SQLException) target;
+      }
+      throw ex;
+    } catch (IllegalAccessException ex) {
+      addWarn(
+          "IllegalAccessException invoking PreparedStatement.getGeneratedKeys",
+          ex);
+      return null;
+    }
+  }
+
+  void writeBatch(List<E> events) {
+    try {
+      if (batchConnection == null) {
+        batchConnection = connectionSource.getConnection();
+        batchConnection.setAutoCommit(false);
+      }
+      subAppendBatch(events, batchConnection);
+      batchConnection.commit();
+    } catch (Throwable t) {
+      addError("problem appending a batch of " + events.size() + " events", t);
+      if (batchConnection != null) {
+        try {
+          batchConnection.rollback();
+        } catch (SQLException e) {
+          // the original problem has already been reported
+        }
+      }
+      // the connection may be unusable, the next batch will open a new one
+      closeBatchConnection();
+      for (int i = 0; i < events.size(); i++) {
+        getMetrics().recordDroppedByAppender();
+      }
+    }
+  }
+
+  void closeBatchConnection() {
+    for (PreparedStatement statement : batchStatements.values()) {
+      DBHelper.closeStatement(statement);
+    }
+    batchStatements.clear();
+    DBHelper.closeConnection(batchConnection);
+    batchConnection = null;
+  }
+
   protected int selectEventId(PreparedStatement insertStatement,
       Connection connection) throws SQLException, InvocationTargetException {
     ResultSet rs = null;
@@ -163,5 +477,119 @@ public abstract class DBAppenderBase<E> extends AppenderBase<E> {
   @Override
   public void stop() {
     super.stop();
+    if (batchWriter != null) {
+      batchWriter.stopRequested = true;
+      try {
+        batchWriter.join(maxFlushTime);
+        if (batchWriter.isAlive()) {
+          addWarn("Max flush time of " + maxFlushTime
+              + " ms exceeded. Remaining events in the queue may be discarded.");
+        }
+      } catch (InterruptedException e) {
+        addError("Failed to join the batch writer thread", e);
+      }
+      batchWriter = null;
+    }
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * The maximum number of events written in one transaction. Values greater
+   * than 1 enable asynchronous batched writes. The default is 1.
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getMaxBatchDelay() {
+    return maxBatchDelay;
+  }
+
+  /**
+   * The maximum time in milliseconds the writer thread waits for a batch to
+   * fill up before writing it.
+   */
+  public void setMaxBatchDelay(int maxBatchDelay) {
+    this.maxBatchDelay = maxBatchDelay;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getMaxFlushTime() {
+    return maxFlushTime;
+  }
+
+  /**
+   * The maximum time in milliseconds to wait on {@link #stop()} for queued
+   * events to be written.
+   */
+  public void setMaxFlushTime(int maxFlushTime) {
+    this.maxFlushTime = maxFlushTime;
+  }
+
+  class BatchWriter extends Thread {
+
+    volatile boolean stopRequested = false;
+
+    public void run() {
+      List<E> batch = new ArrayList<E>(batchSize);
+      try {
+        while (!stopRequested) {
+          try {
+            fill(batch);
+          } catch (InterruptedException e) {
+            break;
+          }
+          if (!batch.isEmpty()) {
+            writeBatch(batch);
+            batch.clear();
+          }
+        }
+        // write whatever is left
+        while (queue.drainTo(batch, batchSize) > 0) {
+          writeBatch(batch);
+          batch.clear();
+        }
+      } finally {
+        closeBatchConnection();
+      }
+    }
+
+    /**
+     * Collect up to batchSize events, waiting at most maxBatchDelay after the
+     * first one.
+     */
+    private void fill(List<E> batch) throws InterruptedException {
+      E first = queue.poll(maxBatchDelay, TimeUnit.MILLISECONDS);
+      if (first == null) {
+        return;
+      }
+      batch.add(first);
+      long deadline = System.nanoTime()
+          + TimeUnit.MILLISECONDS.toNanos(maxBatchDelay);
+      while (batch.size() < batchSize) {
+        if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+          continue;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0 || stopRequested) {
+          return;
+        }
+        E e = queue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (e == null) {
+          return;
+        }
+        batch.add(e);
+      }
+    }
   }
 }
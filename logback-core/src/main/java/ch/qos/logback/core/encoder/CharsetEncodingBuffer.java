@@ -0,0 +1,138 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes character sequences into a reusable byte buffer using a cached
+ * {@link CharsetEncoder}. Instances are not thread-safe and are meant to be
+ * confined to a single thread.
+ *
+ * <p>Sequences longer than {@link #MAX_RETAINED_CAPACITY} characters are
+ * encoded into a freshly allocated buffer, so that a single large message,
+ * e.g. a long stack trace, does not pin large buffers for the life of the
+ * thread.
+ */
+public class CharsetEncodingBuffer {
+
+  static final int INITIAL_CAPACITY = 256;
+  static final int MAX_RETAINED_CAPACITY = 2048;
+
+  final CharsetEncoder charsetEncoder;
+  final float maxBytesPerChar;
+
+  char[] chars;
+  CharBuffer charBuffer;
+  ByteBuffer byteBuffer;
+
+  public CharsetEncodingBuffer(Charset charset) {
+    this.charsetEncoder = charset.newEncoder().onMalformedInput(
+        CodingErrorAction.REPLACE).onUnmappableCharacter(
+        CodingErrorAction.REPLACE);
+    this.maxBytesPerChar = charsetEncoder.maxBytesPerChar();
+    this.chars = new char[INITIAL_CAPACITY];
+    this.charBuffer = CharBuffer.wrap(chars);
+    this.byteBuffer = ByteBuffer.allocate((int) (INITIAL_CAPACITY * maxBytesPerChar));
+  }
+
+  /**
+   * Encode the characters of a String.
+   */
+  public ByteBuffer encode(String s) {
+    int len = s.length();
+    if (len > MAX_RETAINED_CAPACITY) {
+      return encodeAllocating(CharBuffer.wrap(s));
+    }
+    ensureCharCapacity(len);
+    s.getChars(0, len, chars, 0);
+    return encodeChars(len);
+  }
+
+  /**
+   * Encode the characters of a StringBuilder.
+   */
+  public ByteBuffer encode(StringBuilder sb) {
+    int len = sb.length();
+    if (len > MAX_RETAINED_CAPACITY) {
+      return encodeAllocating(CharBuffer.wrap(sb));
+    }
+    ensureCharCapacity(len);
+    sb.getChars(0, len, chars, 0);
+    return encodeChars(len);
+  }
+
+  /**
+   * Encode the characters of a StringBuffer.
+   */
+  public ByteBuffer encode(StringBuffer sb) {
+    int len = sb.length();
+    if (len > MAX_RETAINED_CAPACITY) {
+      return encodeAllocating(CharBuffer.wrap(sb));
+    }
+    ensureCharCapacity(len);
+    sb.getChars(0, len, chars, 0);
+    return encodeChars(len);
+  }
+
+  // len never exceeds MAX_RETAINED_CAPACITY
+  private void ensureCharCapacity(int len) {
+    if (chars.length < len) {
+      chars = new char[Math.min(MAX_RETAINED_CAPACITY, Math.max(len,
+          chars.length * 2))];
+      charBuffer = CharBuffer.wrap(chars);
+    }
+    int maxBytes = (int) Math.ceil(len * maxBytesPerChar);
+    if (byteBuffer.capacity() < maxBytes) {
+      byteBuffer = ByteBuffer.allocate((int) Math.ceil(chars.length
+          * maxBytesPerChar));
+    }
+  }
+
+  private ByteBuffer encodeChars(int len) {
+    charBuffer.clear();
+    charBuffer.limit(len);
+    byteBuffer.clear();
+    charsetEncoder.reset();
+    CoderResult cr = charsetEncoder.encode(charBuffer, byteBuffer, true);
+    if (cr.isUnderflow()) {
+      cr = charsetEncoder.flush(byteBuffer);
+    }
+    // the byte buffer was sized using maxBytesPerChar, so an overflow can
+    // only occur with exotic charsets; fall back to the allocating path
+    if (cr.isOverflow()) {
+      charBuffer.clear();
+      charBuffer.limit(len);
+      return encodeAllocating(charBuffer);
+    }
+    byteBuffer.flip();
+    return byteBuffer;
+  }
+
+  private ByteBuffer encodeAllocating(CharBuffer in) {
+    charsetEncoder.reset();
+    try {
+      return charsetEncoder.encode(in);
+    } catch (CharacterCodingException e) {
+      // cannot happen with the REPLACE action
+      throw new IllegalStateException(e.toString());
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.nio.ByteBuffer;
+
+import ch.qos.logback.core.spi.ContextAware;
+import ch.qos.logback.core.spi.LifeCycle;
+
+/**
+ * Encoders are responsible for transforming an event into a byte array
+ * suitable for writing onto an output stream. Contrary to a
+ * {@link ch.qos.logback.core.Layout Layout}, an encoder produces bytes and not
+ * Strings, sparing the appender a round trip through a
+ * {@link java.io.Writer Writer}.
+ */
+public interface Encoder<E> extends ContextAware, LifeCycle {
+
+  /**
+   * Encode an event. The returned buffer holds the encoded bytes between its
+   * position and its limit.
+   * 
+   * <p>In order to avoid allocating memory for every event, implementations
+   * may return a buffer owned by the calling thread. The returned buffer is
+   * therefore only valid until the next invocation of this method by the same
+   * thread.
+   * 
+   * @param event The event to encode
+   * @return a buffer containing the encoded event
+   */
+  ByteBuffer encode(E event);
+
+  /**
+   * Return the bytes to write when an output stream is opened. The returned
+   * value may be null.
+   */
+  byte[] headerBytes();
+
+  /**
+   * Return the bytes to write before an output stream is closed. The returned
+   * value may be null.
+   */
+  byte[] footerBytes();
+}
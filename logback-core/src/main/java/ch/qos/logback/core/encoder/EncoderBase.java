@@ -0,0 +1,103 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * Skeleton implementation of {@link Encoder} for encoders producing text.
+ * Characters are converted into bytes in a buffer confined to the calling
+ * thread, so that no lock is held while encoding.
+ */
+abstract public class EncoderBase<E> extends ContextAwareBase implements
+    Encoder<E> {
+
+  protected boolean started;
+
+  /**
+   * The charset to use when converting characters into bytes. By default the
+   * system's default charset is used.
+   */
+  Charset charset = Charset.defaultCharset();
+
+  private ThreadLocal<CharsetEncodingBuffer> threadLocalBuffer = newThreadLocalBuffer();
+
+  private ThreadLocal<CharsetEncodingBuffer> newThreadLocalBuffer() {
+    final Charset cs = charset;
+    return new ThreadLocal<CharsetEncodingBuffer>() {
+      protected CharsetEncodingBuffer initialValue() {
+        return new CharsetEncodingBuffer(cs);
+      }
+    };
+  }
+
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * Set the charset to use when converting characters into bytes.
+   */
+  public void setCharset(Charset charset) {
+    this.charset = charset;
+    this.threadLocalBuffer = newThreadLocalBuffer();
+  }
+
+  /**
+   * Set the charset by name, e.g. "UTF-8".
+   */
+  public void setEncoding(String charsetName) {
+    setCharset(Charset.forName(charsetName));
+  }
+
+  public String getEncoding() {
+    return charset.name();
+  }
+
+  /**
+   * Returns the encoding buffer owned by the calling thread.
+   */
+  protected CharsetEncodingBuffer getEncodingBuffer() {
+    return threadLocalBuffer.get();
+  }
+
+  /**
+   * Convert a string into a freshly allocated byte array. Meant for rarely
+   * invoked operations such as headers and footers.
+   */
+  protected byte[] toBytes(String s) {
+    if (s == null) {
+      return null;
+    }
+    ByteBuffer bb = charset.encode(s);
+    byte[] result = new byte[bb.remaining()];
+    bb.get(result);
+    return result;
+  }
+
+  public void start() {
+    started = true;
+  }
+
+  public void stop() {
+    started = false;
+  }
+
+  public boolean isStarted() {
+    return started;
+  }
+}
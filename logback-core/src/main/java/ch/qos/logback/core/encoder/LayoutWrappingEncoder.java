@@ -0,0 +1,84 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.nio.ByteBuffer;
+
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.Layout;
+
+/**
+ * An encoder which delegates formatting to a {@link Layout} and converts the
+ * resulting String into bytes.
+ */
+public class LayoutWrappingEncoder<E> extends EncoderBase<E> {
+
+  protected Layout<E> layout;
+
+  public Layout<E> getLayout() {
+    return layout;
+  }
+
+  public void setLayout(Layout<E> layout) {
+    this.layout = layout;
+  }
+
+  public ByteBuffer encode(E event) {
+    return getEncodingBuffer().encode(layout.doLayout(event));
+  }
+
+  public byte[] headerBytes() {
+    if (layout == null) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    appendIfNotNull(sb, layout.getFileHeader());
+    appendIfNotNull(sb, layout.getPresentationHeader());
+    if (sb.length() == 0) {
+      return null;
+    }
+    // If at least one of file header or presentation header were not
+    // null, then append a line separator.
+    sb.append(CoreConstants.LINE_SEPARATOR);
+    return toBytes(sb.toString());
+  }
+
+  public byte[] footerBytes() {
+    if (layout == null) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    appendIfNotNull(sb, layout.getPresentationFooter());
+    appendIfNotNull(sb, layout.getFileFooter());
+    if (sb.length() == 0) {
+      return null;
+    }
+    return toBytes(sb.toString());
+  }
+
+  private void appendIfNotNull(StringBuilder sb, String s) {
+    if (s != null) {
+      sb.append(s);
+    }
+  }
+
+  public void start() {
+    if (layout == null) {
+      addError("No layout set for encoder of type [" + getClass().getName()
+          + "]");
+      return;
+    }
+    super.start();
+  }
+}
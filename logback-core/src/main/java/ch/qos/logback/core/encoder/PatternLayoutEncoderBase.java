@@ -0,0 +1,66 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.nio.ByteBuffer;
+
+import ch.qos.logback.core.pattern.PatternLayoutBase;
+
+/**
+ * Base class for encoders driven by a conversion pattern. The converter chain
+ * of the wrapped {@link PatternLayoutBase} writes into a buffer owned by the
+ * calling thread, which is then encoded into bytes without creating an
+ * intermediate String.
+ * 
+ * <p>Derived classes are expected to create the appropriate pattern layout in
+ * their {@link #start()} method.
+ */
+abstract public class PatternLayoutEncoderBase<E> extends
+    LayoutWrappingEncoder<E> {
+
+  static final int INITIAL_BUFFER_SIZE = 256;
+  static final int MAX_RETAINED_BUFFER_SIZE = 2048;
+
+  String pattern;
+
+  private ThreadLocal<StringBuilder> threadLocalStringBuilder = new ThreadLocal<StringBuilder>() {
+    protected StringBuilder initialValue() {
+      return new StringBuilder(INITIAL_BUFFER_SIZE);
+    }
+  };
+
+  public String getPattern() {
+    return pattern;
+  }
+
+  public void setPattern(String pattern) {
+    this.pattern = pattern;
+  }
+
+  @Override
+  public ByteBuffer encode(E event) {
+    if (!(layout instanceof PatternLayoutBase)) {
+      return super.encode(event);
+    }
+    StringBuilder buf = threadLocalStringBuilder.get();
+    buf.setLength(0);
+    ((PatternLayoutBase<E>) layout).writeLoopOnConverters(buf, event);
+    ByteBuffer result = getEncodingBuffer().encode(buf);
+    // do not retain the memory of an exceptionally large event
+    if (buf.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+      threadLocalStringBuilder.set(new StringBuilder(INITIAL_BUFFER_SIZE));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, preallocated ring buffer which can be safely written to by any
+ * number of producer threads and read by a <em>single</em> consumer thread.
+ *
+ * <p>Producers claim a slot by a compare-and-set on the tail counter. Each
+ * slot carries a sequence number which tells the consumer whether the slot has
+ * been published, and tells producers whether the slot has been freed. Neither
+ * {@link #offer(Object)} nor {@link #poll()} ever take a lock.
+ *
+ * <p>The capacity is rounded up to the next power of two, and is at least two.
+ * With a single slot, the sequence number of a published slot would be the
+ * same as that of a slot freed for the next lap.
+ */
+public class ConcurrentRingBuffer<E> {
+
+  final int capacity;
+  final int mask;
+
+  final AtomicReferenceArray<E> slots;
+  final AtomicLongArray sequences;
+
+  final AtomicLong tail = new AtomicLong(0);
+  // only written by the consumer thread
+  volatile long head = 0;
+
+  public ConcurrentRingBuffer(int requestedCapacity) {
+    if (requestedCapacity < 1) {
+      throw new IllegalArgumentException("The capacity argument ("
+          + requestedCapacity + ") is not a positive integer.");
+    }
+    int c = 2;
+    while (c < requestedCapacity) {
+      c <<= 1;
+    }
+    this.capacity = c;
+    this.mask = c - 1;
+    this.slots = new AtomicReferenceArray<E>(c);
+    this.sequences = new AtomicLongArray(c);
+    for (int i = 0; i < c; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Insert an element at the tail of the buffer.
+   *
+   * @return true if the element was inserted, false if the buffer is full
+   */
+  public boolean offer(E e) {
+    if (e == null) {
+      throw new IllegalArgumentException("Null argument disallowed");
+    }
+    while (true) {
+      long pos = tail.get();
+      int index = (int) (pos & mask);
+      long diff = sequences.get(index) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          slots.set(index, e);
+          // publish the slot to the consumer
+          sequences.set(index, pos + 1);
+          return true;
+        }
+      } else if (diff < 0) {
+        // the slot has not been consumed yet, i.e. we are full
+        return false;
+      }
+      // another producer claimed the slot, try again
+    }
+  }
+
+  /**
+   * Remove and return the element at the head of the buffer. This method may
+   * only be called by the consumer thread.
+   *
+   * @return the head element, or null if there is no published element
+   */
+  public E poll() {
+    long pos = head;
+    int index = (int) (pos & mask);
+    if (sequences.get(index) != pos + 1) {
+      return null;
+    }
+    E e = slots.get(index);
+    slots.set(index, null);
+    head = pos + 1;
+    // hand the slot back to producers for the next lap
+    sequences.set(index, pos + capacity);
+    return e;
+  }
+
+  /**
+   * Approximate number of elements in the buffer.
+   */
+  public int size() {
+    long size = tail.get() - head;
+    if (size < 0) {
+      return 0;
+    }
+    return (int) Math.min(size, capacity);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Number of free slots, approximate under concurrent access.
+   */
+  public int remainingCapacity() {
+    return capacity - size();
+  }
+}
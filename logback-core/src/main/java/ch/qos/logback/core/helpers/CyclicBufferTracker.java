@@ -0,0 +1,111 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps one {@link CyclicBuffer} per key. When more than
+ * <b>maxNumberOfBuffers</b> buffers are in use, the buffer which was accessed
+ * least recently is discarded.
+ * 
+ * <p>This class is not thread-safe. Callers are expected to provide their own
+ * synchronization.
+ */
+public class CyclicBufferTracker<E> {
+
+  public static final int DEFAULT_BUFFER_SIZE = 512;
+  public static final int DEFAULT_MAX_NUMBER_OF_BUFFERS = 64;
+
+  int bufferSize = DEFAULT_BUFFER_SIZE;
+  int maxNumberOfBuffers = DEFAULT_MAX_NUMBER_OF_BUFFERS;
+
+  final Map<String, CyclicBuffer<E>> map = new LinkedHashMap<String, CyclicBuffer<E>>(
+      16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    protected boolean removeEldestEntry(Map.Entry<String, CyclicBuffer<E>> eldest) {
+      return size() > maxNumberOfBuffers;
+    }
+  };
+
+  /**
+   * Return the buffer associated with <code>key</code>, creating it if
+   * necessary.
+   */
+  public CyclicBuffer<E> getOrCreate(String key) {
+    CyclicBuffer<E> cb = map.get(key);
+    if (cb == null) {
+      cb = new CyclicBuffer<E>(bufferSize);
+      map.put(key, cb);
+    }
+    return cb;
+  }
+
+  /**
+   * Return the buffer associated with <code>key</code>, or null if there is
+   * none.
+   */
+  public CyclicBuffer<E> get(String key) {
+    return map.get(key);
+  }
+
+  public void remove(String key) {
+    map.remove(key);
+  }
+
+  public void clear() {
+    map.clear();
+  }
+
+  /**
+   * The number of buffers currently tracked.
+   */
+  public int size() {
+    return map.size();
+  }
+
+  public List<String> keyList() {
+    return new ArrayList<String>(map.keySet());
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Set the size of buffers. Existing buffers are resized.
+   */
+  public void setBufferSize(int bufferSize) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("The bufferSize argument ("
+          + bufferSize + ") is not a positive integer.");
+    }
+    this.bufferSize = bufferSize;
+    for (CyclicBuffer<E> cb : map.values()) {
+      cb.resize(bufferSize);
+    }
+  }
+
+  public int getMaxNumberOfBuffers() {
+    return maxNumberOfBuffers;
+  }
+
+  public void setMaxNumberOfBuffers(int maxNumberOfBuffers) {
+    this.maxNumberOfBuffers = maxNumberOfBuffers;
+  }
+}
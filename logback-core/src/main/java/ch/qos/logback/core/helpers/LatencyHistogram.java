@@ -0,0 +1,135 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations expressed in nanoseconds. Durations are recorded in
+ * power of two buckets, bucket <em>i</em> holding durations in the range
+ * [2<sup>i</sup>, 2<sup>i+1</sup>). Recording a duration takes no locks and
+ * no allocations.
+ * 
+ * <p>As in {@link StripedCounter}, buckets are replicated per stripe so that
+ * threads recording concurrently do not contend on the same memory location.
+ * Reading sums the stripes. Since a stripe is much larger than a counter
+ * cell, at most {@link #MAX_STRIPES} stripes are used.
+ * 
+ * <p>Percentiles are approximated by the upper bound of the bucket in which
+ * they fall, which is at most twice the actual value.
+ */
+public class LatencyHistogram {
+
+  static final int BUCKET_COUNT = 64;
+  static final int MAX_STRIPES = 4;
+  static final int STRIPES = Math.min(MAX_STRIPES, StripedCounter.STRIPES);
+
+  // the buckets of a stripe are followed by the total of its durations and by
+  // a cache line of padding
+  static final int TOTAL_OFFSET = BUCKET_COUNT;
+  static final int STRIPE_LENGTH = BUCKET_COUNT + 1 + StripedCounter.PADDING;
+
+  final AtomicLongArray cells = new AtomicLongArray(STRIPES * STRIPE_LENGTH);
+
+  public void record(long durationInNanos) {
+    if (durationInNanos < 0) {
+      durationInNanos = 0;
+    }
+    // both counts are powers of two
+    int offset = (StripedCounter.stripe() & (STRIPES - 1)) * STRIPE_LENGTH;
+    cells.incrementAndGet(offset + bucketFor(durationInNanos));
+    cells.getAndAdd(offset + TOTAL_OFFSET, durationInNanos);
+  }
+
+  static int bucketFor(long durationInNanos) {
+    if (durationInNanos == 0) {
+      return 0;
+    }
+    return 63 - Long.numberOfLeadingZeros(durationInNanos);
+  }
+
+  public long getCount() {
+    long sum = 0;
+    for (int s = 0; s < STRIPES; s++) {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        sum += cells.get(s * STRIPE_LENGTH + i);
+      }
+    }
+    return sum;
+  }
+
+  public long getTotalNanos() {
+    long sum = 0;
+    for (int s = 0; s < STRIPES; s++) {
+      sum += cells.get(s * STRIPE_LENGTH + TOTAL_OFFSET);
+    }
+    return sum;
+  }
+
+  /**
+   * The mean duration in nanoseconds, or 0 if no durations were recorded.
+   */
+  public double getMeanNanos() {
+    long c = getCount();
+    if (c == 0) {
+      return 0;
+    }
+    return (double) getTotalNanos() / c;
+  }
+
+  /**
+   * Returns an upper bound of the duration below which the given fraction of
+   * the recorded durations fall.
+   * 
+   * @param fraction
+   *                a value between 0 and 1, e.g. 0.99 for the 99th percentile
+   * @return the upper bound in nanoseconds, or 0 if no durations were recorded
+   */
+  public long getPercentileNanos(double fraction) {
+    long[] snapshot = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int s = 0; s < STRIPES; s++) {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        long c = cells.get(s * STRIPE_LENGTH + i);
+        snapshot[i] += c;
+        total += c;
+      }
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long threshold = (long) Math.ceil(fraction * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= threshold && snapshot[i] > 0) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKET_COUNT - 1);
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket >= 62) {
+      return Long.MAX_VALUE;
+    }
+    return (1L << (bucket + 1)) - 1;
+  }
+
+  public void reset() {
+    for (int i = 0; i < cells.length(); i++) {
+      cells.set(i, 0);
+    }
+  }
+}
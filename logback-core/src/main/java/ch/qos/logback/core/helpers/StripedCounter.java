@@ -0,0 +1,90 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which spreads concurrent increments over several cells so that
+ * threads logging in parallel do not contend on a single memory location.
+ * Reading the value sums the cells and is thus more expensive than updating
+ * it.
+ * 
+ * <p>Cells are spaced one cache line apart in order to avoid false sharing. A
+ * thread always updates the same cell, chosen from its id.
+ */
+public class StripedCounter {
+
+  // 8 longs make up a 64 byte cache line
+  static final int PADDING = 8;
+  static final int MAX_STRIPES = 64;
+
+  static final int STRIPES;
+
+  static {
+    int wanted = Math.min(MAX_STRIPES, Runtime.getRuntime()
+        .availableProcessors() * 2);
+    int s = 1;
+    while (s < wanted) {
+      s <<= 1;
+    }
+    STRIPES = s;
+  }
+
+  final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  public void increment() {
+    add(1);
+  }
+
+  public void add(long delta) {
+    cells.getAndAdd(cellIndex(), delta);
+  }
+
+  /**
+   * The sum of all cells. The returned value is not an atomic snapshot if
+   * updates are in progress.
+   */
+  public long get() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += cells.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  public void reset() {
+    for (int i = 0; i < STRIPES; i++) {
+      cells.set(i * PADDING, 0);
+    }
+  }
+
+  static int cellIndex() {
+    return stripe() * PADDING;
+  }
+
+  /**
+   * The stripe updated by the current thread, between 0 and STRIPES - 1.
+   */
+  static int stripe() {
+    long id = Thread.currentThread().getId();
+    // spread sequentially allocated thread ids
+    int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return (h >>> 16) & (STRIPES - 1);
+  }
+
+  public String toString() {
+    return Long.toString(get());
+  }
+}
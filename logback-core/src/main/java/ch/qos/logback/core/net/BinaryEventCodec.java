@@ -0,0 +1,47 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import java.io.IOException;
+
+/**
+ * Encodes events into, and decodes them from, the compact binary wire format
+ * used by {@link SocketAppenderBase} when its <b>BinaryCodec</b> option is
+ * set.
+ * 
+ * <p>
+ * Each event is sent as a length-prefixed record. Strings which tend to repeat
+ * from one event to the next, such as logger and thread names, should be
+ * written with {@link BinaryOutput#writeDictionaryString(String)} so that
+ * they are transmitted only once per connection.
+ * 
+ * <p>
+ * A codec instance may keep state between records, e.g. the last timestamp
+ * sent, and is thus dedicated to one direction of a single connection.
+ */
+public interface BinaryEventCodec<E> {
+
+  /**
+   * Encode <code>event</code> as the current record of <code>out</code>.
+   * Should this method throw an exception, the caller discards the partial
+   * record; the codec must then leave its own state unchanged.
+   */
+  void encode(E event, BinaryOutput out);
+
+  /**
+   * Decode an event from the current record of <code>in</code>. Bytes left
+   * unread at the end of the record are ignored.
+   */
+  E decode(BinaryInput in) throws IOException;
+}
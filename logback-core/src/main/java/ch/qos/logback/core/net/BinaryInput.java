@@ -0,0 +1,208 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads records written by {@link BinaryOutput} from an input stream. After a
+ * successful call to {@link #readRecord()}, the various read methods return
+ * the contents of that record.
+ * 
+ * <p>
+ * An instance is dedicated to a single connection.
+ */
+public class BinaryInput {
+
+  /**
+   * Records larger than this are deemed to be the result of a corrupted
+   * stream.
+   */
+  static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+  final InputStream in;
+  byte[] buf = new byte[512];
+  int pos;
+  int limit;
+
+  final List<String> dictionary = new ArrayList<String>();
+
+  public BinaryInput(InputStream in) {
+    this.in = in;
+  }
+
+  /**
+   * Check whether the stream begins with the magic bytes written by
+   * {@link BinaryOutput#writeMagic}. If so, the magic bytes are
+   * consumed. Otherwise, the stream is reset to its initial position.
+   * 
+   * @param in
+   *                a stream supporting {@link InputStream#mark(int)}
+   */
+  public static boolean consumeMagic(InputStream in) throws IOException {
+    byte[] magic = BinaryOutput.MAGIC;
+    in.mark(magic.length);
+    for (int i = 0; i < magic.length; i++) {
+      int b = in.read();
+      if (b != magic[i]) {
+        in.reset();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Read the next record from the underlying stream.
+   * 
+   * @throws EOFException
+   *                 if the end of the stream has been reached
+   */
+  public void readRecord() throws IOException {
+    int len = 0;
+    for (int shift = 0;; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      if (shift > 28) {
+        throw new StreamCorruptedException("Malformed record length");
+      }
+      len |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    if (len < 0 || len > MAX_RECORD_SIZE) {
+      throw new StreamCorruptedException("Invalid record length " + len);
+    }
+    if (len > buf.length) {
+      buf = new byte[Math.max(buf.length << 1, len)];
+    }
+    int read = 0;
+    while (read < len) {
+      int n = in.read(buf, read, len - read);
+      if (n < 0) {
+        throw new EOFException();
+      }
+      read += n;
+    }
+    pos = 0;
+    limit = len;
+  }
+
+  public int readByte() throws IOException {
+    if (pos >= limit) {
+      throw new StreamCorruptedException("Read past the end of the record");
+    }
+    return buf[pos++] & 0xFF;
+  }
+
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  public int readVarInt() throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = readByte();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new StreamCorruptedException("Malformed varint");
+  }
+
+  public long readVarLong() throws IOException {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new StreamCorruptedException("Malformed varint");
+  }
+
+  public int readSignedVarInt() throws IOException {
+    int v = readVarInt();
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  public long readSignedVarLong() throws IOException {
+    long v = readVarLong();
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  public String readString() throws IOException {
+    int utfLen = readVarInt() - 1;
+    if (utfLen < 0) {
+      return null;
+    }
+    int end = pos + utfLen;
+    if (utfLen > limit - pos) {
+      throw new StreamCorruptedException("String exceeds the record");
+    }
+    byte[] b = buf;
+    char[] chars = new char[utfLen];
+    int n = 0;
+    int i = pos;
+    while (i < end) {
+      int c = b[i++] & 0xFF;
+      if (c < 0x80) {
+        chars[n++] = (char) c;
+      } else if ((c & 0xE0) == 0xC0 && i < end) {
+        chars[n++] = (char) (((c & 0x1F) << 6) | (b[i++] & 0x3F));
+      } else if ((c & 0xF0) == 0xE0 && i + 1 < end) {
+        chars[n++] = (char) (((c & 0x0F) << 12) | ((b[i] & 0x3F) << 6) | (b[i + 1] & 0x3F));
+        i += 2;
+      } else {
+        throw new StreamCorruptedException("Malformed string");
+      }
+    }
+    pos = end;
+    return new String(chars, 0, n);
+  }
+
+  public String readDictionaryString() throws IOException {
+    int tag = readVarInt();
+    switch (tag) {
+    case BinaryOutput.NULL_TAG:
+      return null;
+    case BinaryOutput.NEW_ENTRY_TAG:
+      String s = readString();
+      dictionary.add(s);
+      return s;
+    case BinaryOutput.LITERAL_TAG:
+      return readString();
+    default:
+      int index = tag - BinaryOutput.FIRST_INDEX_TAG;
+      if (index < 0 || index >= dictionary.size()) {
+        throw new StreamCorruptedException("Unknown dictionary index " + index);
+      }
+      return dictionary.get(index);
+    }
+  }
+
+  public void close() throws IOException {
+    in.close();
+  }
+}
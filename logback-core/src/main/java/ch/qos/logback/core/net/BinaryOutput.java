@@ -0,0 +1,247 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A growable buffer holding the record currently being encoded by a
+ * {@link BinaryEventCodec}. Once the record is complete,
+ * {@link #writeRecordTo(OutputStream)} writes it, prefixed by its length, in a
+ * single call to the underlying stream. Should the encoding of a record fail,
+ * {@link #discardRecord()} rewinds the buffer to the start of the record.
+ * 
+ * <p>
+ * Integers are written as base 128 varints. Strings are written as their
+ * length followed by their characters, each character being encoded on one to
+ * three bytes as in {@link java.io.DataOutput#writeUTF(String)} but without
+ * the 64K limit. Strings written by {@link #writeDictionaryString(String)} are
+ * assigned an index the first time they are seen and are subsequently sent as
+ * that index only.
+ * 
+ * <p>
+ * An instance is dedicated to a single connection.
+ */
+public class BinaryOutput {
+
+  /**
+   * Sent once at the beginning of each connection. It allows the receiving
+   * side to distinguish binary streams from Java serialization streams, the
+   * latter always starting with 0xACED.
+   */
+  static final byte[] MAGIC = { 'L', 'B', 'B', '1' };
+
+  static final int NULL_TAG = 0;
+  static final int NEW_ENTRY_TAG = 1;
+  static final int LITERAL_TAG = 2;
+  static final int FIRST_INDEX_TAG = 3;
+
+  /**
+   * The default maximum number of strings in the dictionary. Once the
+   * dictionary is full, new strings are sent as literals.
+   */
+  public static final int DEFAULT_MAX_DICTIONARY_SIZE = 4096;
+
+  // room for the longest varint encoding of the record length
+  static final int HEADER_SIZE = 5;
+
+  byte[] buf = new byte[512];
+  int count = HEADER_SIZE;
+
+  final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+  final int maxDictionarySize;
+  // dictionary entries added by the current record
+  final List<String> recordEntries = new ArrayList<String>();
+
+  public BinaryOutput() {
+    this(DEFAULT_MAX_DICTIONARY_SIZE);
+  }
+
+  public BinaryOutput(int maxDictionarySize) {
+    this.maxDictionarySize = maxDictionarySize;
+  }
+
+  /**
+   * Write the magic bytes identifying a binary stream.
+   */
+  public static void writeMagic(OutputStream os) throws IOException {
+    os.write(MAGIC);
+  }
+
+  private void ensureCapacity(int extra) {
+    int required = count + extra;
+    if (required > buf.length) {
+      byte[] newBuf = new byte[Math.max(buf.length << 1, required)];
+      System.arraycopy(buf, 0, newBuf, 0, count);
+      buf = newBuf;
+    }
+  }
+
+  public void writeByte(int b) {
+    ensureCapacity(1);
+    buf[count++] = (byte) b;
+  }
+
+  public void writeBoolean(boolean b) {
+    writeByte(b ? 1 : 0);
+  }
+
+  /**
+   * Write <code>v</code>, interpreted as an unsigned value, on one to five
+   * bytes.
+   */
+  public void writeVarInt(int v) {
+    ensureCapacity(5);
+    while ((v & ~0x7F) != 0) {
+      buf[count++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    buf[count++] = (byte) v;
+  }
+
+  /**
+   * Write <code>v</code>, interpreted as an unsigned value, on one to ten
+   * bytes.
+   */
+  public void writeVarLong(long v) {
+    ensureCapacity(10);
+    while ((v & ~0x7FL) != 0) {
+      buf[count++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    buf[count++] = (byte) v;
+  }
+
+  /**
+   * Write a signed value so that values of small magnitude, negative or not,
+   * take few bytes.
+   */
+  public void writeSignedVarInt(int v) {
+    writeVarInt((v << 1) ^ (v >> 31));
+  }
+
+  public void writeSignedVarLong(long v) {
+    writeVarLong((v << 1) ^ (v >> 63));
+  }
+
+  /**
+   * Write a possibly null string.
+   */
+  public void writeString(String s) {
+    if (s == null) {
+      writeVarInt(0);
+      return;
+    }
+    int len = s.length();
+    int utfLen = 0;
+    for (int i = 0; i < len; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        utfLen++;
+      } else if (c < 0x800) {
+        utfLen += 2;
+      } else {
+        utfLen += 3;
+      }
+    }
+    writeVarInt(utfLen + 1);
+    ensureCapacity(utfLen);
+    byte[] b = buf;
+    int pos = count;
+    for (int i = 0; i < len; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        b[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        b[pos++] = (byte) (0xC0 | (c >> 6));
+        b[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        b[pos++] = (byte) (0xE0 | (c >> 12));
+        b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        b[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    count = pos;
+  }
+
+  /**
+   * Write a possibly null string which is likely to recur in subsequent
+   * records.
+   */
+  public void writeDictionaryString(String s) {
+    if (s == null) {
+      writeVarInt(NULL_TAG);
+      return;
+    }
+    Integer index = dictionary.get(s);
+    if (index != null) {
+      writeVarInt(FIRST_INDEX_TAG + index.intValue());
+    } else if (dictionary.size() < maxDictionarySize) {
+      dictionary.put(s, dictionary.size());
+      recordEntries.add(s);
+      writeVarInt(NEW_ENTRY_TAG);
+      writeString(s);
+    } else {
+      writeVarInt(LITERAL_TAG);
+      writeString(s);
+    }
+  }
+
+  /**
+   * The size in bytes of the record encoded so far.
+   */
+  public int getRecordSize() {
+    return count - HEADER_SIZE;
+  }
+
+  /**
+   * Write the current record prefixed by its length to <code>os</code> and
+   * start a new record. The stream is not flushed.
+   */
+  public void writeRecordTo(OutputStream os) throws IOException {
+    int len = count - HEADER_SIZE;
+    int headerLen = 1;
+    for (int v = len >>> 7; v != 0; v >>>= 7) {
+      headerLen++;
+    }
+    int start = HEADER_SIZE - headerLen;
+    int pos = start;
+    int v = len;
+    while ((v & ~0x7F) != 0) {
+      buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    buf[pos] = (byte) v;
+    count = HEADER_SIZE;
+    recordEntries.clear();
+    os.write(buf, start, headerLen + len);
+  }
+
+  /**
+   * Drop the current record, including the dictionary entries it added, so
+   * that the receiving side never learns about it.
+   */
+  public void discardRecord() {
+    count = HEADER_SIZE;
+    for (String s : recordEntries) {
+      dictionary.remove(s);
+    }
+    recordEntries.clear();
+  }
+}
@@ -17,7 +17,13 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.Multipart;
@@ -33,7 +39,12 @@ import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.Layout;
 import ch.qos.logback.core.boolex.EvaluationException;
 import ch.qos.logback.core.boolex.EventEvaluator;
+import ch.qos.logback.core.helpers.CyclicBuffer;
+import ch.qos.logback.core.helpers.CyclicBufferTracker;
+import ch.qos.logback.core.sift.DefaultDiscriminator;
+import ch.qos.logback.core.sift.Discriminator;
 import ch.qos.logback.core.util.ContentTypeUtil;
+import ch.qos.logback.core.util.Duration;
 import ch.qos.logback.core.util.OptionHelper;
 
 // Contributors:
@@ -43,6 +54,21 @@ import ch.qos.logback.core.util.OptionHelper;
  * An abstract class that provides support for sending events to an email
  * address.
  * 
+ * <p>Events are accumulated in one cyclic buffer per value returned by the
+ * <b>discriminator</b>, so that a noisy component cannot evict the events of
+ * another. When the evaluator triggers, the contents of the triggering event's
+ * buffer are composed into an e-mail. If <b>asynchronousSending</b> is set to
+ * true, the e-mail is composed and delivered by a background thread.
+ * Otherwise, it is sent by the logging thread, which then blocks for as long
+ * as the SMTP exchange takes. Asynchronous sending is the recommended setting.
+ * It is not the default only because, with it, the e-mail may not have been
+ * sent yet when the logging call returns, which existing configurations may
+ * rely on.
+ * 
+ * <p>If <b>maxEmailsPerInterval</b> is set, at most that many e-mails are sent
+ * per <b>rateLimitInterval</b>. Notifications triggered beyond the limit are
+ * merged into a single digest e-mail sent when the interval elapses.
+ * 
  * <p>See http://logback.qos.ch/manual/appenders.html#SMTPAppender for further
  * documentation.
  * 
@@ -51,6 +77,18 @@ import ch.qos.logback.core.util.OptionHelper;
  */
 public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
 
+  /**
+   * The default maximum time in milliseconds to wait for pending e-mails to
+   * be sent on {@link #stop()}.
+   */
+  public static final int DEFAULT_MAX_FLUSH_TIME = 5000;
+
+  /**
+   * The maximum number of notifications retained in a digest e-mail. Older
+   * notifications are dropped, but still counted in the digest's subject.
+   */
+  static final int MAX_DIGEST_NOTIFICATIONS = 32;
+
   protected Layout<E> subjectLayout;
 
   private List<String> to = new ArrayList<String>();
@@ -67,9 +105,31 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
   private String charsetEncoding = "UTF-8";
 
   protected MimeMessage mimeMsg;
+  Session session;
 
   protected EventEvaluator<E> eventEvaluator;
 
+  protected Discriminator<E> discriminator = new DefaultDiscriminator<E>();
+  protected CyclicBufferTracker<E> cbTracker = new CyclicBufferTracker<E>();
+
+  private boolean asynchronousSending = false;
+  private int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+
+  private int maxEmailsPerInterval = 0;
+  private long rateLimitIntervalInMillis = 60 * 1000;
+
+  // rate limiting state, guarded by this appender's monitor
+  long windowStart;
+  int emailsInWindow;
+  List<Notification<E>> digest = new ArrayList<Notification<E>>();
+  int digestNotificationCount;
+  ScheduledFuture<?> digestFuture;
+
+  ScheduledExecutorService senderExecutor;
+
+  // serializes the use of the layouts, which are not necessarily thread-safe
+  final Object sendLock = new Object();
+
   /**
    * return a layout for the subjet string as appropriate for the module. If the
    * subjectStr parameter is null, then a default value for subjectStr should be
@@ -115,7 +175,7 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
 
     // props.put("mail.debug", "true");
 
-    Session session = Session.getInstance(props, loginAuthenticator);
+    session = Session.getInstance(props, loginAuthenticator);
     mimeMsg = new MimeMessage(session);
 
     try {
@@ -129,6 +189,8 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
 
       subjectLayout = makeSubjectLayout(subjectStr);
 
+      senderExecutor = Executors
+          .newSingleThreadScheduledExecutor(new SenderThreadFactory());
       started = true;
 
     } catch (MessagingException e) {
@@ -146,19 +208,119 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
       return;
     }
 
-    subAppend(eventObject);
+    CyclicBuffer<E> cb = getCyclicBuffer(eventObject);
+    subAppend(cb, eventObject);
 
     try {
       if (eventEvaluator.evaluate(eventObject)) {
-        sendBuffer(eventObject);
+        List<E> eventList = cb.asList();
+        cb.clear();
+        dispatch(new Notification<E>(eventList, eventObject));
       }
     } catch (EvaluationException ex) {
       addError("SMTPAppender's EventEvaluator threw an Exception" + ex);
     }
   }
 
+  /**
+   * Perform SMTPAppender specific appending actions, mainly adding the event to
+   * the cyclic buffer returned by {@link #getCyclicBuffer(Object)}.
+   */
   abstract protected void subAppend(E eventObject);
 
+  /**
+   * Add the event to the given cyclic buffer. Derived classes should extract
+   * any data which depends on the calling thread here, since the buffer
+   * contents may be formatted by the sender thread.
+   */
+  protected void subAppend(CyclicBuffer<E> cb, E eventObject) {
+    cb.add(eventObject);
+  }
+
+  /**
+   * Return the cyclic buffer of the event's discriminating value, creating it
+   * if necessary.
+   */
+  protected CyclicBuffer<E> getCyclicBuffer(E eventObject) {
+    String key = discriminator.getDiscriminatingValue(eventObject);
+    return cbTracker.getOrCreate(key);
+  }
+
+  /**
+   * Send the notification, or merge it into the pending digest if the rate
+   * limit has been reached. Must be called while holding this appender's
+   * monitor.
+   */
+  void dispatch(Notification<E> notification) {
+    long now = System.currentTimeMillis();
+    if (acquirePermit(now)) {
+      List<Notification<E>> single = new ArrayList<Notification<E>>(1);
+      single.add(notification);
+      send(single, 1, asynchronousSending);
+      return;
+    }
+    if (digest.size() == MAX_DIGEST_NOTIFICATIONS) {
+      digest.remove(0);
+    }
+    digest.add(notification);
+    digestNotificationCount++;
+    if (digestFuture == null) {
+      long delay = Math.max(0, windowStart + rateLimitIntervalInMillis - now);
+      digestFuture = senderExecutor.schedule(new Runnable() {
+        public void run() {
+          sendDigest();
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private boolean acquirePermit(long now) {
+    if (maxEmailsPerInterval <= 0) {
+      return true;
+    }
+    if (now - windowStart >= rateLimitIntervalInMillis) {
+      windowStart = now;
+      emailsInWindow = 0;
+    }
+    if (emailsInWindow < maxEmailsPerInterval) {
+      emailsInWindow++;
+      return true;
+    }
+    return false;
+  }
+
+  void sendDigest() {
+    List<Notification<E>> notifications;
+    int count;
+    synchronized (this) {
+      digestFuture = null;
+      if (digest.isEmpty()) {
+        return;
+      }
+      notifications = digest;
+      count = digestNotificationCount;
+      digest = new ArrayList<Notification<E>>();
+      digestNotificationCount = 0;
+      // the digest counts against the interval which starts now
+      windowStart = System.currentTimeMillis();
+      emailsInWindow = 1;
+    }
+    sendBuffer(notifications, count);
+  }
+
+  private void send(final List<Notification<E>> notifications,
+      final int count, boolean async) {
+    if (!async) {
+      sendBuffer(notifications, count);
+      return;
+    }
+    senderExecutor.execute(new Runnable() {
+      public void run() {
+        sendBuffer(notifications, count);
+      }
+    });
+  }
+
   /**
    * This method determines if there is a sense in attempting to append.
    * 
@@ -192,8 +354,35 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
     return true;
   }
 
-  synchronized public void stop() {
-    this.started = false;
+  public void stop() {
+    ScheduledExecutorService executor;
+    synchronized (this) {
+      if (!started) {
+        return;
+      }
+      this.started = false;
+      executor = senderExecutor;
+      senderExecutor = null;
+      if (digestFuture != null) {
+        digestFuture.cancel(false);
+      }
+      // send the pending digest right away
+      executor.execute(new Runnable() {
+        public void run() {
+          sendDigest();
+        }
+      });
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(maxFlushTime, TimeUnit.MILLISECONDS)) {
+        addWarn("Max flush time of " + maxFlushTime
+            + " ms exceeded. Pending e-mails may not be sent.");
+      }
+    } catch (InterruptedException e) {
+      addError("Interrupted while waiting for pending e-mails to be sent", e);
+      Thread.currentThread().interrupt();
+    }
   }
 
   InternetAddress getAddress(String addressStr) {
@@ -231,61 +420,86 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
   }
 
   /**
-   * Send the contents of the cyclic buffer as an e-mail message.
+   * Compose the notifications passed as parameter into an e-mail message and
+   * send it. If there is more than one notification, the message is a digest
+   * and <code>count</code> is the total number of notifications it stands
+   * for.
    */
-  protected void sendBuffer(E lastEventObject) {
-
-    // Note: this code already owns the monitor for this
-    // appender. This frees us from needing to synchronize on 'cb'.
-    try {
-      MimeBodyPart part = new MimeBodyPart();
-
-      StringBuffer sbuf = new StringBuffer();
-
-      String header = layout.getFileHeader();
-      if (header != null) {
-        sbuf.append(header);
-      }
-      String presentationHeader = layout.getPresentationHeader();
-      if (presentationHeader != null) {
-        sbuf.append(presentationHeader);
-      }
-      fillBuffer(sbuf);
-      String presentationFooter = layout.getPresentationFooter();
-      if (presentationFooter != null) {
-        sbuf.append(presentationFooter);
-      }
-      String footer = layout.getFileFooter();
-      if (footer != null) {
-        sbuf.append(footer);
-      }
-
-      if (subjectLayout != null) {
-        mimeMsg.setSubject(subjectLayout.doLayout(lastEventObject),
-            charsetEncoding);
-      }
-
-      String contentType = layout.getContentType();
-
-      if (ContentTypeUtil.isTextual(contentType)) {
-        part.setText(sbuf.toString(), charsetEncoding, ContentTypeUtil
-            .getSubType(contentType));
-      } else {
-        part.setContent(sbuf.toString(), layout.getContentType());
+  protected void sendBuffer(List<Notification<E>> notifications, int count) {
+    synchronized (sendLock) {
+      try {
+        MimeBodyPart part = new MimeBodyPart();
+
+        StringBuffer sbuf = new StringBuffer();
+
+        String header = layout.getFileHeader();
+        if (header != null) {
+          sbuf.append(header);
+        }
+        String presentationHeader = layout.getPresentationHeader();
+        if (presentationHeader != null) {
+          sbuf.append(presentationHeader);
+        }
+        for (Notification<E> notification : notifications) {
+          fillBuffer(notification.eventList, sbuf);
+        }
+        String presentationFooter = layout.getPresentationFooter();
+        if (presentationFooter != null) {
+          sbuf.append(presentationFooter);
+        }
+        String footer = layout.getFileFooter();
+        if (footer != null) {
+          sbuf.append(footer);
+        }
+
+        // each e-mail gets its own message so that the configured one is never
+        // modified concurrently
+        MimeMessage message = new MimeMessage(session);
+        Address[] fromArray = mimeMsg.getFrom();
+        if (fromArray != null) {
+          message.addFrom(fromArray);
+        }
+        message.setRecipients(Message.RecipientType.TO, mimeMsg
+            .getRecipients(Message.RecipientType.TO));
+
+        if (subjectLayout != null) {
+          E lastEventObject = notifications.get(notifications.size() - 1).lastEventObject;
+          String subject = subjectLayout.doLayout(lastEventObject);
+          if (count > 1) {
+            subject = "[Digest of " + count + " notifications] " + subject;
+          }
+          message.setSubject(subject, charsetEncoding);
+        }
+
+        String contentType = layout.getContentType();
+
+        if (ContentTypeUtil.isTextual(contentType)) {
+          part.setText(sbuf.toString(), charsetEncoding, ContentTypeUtil
+              .getSubType(contentType));
+        } else {
+          part.setContent(sbuf.toString(), layout.getContentType());
+        }
+
+        Multipart mp = new MimeMultipart();
+        mp.addBodyPart(part);
+        message.setContent(mp);
+
+        message.setSentDate(new Date());
+        Transport.send(message);
+      } catch (Exception e) {
+        addError("Error occured while sending e-mail notification.", e);
       }
-
-      Multipart mp = new MimeMultipart();
-      mp.addBodyPart(part);
-      mimeMsg.setContent(mp);
-
-      mimeMsg.setSentDate(new Date());
-      Transport.send(mimeMsg);
-    } catch (Exception e) {
-      addError("Error occured while sending e-mail notification.", e);
     }
   }
 
-  abstract protected void fillBuffer(StringBuffer sbuf);
+  /**
+   * Append the formatted events to <code>sbuf</code>.
+   */
+  protected void fillBuffer(List<E> eventList, StringBuffer sbuf) {
+    for (E event : eventList) {
+      sbuf.append(layout.doLayout(event));
+    }
+  }
 
   /**
    * Returns value of the <b>From</b> option.
@@ -409,6 +623,105 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
     this.password = password;
   }
 
+  /**
+   * The <b>BufferSize</b> option takes a positive integer representing the
+   * maximum number of logging events to collect in each cyclic buffer. When
+   * the <code>BufferSize</code> is reached, oldest events are deleted as new
+   * events are added to the buffer. By default the size of the cyclic buffer
+   * is 512 events.
+   */
+  public void setBufferSize(int bufferSize) {
+    cbTracker.setBufferSize(bufferSize);
+  }
+
+  /**
+   * Returns value of the <b>BufferSize</b> option.
+   */
+  public int getBufferSize() {
+    return cbTracker.getBufferSize();
+  }
+
+  /**
+   * The maximum number of cyclic buffers, i.e. of distinct discriminating
+   * values, tracked at any time. The least recently used buffer is discarded
+   * when this number is exceeded. The default is 64.
+   */
+  public void setMaxNumberOfBuffers(int maxNumberOfBuffers) {
+    cbTracker.setMaxNumberOfBuffers(maxNumberOfBuffers);
+  }
+
+  public int getMaxNumberOfBuffers() {
+    return cbTracker.getMaxNumberOfBuffers();
+  }
+
+  public CyclicBufferTracker<E> getCyclicBufferTracker() {
+    return cbTracker;
+  }
+
+  public Discriminator<E> getDiscriminator() {
+    return discriminator;
+  }
+
+  /**
+   * Events are buffered separately for each value returned by the
+   * discriminator. By default, all events share a single buffer.
+   */
+  public void setDiscriminator(Discriminator<E> discriminator) {
+    this.discriminator = discriminator;
+  }
+
+  public boolean isAsynchronousSending() {
+    return asynchronousSending;
+  }
+
+  /**
+   * If true, e-mails are composed and sent by a background thread. Otherwise,
+   * which is the default for compatibility with earlier versions, they are
+   * sent by the thread which logged the triggering event. Setting it to true is
+   * recommended, so that a slow or unreachable SMTP server does not stall the
+   * application.
+   */
+  public void setAsynchronousSending(boolean asynchronousSending) {
+    this.asynchronousSending = asynchronousSending;
+  }
+
+  public int getMaxFlushTime() {
+    return maxFlushTime;
+  }
+
+  /**
+   * The maximum time in milliseconds to wait for pending e-mails to be sent
+   * when this appender is stopped.
+   */
+  public void setMaxFlushTime(int maxFlushTime) {
+    this.maxFlushTime = maxFlushTime;
+  }
+
+  public int getMaxEmailsPerInterval() {
+    return maxEmailsPerInterval;
+  }
+
+  /**
+   * The maximum number of e-mails sent per {@link #setRateLimitInterval
+   * rateLimitInterval}. Zero or a negative value, the default, disables rate
+   * limiting.
+   */
+  public void setMaxEmailsPerInterval(int maxEmailsPerInterval) {
+    this.maxEmailsPerInterval = maxEmailsPerInterval;
+  }
+
+  public Duration getRateLimitInterval() {
+    return Duration.buildByMilliseconds(rateLimitIntervalInMillis);
+  }
+
+  /**
+   * The interval over which {@link #setMaxEmailsPerInterval
+   * maxEmailsPerInterval} applies. The default is one minute.
+   */
+  public void setRateLimitInterval(Duration rateLimitInterval) {
+    this.rateLimitIntervalInMillis = rateLimitInterval.getMilliseconds();
+  }
+
   /**
    * @see #setCharsetEncoding(String)
    * @return the charset encoding value
@@ -427,4 +740,33 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
     this.charsetEncoding = charsetEncoding;
   }
 
+  /**
+   * The events of a buffer together with the event which triggered their
+   * delivery.
+   */
+  protected static class Notification<E> {
+    final List<E> eventList;
+    final E lastEventObject;
+
+    Notification(List<E> eventList, E lastEventObject) {
+      this.eventList = eventList;
+      this.lastEventObject = lastEventObject;
+    }
+
+    public List<E> getEventList() {
+      return eventList;
+    }
+
+    public E getLastEventObject() {
+      return lastEventObject;
+    }
+  }
+
+  class SenderThreadFactory implements ThreadFactory {
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "SMTPAppender-Sender-" + getName());
+      t.setDaemon(true);
+      return t;
+    }
+  }
 }
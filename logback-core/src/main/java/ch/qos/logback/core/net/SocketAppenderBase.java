@@ -14,8 +14,10 @@
 // Contributors: Dan MacDonald <dan@redknee.com>
 package ch.qos.logback.core.net;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.InetAddress;
 import java.net.Socket;
@@ -28,6 +30,13 @@ import ch.qos.logback.core.spi.PreSerializationTransformer;
  * 
  * This is the base class for module specific SocketAppender implementations.
  * 
+ * <p>
+ * By default, events are sent as serialized Java objects. When the
+ * <b>BinaryCodec</b> option is set and the derived class provides a
+ * {@link BinaryEventCodec}, events are sent in a compact binary format
+ * instead. When <b>MaxBatchDelay</b> is positive, socket writes are buffered
+ * and flushed at most <b>MaxBatchDelay</b> milliseconds after being issued.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  * @author S&eacute;bastien Pennec
  */
@@ -44,6 +53,11 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
    */
   static final int DEFAULT_RECONNECTION_DELAY = 30000;
 
+  /**
+   * The size of the buffer used when socket writes are batched.
+   */
+  static final int BATCH_BUFFER_SIZE = 8192;
+
   /**
    * We remember host name as String in addition to the resolved InetAddress so
    * that it can be returned via getOption().
@@ -56,9 +70,18 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
   protected int reconnectionDelay = DEFAULT_RECONNECTION_DELAY;
 
   private Connector connector;
+  private Flusher flusher;
 
   protected int counter = 0;
 
+  boolean binaryCodec = false;
+  int maxBatchDelay = 0;
+
+  // only set when the binary codec is in use
+  private OutputStream binaryStream;
+  private BinaryOutput binaryOutput;
+  private BinaryEventCodec<E> codec;
+
   /**
    * Start this appender.
    */
@@ -78,10 +101,21 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
           + " For more information, please visit http://logback.qos.ch/codes.html#socket_no_host");
     }
 
+    if (binaryCodec && buildBinaryCodec() == null) {
+      addWarn("Appender [" + name + "] does not support the binary codec."
+          + " Falling back to Java serialization.");
+      binaryCodec = false;
+    }
+
     connect(address, port);
 
     if (errorCount == 0) {
       this.started = true;
+      if (maxBatchDelay > 0) {
+        flusher = new Flusher();
+        flusher.setDaemon(true);
+        flusher.start();
+      }
     }
   }
 
@@ -98,6 +132,10 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
       return;
 
     this.started = false;
+    if (flusher != null) {
+      flusher.interrupt();
+      flusher = null;
+    }
     cleanUp();
   }
 
@@ -114,6 +152,14 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
       }
       oos = null;
     }
+    if (binaryStream != null) {
+      try {
+        binaryStream.close();
+      } catch (IOException e) {
+        addError("Could not close the binary stream.", e);
+      }
+      closeBinaryStream();
+    }
     if (connector != null) {
       addInfo("Interrupting the connector.");
       connector.interrupted = true;
@@ -127,7 +173,7 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
     try {
       // First, close the previous connection if any.
       cleanUp();
-      oos = new ObjectOutputStream(new Socket(address, port).getOutputStream());
+      openStreams(new Socket(address, port));
     } catch (IOException e) {
 
       String msg = "Could not connect to remote logback server at ["
@@ -140,6 +186,36 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
     }
   }
 
+  /**
+   * Set up the streams used to write events to the socket.
+   */
+  void openStreams(Socket socket) throws IOException {
+    OutputStream os = socket.getOutputStream();
+    if (maxBatchDelay > 0) {
+      os = new BufferedOutputStream(os, BATCH_BUFFER_SIZE);
+    }
+    if (binaryCodec) {
+      BinaryOutput.writeMagic(os);
+      os.flush();
+      binaryOutput = new BinaryOutput();
+      codec = buildBinaryCodec();
+      binaryStream = os;
+    } else {
+      oos = new ObjectOutputStream(os);
+      oos.flush();
+    }
+  }
+
+  private void closeBinaryStream() {
+    binaryStream = null;
+    binaryOutput = null;
+    codec = null;
+  }
+
+  private boolean isConnected() {
+    return oos != null || binaryStream != null;
+  }
+
   @Override
   protected void append(E event) {
 
@@ -153,13 +229,29 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
       return;
     }
 
-    if (oos != null) {
+    if (isConnected()) {
       try {
         postProcessEvent(event);
+        if (binaryStream != null) {
+          try {
+            codec.encode(event, binaryOutput);
+          } catch (RuntimeException e) {
+            // the partial record must not reach the stream
+            binaryOutput.discardRecord();
+            throw e;
+          }
+          binaryOutput.writeRecordTo(binaryStream);
+          if (maxBatchDelay <= 0) {
+            binaryStream.flush();
+          }
+          return;
+        }
         Serializable serEvent = getPST().transform(event);
         oos.writeObject(serEvent);
-        // addInfo("=========Flushing.");
-        oos.flush();
+        if (maxBatchDelay <= 0) {
+          // addInfo("=========Flushing.");
+          oos.flush();
+        }
         if (++counter >= CoreConstants.OOS_RESET_FREQUENCY) {
           counter = 0;
           // Failing to reset the object output stream every now and
@@ -168,25 +260,60 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
           oos.reset();
         }
       } catch (IOException e) {
-        if (oos != null) {
-          try {
-            oos.close();
-          } catch (IOException ignore) {
-          }
-        }
+        connectionFailed(e);
+      }
+    }
+  }
 
-        oos = null;
-        addWarn("Detected problem with connection: " + e);
-        if (reconnectionDelay > 0) {
-          fireConnector();
-        }
+  /**
+   * Flush events written since the last flush. Called periodically by the
+   * flusher thread when <b>MaxBatchDelay</b> is positive.
+   */
+  synchronized void flushPendingEvents() {
+    try {
+      if (oos != null) {
+        oos.flush();
+      } else if (binaryStream != null) {
+        binaryStream.flush();
       }
+    } catch (IOException e) {
+      connectionFailed(e);
+    }
+  }
+
+  private void connectionFailed(IOException e) {
+    if (oos != null) {
+      try {
+        oos.close();
+      } catch (IOException ignore) {
+      }
+    }
+    oos = null;
+    if (binaryStream != null) {
+      try {
+        binaryStream.close();
+      } catch (IOException ignore) {
+      }
+    }
+    closeBinaryStream();
+    addWarn("Detected problem with connection: " + e);
+    if (reconnectionDelay > 0) {
+      fireConnector();
     }
   }
 
   protected abstract void postProcessEvent(E event);
   protected abstract PreSerializationTransformer<E> getPST();
 
+  /**
+   * Create a codec for the compact binary wire format. A new codec is created
+   * for each connection. The default implementation returns null, i.e. the
+   * binary format is not supported.
+   */
+  protected BinaryEventCodec<E> buildBinaryCodec() {
+    return null;
+  }
+
   void fireConnector() {
     if (connector == null) {
       addInfo("Starting a new connector thread.");
@@ -257,6 +384,33 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
     return reconnectionDelay;
   }
 
+  /**
+   * If true, events are sent in a compact binary format instead of as
+   * serialized Java objects. The receiving end detects the format
+   * automatically. The default value of this option is false.
+   */
+  public void setBinaryCodec(boolean binaryCodec) {
+    this.binaryCodec = binaryCodec;
+  }
+
+  public boolean isBinaryCodec() {
+    return binaryCodec;
+  }
+
+  /**
+   * The <b>MaxBatchDelay</b> option takes the maximum number of milliseconds
+   * during which written events may remain buffered before being flushed to
+   * the socket. The default value of zero flushes every event as soon as it is
+   * written.
+   */
+  public void setMaxBatchDelay(int maxBatchDelay) {
+    this.maxBatchDelay = maxBatchDelay;
+  }
+
+  public int getMaxBatchDelay() {
+    return maxBatchDelay;
+  }
+
   
   /**
    * The Connector will reconnect when the server becomes available again. It
@@ -281,8 +435,8 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
           sleep(reconnectionDelay);
           addInfo("Attempting connection to " + address.getHostName());
           socket = new Socket(address, port);
-          synchronized (this) {
-            oos = new ObjectOutputStream(socket.getOutputStream());
+          synchronized (SocketAppenderBase.this) {
+            openStreams(socket);
             connector = null;
             addInfo("Connection established. Exiting connector thread.");
             break;
@@ -307,4 +461,26 @@ public abstract class SocketAppenderBase<E> extends AppenderBase<E> {
      */
   }
 
+  /**
+   * Flushes buffered events every <code>maxBatchDelay</code> milliseconds so
+   * that batching never delays an event for longer than that.
+   */
+  class Flusher extends Thread {
+
+    Flusher() {
+      super("SocketAppender-Flusher-" + name);
+    }
+
+    public void run() {
+      while (!isInterrupted()) {
+        try {
+          sleep(maxBatchDelay);
+        } catch (InterruptedException e) {
+          return;
+        }
+        flushPendingEvents();
+      }
+    }
+  }
+
 }
@@ -14,40 +14,88 @@
 package ch.qos.logback.core.net;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.helpers.ConcurrentRingBuffer;
 
 /**
  * Base class for SyslogAppender.
  *
+ * <p>By default, each event is formatted and sent on the calling thread. If
+ * the <b>channel</b> option is set to UDP or TCP, events are instead queued in
+ * a {@link ConcurrentRingBuffer} of <b>queueSize</b> slots and a background
+ * thread formats them and sends them through a {@link SyslogChannelWriter}.
+ * Logging threads then never touch the socket nor contend for a lock. Events
+ * arriving while the queue is full are dropped. Derived classes should
+ * extract any data which depends on the calling thread in
+ * {@link #preprocess(Object)}.
+ *
+ * <p>Without a channel, events are written to the shared
+ * {@link SyslogWriter} while holding this appender's monitor, as
+ * {@link ch.qos.logback.core.AppenderBase} would do.
+ *
  * @author Ceki G&uumllc&uuml;
  *
  * @param <E>
  */
-public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
+public abstract class SyslogAppenderBase<E> extends UnsynchronizedAppenderBase<E> {
 
   final static String SYSLOG_LAYOUT_URL = CoreConstants.CODES_URL + "#syslog_layout";
   final static int MSG_SIZE_LIMIT = 256*1024;
 
+  /**
+   * The default number of events which may await sending when a
+   * <b>channel</b> is set.
+   */
+  public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+  /**
+   * The default maximum time in milliseconds to wait for queued events to be
+   * sent on {@link #stop()}.
+   */
+  public static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+
   String facilityStr;
   protected String syslogHost;
   protected String suffixPattern;
   SyslogWriter sw;
   protected int port = SyslogConstants.SYSLOG_PORT;
 
+  String channel;
+  boolean packing = false;
+  int maxPacketSize = SyslogChannelWriter.DEFAULT_MAX_PACKET_SIZE;
+  int queueSize = DEFAULT_QUEUE_SIZE;
+  int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+
+  ConcurrentRingBuffer<E> ringBuffer;
+  Sender sender;
+  final AtomicLong discardedCount = new AtomicLong(0);
+
   public void start() {
     int errorCount = 0;
     if (facilityStr == null) {
       addError("The Facility option is mandatory");
       errorCount++;
     }
+    if (channel != null && !"UDP".equalsIgnoreCase(channel)
+        && !"TCP".equalsIgnoreCase(channel)) {
+      addError("Unsupported channel [" + channel + "], expected UDP or TCP");
+      errorCount++;
+    }
+    if (channel != null && queueSize < 1) {
+      addError("Invalid queue size [" + queueSize + "]");
+      errorCount++;
+    }
 
     try {
-      sw = getWriter();
+      sw = channel == null ? getWriter() : getChannelWriter();
     } catch (UnknownHostException e) {
       addError("Could not create SyslogWriter", e);
       errorCount++;
@@ -61,7 +109,16 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
     }
 
     if (errorCount == 0) {
+      if (channel != null) {
+        ringBuffer = new ConcurrentRingBuffer<E>(queueSize);
+        sender = new Sender();
+        sender.setDaemon(true);
+        sender.setName("SyslogAppender-Sender-" + getName());
+      }
       super.start();
+      if (sender != null) {
+        sender.start();
+      }
     }
   }
 
@@ -69,6 +126,11 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
     return new SyslogWriter(syslogHost, port);
   }
 
+  SyslogChannelWriter getChannelWriter() throws UnknownHostException {
+    return new SyslogChannelWriter(InetAddress.getByName(syslogHost), port,
+        "TCP".equalsIgnoreCase(channel), packing, maxPacketSize, this);
+  }
+
   abstract public Layout<E> buildLayout(String facilityStr);
 
   abstract public int getSeverityForEvent(Object eventObject);
@@ -79,6 +141,26 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
       return;
     }
 
+    if (ringBuffer != null) {
+      preprocess(eventObject);
+      if (ringBuffer.offer(eventObject)) {
+        Sender s = sender;
+        if (s.idle) {
+          LockSupport.unpark(s);
+        }
+      } else {
+        discardedCount.incrementAndGet();
+        getMetrics().recordDroppedByAppender();
+      }
+      return;
+    }
+    sendDirectly(eventObject);
+  }
+
+  private synchronized void sendDirectly(E eventObject) {
+    if (!isStarted()) {
+      return;
+    }
     try {
       String msg = layout.doLayout(eventObject);
       if(msg != null && msg.length() > MSG_SIZE_LIMIT) {
@@ -93,6 +175,12 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
     }
   }
 
+  /**
+   * Pre-process the event prior to queueing, when a <b>channel</b> is set.
+   */
+  protected void preprocess(E eventObject) {
+  }
+
   protected void postProcess(Object event, SyslogWriter sw) {
 
   }
@@ -222,8 +310,35 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
 
   @Override
   public void stop() {
-    sw.close();
+    Sender s = sender;
+    if (s == null) {
+      super.stop();
+      synchronized (this) {
+        if (sw != null) {
+          sw.close();
+        }
+      }
+      return;
+    }
+    if (!isStarted()) {
+      return;
+    }
     super.stop();
+    // the sender thread closes the writer once it exits
+    s.stopRequested = true;
+    LockSupport.unpark(s);
+    try {
+      s.join(maxFlushTime);
+      if (s.isAlive()) {
+        addWarn("Max flush time of " + maxFlushTime
+            + " ms exceeded. Remaining events in the queue will be discarded.");
+        s.interrupt();
+        s.join(maxFlushTime);
+      }
+    } catch (InterruptedException e) {
+      s.interrupt();
+      Thread.currentThread().interrupt();
+    }
   }
 
   /**
@@ -244,4 +359,145 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
   public void setSuffixPattern(String suffixPattern) {
     this.suffixPattern = suffixPattern;
   }
+
+  public String getChannel() {
+    return channel;
+  }
+
+  /**
+   * The <b>channel</b> option, if set to UDP or TCP, makes this appender send
+   * events from a background thread through an NIO channel. Over TCP,
+   * messages are framed by their octet count as described in RFC 6587. By
+   * default no channel is set and events are sent on the calling thread.
+   */
+  public void setChannel(String channel) {
+    this.channel = channel;
+  }
+
+  public boolean isPacking() {
+    return packing;
+  }
+
+  /**
+   * If true and the <b>channel</b> is UDP, several messages separated by line
+   * feeds are packed into each datagram, up to <b>maxPacketSize</b> bytes.
+   * The syslog server must split datagrams on line feeds.
+   */
+  public void setPacking(boolean packing) {
+    this.packing = packing;
+  }
+
+  public int getMaxPacketSize() {
+    return maxPacketSize;
+  }
+
+  /**
+   * The maximum size in bytes of a datagram when a <b>channel</b> is set.
+   * Longer messages are truncated. The default is 8192.
+   */
+  public void setMaxPacketSize(int maxPacketSize) {
+    this.maxPacketSize = maxPacketSize;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getMaxFlushTime() {
+    return maxFlushTime;
+  }
+
+  public void setMaxFlushTime(int maxFlushTime) {
+    this.maxFlushTime = maxFlushTime;
+  }
+
+  /**
+   * The number of events dropped because the queue was full.
+   */
+  public long getDiscardedCount() {
+    return discardedCount.get();
+  }
+
+  class Sender extends Thread {
+
+    volatile boolean idle = false;
+    volatile boolean stopRequested = false;
+    boolean failing = false;
+
+    public void run() {
+      SyslogChannelWriter writer = (SyslogChannelWriter) sw;
+      ConcurrentRingBuffer<E> buffer = ringBuffer;
+      try {
+        while (!stopRequested) {
+          E e = buffer.poll();
+          if (e == null) {
+            sendPending(writer);
+            waitForEvents(buffer);
+            continue;
+          }
+          send(writer, e);
+        }
+
+        // drain the queue unless stop() gave up waiting for us
+        E e;
+        while (!isInterrupted() && (e = buffer.poll()) != null) {
+          send(writer, e);
+        }
+        if (!isInterrupted()) {
+          sendPending(writer);
+        }
+      } finally {
+        writer.close();
+      }
+    }
+
+    private void send(SyslogChannelWriter writer, E e) {
+      try {
+        String msg = layout.doLayout(e);
+        if (msg != null) {
+          writer.write(msg);
+        }
+        writer.flush();
+        postProcess(e, writer);
+        failing = false;
+      } catch (IOException ioe) {
+        reportFailure(ioe);
+      }
+    }
+
+    private void sendPending(SyslogChannelWriter writer) {
+      try {
+        writer.sendPending();
+      } catch (IOException ioe) {
+        reportFailure(ioe);
+      }
+    }
+
+    private void reportFailure(IOException ioe) {
+      // report the first of a series of failures only
+      if (!failing) {
+        failing = true;
+        addError("Failed to send to " + syslogHost, ioe);
+      }
+    }
+
+    private void waitForEvents(ConcurrentRingBuffer<E> buffer) {
+      if (buffer.size() > 0) {
+        // a producer has claimed a slot but not yet published it
+        Thread.yield();
+        return;
+      }
+      idle = true;
+      // re-check after announcing that we are idle, otherwise an event
+      // published in between would not wake us up
+      if (buffer.size() == 0 && !stopRequested) {
+        LockSupport.park(this);
+      }
+      idle = false;
+    }
+  }
 }
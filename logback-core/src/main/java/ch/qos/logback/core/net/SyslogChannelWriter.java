@@ -0,0 +1,263 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import ch.qos.logback.core.spi.ContextAware;
+
+/**
+ * A {@link SyslogWriter} which sends messages through an NIO channel, either a
+ * {@link DatagramChannel} or, over TCP, a {@link SocketChannel} with each
+ * message framed by its octet count as described in RFC 6587.
+ * 
+ * <p>Messages are encoded with reusable buffers into a single direct
+ * {@link ByteBuffer}, so that no memory is allocated per message. Messages
+ * longer than <b>maxPacketSize</b> bytes are truncated. Over UDP, several
+ * messages separated by line feeds may be packed into one datagram if
+ * <b>packing</b> is set. Over TCP, messages always accumulate in the buffer.
+ * Accumulated messages are sent when the buffer is full or when
+ * {@link #sendPending()} is called.
+ * 
+ * <p>This class is not thread-safe. It is meant to be used by a single sender
+ * thread, see {@link SyslogAppenderBase#setChannel(String)}.
+ */
+public class SyslogChannelWriter extends SyslogWriter {
+
+  public static final int DEFAULT_MAX_PACKET_SIZE = 8192;
+
+  /**
+   * The default delay in milliseconds between connection attempts over TCP.
+   */
+  static final int DEFAULT_RECONNECTION_DELAY = 30000;
+
+  // room for the octet count and the space which follows it
+  static final int OCTET_COUNT_RESERVE = 11;
+
+  static final byte LF = '\n';
+  static final byte SP = ' ';
+
+  final boolean tcp;
+  final boolean packing;
+  final int maxPacketSize;
+  final ContextAware base;
+  final InetSocketAddress target;
+
+  final CharsetEncoder encoder;
+  final CharBuffer chars;
+  final ByteBuffer frame;
+  final ByteBuffer packet;
+
+  DatagramChannel datagramChannel;
+  SocketChannel socketChannel;
+  int reconnectionDelay = DEFAULT_RECONNECTION_DELAY;
+  long nextConnectionAttempt = 0;
+
+  public SyslogChannelWriter(InetAddress address, int port, boolean tcp,
+      boolean packing, int maxPacketSize, ContextAware base) {
+    super(address, port);
+    this.tcp = tcp;
+    this.packing = packing;
+    this.maxPacketSize = maxPacketSize;
+    this.base = base;
+    this.target = new InetSocketAddress(address, port);
+
+    encoder = Charset.defaultCharset().newEncoder();
+    encoder.onMalformedInput(CodingErrorAction.REPLACE);
+    encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+    chars = CharBuffer.allocate(maxPacketSize);
+    frame = ByteBuffer.allocate(maxPacketSize);
+    packet = ByteBuffer.allocateDirect(maxPacketSize + OCTET_COUNT_RESERVE);
+  }
+
+  /**
+   * Ends the message written so far and adds it to the packet, sending the
+   * packet if required.
+   */
+  public void flush() throws IOException {
+    try {
+      encode();
+    } finally {
+      if (buf.length() > maxPacketSize) {
+        buf = new StringBuffer();
+      } else {
+        buf.setLength(0);
+      }
+    }
+
+    int len = frame.remaining();
+    int needed;
+    if (tcp) {
+      needed = decimalLength(len) + 1 + len;
+    } else {
+      needed = packet.position() > 0 ? len + 1 : len;
+    }
+    if (packet.position() > 0 && needed > room()) {
+      sendPending();
+    }
+
+    if (tcp) {
+      putOctetCount(len);
+    } else if (packet.position() > 0) {
+      packet.put(LF);
+    }
+    packet.put(frame);
+
+    if (!tcp && !packing) {
+      sendPending();
+    }
+  }
+
+  private void encode() {
+    int len = Math.min(buf.length(), chars.capacity());
+    chars.clear();
+    buf.getChars(0, len, chars.array(), 0);
+    chars.limit(len);
+    frame.clear();
+    encoder.reset();
+    // an overflow simply truncates the message
+    encoder.encode(chars, frame, true);
+    encoder.flush(frame);
+    frame.flip();
+  }
+
+  private int room() {
+    int limit = tcp ? packet.capacity() : maxPacketSize;
+    return limit - packet.position();
+  }
+
+  private void putOctetCount(int n) {
+    int divisor = 1;
+    while (divisor <= n / 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      packet.put((byte) ('0' + (n / divisor) % 10));
+    }
+    packet.put(SP);
+  }
+
+  static int decimalLength(int n) {
+    int length = 1;
+    while (n >= 10) {
+      n /= 10;
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Sends the messages accumulated in the packet, if any. Over TCP, the
+   * messages are dropped while no connection can be established.
+   */
+  public void sendPending() throws IOException {
+    if (packet.position() == 0) {
+      return;
+    }
+    packet.flip();
+    try {
+      if (tcp) {
+        writeToSocket();
+      } else {
+        getDatagramChannel().send(packet, target);
+      }
+    } finally {
+      packet.clear();
+    }
+  }
+
+  private DatagramChannel getDatagramChannel() throws IOException {
+    if (datagramChannel == null || !datagramChannel.isOpen()) {
+      datagramChannel = DatagramChannel.open();
+    }
+    return datagramChannel;
+  }
+
+  private void writeToSocket() throws IOException {
+    SocketChannel sc = getSocketChannel();
+    if (sc == null) {
+      return;
+    }
+    try {
+      while (packet.hasRemaining()) {
+        sc.write(packet);
+      }
+    } catch (IOException e) {
+      base.addWarn("Detected problem with connection to " + target, e);
+      closeSocketChannel();
+    }
+  }
+
+  private SocketChannel getSocketChannel() {
+    if (socketChannel != null && socketChannel.isOpen()) {
+      return socketChannel;
+    }
+    long now = System.currentTimeMillis();
+    if (now < nextConnectionAttempt) {
+      return null;
+    }
+    try {
+      socketChannel = SocketChannel.open(target);
+      base.addInfo("Connected to syslog server at " + target);
+      return socketChannel;
+    } catch (IOException e) {
+      socketChannel = null;
+      nextConnectionAttempt = now + reconnectionDelay;
+      base.addWarn("Could not connect to syslog server at " + target
+          + ". We will try again in " + reconnectionDelay + " ms.", e);
+      return null;
+    }
+  }
+
+  private void closeSocketChannel() {
+    if (socketChannel != null) {
+      try {
+        socketChannel.close();
+      } catch (IOException e) {
+        // nothing we can do
+      }
+      socketChannel = null;
+    }
+  }
+
+  public void close() {
+    if (datagramChannel != null) {
+      try {
+        datagramChannel.close();
+      } catch (IOException e) {
+        // nothing we can do
+      }
+      datagramChannel = null;
+    }
+    closeSocketChannel();
+    super.close();
+  }
+
+  public void setReconnectionDelay(int reconnectionDelay) {
+    this.reconnectionDelay = reconnectionDelay;
+  }
+
+  public int getReconnectionDelay() {
+    return reconnectionDelay;
+  }
+}
@@ -45,6 +45,15 @@ public class SyslogWriter extends Writer {
     this.ds = new DatagramSocket();
   }
 
+  /**
+   * Constructor for derived classes which do not send through a
+   * {@link DatagramSocket}.
+   */
+  protected SyslogWriter(InetAddress address, int port) {
+    this.address = address;
+    this.port = port;
+  }
+
   public void write(char[] charArray, int offset, int len) throws IOException {
     buf.append(charArray, offset, len);
   }
@@ -31,6 +31,16 @@ public class CompositeConverter<E> extends FormattingConverter<E> {
     return buf.toString();
   }
 
+  /**
+   * Child converters write directly into the caller's buffer. Any padding or
+   * truncation is then applied in place by {@link #write(StringBuilder, Object)}.
+   */
+  public void convertTo(StringBuilder buf, E event) {
+    for (Converter<E> c = childConverter; c != null; c = c.next) {
+      c.write(buf, event);
+    }
+  }
+
   public void setChildConverter(Converter<E> child) {
     childConverter = child;
   }
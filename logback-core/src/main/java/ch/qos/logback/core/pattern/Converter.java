@@ -23,6 +23,11 @@ abstract public class Converter<E> {
   
   Converter<E> next;
 
+  // converters written against the StringBuffer contract only are driven
+  // through it, see write(StringBuilder, E)
+  private final boolean overridesStringBufferWrite = overrides("write",
+      StringBuffer.class);
+
   /**
    * The convert method is responsible for extracting data from the event and
    * storing it for later use by the write method.
@@ -41,6 +46,56 @@ abstract public class Converter<E> {
   public void write(StringBuffer buf, E event) {
     buf.append(convert(event));
   }
+
+  /**
+   * Append the data extracted from the event directly to the StringBuilder
+   * passed as parameter. Converters which can do so without creating an
+   * intermediate String should override this method.
+   * 
+   * <p>The default implementation bridges to {@link #convert(Object)} so that
+   * existing converters keep working unchanged. As with
+   * {@link #write(StringBuffer, Object)}, a null value is written as "null".
+   * 
+   * @param buf The StringBuilder where data is appended
+   * @param event The event from where data is extracted
+   */
+  public void convertTo(StringBuilder buf, E event) {
+    buf.append(convert(event));
+  }
+
+  /**
+   * Same as {@link #write(StringBuffer, Object)} but for an unsynchronized
+   * StringBuilder, typically reused by the caller across events.
+   * 
+   * <p>If a subclass overrides {@link #write(StringBuffer, Object)}, that
+   * method is called instead of {@link #convertTo(StringBuilder, Object)}, so
+   * that existing converters keep their output.
+   * 
+   * @param buf The StringBuilder where data is appended
+   * @param event The event from where data is extracted
+   */
+  public void write(StringBuilder buf, E event) {
+    if (overridesStringBufferWrite) {
+      StringBuffer sbuf = new StringBuffer();
+      write(sbuf, event);
+      buf.append(sbuf);
+    } else {
+      convertTo(buf, event);
+    }
+  }
+
+  /**
+   * Whether the class of this converter overrides the given method, which
+   * takes a buffer of the given type and an event as parameters.
+   */
+  final boolean overrides(String methodName, Class<?> bufferType) {
+    try {
+      return getClass().getMethod(methodName, bufferType, Object.class)
+          .getDeclaringClass() != Converter.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
   
   public final void setNext(Converter<E> next) {
     if (this.next != null) {
@@ -21,6 +21,12 @@ abstract public class FormattingConverter<E> extends Converter<E> {
   
   FormatInfo formattingInfo;
 
+  // converters relying on the default convertTo(StringBuilder, E) are
+  // formatted from the value returned by convert(E), so that a null value is
+  // padded as in write(StringBuffer, E)
+  private final boolean overridesConvertTo = overrides("convertTo",
+      StringBuilder.class);
+
   final public FormatInfo getFormattingInfo() {
     return formattingInfo;
   }
@@ -68,4 +74,44 @@ abstract public class FormattingConverter<E> extends Converter<E> {
       buf.append(s);
     }
   }
+
+  /**
+   * Write the output of {@link #convertTo(StringBuilder, Object)} into the
+   * StringBuilder passed as parameter. Padding and truncation are performed in
+   * place, on the section of the buffer written by the converter.
+   */
+  final public void write(StringBuilder buf, E event) {
+    if (formattingInfo == null) {
+      convertTo(buf, event);
+      return;
+    }
+
+    int start = buf.length();
+    if (overridesConvertTo) {
+      convertTo(buf, event);
+    } else {
+      String s = convert(event);
+      if (s != null) {
+        buf.append(s);
+      }
+    }
+    int len = buf.length() - start;
+
+    int min = formattingInfo.getMin();
+    int max = formattingInfo.getMax();
+
+    if (len > max) {
+      if (formattingInfo.isLeftTruncate()) {
+        buf.delete(start, start + len - max);
+      } else {
+        buf.setLength(start + max);
+      }
+    } else if (len < min) {
+      if (formattingInfo.isLeftPad()) {
+        SpacePadder.insertSpaces(buf, start, min - len);
+      } else {
+        SpacePadder.spacePad(buf, min - len);
+      }
+    }
+  }
 }
@@ -108,13 +108,21 @@ abstract public class PatternLayoutBase<E> extends LayoutBase<E> {
   }
 
   protected String writeLoopOnConverters(E event) {
-    StringBuffer buf = new StringBuffer(128);
+    StringBuilder buf = new StringBuilder(128);
+    writeLoopOnConverters(buf, event);
+    return buf.toString();
+  }
+
+  /**
+   * Write the output of the converter chain for the given event into the
+   * buffer passed as parameter. Callers may reuse the buffer across events.
+   */
+  public void writeLoopOnConverters(StringBuilder buf, E event) {
     Converter<E> c = head;
     while (c != null) {
       c.write(buf, event);
       c = c.getNext();
     }
-    return buf.toString();
   }
 
   public String getPattern() {
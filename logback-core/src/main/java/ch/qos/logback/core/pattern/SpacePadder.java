@@ -61,4 +61,38 @@ public class SpacePadder {
       }
     }
   }
+
+  /**
+   * Fast space padding method for StringBuilder instances.
+   */
+  final static public void spacePad(StringBuilder sbuf, int length) {
+    while (length >= 32) {
+      sbuf.append(SPACES[5]);
+      length -= 32;
+    }
+
+    for (int i = 4; i >= 0; i--) {
+      if ((length & (1 << i)) != 0) {
+        sbuf.append(SPACES[i]);
+      }
+    }
+  }
+
+  /**
+   * Insert <code>length</code> spaces at position <code>offset</code> of the
+   * StringBuilder, in place.
+   */
+  final static public void insertSpaces(StringBuilder sbuf, int offset,
+      int length) {
+    while (length >= 32) {
+      sbuf.insert(offset, SPACES[5]);
+      length -= 32;
+    }
+
+    for (int i = 4; i >= 0; i--) {
+      if ((length & (1 << i)) != 0) {
+        sbuf.insert(offset, SPACES[i]);
+      }
+    }
+  }
 }
@@ -0,0 +1,40 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling;
+
+import java.io.File;
+
+import ch.qos.logback.core.util.CountingOutputStream;
+
+/**
+ * The file a {@link RollingFileAppender} currently writes to, as handed to its
+ * triggering policy. Its {@link #length()} is the number of bytes counted by
+ * the appender, which is exact and does not require a system call.
+ */
+class ActiveFile extends File {
+
+  private static final long serialVersionUID = 7446012391713734380L;
+
+  final transient CountingOutputStream countingOutputStream;
+
+  ActiveFile(String pathname, CountingOutputStream countingOutputStream) {
+    super(pathname);
+    this.countingOutputStream = countingOutputStream;
+  }
+
+  @Override
+  public long length() {
+    return countingOutputStream.getCount();
+  }
+}
@@ -36,15 +36,21 @@ public class DefaultTimeBasedFileNamingAndTriggeringPolicy<E> extends TimeBasedF
   
   public boolean isTriggeringEvent(File activeFile, final E event) {
     long time = getCurrentTime();
-    if (time >= nextCheck) {
+    // lock-free in the common case
+    if (time < nextCheck) {
+      return false;
+    }
+    synchronized (this) {
+      // another thread may have triggered in the meantime
+      if (time < nextCheck) {
+        return false;
+      }
       Date dateOfElapsedPeriod = dateInCurrentPeriod;
       elapsedPeriodsFileName = tbrp.fileNamePatternWCS
           .convert(dateOfElapsedPeriod);
       setDateInCurrentPeriod(time);
       computeNextCheck();
       return true;
-    } else {
-      return false;
     }
   }
 }
@@ -14,6 +14,7 @@
 package ch.qos.logback.core.rolling;
 
 import java.io.File;
+import java.util.concurrent.Future;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.rolling.helper.Compressor;
@@ -38,6 +39,7 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
   int minIndex;
   RenameUtil util = new RenameUtil();
   Compressor compressor;
+  Future<?> future;
   
   /**
    * It's almost always a bad idea to have a large window size, say over 12.
@@ -94,48 +96,110 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
           + "] does not contain a valid IntegerToken");
     }
 
-    compressor = new Compressor(compressionMode);
-    compressor.setContext(this.context);
+    compressor = buildCompressor();
+    super.start();
+
+    if (new File(getPendingFileName()).exists()) {
+      future = runInBackground(new Runnable() {
+        public void run() {
+          completePendingRollover();
+        }
+      });
+    }
+  }
+
+  /**
+   * The name under which the active file is set aside during a rollover, that
+   * is the name of the archive with the minimum index, without compression
+   * suffix, followed by {@link #TMP_SUFFIX}.
+   */
+  String getPendingFileName() {
+    return computeFileNameStr_WCS(fileNamePattern.convertInt(minIndex))
+        + TMP_SUFFIX;
   }
 
+  private String computeFileNameStr_WCS(String fileName) {
+    return TimeBasedRollingPolicy.computeFileNameStr_WCS(fileName,
+        compressionMode);
+  }
+
+  /**
+   * Archive the file left by a rollover which did not complete. The window is
+   * only shifted if the archive with the minimum index exists, i.e. if the
+   * rollover was interrupted before doing so.
+   */
+  void completePendingRollover() {
+    String source = getPendingFileName();
+    addInfo("Completing the rollover of [" + source + "]");
+    try {
+      if (new File(fileNamePattern.convertInt(minIndex)).exists()) {
+        shiftWindow();
+      }
+      moveToMinIndex(source);
+    } catch (RolloverFailure e) {
+      addError("Failed to roll [" + source + "] over", e);
+    }
+  }
+
+  /**
+   * The active file is renamed by the calling thread. Shifting the window and
+   * moving the renamed file to the minimum index is left to the background
+   * thread.
+   */
   public void rollover() throws RolloverFailure {
     // Inside this method it is guaranteed that the hereto active log file is
     // closed.
     // If maxIndex <= 0, then there is no file renaming to be done.
     if (maxIndex >= 0) {
-      // Delete the oldest file, to keep Windows happy.
-      File file = new File(fileNamePattern.convertInt(maxIndex));
+      final String source = moveAside(getActiveFileName(),
+          computeFileNameStr_WCS(fileNamePattern.convertInt(minIndex)));
+      future = runInBackground(new Runnable() {
+        public void run() {
+          try {
+            shiftWindow();
+            moveToMinIndex(source);
+          } catch (RolloverFailure e) {
+            addError("Failed to roll [" + source + "] over", e);
+          }
+        }
+      });
+    }
+  }
 
-      if (file.exists()) {
-        file.delete();
-      }
+  void shiftWindow() throws RolloverFailure {
+    // Delete the oldest file, to keep Windows happy.
+    File file = new File(fileNamePattern.convertInt(maxIndex));
 
-      // Map {(maxIndex - 1), ..., minIndex} to {maxIndex, ..., minIndex+1}
-      for (int i = maxIndex - 1; i >= minIndex; i--) {
-        String toRenameStr = fileNamePattern.convertInt(i);
-        File toRename = new File(toRenameStr);
-        // no point in trying to rename an inexistent file
-        if (toRename.exists()) {
-          util.rename(toRenameStr, fileNamePattern.convertInt(i + 1));
-        } else {
-          addInfo("Skipping roll-over for inexistent file " + toRenameStr);
-        }
-      }
+    if (file.exists()) {
+      file.delete();
+    }
 
-      // move active file name to min
-      switch (compressionMode) {
-      case NONE:
-        util.rename(getActiveFileName(), fileNamePattern
-            .convertInt(minIndex));
-        break;
-      case GZ:
-      case ZIP:
-        compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex));
-        break;
+    // Map {(maxIndex - 1), ..., minIndex} to {maxIndex, ..., minIndex+1}
+    for (int i = maxIndex - 1; i >= minIndex; i--) {
+      String toRenameStr = fileNamePattern.convertInt(i);
+      File toRename = new File(toRenameStr);
+      // no point in trying to rename an inexistent file
+      if (toRename.exists()) {
+        util.rename(toRenameStr, fileNamePattern.convertInt(i + 1));
+      } else {
+        addInfo("Skipping roll-over for inexistent file " + toRenameStr);
       }
     }
   }
 
+  void moveToMinIndex(String source) throws RolloverFailure {
+    switch (compressionMode) {
+    case NONE:
+      util.rename(source, fileNamePattern.convertInt(minIndex));
+      break;
+    case GZ:
+    case PARALLEL_GZ:
+    case ZIP:
+      compressor.compress(source, fileNamePattern.convertInt(minIndex));
+      break;
+    }
+  }
+
   /**
    * Return the value of the <b>ActiveFile</b> option.
    * 
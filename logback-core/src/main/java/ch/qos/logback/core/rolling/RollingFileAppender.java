@@ -18,6 +18,7 @@ import java.io.IOException;
 
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.util.CountingOutputStream;
 
 /**
  * <code>RollingFileAppender</code> extends {@link FileAppender} to backup the
@@ -31,7 +32,8 @@ import ch.qos.logback.core.rolling.helper.CompressionMode;
  * @author Ceki G&uuml;lc&uuml;
  */
 public class RollingFileAppender<E> extends FileAppender<E> {
-  File currentlyActiveFile;
+  // replaced by a new instance on each rollover
+  volatile File currentlyActiveFile;
   TriggeringPolicy<E> triggeringPolicy;
   RollingPolicy rollingPolicy;
 
@@ -77,6 +79,27 @@ public class RollingFileAppender<E> extends FileAppender<E> {
     currentlyActiveFile = new File(getFile());
     addInfo("Active log file name: " + getFile());
     super.start();
+    currentlyActiveFile = activeFile(getFile());
+  }
+
+  /**
+   * Build the file handed to the triggering policy. Unless in prudent mode,
+   * its length is tracked by this appender.
+   */
+  File activeFile(String fileName) {
+    CountingOutputStream cos = getCountingOutputStream();
+    if (cos == null) {
+      return new File(fileName);
+    }
+    return new ActiveFile(fileName, cos);
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    if (rollingPolicy != null) {
+      rollingPolicy.stop();
+    }
   }
 
   @Override
@@ -97,6 +120,8 @@ public class RollingFileAppender<E> extends FileAppender<E> {
 
   /**
    * Implemented by delegating most of the rollover work to a rolling policy.
+   * Only the switch to a new active file happens while this appender is
+   * locked, the rolling policy performs the slow part in the background.
    */
   public synchronized void rollover() {
     // Note: This method needs to be synchronized because it needs exclusive
@@ -114,17 +139,18 @@ public class RollingFileAppender<E> extends FileAppender<E> {
       this.append = true;
     }
 
+    String activeFileName = rollingPolicy.getActiveFileName();
     try {
-      // update the currentlyActiveFile
-      // http://jira.qos.ch/browse/LBCORE-90
-      currentlyActiveFile = new File(rollingPolicy.getActiveFileName());
-
       // This will also close the file. This is OK since multiple
       // close operations are safe.
-      this.openFile(rollingPolicy.getActiveFileName());
+      this.openFile(activeFileName);
     } catch (IOException e) {
       addError("setFile(" + fileName + ", false) call failed.", e);
     }
+    // update the currentlyActiveFile, only once the file is open so that its
+    // length refers to the new file
+    // http://jira.qos.ch/browse/LBCORE-90
+    currentlyActiveFile = activeFile(activeFileName);
   }
 
   /**
@@ -135,11 +161,15 @@ public class RollingFileAppender<E> extends FileAppender<E> {
     // The roll-over check must precede actual writing. This is the
     // only correct behavior for time driven triggers.
 
-    // We need to synchronize on triggeringPolicy so that only one rollover
-    // occurs at a time
-    synchronized (triggeringPolicy) {
-      if (triggeringPolicy.isTriggeringEvent(currentlyActiveFile, event)) {
-        rollover();
+    // Triggering policies are thread-safe, so no lock is taken unless a
+    // rollover is due. Only one of the threads which saw the same active file
+    // trigger actually rolls it over.
+    File activeFile = currentlyActiveFile;
+    if (triggeringPolicy.isTriggeringEvent(activeFile, event)) {
+      synchronized (this) {
+        if (activeFile == currentlyActiveFile) {
+          rollover();
+        }
       }
     }
 
@@ -14,19 +14,45 @@
 package ch.qos.logback.core.rolling;
 
 import ch.qos.logback.core.FileAppender;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import ch.qos.logback.core.rolling.helper.CompressionExecutor;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.helper.Compressor;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.rolling.helper.RenameUtil;
 import ch.qos.logback.core.spi.ContextAwareBase;
 
 /**
- * Implements methods common to most, it not all, rolling policies. Currently
- * such methods are limited to a compression mode getter/setter.
+ * Implements methods common to most, it not all, rolling policies. Such
+ * methods are compression related getters/setters and the execution of the
+ * slow part of rollovers in the background.
+ * 
+ * <p>A rollover is split into two stages. While the parent appender is
+ * locked, the active file is merely renamed, see
+ * {@link #moveAside(String, String)}. Moving the renamed file to its final
+ * destination, compressing it and removing old archives is then performed by
+ * a single background thread, see {@link #runInBackground(Runnable)}. As there
+ * is one such thread per policy, the background stages of successive
+ * rollovers execute in order. Files set aside by rollovers which did not
+ * complete, say because the JVM exited in the meantime, are archived when the
+ * policy is next started.
  * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public abstract class RollingPolicyBase extends ContextAwareBase implements
     RollingPolicy {
   protected CompressionMode compressionMode = CompressionMode.NONE;
+  protected int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+  protected boolean parallelCompression = false;
   protected FileNamePattern fileNamePattern;
   // fileNamePatternStr is always slashified, see setter
   protected String fileNamePatternStr;
@@ -35,17 +61,38 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements
 
   private boolean started;
 
+  /**
+   * The maximum time in milliseconds {@link #stop()} waits for pending
+   * background work.
+   */
+  static final int MAX_BACKGROUND_FLUSH_TIME = 10000;
+
+  /**
+   * The suffix appended to the archive name of a file set aside by
+   * {@link #moveAside(String, String)}.
+   */
+  public static final String TMP_SUFFIX = ".tmp";
+
+  private ExecutorService backgroundExecutor;
+  private Future<?> lastBackgroundTask;
+
   /**
    * Given the FileNamePattern string, this method determines the compression
    * mode depending on last letters of the fileNamePatternStr. Patterns ending
-   * with .gz imply GZIP compression, endings with '.zip' imply ZIP compression.
-   * Otherwise and by default, there is no compression.
+   * with .gz imply GZIP compression, parallel if the <b>parallelCompression</b>
+   * option is set, endings with '.zip' imply ZIP compression. Otherwise and by
+   * default, there is no compression.
    * 
    */
   protected void determineCompressionMode() {
     if (fileNamePatternStr.endsWith(".gz")) {
-      addInfo("Will use gz compression");
-      compressionMode = CompressionMode.GZ;
+      if (parallelCompression) {
+        addInfo("Will use parallel gz compression");
+        compressionMode = CompressionMode.PARALLEL_GZ;
+      } else {
+        addInfo("Will use gz compression");
+        compressionMode = CompressionMode.GZ;
+      }
     } else if (fileNamePatternStr.endsWith(".zip")) {
       addInfo("Will use zip compression");
       compressionMode = CompressionMode.ZIP;
@@ -68,16 +115,178 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements
     return compressionMode;
   }
 
+  /**
+   * Build a compressor for the current compression mode, running on the
+   * executor shared by the context.
+   */
+  protected Compressor buildCompressor() {
+    Compressor compressor = new Compressor(compressionMode);
+    compressor.setContext(context);
+    compressor.setCompressionLevel(compressionLevel);
+    if (compressionMode != CompressionMode.NONE) {
+      compressor.setExecutor(CompressionExecutor.getInstance(context));
+    }
+    return compressor;
+  }
+
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * The compression level of archived files, from 0 (no compression) to 9
+   * (best compression). By default, the deflater's default level is used.
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+  }
+
+  public boolean isParallelCompression() {
+    return parallelCompression;
+  }
+
+  /**
+   * If true, .gz archives are compressed by all available processors. The
+   * resulting file consists of several concatenated gzip members.
+   */
+  public void setParallelCompression(boolean parallelCompression) {
+    this.parallelCompression = parallelCompression;
+  }
+
   public boolean isStarted() {
     return started;
   }
 
+  /**
+   * Start the background thread. Derived classes must invoke this method
+   * before submitting work to {@link #runInBackground(Runnable)}.
+   */
   public void start() {
+    final String threadName = "logback-rollover-" + context.getName();
+    synchronized (this) {
+      if (backgroundExecutor == null) {
+        backgroundExecutor = Executors
+            .newSingleThreadExecutor(new ThreadFactory() {
+              public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, threadName);
+                t.setDaemon(true);
+                return t;
+              }
+            });
+      }
+    }
     started = true;
   }
 
   public void stop() {
     started = false;
+    ExecutorService executor;
+    synchronized (this) {
+      executor = backgroundExecutor;
+      backgroundExecutor = null;
+    }
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(MAX_BACKGROUND_FLUSH_TIME,
+          TimeUnit.MILLISECONDS)) {
+        addWarn("Timeout while waiting for background rollover work to finish");
+      }
+    } catch (InterruptedException e) {
+      addError("Interrupted while waiting for background rollover work", e);
+    }
+  }
+
+  /**
+   * Rename the given file so that the appender can reopen a file under its
+   * original name. The file is renamed next to its archive, as
+   * <code>archiveName</code> followed by {@link #TMP_SUFFIX}, so that it can
+   * be archived when the policy is restarted should the rollover not
+   * complete. A rename is cheap, unless the archive resides on another file
+   * system, in which case {@link RenameUtil} falls back to copying.
+   * 
+   * <p>If a previous rollover to the same archive name is still being
+   * processed, for instance when a small file is rolled over while the
+   * previous one is still being compressed, this method waits for it.
+   * 
+   * @param archiveName
+   *                the name of the archive, without compression suffix
+   * @return the new name of the file
+   */
+  protected String moveAside(String fileName, String archiveName)
+      throws RolloverFailure {
+    String tmpName = archiveName + TMP_SUFFIX;
+    File tmpFile = new File(tmpName);
+    if (tmpFile.exists()) {
+      waitForBackgroundWork();
+      if (tmpFile.exists()) {
+        throw new RolloverFailure("[" + tmpName
+            + "] set aside by an earlier rollover is in the way");
+      }
+    }
+    File parent = tmpFile.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    RenameUtil renameUtil = new RenameUtil();
+    renameUtil.setContext(context);
+    renameUtil.rename(fileName, tmpName);
+    return tmpName;
+  }
+
+  /**
+   * Return the archive name of a file set aside by
+   * {@link #moveAside(String, String)}.
+   */
+  protected String archiveNameOf(String tmpName) {
+    return tmpName.substring(0, tmpName.length() - TMP_SUFFIX.length());
+  }
+
+  private void waitForBackgroundWork() {
+    Future<?> task;
+    synchronized (this) {
+      task = lastBackgroundTask;
+    }
+    if (task == null) {
+      return;
+    }
+    try {
+      task.get(MAX_BACKGROUND_FLUSH_TIME, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // failures of background work are reported by the task itself
+    }
+  }
+
+  /**
+   * Execute the task on this policy's background thread, after the tasks
+   * previously submitted. Should the thread be unavailable, i.e. before
+   * {@link #start()} or after {@link #stop()}, the task is run by the calling
+   * thread.
+   * 
+   * @return a future for the task, or null if it was run by the calling thread
+   */
+  protected Future<?> runInBackground(Runnable task) {
+    ExecutorService executor;
+    synchronized (this) {
+      executor = backgroundExecutor;
+    }
+    if (executor != null) {
+      try {
+        Future<?> future = executor.submit(task);
+        synchronized (this) {
+          lastBackgroundTask = future;
+        }
+        return future;
+      } catch (RejectedExecutionException e) {
+        // stopped concurrently
+      }
+    }
+    task.run();
+    return null;
   }
 
   public void setParent(FileAppender appender) {
@@ -15,17 +15,18 @@ package ch.qos.logback.core.rolling;
 
 import java.io.File;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.qos.logback.core.joran.spi.NoAutoStart;
+import ch.qos.logback.core.rolling.helper.DefaultArchiveRemover;
 import ch.qos.logback.core.rolling.helper.FileFilterUtil;
-import ch.qos.logback.core.rolling.helper.SizeAndTimeBasedArchiveRemover;
 import ch.qos.logback.core.util.FileSize;
 
 @NoAutoStart
 public class SizeAndTimeBasedFNATP<E> extends
     TimeBasedFileNamingAndTriggeringPolicyBase<E> {
 
-  int currentPeriodsCounter = 0;
+  volatile int currentPeriodsCounter = 0;
   FileSize maxFileSize;
   String maxFileSizeAsString;
 
@@ -35,7 +36,7 @@ public class SizeAndTimeBasedFNATP<E> extends
     // in super.start()
     super.start();
 
-    archiveRemover = new SizeAndTimeBasedArchiveRemover(tbrp.fileNamePattern, rc);
+    archiveRemover = new DefaultArchiveRemover(tbrp.fileNamePattern, rc);
     archiveRemover.setContext(context);
     
     // we need to get the correct value of currentPeriodsCounter.
@@ -63,35 +64,54 @@ public class SizeAndTimeBasedFNATP<E> extends
     currentPeriodsCounter = FileFilterUtil.extractCounter(matchingFileArray[0], stemRegex);
   }
 
-  // IMPORTANT: This field can be updated by multiple threads. It follows that
-  // its values may *not* be incremented sequentially. However, we don't care
-  // about the actual value of the field except that from time to time the
-  // expression (invocationCounter++ & 0xF) == 0xF) should be true.
-  private int invocationCounter;
+  // This field is updated by multiple threads. We don't care about its actual
+  // value except that from time to time the expression
+  // (invocationCounter.getAndIncrement() & 0xF) == 0xF should be true.
+  private final AtomicInteger invocationCounter = new AtomicInteger();
+
+  // the file for which a size based rollover was last triggered
+  private File lastTriggeringFile;
 
   public boolean isTriggeringEvent(File activeFile, final E event) {
-   
     long time = getCurrentTime();
     if (time >= nextCheck) {
-      Date dateInElapsedPeriod = dateInCurrentPeriod;
-      elapsedPeriodsFileName = tbrp.fileNamePatternWCS
-          .convertMultipleArguments(dateInElapsedPeriod, currentPeriodsCounter);
-      currentPeriodsCounter = 0;
-      setDateInCurrentPeriod(time);
-      computeNextCheck();
-      return true;
+      synchronized (this) {
+        // another thread may have triggered in the meantime
+        if (time >= nextCheck) {
+          Date dateInElapsedPeriod = dateInCurrentPeriod;
+          elapsedPeriodsFileName = tbrp.fileNamePatternWCS
+              .convertMultipleArguments(dateInElapsedPeriod,
+                  currentPeriodsCounter);
+          currentPeriodsCounter = 0;
+          lastTriggeringFile = activeFile;
+          setDateInCurrentPeriod(time);
+          computeNextCheck();
+          return true;
+        }
+      }
     }
 
+    // the length of an ActiveFile is known without a system call, otherwise
     // for performance reasons, check for changes every 16 invocations
-    if (((invocationCounter++) & 0xF) != 0xF) {
+    if (!(activeFile instanceof ActiveFile)
+        && (invocationCounter.getAndIncrement() & 0xF) != 0xF) {
       return false;
     }
 
     if (activeFile.length() >= maxFileSize.getSize()) {
-      elapsedPeriodsFileName = tbrp.fileNamePatternWCS
-          .convertMultipleArguments(dateInCurrentPeriod, currentPeriodsCounter);
-      currentPeriodsCounter++;
-      return true;
+      synchronized (this) {
+        // until the appender switches files, other threads see the same
+        // oversized file
+        if (activeFile == lastTriggeringFile) {
+          return false;
+        }
+        elapsedPeriodsFileName = tbrp.fileNamePatternWCS
+            .convertMultipleArguments(dateInCurrentPeriod,
+                currentPeriodsCounter);
+        currentPeriodsCounter++;
+        lastTriggeringFile = activeFile;
+        return true;
+      }
     }
 
     return false;
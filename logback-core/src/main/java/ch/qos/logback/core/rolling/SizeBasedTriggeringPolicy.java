@@ -14,6 +14,7 @@
 package ch.qos.logback.core.rolling;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.qos.logback.core.util.FileSize;
 
@@ -46,15 +47,16 @@ public class SizeBasedTriggeringPolicy<E> extends TriggeringPolicyBase<E> {
     setMaxFileSize(maxFileSize);
   }
 
-  // IMPORTANT: This field can be updated by multiple threads. It follows that
-  // its values may *not* be incremented sequentially. However, we don't care
-  // about the actual value of the field except that from time to time the
-  // expression (invocationCounter++ & 0xF) == 0xF) should be true.
-  private int invocationCounter;
+  // This field is updated by multiple threads. We don't care about its actual
+  // value except that from time to time the expression
+  // (invocationCounter.getAndIncrement() & 0xF) == 0xF should be true.
+  private final AtomicInteger invocationCounter = new AtomicInteger();
 
   public boolean isTriggeringEvent(final File activeFile, final E event) {
+    // the length of an ActiveFile is known without a system call, otherwise
     // for performance reasons, check for changes every 16 invocations
-    if (((invocationCounter++) & 0xF) != 0xF) {
+    if (!(activeFile instanceof ActiveFile)
+        && (invocationCounter.getAndIncrement() & 0xF) != 0xF) {
       return false;
     }
 
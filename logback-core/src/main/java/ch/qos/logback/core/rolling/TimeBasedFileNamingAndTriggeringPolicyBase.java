@@ -35,7 +35,8 @@ abstract public class TimeBasedFileNamingAndTriggeringPolicyBase<E> extends
   protected boolean isTimeForced = false;
   protected Date dateInCurrentPeriod = null;
 
-  protected long nextCheck;
+  // read without locking on every event, see isTriggeringEvent()
+  protected volatile long nextCheck;
   protected boolean started = false;
 
   public boolean isStarted() {
@@ -19,11 +19,13 @@ import java.util.concurrent.Future;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
-import ch.qos.logback.core.rolling.helper.AsynchronousCompressor;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.Compressor;
+import ch.qos.logback.core.rolling.helper.DefaultArchiveRemover;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
 import ch.qos.logback.core.rolling.helper.RenameUtil;
+import ch.qos.logback.core.rolling.helper.RollingCalendar;
+import ch.qos.logback.core.util.FileSize;
 
 /**
  * <code>TimeBasedRollingPolicy</code> is both easy to configure and quite
@@ -39,6 +41,7 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     TriggeringPolicy<E> {
   static final String FNP_NOT_SET = "The FileNamePattern option must be set before using TimeBasedRollingPolicy. ";
   static final int NO_DELETE_HISTORY = 0;
+  static final long UNBOUNDED_TOTAL_SIZE_CAP = 0;
 
   // WCS: without compression suffix
   FileNamePattern fileNamePatternWCS;
@@ -48,6 +51,7 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
   Future<?> future;
 
   private int maxHistory = NO_DELETE_HISTORY;
+  private long totalSizeCap = UNBOUNDED_TOTAL_SIZE_CAP;
   private ArchiveRemover archiveRemover;
 
   TimeBasedFileNamingAndTriggeringPolicy<E> timeBasedTriggering;
@@ -67,8 +71,7 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
           + CoreConstants.SEE_FNP_NOT_SET);
     }
 
-    compressor = new Compressor(compressionMode);
-    compressor.setContext(context);
+    compressor = buildCompressor();
 
     fileNamePatternWCS = new FileNamePattern(computeFileNameStr_WCS(
         fileNamePatternStr, compressionMode), this.context);
@@ -82,13 +85,71 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     timeBasedTriggering.setContext(context);
     timeBasedTriggering.setTimeBasedRollingPolicy(this);
     timeBasedTriggering.start();
+    super.start();
 
     // the maxHistory property is given to TimeBasedRollingPolicy instead of to
     // the TimeBasedFileNamingAndTriggeringPolicy. This makes it more convenient
     // for the user at the cost of inconsistency at the level of this code.
-    if (maxHistory != NO_DELETE_HISTORY) {
+    if (maxHistory != NO_DELETE_HISTORY
+        || totalSizeCap != UNBOUNDED_TOTAL_SIZE_CAP) {
       archiveRemover = timeBasedTriggering.getArchiveRemover();
       archiveRemover.setMaxHistory(maxHistory);
+      archiveRemover.setTotalSizeCap(totalSizeCap);
+    }
+
+    // archive the files set aside by rollovers which did not complete, and
+    // remove whatever expired while we were not running
+    final Date now = new Date(timeBasedTriggering.getCurrentTime());
+    final String activeFileName = getActiveFileName();
+    future = runInBackground(new Runnable() {
+      public void run() {
+        completePendingRollovers();
+        if (archiveRemover != null) {
+          clean(now, activeFileName);
+        }
+      }
+    });
+  }
+
+  /**
+   * Archive the files left by {@link #moveAside(String, String)}. They are
+   * found as the archives of the file name pattern without compression
+   * suffix, followed by {@link #TMP_SUFFIX}.
+   */
+  void completePendingRollovers() {
+    String tmpPatternStr = fileNamePatternWCS.getPattern() + TMP_SUFFIX;
+    FileNamePattern tmpPattern = new FileNamePattern(tmpPatternStr, context);
+    RollingCalendar rc = new RollingCalendar();
+    rc.init(fileNamePattern.getDateTokenConverter().getDatePattern());
+    DefaultArchiveRemover finder = new DefaultArchiveRemover(tmpPattern, rc);
+    finder.setContext(context);
+    for (String tmpName : finder.listArchives()) {
+      addInfo("Completing the rollover of [" + tmpName + "]");
+      String archiveName = archiveNameOf(tmpName);
+      if (compressionMode != CompressionMode.NONE) {
+        // the compression may have been interrupted, leaving a truncated
+        // archive. As the original is still there, compress it again.
+        File compressed = new File(archiveName + compressionMode.getSuffix());
+        if (compressed.exists() && !compressed.delete()) {
+          addWarn("Could not delete [" + compressed + "]");
+        }
+      }
+      archive(tmpName, archiveName);
+    }
+  }
+
+  private void archive(String source, String elapsedPeriodsFileName) {
+    try {
+      if (compressionMode == CompressionMode.NONE) {
+        if (!source.equals(elapsedPeriodsFileName)) {
+          renameUtil.rename(source, elapsedPeriodsFileName);
+        }
+      } else {
+        compressor.compress(source, elapsedPeriodsFileName);
+      }
+    } catch (RolloverFailure e) {
+      addError("Failed to move [" + source + "] to ["
+          + elapsedPeriodsFileName + "]", e);
     }
   }
 
@@ -103,55 +164,62 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
 
   static public String computeFileNameStr_WCS(String fileNamePatternStr,
       CompressionMode compressionMode) {
-    int len = fileNamePatternStr.length();
-    switch (compressionMode) {
-    case GZ:
-      return fileNamePatternStr.substring(0, len - 3);
-    case ZIP:
-      return fileNamePatternStr.substring(0, len - 4);
-    case NONE:
+    String suffix = compressionMode.getSuffix();
+    if (suffix == null) {
       return fileNamePatternStr;
     }
-    throw new IllegalStateException("Execution should not reach this point");
+    return fileNamePatternStr.substring(0, fileNamePatternStr.length()
+        - suffix.length());
   }
 
+  /**
+   * Only the renaming of the active file is performed by the calling thread.
+   * Moving it to its final name, compressing it and removing old archives is
+   * left to the background thread.
+   */
   public void rollover() throws RolloverFailure {
 
     // when rollover is called the elapsed period's file has
     // been already closed. This is a working assumption of this method.
 
-    String elapsedPeriodsFileName = timeBasedTriggering
+    final String elapsedPeriodsFileName = timeBasedTriggering
         .getElapsedPeriodsFileName();
+    final Date now = new Date(timeBasedTriggering.getCurrentTime());
+    final String activeFileName = getActiveFileName();
+    String parentsRawFile = getParentsRawFileProperty();
 
-    if (compressionMode == CompressionMode.NONE) {
-      if (getParentsRawFileProperty() != null) {
-        renameUtil.rename(getParentsRawFileProperty(), elapsedPeriodsFileName);
-      }
+    final String source;
+    if (parentsRawFile == null) {
+      // the elapsed period's file already bears its final name
+      source = elapsedPeriodsFileName;
+    } else if (compressionMode == CompressionMode.NONE
+        && new File(parentsRawFile).renameTo(new File(elapsedPeriodsFileName))) {
+      addInfo("Renamed [" + parentsRawFile + "] to [" + elapsedPeriodsFileName
+          + "]");
+      source = elapsedPeriodsFileName;
     } else {
-      if (getParentsRawFileProperty() == null) {
-        future = asyncCompress(elapsedPeriodsFileName, elapsedPeriodsFileName);
-      } else {
-        future = renamedRawAndAsyncCompress(elapsedPeriodsFileName);
-      }
+      source = moveAside(parentsRawFile, elapsedPeriodsFileName);
     }
 
-    if (archiveRemover != null) {
-      archiveRemover.clean(new Date(timeBasedTriggering.getCurrentTime()));
+    if (source.equals(elapsedPeriodsFileName)
+        && compressionMode == CompressionMode.NONE && archiveRemover == null) {
+      return;
     }
-  }
 
-  Future asyncCompress(String nameOfFile2Compress, String nameOfCompressedFile)
-      throws RolloverFailure {
-    AsynchronousCompressor ac = new AsynchronousCompressor(compressor);
-    return ac.compressAsynchronously(nameOfFile2Compress, nameOfCompressedFile);
+    future = runInBackground(new Runnable() {
+      public void run() {
+        archive(source, elapsedPeriodsFileName);
+        if (archiveRemover != null) {
+          clean(now, activeFileName);
+        }
+      }
+    });
   }
 
-  Future renamedRawAndAsyncCompress(String nameOfCompressedFile)
-      throws RolloverFailure {
-    String parentsRawFile = getParentsRawFileProperty();
-    String tmpTarget = parentsRawFile + System.nanoTime() + ".tmp";
-    renameUtil.rename(parentsRawFile, tmpTarget);
-    return asyncCompress(tmpTarget, nameOfCompressedFile);
+  private void clean(Date now, String activeFileName) {
+    // the active file may match the file name pattern
+    archiveRemover.setActiveFileName(activeFileName);
+    archiveRemover.clean(now);
   }
 
   /**
@@ -207,6 +275,22 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     this.maxHistory = maxHistory;
   }
 
+  public FileSize getTotalSizeCap() {
+    return FileSize.valueOf(Long.toString(totalSizeCap));
+  }
+
+  /**
+   * Set the maximum number of bytes occupied by all archives together. When
+   * exceeded, the oldest archives are removed, but never the most recent one.
+   * Archive removal is performed in the background and includes archives
+   * left behind by previous runs.
+   * 
+   * @param totalSizeCap
+   */
+  public void setTotalSizeCap(FileSize totalSizeCap) {
+    this.totalSizeCap = totalSizeCap.getSize();
+  }
+
   @Override
   public String toString() {
     return "c.q.l.core.rolling.TimeBasedRollingPolicy";
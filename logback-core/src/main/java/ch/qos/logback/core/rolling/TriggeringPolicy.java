@@ -23,6 +23,10 @@ import ch.qos.logback.core.spi.LifeCycle;
  * occurs. Such conditions include time of day, file size, an 
  * external event, the log request or a combination thereof.
  *
+ * <p>Implementations must be thread-safe. {@link RollingFileAppender} consults
+ * its triggering policy for every event without holding any lock, so the
+ * common, non-triggering case should not take one either.
+ *
  * @author Ceki G&uuml;lc&uuml;
  * */
 
@@ -18,11 +18,24 @@ import java.util.Date;
 import ch.qos.logback.core.spi.ContextAware;
 
 /**
- * Given a date remove older archived log files.
+ * Given a date remove older archived log files. Implementations may assume
+ * that {@link #clean(Date)} is always invoked by the same thread.
  * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public interface ArchiveRemover extends ContextAware {
   public void clean(Date now);
   public void setMaxHistory(int maxHistory);
+
+  /**
+   * Set the maximum number of bytes occupied by all archives together. A
+   * value of zero means that there is no limit.
+   */
+  public void setTotalSizeCap(long totalSizeCap);
+
+  /**
+   * Set the name of the file currently written to. It is never taken for an
+   * archive, even if its name matches the file name pattern.
+   */
+  public void setActiveFileName(String activeFileName);
 } 
\ No newline at end of file
@@ -0,0 +1,67 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.CoreConstants;
+
+/**
+ * Gives access to the executor which compresses archived files on behalf of
+ * all the rolling policies of a context. The executor has one daemon thread
+ * per available processor and is shut down when the context is reset.
+ */
+public class CompressionExecutor {
+
+  static final Object LOCK = new Object();
+
+  /**
+   * Return the compression executor of the given context, creating it if
+   * necessary.
+   */
+  static public ExecutorService getInstance(Context context) {
+    synchronized (LOCK) {
+      ExecutorService executor = (ExecutorService) context
+          .getObject(CoreConstants.COMPRESSION_EXECUTOR);
+      if (executor == null || executor.isShutdown()) {
+        executor = newExecutor(context.getName());
+        context.putObject(CoreConstants.COMPRESSION_EXECUTOR, executor);
+      }
+      return executor;
+    }
+  }
+
+  static ExecutorService newExecutor(final String contextName) {
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    ThreadFactory threadFactory = new ThreadFactory() {
+      final AtomicInteger count = new AtomicInteger(0);
+
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "logback-compressor-" + contextName + "-"
+            + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    };
+    return new ThreadPoolExecutor(threadCount, threadCount, 0L,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+        threadFactory);
+  }
+}
@@ -14,5 +14,26 @@
 package ch.qos.logback.core.rolling.helper;
 
 public enum CompressionMode {
-  NONE, GZ, ZIP;
+  NONE(null), GZ(".gz"), ZIP(".zip"),
+
+  /**
+   * GZ compression where the file is cut into blocks compressed in parallel.
+   * The resulting members are concatenated into a single .gz file, which
+   * standard gzip tools decompress as a whole.
+   */
+  PARALLEL_GZ(".gz");
+
+  private final String suffix;
+
+  private CompressionMode(String suffix) {
+    this.suffix = suffix;
+  }
+
+  /**
+   * The file name suffix implied by this compression mode, null for
+   * {@link #NONE}.
+   */
+  public String getSuffix() {
+    return suffix;
+  }
 }
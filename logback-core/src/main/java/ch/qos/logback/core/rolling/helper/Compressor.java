@@ -13,9 +13,21 @@
  */
 package ch.qos.logback.core.rolling.helper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -29,11 +41,24 @@ import ch.qos.logback.core.status.WarnStatus;
  * The <code>Compression</code> class implements ZIP and GZ file
  * compression/decompression methods.
  * 
+ * <p>In {@link CompressionMode#PARALLEL_GZ} mode, the file is cut into blocks
+ * of <b>blockSize</b> bytes which are compressed as independent gzip members
+ * by the compression executor. The members are written out in order, so that
+ * their concatenation is a valid gzip file. Should the executor reject a
+ * block, for instance because the context is being reset, the block is
+ * compressed by the calling thread instead.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public class Compressor extends ContextAwareBase {
 
+  static final int BUFFER_SIZE = 64 * 1024;
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
   final CompressionMode compressionMode;
+  int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+  int blockSize = DEFAULT_BLOCK_SIZE;
+  ExecutorService executor;
 
   // final String nameOfFile2Compress;
   // final String nameOfCompressedFile;
@@ -55,6 +80,10 @@ public class Compressor extends ContextAwareBase {
       addInfo("GZ compressing [" + nameOfFile2Compress + "].");
       gzCompress(nameOfFile2Compress, nameOfCompressedFile);
       break;
+    case PARALLEL_GZ:
+      addInfo("GZ compressing [" + nameOfFile2Compress + "] in parallel.");
+      gzCompress(nameOfFile2Compress, nameOfCompressedFile);
+      break;
     case ZIP:
       addInfo("ZIP compressing [" + nameOfFile2Compress + "].");
       zipCompress(nameOfFile2Compress, nameOfCompressedFile);
@@ -88,32 +117,32 @@ public class Compressor extends ContextAwareBase {
       return;
     }
 
+    FileInputStream fis = null;
+    OutputStream os = null;
+    boolean compressed = false;
     try {
-      FileOutputStream fos = new FileOutputStream(nameOfZippedFile);
-      ZipOutputStream zos = new ZipOutputStream(fos);
-      FileInputStream fis = new FileInputStream(nameOfFile2zip);
+      fis = new FileInputStream(nameOfFile2zip);
+      os = new FileOutputStream(nameOfZippedFile);
+      ZipOutputStream zos = new ZipOutputStream(os);
+      os = zos;
+      zos.setLevel(compressionLevel);
 
       ZipEntry zipEntry = computeZipEntry(zippedFile);
       zos.putNextEntry(zipEntry);
 
-      byte[] inbuf = new byte[8102];
-      int n;
+      copy(fis, zos);
 
-      while ((n = fis.read(inbuf)) != -1) {
-        zos.write(inbuf, 0, n);
-      }
-
-      fis.close();
+      os = null;
       zos.close();
-
-      if (!file2zip.delete()) {
-        addStatus(new WarnStatus("Could not delete [" + nameOfFile2zip + "].",
-            this));
-      }
+      compressed = true;
     } catch (Exception e) {
       addStatus(new ErrorStatus("Error occurred while compressing ["
           + nameOfFile2zip + "] into [" + nameOfZippedFile + "].", this, e));
+    } finally {
+      close(fis);
+      close(os);
     }
+    completeCompression(compressed, file2zip, zippedFile);
   }
 
   // http://jira.qos.ch/browse/LBCORE-98
@@ -160,33 +189,199 @@ public class Compressor extends ContextAwareBase {
       return;
     }
 
+    FileInputStream fis = null;
+    OutputStream os = null;
+    boolean compressed = false;
     try {
-      FileOutputStream fos = new FileOutputStream(nameOfgzedFile);
-      GZIPOutputStream gzos = new GZIPOutputStream(fos);
-      FileInputStream fis = new FileInputStream(nameOfFile2gz);
-      byte[] inbuf = new byte[8102];
-      int n;
-
-      while ((n = fis.read(inbuf)) != -1) {
-        gzos.write(inbuf, 0, n);
-      }
-
-      fis.close();
-      gzos.close();
-
-      if (!file2gz.delete()) {
-        addStatus(new WarnStatus("Could not delete [" + nameOfFile2gz + "].",
-            this));
+      fis = new FileInputStream(nameOfFile2gz);
+      os = new FileOutputStream(nameOfgzedFile);
+      if (compressionMode == CompressionMode.PARALLEL_GZ) {
+        parallelGzCompress(fis.getChannel(), os);
+      } else {
+        os = new LevelGZIPOutputStream(os, compressionLevel);
+        copy(fis, os);
       }
+      OutputStream toClose = os;
+      os = null;
+      toClose.close();
+      compressed = true;
     } catch (Exception e) {
       addStatus(new ErrorStatus("Error occurred while compressing ["
           + nameOfFile2gz + "] into [" + nameOfgzedFile + "].", this, e));
+    } finally {
+      close(fis);
+      close(os);
+    }
+    completeCompression(compressed, file2gz, gzedFile);
+  }
+
+  /**
+   * Delete the original file once compressed. After a failure, delete the
+   * partially written compressed file instead, so that the original can be
+   * compressed again.
+   */
+  private void completeCompression(boolean compressed, File original,
+      File compressedFile) {
+    if (compressed) {
+      if (!original.delete()) {
+        addStatus(new WarnStatus("Could not delete [" + original + "].", this));
+      }
+    } else if (compressedFile.exists() && !compressedFile.delete()) {
+      addStatus(new WarnStatus("Could not delete the partially compressed file ["
+          + compressedFile + "].", this));
+    }
+  }
+
+  private void close(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  private void copy(FileInputStream fis, OutputStream os) throws IOException {
+    byte[] inbuf = new byte[BUFFER_SIZE];
+    int n;
+    while ((n = fis.read(inbuf)) != -1) {
+      os.write(inbuf, 0, n);
+    }
+  }
+
+  private void parallelGzCompress(FileChannel in, OutputStream os)
+      throws Exception {
+    ExecutorService executor = getExecutor();
+    // bounds the number of blocks held in memory
+    int window = 2 * Runtime.getRuntime().availableProcessors();
+    LinkedList<FutureTask<byte[]>> pending = new LinkedList<FutureTask<byte[]>>();
+    try {
+      byte[] block;
+      int blockCount = 0;
+      while ((block = readBlock(in)) != null) {
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new BlockCompressor(
+            block, compressionLevel));
+        try {
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          // the executor has been shut down, the block is compressed by this
+          // thread when written out
+        }
+        pending.add(task);
+        blockCount++;
+        if (pending.size() >= window) {
+          writeBlock(pending.removeFirst(), os);
+        }
+      }
+      while (!pending.isEmpty()) {
+        writeBlock(pending.removeFirst(), os);
+      }
+      if (blockCount == 0) {
+        // an empty file still needs one member to be a valid gzip file
+        os.write(new BlockCompressor(new byte[0], compressionLevel).call());
+      }
+    } finally {
+      for (FutureTask<byte[]> task : pending) {
+        task.cancel(false);
+      }
     }
   }
 
+  private byte[] readBlock(FileChannel in) throws IOException {
+    ByteBuffer bb = ByteBuffer.allocate(blockSize);
+    while (bb.hasRemaining()) {
+      if (in.read(bb) == -1) {
+        break;
+      }
+    }
+    if (bb.position() == 0) {
+      return null;
+    }
+    if (bb.hasRemaining()) {
+      byte[] partial = new byte[bb.position()];
+      System.arraycopy(bb.array(), 0, partial, 0, partial.length);
+      return partial;
+    }
+    return bb.array();
+  }
+
+  private void writeBlock(FutureTask<byte[]> task, OutputStream os)
+      throws Exception {
+    // compress the block on this thread if no executor thread has picked it
+    // up yet. This never blocks on a task sitting in the executor's queue,
+    // even when this thread is itself an executor thread.
+    task.run();
+    os.write(task.get());
+  }
+
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * Set the compression level, from 0 (no compression) to 9 (best
+   * compression). The default, -1, lets the deflater choose.
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Set the size of the blocks compressed in parallel in
+   * {@link CompressionMode#PARALLEL_GZ} mode.
+   */
+  public void setBlockSize(int blockSize) {
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Return the executor running compressions, by default the one shared by
+   * the context.
+   */
+  public ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = CompressionExecutor.getInstance(context);
+    }
+    return executor;
+  }
+
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
   @Override
   public String toString() {
     return "c.q.l.core.rolling.helper.Compress";
   }
 
+  static class BlockCompressor implements Callable<byte[]> {
+    final byte[] block;
+    final int level;
+
+    BlockCompressor(byte[] block, int level) {
+      this.block = block;
+      this.level = level;
+    }
+
+    public byte[] call() throws IOException {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(
+          block.length / 4 + 64);
+      GZIPOutputStream gzos = new LevelGZIPOutputStream(baos, level);
+      gzos.write(block);
+      gzos.close();
+      return baos.toByteArray();
+    }
+  }
+
+  static class LevelGZIPOutputStream extends GZIPOutputStream {
+    LevelGZIPOutputStream(OutputStream os, int level) throws IOException {
+      super(os, BUFFER_SIZE);
+      def.setLevel(level);
+    }
+  }
+
 }
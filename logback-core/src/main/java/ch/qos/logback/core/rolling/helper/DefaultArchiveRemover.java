@@ -14,29 +14,81 @@
 package ch.qos.logback.core.rolling.helper;
 
 import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import ch.qos.logback.core.pattern.Converter;
 import ch.qos.logback.core.pattern.LiteralConverter;
 import ch.qos.logback.core.spi.ContextAwareBase;
 
+/**
+ * Removes archives older than <b>maxHistory</b> periods and, if the archives
+ * together occupy more than <b>totalSizeCap</b> bytes, the oldest archives
+ * until they fit. The most recent archive is never removed.
+ * 
+ * <p>Archives are tracked in an index sorted by period and counter. The index
+ * is built by scanning the archive folder(s) once, during the first call to
+ * {@link #clean(Date)}. Subsequent calls only look up the files of the current
+ * and of the previous period. Consequently, archives left behind while the
+ * application was not running are removed as well. The active file is left
+ * out of the index, as it matches the file name pattern when no file name is
+ * set explicitly.
+ * 
+ * <p>Instances are not thread-safe, {@link #clean(Date)} is expected to be
+ * invoked by a single thread.
+ * 
+ * @author Ceki G&uuml;lc&uuml;
+ */
 public class DefaultArchiveRemover extends ContextAwareBase implements
     ArchiveRemover {
 
+  static final int MAX_INDEXED_PERIODS = 64;
+
   final FileNamePattern fileNamePattern;
+  // a private copy, as calendars are not thread-safe
   final RollingCalendar rc;
-  int periodOffsetForDeletionTarget;
   final boolean parentClean;
+  final SimpleDateFormat sdf;
+
+  int maxHistory = 0;
+  long totalSizeCap = 0;
+  String activeFileName;
+
+  // the literal part of the file name pattern up to and including the last
+  // slash preceding the first token, i.e. the folder which is scanned
+  String rootPrefix;
+  // the number of folder levels below the root folder
+  int depth;
+  Pattern archivePattern;
+  int dateGroup;
+  int counterGroup = 0;
+
+  TreeSet<Archive> index;
+  Date lastCleanDate;
+  final Map<String, Archive> archivesByPath = new HashMap<String, Archive>();
+  long totalSize;
 
   public DefaultArchiveRemover(FileNamePattern fileNamePattern,
       RollingCalendar rc) {
     this.fileNamePattern = fileNamePattern;
-    this.rc = rc;
+    this.rc = (RollingCalendar) rc.clone();
     this.parentClean = computeParentCleaningFlag(fileNamePattern);
+    DateTokenConverter<?> dtc = fileNamePattern.getDateTokenConverter();
+    this.sdf = new SimpleDateFormat(dtc.getDatePattern());
+    this.sdf.setLenient(false);
+    computeArchivePattern();
   }
 
   boolean computeParentCleaningFlag(FileNamePattern fileNamePattern) {
-    DateTokenConverter dtc = fileNamePattern.getDateTokenConverter();
+    DateTokenConverter<?> dtc = fileNamePattern.getDateTokenConverter();
     // if the date pattern has a /, then we need parent cleaning
     if (dtc.getDatePattern().indexOf('/') != -1) {
       return true;
@@ -69,19 +121,242 @@ public class DefaultArchiveRemover extends ContextAwareBase implements
     return false;
   }
 
+  /**
+   * Translate the file name pattern into a regular expression with one group
+   * for the date and, if present, one group for the counter. Literal parts
+   * are quoted, so that for example a '.' only matches itself.
+   */
+  @SuppressWarnings("unchecked")
+  void computeArchivePattern() {
+    StringBuilder regex = new StringBuilder();
+    int groupCount = 0;
+    boolean inRoot = true;
+    rootPrefix = "";
+    depth = 0;
+
+    Converter<Object> p = fileNamePattern.headTokenConverter;
+    while (p != null) {
+      if (p instanceof LiteralConverter) {
+        String literal = p.convert(null);
+        if (inRoot) {
+          int i = literal.lastIndexOf('/');
+          rootPrefix = literal.substring(0, i + 1);
+          literal = literal.substring(i + 1);
+        } else {
+          depth += countSlashes(literal);
+        }
+        regex.append(Pattern.quote(literal));
+      } else if (p instanceof DateTokenConverter) {
+        DateTokenConverter<Object> dtc = (DateTokenConverter<Object>) p;
+        String dateRegex = dtc.toRegex();
+        regex.append('(').append(dateRegex).append(')');
+        dateGroup = ++groupCount;
+        // the date regex may contain groups of its own
+        groupCount += Pattern.compile(dateRegex).matcher("").groupCount();
+        depth += countSlashes(dtc.getDatePattern());
+        inRoot = false;
+      } else if (p instanceof IntegerTokenConverter) {
+        regex.append("(\\d+)");
+        counterGroup = ++groupCount;
+        inRoot = false;
+      }
+      p = p.getNext();
+    }
+    archivePattern = Pattern.compile(Pattern.quote(rootPrefix) + regex);
+  }
+
+  static int countSlashes(String s) {
+    int count = 0;
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) == '/') {
+        count++;
+      }
+    }
+    return count;
+  }
+
   public void clean(Date now) {
-    Date date2delete = rc.getRelativeDate(now, periodOffsetForDeletionTarget);
-    String filename = fileNamePattern.convert(date2delete);
-    File file2Delete = new File(filename);
-    if (file2Delete.exists() && file2Delete.isFile()) {
-      file2Delete.delete();
-      addInfo("deleting " + file2Delete);
-      if (parentClean) {
-        removeFolderIfEmpty(file2Delete.getParentFile(), 0);
+    if (index == null || !indexPeriodsSince(lastCleanDate, now)) {
+      buildIndex();
+    }
+    lastCleanDate = now;
+    if (maxHistory != 0) {
+      removeExpiredArchives(now);
+    }
+    if (totalSizeCap != 0) {
+      capTotalSize();
+    }
+  }
+
+  /**
+   * Index the archives of the periods elapsed since the last call to
+   * {@link #clean(Date)}. If there are too many such periods, we had better
+   * scan the folder(s) again.
+   * 
+   * @return false if there are too many periods to look up
+   */
+  boolean indexPeriodsSince(Date lastCleanDate, Date now) {
+    long end = periodStart(now);
+    Date date = lastCleanDate;
+    for (int i = 0; i <= MAX_INDEXED_PERIODS; i++) {
+      indexPeriod(date);
+      if (periodStart(date) >= end) {
+        return true;
+      }
+      date = rc.getRelativeDate(date, 1);
+    }
+    return false;
+  }
+
+  void buildIndex() {
+    index = new TreeSet<Archive>();
+    archivesByPath.clear();
+    totalSize = 0;
+    File root = new File(rootPrefix.length() == 0 ? "." : rootPrefix);
+    scan(root, rootPrefix, depth);
+  }
+
+  private void scan(File dir, String prefix, int remainingDepth) {
+    String[] names = dir.list();
+    if (names == null) {
+      return;
+    }
+    for (String name : names) {
+      String path = prefix + name;
+      if (remainingDepth > 0) {
+        File child = new File(dir, name);
+        if (child.isDirectory()) {
+          scan(child, path + "/", remainingDepth - 1);
+        }
+      } else {
+        indexFile(path);
       }
     }
   }
 
+  /**
+   * Add the archives of the period containing the given date to the index,
+   * and update the size of those already indexed.
+   */
+  void indexPeriod(Date dateInPeriod) {
+    if (counterGroup == 0) {
+      indexFile(fileNamePattern.convert(dateInPeriod));
+      return;
+    }
+    // archives with a lower counter are already indexed
+    int counter = highestIndexedCounter(periodStart(dateInPeriod));
+    while (indexFile(fileNamePattern.convertMultipleArguments(dateInPeriod,
+        counter)) != null) {
+      counter++;
+    }
+  }
+
+  private int highestIndexedCounter(long periodStart) {
+    int highest = 0;
+    for (Archive a : index.tailSet(new Archive(periodStart, 0))) {
+      if (a.periodStart != periodStart) {
+        break;
+      }
+      highest = a.counter;
+    }
+    return highest;
+  }
+
+  Archive indexFile(String path) {
+    if (path.equals(activeFileName)) {
+      return null;
+    }
+    Archive archive = archivesByPath.get(path);
+    if (archive != null) {
+      long size = archive.file.length();
+      totalSize += size - archive.size;
+      archive.size = size;
+      return archive;
+    }
+
+    Matcher m = archivePattern.matcher(path);
+    if (!m.matches()) {
+      return null;
+    }
+    File file = new File(path);
+    if (!file.isFile()) {
+      return null;
+    }
+    long periodStart;
+    int counter = 0;
+    try {
+      periodStart = sdf.parse(m.group(dateGroup)).getTime();
+      if (counterGroup != 0) {
+        counter = Integer.parseInt(m.group(counterGroup));
+      }
+    } catch (ParseException e) {
+      return null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    archive = new Archive(path, file, periodStart, counter);
+    index.add(archive);
+    archivesByPath.put(path, archive);
+    totalSize += archive.size;
+    return archive;
+  }
+
+  /**
+   * Scan the archive folder(s) and return the paths of the files matching the
+   * file name pattern, oldest first. The active file is left out.
+   */
+  public List<String> listArchives() {
+    buildIndex();
+    List<String> paths = new ArrayList<String>(index.size());
+    for (Archive archive : index) {
+      paths.add(archive.path);
+    }
+    return paths;
+  }
+
+  void removeExpiredArchives(Date now) {
+    // keep the current period plus maxHistory elapsed periods
+    long cutoff = periodStart(rc.getRelativeDate(now, -maxHistory));
+    while (index.size() > 1 && index.first().periodStart < cutoff) {
+      remove(index.first());
+    }
+  }
+
+  void capTotalSize() {
+    while (totalSize > totalSizeCap && index.size() > 1) {
+      remove(index.first());
+    }
+  }
+
+  private void remove(Archive archive) {
+    index.remove(archive);
+    archivesByPath.remove(archive.path);
+    totalSize -= archive.size;
+    File file = archive.file;
+    if (file.exists()) {
+      addInfo("deleting " + file);
+      if (!file.delete()) {
+        addWarn("Failed to delete [" + file + "]");
+      }
+    }
+    if (parentClean) {
+      removeFolderIfEmpty(file.getParentFile(), 0);
+    }
+  }
+
+  /**
+   * The beginning of the period containing the given date, with the
+   * granularity of the date pattern.
+   */
+  long periodStart(Date date) {
+    try {
+      return sdf.parse(sdf.format(date)).getTime();
+    } catch (ParseException e) {
+      // cannot happen as we parse what we have just formatted
+      return date.getTime();
+    }
+  }
+
   /**
    * Will remove the directory passed as parameter if empty. After that, if the
    * parent is also becomes empty, remove the parent dir as well but at most 3
@@ -95,15 +370,64 @@ public class DefaultArchiveRemover extends ContextAwareBase implements
     if (recursivityCount >= 3) {
       return;
     }
-    if (dir.isDirectory() && FileFilterUtil.isEmptyDirectory(dir)) {
-      addInfo("deleting folder [" + dir +"]");
+    if (dir != null && dir.isDirectory()
+        && FileFilterUtil.isEmptyDirectory(dir)) {
+      addInfo("deleting folder [" + dir + "]");
       dir.delete();
       removeFolderIfEmpty(dir.getParentFile(), recursivityCount + 1);
     }
   }
 
   public void setMaxHistory(int maxHistory) {
-    this.periodOffsetForDeletionTarget = -maxHistory - 1;
+    this.maxHistory = maxHistory;
+  }
+
+  public void setTotalSizeCap(long totalSizeCap) {
+    this.totalSizeCap = totalSizeCap;
+  }
+
+  public void setActiveFileName(String activeFileName) {
+    this.activeFileName = activeFileName;
+  }
+
+  /**
+   * The total size of the indexed archives in bytes.
+   */
+  public long getTotalSize() {
+    return totalSize;
   }
 
+  static class Archive implements Comparable<Archive> {
+    final String path;
+    final File file;
+    final long periodStart;
+    final int counter;
+    long size;
+
+    Archive(String path, File file, long periodStart, int counter) {
+      this.path = path;
+      this.file = file;
+      this.periodStart = periodStart;
+      this.counter = counter;
+      this.size = file.length();
+    }
+
+    // only used as a bound when looking up the index
+    Archive(long periodStart, int counter) {
+      this.path = "";
+      this.file = null;
+      this.periodStart = periodStart;
+      this.counter = counter;
+    }
+
+    public int compareTo(Archive o) {
+      if (periodStart != o.periodStart) {
+        return periodStart < o.periodStart ? -1 : 1;
+      }
+      if (counter != o.counter) {
+        return counter < o.counter ? -1 : 1;
+      }
+      return path.compareTo(o.path);
+    }
+  }
 }
@@ -18,6 +18,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 
 import ch.qos.logback.core.rolling.RolloverFailure;
 import ch.qos.logback.core.spi.ContextAwareBase;
@@ -63,18 +64,23 @@ public class RenameUtil extends ContextAwareBase {
     }
   }
 
-  static final int BUF_SIZE = 32*1024;
-  
   public void renameByCopying(String from, String to)
       throws RolloverFailure {
     try {
       FileInputStream fis = new FileInputStream(from);
       FileOutputStream fos = new FileOutputStream(to);
-      byte[] inbuf = new byte[BUF_SIZE];
-      int n;
-
-      while ((n = fis.read(inbuf)) != -1) {
-        fos.write(inbuf, 0, n);
+      // let the OS copy the data without going through the heap
+      FileChannel in = fis.getChannel();
+      FileChannel out = fos.getChannel();
+      long size = in.size();
+      long position = 0;
+      while (position < size) {
+        long n = in.transferTo(position, size - position, out);
+        if (n <= 0) {
+          // the source file was truncated in the meantime
+          break;
+        }
+        position += n;
       }
 
       fis.close();
@@ -0,0 +1,247 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.sift;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ch.qos.logback.core.Appender;
+
+/**
+ * An {@link AppenderTracker} which can be used by many threads at once
+ * without serializing them on a single monitor.
+ * 
+ * <p>Lookups are lock-free. Instead of relinking a list on every access, each
+ * entry only records the timestamp of its last access, so that the least
+ * recently used order is only computed when entries need to be removed.
+ * 
+ * <p>Stale entries are looked for at most once per second, by whichever
+ * thread first notices the second has elapsed. Removed appenders are stopped
+ * by a background sweeper thread so that logging threads never wait on an
+ * appender being closed.
+ * 
+ * <p>If <b>maxAppenderCount</b> is exceeded, the least recently used
+ * appenders are removed. In order to amortize the cost of finding them, the
+ * number of tracked appenders is brought down to 15/16th of the maximum.
+ */
+public class ConcurrentAppenderTracker<E> implements AppenderTracker<E> {
+
+  public static final int DEFAULT_MAX_APPENDER_COUNT = Integer.MAX_VALUE;
+
+  final ConcurrentMap<String, Entry<E>> map = new ConcurrentHashMap<String, Entry<E>>();
+
+  final AtomicLong lastCheck = new AtomicLong(0);
+  final ReentrantLock evictionLock = new ReentrantLock();
+
+  final ConcurrentLinkedQueue<Appender<E>> appendersToStop = new ConcurrentLinkedQueue<Appender<E>>();
+  final AtomicBoolean sweeperRunning = new AtomicBoolean(false);
+
+  volatile int maxAppenderCount = DEFAULT_MAX_APPENDER_COUNT;
+
+  public void put(String key, Appender<E> value, long timestamp) {
+    Entry<E> existing = map.putIfAbsent(key, new Entry<E>(key, value,
+        timestamp));
+    if (existing != null) {
+      existing.touch(timestamp);
+    } else if (map.size() > maxAppenderCount) {
+      evictLeastRecentlyUsed();
+    }
+  }
+
+  public Appender<E> get(String key, long timestamp) {
+    Entry<E> entry = map.get(key);
+    if (entry == null) {
+      return null;
+    }
+    entry.touch(timestamp);
+    return entry.value;
+  }
+
+  public void stopStaleAppenders(long now) {
+    long last = lastCheck.get();
+    if (last + MILLIS_IN_ONE_SECOND > now) {
+      return;
+    }
+    // only one thread performs the check for a given second
+    if (!lastCheck.compareAndSet(last, now)) {
+      return;
+    }
+    for (Entry<E> entry : map.values()) {
+      if (entry.isStale(now)) {
+        remove(entry);
+      }
+    }
+  }
+
+  private void evictLeastRecentlyUsed() {
+    // another thread is already evicting, no need to wait for it
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      int max = maxAppenderCount;
+      int target = max - max / 16;
+      if (map.size() <= max) {
+        return;
+      }
+      List<Entry<E>> entries = sortedEntries();
+      int excess = entries.size() - target;
+      for (int i = 0; i < excess; i++) {
+        remove(entries.get(i));
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void remove(Entry<E> entry) {
+    // the entry may have been removed concurrently
+    if (map.remove(entry.key, entry)) {
+      scheduleStop(entry.value);
+    }
+  }
+
+  private void scheduleStop(Appender<E> appender) {
+    appendersToStop.add(appender);
+    if (sweeperRunning.compareAndSet(false, true)) {
+      Thread t = new Thread(new Sweeper(), "AppenderTracker-Sweeper");
+      t.setDaemon(true);
+      t.start();
+    }
+  }
+
+  List<Entry<E>> sortedEntries() {
+    // timestamps may change while sorting, so sort on a snapshot of them
+    List<Snapshot<E>> snapshots = new ArrayList<Snapshot<E>>(map.size());
+    for (Entry<E> entry : map.values()) {
+      snapshots.add(new Snapshot<E>(entry));
+    }
+    Collections.sort(snapshots);
+    List<Entry<E>> result = new ArrayList<Entry<E>>(snapshots.size());
+    for (Snapshot<E> snapshot : snapshots) {
+      result.add(snapshot.entry);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the keys, least recently used first.
+   */
+  public List<String> keyList() {
+    List<String> result = new ArrayList<String>();
+    for (Entry<E> entry : sortedEntries()) {
+      result.add(entry.key);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the appenders, least recently used first.
+   */
+  public List<Appender<E>> valueList() {
+    List<Appender<E>> result = new ArrayList<Appender<E>>();
+    for (Entry<E> entry : sortedEntries()) {
+      result.add(entry.value);
+    }
+    return result;
+  }
+
+  public int getMaxAppenderCount() {
+    return maxAppenderCount;
+  }
+
+  /**
+   * The maximum number of appenders tracked at any time.
+   */
+  public void setMaxAppenderCount(int maxAppenderCount) {
+    if (maxAppenderCount < 1) {
+      throw new IllegalArgumentException("The maxAppenderCount argument ("
+          + maxAppenderCount + ") is not a positive integer.");
+    }
+    this.maxAppenderCount = maxAppenderCount;
+  }
+
+  // ================================================================
+  static class Entry<E> {
+    final String key;
+    final Appender<E> value;
+    volatile long timestamp;
+
+    Entry(String key, Appender<E> value, long timestamp) {
+      this.key = key;
+      this.value = value;
+      this.timestamp = timestamp;
+    }
+
+    void touch(long timestamp) {
+      // a racy update is acceptable, the result is always a recent timestamp
+      if (timestamp > this.timestamp) {
+        this.timestamp = timestamp;
+      }
+    }
+
+    boolean isStale(long now) {
+      return (timestamp + THRESHOLD) < now;
+    }
+
+    @Override
+    public String toString() {
+      return "(" + key + ", " + value + ")";
+    }
+  }
+
+  static class Snapshot<E> implements Comparable<Snapshot<E>> {
+    final Entry<E> entry;
+    final long timestamp;
+
+    Snapshot(Entry<E> entry) {
+      this.entry = entry;
+      this.timestamp = entry.timestamp;
+    }
+
+    public int compareTo(Snapshot<E> o) {
+      return (timestamp < o.timestamp) ? -1 : ((timestamp == o.timestamp) ? 0
+          : 1);
+    }
+  }
+
+  class Sweeper implements Runnable {
+    public void run() {
+      while (true) {
+        Appender<E> appender;
+        while ((appender = appendersToStop.poll()) != null) {
+          try {
+            appender.stop();
+          } catch (RuntimeException e) {
+            appender.addError("Failed to stop appender [" + appender.getName()
+                + "]", e);
+          }
+        }
+        sweeperRunning.set(false);
+        // an appender may have been queued after the last poll but before
+        // the flag was cleared, in which case no other sweeper was started
+        if (appendersToStop.isEmpty() || !sweeperRunning.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    }
+  }
+}
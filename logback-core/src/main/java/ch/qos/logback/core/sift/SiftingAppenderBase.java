@@ -13,9 +13,20 @@
  */
 package ch.qos.logback.core.sift;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.core.spi.AppenderMetricsAware;
 
 /**
  * This appender serves as the base class for actual SiftingAppenders
@@ -24,14 +35,30 @@ import ch.qos.logback.core.joran.spi.JoranException;
  * depending on discriminating values supplied by event currently being
  * processed. The built appender is specified as part of a configuration file.
  * 
+ * <p>Child appenders are tracked by a {@link ConcurrentAppenderTracker} by
+ * default, so that events for different discriminating values are not
+ * serialized on a common monitor. At most <b>maxAppenderCount</b> child
+ * appenders are kept alive at any time. Stale child appenders are looked for
+ * once per second by a background sweeper thread, relative to the most recent
+ * event timestamp seen.
+ * 
  * @author Ceki Gulcu
  */
 public abstract class SiftingAppenderBase<E> extends
     UnsynchronizedAppenderBase<E> {
 
-  protected AppenderTracker<E> appenderTracker = new AppenderTrackerImpl<E>();
+  protected AppenderTracker<E> appenderTracker = new ConcurrentAppenderTracker<E>();
   AppenderFactoryBase<E> appenderFactory;
 
+  // child appenders being built, so that each is built by a single thread
+  final ConcurrentMap<String, FutureTask<Appender<E>>> creations = new ConcurrentHashMap<String, FutureTask<Appender<E>>>();
+
+  int maxAppenderCount = ConcurrentAppenderTracker.DEFAULT_MAX_APPENDER_COUNT;
+
+  // the most recent event timestamp, staleness is relative to it
+  volatile long latestTimestamp;
+  ScheduledExecutorService sweeper;
+
   Discriminator<E> discriminator;
 
   public void setAppenderFactory(AppenderFactoryBase<E> appenderFactory) {
@@ -50,12 +77,33 @@ public abstract class SiftingAppenderBase<E> extends
       errors++;
     }
     if (errors == 0) {
+      if (appenderTracker instanceof ConcurrentAppenderTracker) {
+        ((ConcurrentAppenderTracker<E>) appenderTracker)
+            .setMaxAppenderCount(maxAppenderCount);
+      }
+      sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "SiftingAppender-Sweeper-" + getName());
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      sweeper.scheduleWithFixedDelay(new Runnable() {
+        public void run() {
+          appenderTracker.stopStaleAppenders(latestTimestamp);
+        }
+      }, AppenderTracker.MILLIS_IN_ONE_SECOND,
+          AppenderTracker.MILLIS_IN_ONE_SECOND, TimeUnit.MILLISECONDS);
       super.start();
     }
   }
 
   @Override
   public void stop() {
+    if (sweeper != null) {
+      sweeper.shutdownNow();
+      sweeper = null;
+    }
     for (Appender<E> appender : appenderTracker.valueList()) {
       appender.stop();
     }
@@ -71,22 +119,111 @@ public abstract class SiftingAppenderBase<E> extends
 
     String discriminatingValue = discriminator.getDiscriminatingValue(event);
     long timestamp = getTimestamp(event);
+    // a racy update is acceptable, the sweeper only needs a recent value
+    if (timestamp > latestTimestamp) {
+      latestTimestamp = timestamp;
+    }
 
-    Appender<E> appender = appenderTracker.get(discriminatingValue, timestamp);
-
-    if (appender == null) {
-      try {
-        appender = appenderFactory.buildAppender(context, discriminatingValue);
-        if (appender != null) {
-          appenderTracker.put(discriminatingValue, appender, timestamp);
+    while (true) {
+      Appender<E> appender = appenderTracker.get(discriminatingValue,
+          timestamp);
+      if (appender == null) {
+        try {
+          appender = getOrBuildAppender(discriminatingValue, timestamp);
+        } catch (JoranException e) {
+          addError("Failed to build appender for [" + discriminatingValue
+              + "]", e);
+          return;
+        }
+        if (appender == null) {
+          return;
         }
-      } catch (JoranException e) {
-        addError("Failed to build appender for [" + discriminatingValue + "]", e);
-        return;
       }
+      // the appender may have been removed, and stopped by the sweeper, since
+      // it was looked up, in which case it is replaced by a new one
+      if (!appender.isStarted()
+          && appenderTracker.get(discriminatingValue, timestamp) != appender) {
+        continue;
+      }
+      appender.doAppend(event);
+      return;
+    }
+  }
+
+  /**
+   * Build the appender for the given discriminating value, or wait for the
+   * thread already building it. Threads building appenders for different
+   * values do not wait for each other.
+   */
+  private Appender<E> getOrBuildAppender(final String discriminatingValue,
+      long timestamp) throws JoranException {
+    FutureTask<Appender<E>> creation = new FutureTask<Appender<E>>(
+        new Callable<Appender<E>>() {
+          public Appender<E> call() throws JoranException {
+            Appender<E> appender = appenderFactory.buildAppender(context,
+                discriminatingValue);
+            // nested appenders are not reported by LoggingMetrics, and may be
+            // numerous, so that their metrics are not worth maintaining
+            if (appender instanceof AppenderMetricsAware) {
+              ((AppenderMetricsAware) appender).setMetricsEnabled(false);
+            }
+            return appender;
+          }
+        });
+    FutureTask<Appender<E>> existing = creations.putIfAbsent(
+        discriminatingValue, creation);
+    if (existing != null) {
+      return await(existing);
+    }
+    try {
+      // another thread may have built the appender since our lookup
+      Appender<E> appender = appenderTracker.get(discriminatingValue,
+          timestamp);
+      if (appender != null) {
+        return appender;
+      }
+      creation.run();
+      appender = await(creation);
+      if (appender != null) {
+        appenderTracker.put(discriminatingValue, appender, timestamp);
+      }
+      return appender;
+    } finally {
+      creations.remove(discriminatingValue, creation);
     }
-    appenderTracker.stopStaleAppenders(timestamp);
-    appender.doAppend(event);
+  }
+
+  private Appender<E> await(FutureTask<Appender<E>> creation)
+      throws JoranException {
+    try {
+      return creation.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof JoranException) {
+        throw (JoranException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw (Error) cause;
+    }
+  }
+
+  public int getMaxAppenderCount() {
+    return maxAppenderCount;
+  }
+
+  /**
+   * The maximum number of child appenders kept alive at any time. When this
+   * number is exceeded, the least recently used appenders are stopped. By
+   * default, there is no limit. Only honored by a
+   * {@link ConcurrentAppenderTracker}.
+   */
+  public void setMaxAppenderCount(int maxAppenderCount) {
+    this.maxAppenderCount = maxAppenderCount;
   }
 
   public Discriminator<E> getDiscriminator() {
@@ -16,24 +16,27 @@ package ch.qos.logback.core.spi;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import ch.qos.logback.core.Appender;
 
 /**
- * A ReentrantReadWriteLock based implementation of the
- * {@link AppenderAttachable} interface.
+ * A copy-on-write implementation of the {@link AppenderAttachable} interface.
+ * 
+ * <p>Appenders are held in an array which is never modified once published.
+ * Reading methods, in particular {@link #appendLoopOnAppenders(Object)} which
+ * is invoked for every event, work on a snapshot of the array obtained by a
+ * single volatile read and take no lock. Methods which attach or detach
+ * appenders, typically invoked only during configuration, copy the array
+ * while holding a lock.
  * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
 
-  final private List<Appender<E>> appenderList = new ArrayList<Appender<E>>();
-  final private ReadWriteLock rwLock = new ReentrantReadWriteLock();
-  private final Lock r = rwLock.readLock();
-  private final Lock w = rwLock.writeLock();
+  private volatile Appender<E>[] appenderArray = newAppenderArray(0);
+
+  // serializes writers, readers never take it
+  final private Object writeLock = new Object();
 
   /**
    * Attach an appender. If the appender is already in the list in won't be
@@ -43,13 +46,17 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     if (newAppender == null) {
       throw new IllegalArgumentException("Null argument disallowed");
     }
-    w.lock();
-    try {
-      if (!appenderList.contains(newAppender)) {
-        appenderList.add(newAppender);
+    synchronized (writeLock) {
+      Appender<E>[] current = appenderArray;
+      for (Appender<E> a : current) {
+        if (a.equals(newAppender)) {
+          return;
+        }
       }
-    } finally {
-      w.unlock();
+      Appender<E>[] copy = newAppenderArray(current.length + 1);
+      System.arraycopy(current, 0, copy, 0, current.length);
+      copy[current.length] = newAppender;
+      appenderArray = copy;
     }
   }
 
@@ -57,17 +64,21 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
    * Call the <code>doAppend</code> method on all attached appenders.
    */
   public int appendLoopOnAppenders(E e) {
-    int size = 0;
-    r.lock();
-    try {
-      for (Appender<E> appender : appenderList) {
-        appender.doAppend(e);
-        size++;
-      }
-    } finally {
-      r.unlock();
+    final Appender<E>[] snapshot = appenderArray;
+    final int len = snapshot.length;
+    for (int i = 0; i < len; i++) {
+      snapshot[i].doAppend(e);
     }
-    return size;
+    return len;
+  }
+
+  /**
+   * Returns the attached appenders as an array. The returned array is shared
+   * and must not be modified by the caller. It will not reflect appenders
+   * attached or detached after this method returns.
+   */
+  public Appender<E>[] getAppenderArray() {
+    return appenderArray;
   }
 
   /**
@@ -77,12 +88,10 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
    * @return Iterator An iterator of attached appenders.
    */
   public Iterator<Appender<E>> iteratorForAppenders() {
-    List<Appender<E>> copy;
-    r.lock();
-    try {
-      copy = new ArrayList<Appender<E>>(appenderList);
-    } finally {
-      r.unlock();
+    Appender<E>[] snapshot = appenderArray;
+    List<Appender<E>> copy = new ArrayList<Appender<E>>(snapshot.length);
+    for (Appender<E> a : snapshot) {
+      copy.add(a);
     }
     return copy.iterator();
   }
@@ -98,20 +107,12 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     if (name == null) {
       return null;
     }
-    Appender<E> found = null;
-
-    r.lock();
-    try {
-      for (Appender<E> appender : appenderList) {
-        if (name.equals(appender.getName())) {
-          found = appender;
-          break;
-        }
+    for (Appender<E> appender : appenderArray) {
+      if (name.equals(appender.getName())) {
+        return appender;
       }
-    } finally {
-      r.unlock();
     }
-    return found;
+    return null;
   }
 
   /**
@@ -124,33 +125,24 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     if (appender == null) {
       return false;
     }
-    boolean attached = false;
-    r.lock();
-    try {
-      for (Appender<E> a : appenderList) {
-        if (a == appender) {
-          attached = true;
-          break;
-        }
+    for (Appender<E> a : appenderArray) {
+      if (a == appender) {
+        return true;
       }
-    } finally {
-      r.unlock();
     }
-    return attached;
+    return false;
   }
 
   /**
    * Remove and stop all previously attached appenders.
    */
   public void detachAndStopAllAppenders() {
-    w.lock();
-    try {
-      for (Appender<E> a : appenderList) {
+    synchronized (writeLock) {
+      Appender<E>[] old = appenderArray;
+      appenderArray = newAppenderArray(0);
+      for (Appender<E> a : old) {
         a.stop();
       }
-      appenderList.clear();
-    } finally {
-      w.unlock();
     }
   }
 
@@ -162,14 +154,16 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     if (appender == null) {
       return false;
     }
-    boolean result;
-    w.lock();
-    try {
-      result = appenderList.remove(appender);
-    } finally {
-      w.unlock();
+    synchronized (writeLock) {
+      Appender<E>[] current = appenderArray;
+      for (int i = 0; i < current.length; i++) {
+        if (current[i].equals(appender)) {
+          removeAt(current, i);
+          return true;
+        }
+      }
+      return false;
     }
-    return result;
   }
 
   /**
@@ -180,18 +174,33 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     if (name == null) {
       return false;
     }
-    boolean removed = false;
-    w.lock();
-    try {
-      for (Appender<E> a : appenderList) {
-        if (name.equals((a).getName())) {
-          removed = appenderList.remove(a);
-          break;
+    synchronized (writeLock) {
+      Appender<E>[] current = appenderArray;
+      for (int i = 0; i < current.length; i++) {
+        if (name.equals(current[i].getName())) {
+          removeAt(current, i);
+          return true;
         }
       }
-    } finally {
-      w.unlock();
+      return false;
     }
-    return removed;
+  }
+
+  // must be called while holding writeLock
+  private void removeAt(Appender<E>[] current, int index) {
+    Appender<E>[] copy = newAppenderArray(current.length - 1);
+    System.arraycopy(current, 0, copy, 0, index);
+    System.arraycopy(current, index + 1, copy, index, current.length - index
+        - 1);
+    appenderArray = copy;
+  }
+
+  /**
+   * Create an array of appenders of the given length. Generic arrays cannot
+   * be created directly.
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> Appender<E>[] newAppenderArray(int length) {
+    return (Appender<E>[]) new Appender<?>[length];
   }
 }
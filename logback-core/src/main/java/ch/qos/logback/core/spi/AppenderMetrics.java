@@ -0,0 +1,133 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.spi;
+
+import ch.qos.logback.core.helpers.LatencyHistogram;
+import ch.qos.logback.core.helpers.StripedCounter;
+
+/**
+ * Counters maintained by an appender about the events handed to its
+ * <code>doAppend</code> method. Every event falls in one of the following
+ * categories:
+ * 
+ * <ul>
+ * <li><b>appended</b>: the event was passed to <code>append</code> which
+ * returned normally, and the appender did not give up on it later. The time
+ * spent in <code>append</code> is recorded in the append latency
+ * histogram.</li>
+ * <li><b>denied</b>: the filter chain of the appender denied the event.</li>
+ * <li><b>dropped</b>: the appender was not started, or the appender itself
+ * gave up on the event, e.g. because its buffer was full.</li>
+ * <li><b>failed</b>: <code>append</code> threw an exception.</li>
+ * </ul>
+ * 
+ * <p>Thus, the four counts add up to the number of events offered to the
+ * appender. Appenders which give up on an event from within
+ * <code>append</code>, such as {@link ch.qos.logback.core.AsyncAppenderBase
+ * AsyncAppenderBase} when its buffer is full, or later on, e.g. when a
+ * background write fails, call {@link #recordDroppedByAppender()}.
+ * 
+ * <p>All updates are lock-free. Appenders only maintain metrics when asked
+ * to, see {@link AppenderMetricsAware}.
+ */
+public class AppenderMetrics {
+
+  /**
+   * Returned by appenders whose metrics are not enabled. Updates are ignored
+   * and all counts remain zero.
+   */
+  public static final AppenderMetrics NOP = new AppenderMetrics() {
+    public void recordAppended(long durationInNanos) {
+    }
+
+    public void recordDenied() {
+    }
+
+    public void recordDropped() {
+    }
+
+    public void recordDroppedByAppender() {
+    }
+
+    public void recordFailed() {
+    }
+  };
+
+  final StripedCounter appended = new StripedCounter();
+  final StripedCounter denied = new StripedCounter();
+  final StripedCounter dropped = new StripedCounter();
+  final StripedCounter failed = new StripedCounter();
+  final LatencyHistogram appendLatency = new LatencyHistogram();
+
+  public void recordAppended(long durationInNanos) {
+    appended.increment();
+    appendLatency.record(durationInNanos);
+  }
+
+  public void recordDenied() {
+    denied.increment();
+  }
+
+  public void recordDropped() {
+    dropped.increment();
+  }
+
+  /**
+   * Count an event handed to <code>append</code> as dropped instead of
+   * appended. May be called from within <code>append</code>, before the event
+   * is counted as appended, in which case the appended count is briefly one
+   * less than it should be.
+   */
+  public void recordDroppedByAppender() {
+    dropped.increment();
+    appended.add(-1);
+  }
+
+  public void recordFailed() {
+    failed.increment();
+  }
+
+  public long getAppendedCount() {
+    return appended.get();
+  }
+
+  public long getDeniedCount() {
+    return denied.get();
+  }
+
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  public long getFailedCount() {
+    return failed.get();
+  }
+
+  public LatencyHistogram getAppendLatency() {
+    return appendLatency;
+  }
+
+  public void reset() {
+    appended.reset();
+    denied.reset();
+    dropped.reset();
+    failed.reset();
+    appendLatency.reset();
+  }
+
+  public String toString() {
+    return "appended=" + appended + ", denied=" + denied + ", dropped="
+        + dropped + ", failed=" + failed;
+  }
+}
@@ -0,0 +1,35 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.spi;
+
+/**
+ * Implemented by appenders which can maintain {@link AppenderMetrics}.
+ * Metrics are disabled by default, in which case {@link #getMetrics()}
+ * returns {@link AppenderMetrics#NOP}. They are enabled by
+ * {@link #setMetricsEnabled(boolean)}, or when the appender is started while
+ * its context holds the
+ * {@link ch.qos.logback.core.CoreConstants#APPENDER_METRICS_ENABLED} object.
+ */
+public interface AppenderMetricsAware {
+
+  AppenderMetrics getMetrics();
+
+  boolean isMetricsEnabled();
+
+  /**
+   * Enabling metrics starts counting from zero. Disabling them discards the
+   * counts.
+   */
+  void setMetricsEnabled(boolean enabled);
+}
@@ -0,0 +1,243 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * A thread-safe date formatter which caches the formatted text of the
+ * current second.
+ * 
+ * <p>For patterns containing a single "SSS" milliseconds field, the text of a
+ * second is computed once by a {@link SimpleDateFormat}, after which the
+ * timestamps within that second are formatted by patching the three
+ * millisecond digits. For patterns without any sub-second field, the text of
+ * the second is returned as is. Any other pattern is formatted by
+ * {@link SimpleDateFormat}, with the result of the last timestamp cached.
+ * 
+ * <p>Cached values are held in immutable objects published through volatile
+ * fields, and the {@link SimpleDateFormat} instances used on cache misses are
+ * confined to the thread using them. Consequently, this class never takes a
+ * lock.
+ */
+public class CachingDateFormatter {
+
+  // the text of a second does not depend on the milliseconds
+  static final int SECOND_MODE = 0;
+  // the text of a second is patched with the millisecond digits
+  static final int PATCH_MODE = 1;
+  // every millisecond is formatted by SimpleDateFormat
+  static final int EXACT_MODE = 2;
+
+  // a millisecond value whose digits are all different from 0
+  static final int PROBE_MILLIS = 987;
+
+  final int mode;
+  final SimpleDateFormat prototype;
+
+  final ThreadLocal<SimpleDateFormat> threadLocalFormat = new ThreadLocal<SimpleDateFormat>() {
+    protected SimpleDateFormat initialValue() {
+      return (SimpleDateFormat) prototype.clone();
+    }
+  };
+
+  volatile CachedSecond cachedSecond;
+  volatile CachedTimestamp cachedTimestamp;
+
+  public CachingDateFormatter(String pattern) {
+    this(pattern, null);
+  }
+
+  /**
+   * @param pattern a pattern in {@link SimpleDateFormat} syntax
+   * @param timeZone the time zone, or null for the default time zone
+   * @throws IllegalArgumentException if the pattern is invalid
+   */
+  public CachingDateFormatter(String pattern, TimeZone timeZone) {
+    prototype = new SimpleDateFormat(pattern);
+    if (timeZone != null) {
+      prototype.setTimeZone(timeZone);
+    }
+    mode = computeMode(pattern);
+  }
+
+  /**
+   * Determine the caching mode from the number and length of the runs of 'S'
+   * letters outside of quoted text.
+   */
+  static int computeMode(String pattern) {
+    int runCount = 0;
+    int runLength = 0;
+    boolean inQuote = false;
+    int len = pattern.length();
+    for (int i = 0; i < len; i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        inQuote = !inQuote;
+      } else if (!inQuote && c == 'S') {
+        int j = i;
+        while (j < len && pattern.charAt(j) == 'S') {
+          j++;
+        }
+        runCount++;
+        runLength = j - i;
+        i = j - 1;
+      }
+    }
+    if (runCount == 0) {
+      return SECOND_MODE;
+    } else if (runCount == 1 && runLength == 3) {
+      return PATCH_MODE;
+    } else {
+      return EXACT_MODE;
+    }
+  }
+
+  /**
+   * Format the timestamp passed as parameter.
+   */
+  public String format(long timestamp) {
+    CachedTimestamp ct = cachedTimestamp;
+    if (ct != null && ct.timestamp == timestamp) {
+      return ct.text;
+    }
+
+    String text;
+    if (mode == EXACT_MODE) {
+      text = threadLocalFormat.get().format(new Date(timestamp));
+    } else {
+      CachedSecond cs = getCachedSecond(timestamp);
+      if (mode == SECOND_MODE) {
+        return cs.text;
+      }
+      if (cs.millisOffset == -1) {
+        text = threadLocalFormat.get().format(new Date(timestamp));
+      } else {
+        StringBuilder buf = new StringBuilder(cs.text.length());
+        patch(buf, cs, timestamp);
+        text = buf.toString();
+      }
+    }
+    cachedTimestamp = new CachedTimestamp(timestamp, text);
+    return text;
+  }
+
+  /**
+   * Append the formatted timestamp to the StringBuilder passed as parameter.
+   * Within a cached second, no object is created.
+   */
+  public void format(long timestamp, StringBuilder buf) {
+    if (mode != EXACT_MODE) {
+      CachedSecond cs = getCachedSecond(timestamp);
+      if (mode == SECOND_MODE) {
+        buf.append(cs.text);
+        return;
+      }
+      if (cs.millisOffset != -1) {
+        patch(buf, cs, timestamp);
+        return;
+      }
+    }
+    buf.append(format(timestamp));
+  }
+
+  private void patch(StringBuilder buf, CachedSecond cs, long timestamp) {
+    int millis = (int) (timestamp - cs.startOfSecond);
+    String text = cs.text;
+    int offset = cs.millisOffset;
+    buf.append(text, 0, offset);
+    buf.append((char) ('0' + millis / 100));
+    buf.append((char) ('0' + (millis / 10) % 10));
+    buf.append((char) ('0' + millis % 10));
+    buf.append(text, offset + 3, text.length());
+  }
+
+  private CachedSecond getCachedSecond(long timestamp) {
+    long millis = timestamp % 1000;
+    if (millis < 0) {
+      // timestamps before 1970
+      millis += 1000;
+    }
+    long startOfSecond = timestamp - millis;
+    CachedSecond cs = cachedSecond;
+    if (cs == null || cs.startOfSecond != startOfSecond) {
+      cs = computeCachedSecond(startOfSecond);
+      // concurrent threads may overwrite each other's entry, which is harmless
+      cachedSecond = cs;
+    }
+    return cs;
+  }
+
+  private CachedSecond computeCachedSecond(long startOfSecond) {
+    SimpleDateFormat sdf = threadLocalFormat.get();
+    String text = sdf.format(new Date(startOfSecond));
+    int millisOffset = -1;
+    if (mode == PATCH_MODE) {
+      String probe = sdf.format(new Date(startOfSecond + PROBE_MILLIS));
+      millisOffset = findMillisOffset(text, probe);
+    }
+    return new CachedSecond(startOfSecond, text, millisOffset);
+  }
+
+  /**
+   * Locate the millisecond digits by comparing the text of the start of a
+   * second with the text of {@link #PROBE_MILLIS} milliseconds later. Returns
+   * -1 if the millisecond digits cannot be located, e.g. because they are
+   * not rendered as ASCII digits.
+   */
+  static int findMillisOffset(String text, String probe) {
+    if (text.length() != probe.length()) {
+      return -1;
+    }
+    int len = text.length();
+    int i = 0;
+    while (i < len && text.charAt(i) == probe.charAt(i)) {
+      i++;
+    }
+    if (i + 3 > len) {
+      return -1;
+    }
+    if (!text.startsWith("000", i) || !probe.startsWith("987", i)) {
+      return -1;
+    }
+    if (!text.regionMatches(i + 3, probe, i + 3, len - i - 3)) {
+      return -1;
+    }
+    return i;
+  }
+
+  static final class CachedSecond {
+    final long startOfSecond;
+    final String text;
+    final int millisOffset;
+
+    CachedSecond(long startOfSecond, String text, int millisOffset) {
+      this.startOfSecond = startOfSecond;
+      this.text = text;
+      this.millisOffset = millisOffset;
+    }
+  }
+
+  static final class CachedTimestamp {
+    final long timestamp;
+    final String text;
+
+    CachedTimestamp(long timestamp, String text) {
+      this.timestamp = timestamp;
+      this.text = text;
+    }
+  }
+}
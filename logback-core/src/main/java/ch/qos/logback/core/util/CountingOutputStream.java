@@ -0,0 +1,53 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} which counts the bytes written through it. The count
+ * starts at a given value, e.g. the length of the file being appended to, and
+ * can be read from any thread without locking.
+ * 
+ * <p>Writers must be serialized by the caller.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+  // only written by the thread holding the caller's lock
+  private volatile long count;
+
+  public CountingOutputStream(OutputStream out, long initialCount) {
+    super(out);
+    this.count = initialCount;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    count++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    // FilterOutputStream would write byte by byte
+    out.write(b, off, len);
+    count += len;
+  }
+
+  public long getCount() {
+    return count;
+  }
+}
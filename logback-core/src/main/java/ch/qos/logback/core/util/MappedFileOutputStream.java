@@ -0,0 +1,266 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link OutputStream} which appends to a file through a memory mapped
+ * region. Writing amounts to copying bytes into the mapping, no system call is
+ * made until the region is full, at which point the next region is mapped.
+ * 
+ * <p>Mapping a region extends the file, so that until this stream is closed
+ * the file may end with up to <b>regionSize</b> bytes of zeros. {@link #close()}
+ * truncates the file to the number of bytes actually written.
+ * 
+ * <p>While the stream is open, the number of bytes written and the end of the
+ * mapped region are kept in a companion file, named after the file with a
+ * {@value #LENGTH_FILE_SUFFIX} suffix, which is itself memory mapped. If the JVM
+ * dies before the stream is closed, the next stream opening the file in append
+ * mode truncates it to the recorded length, provided the file still ends where
+ * the mapped region did. Files without a companion file are never truncated.
+ * The companion file is deleted on close.
+ * 
+ * <p>This class is not thread-safe.
+ */
+public class MappedFileOutputStream extends OutputStream {
+
+  /**
+   * The default size of a mapped region, 8 MB.
+   */
+  public static final int DEFAULT_REGION_SIZE = 8 * 1024 * 1024;
+
+  public static final String LENGTH_FILE_SUFFIX = ".length";
+
+  // offsets in the companion file
+  static final int LENGTH_OFFSET = 0;
+  static final int REGION_END_OFFSET = 8;
+  static final int LENGTH_FILE_SIZE = 16;
+
+  final RandomAccessFile raf;
+  final FileChannel channel;
+  final int regionSize;
+
+  final File lengthFile;
+  RandomAccessFile lengthRaf;
+  MappedByteBuffer lengthRegion;
+
+  MappedByteBuffer region;
+  // the logical end of the file, i.e. the number of bytes written so far
+  long position;
+  boolean closed = false;
+
+  public MappedFileOutputStream(File file, boolean append, int regionSize)
+      throws IOException {
+    if (regionSize < 1) {
+      throw new IllegalArgumentException("Invalid region size [" + regionSize
+          + "]");
+    }
+    this.regionSize = regionSize;
+    this.lengthFile = new File(file.getPath() + LENGTH_FILE_SUFFIX);
+    this.raf = new RandomAccessFile(file, "rw");
+    this.channel = raf.getChannel();
+    try {
+      if (append) {
+        position = findEndOfData();
+      } else {
+        position = 0;
+      }
+      channel.truncate(position);
+      lengthRaf = new RandomAccessFile(lengthFile, "rw");
+      lengthRegion = lengthRaf.getChannel().map(FileChannel.MapMode.READ_WRITE,
+          0, LENGTH_FILE_SIZE);
+      map();
+    } catch (IOException e) {
+      closeLengthFile();
+      raf.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Find the end of the data written by a stream which was not closed, as
+   * recorded in the companion file. Without a trustworthy record, the whole
+   * file is considered to be data.
+   */
+  private long findEndOfData() throws IOException {
+    long size = channel.size();
+    if (lengthFile.length() < LENGTH_FILE_SIZE) {
+      return size;
+    }
+    ByteBuffer buf = ByteBuffer.allocate(LENGTH_FILE_SIZE);
+    RandomAccessFile in = new RandomAccessFile(lengthFile, "r");
+    try {
+      FileChannel lengthChannel = in.getChannel();
+      while (buf.hasRemaining()) {
+        if (lengthChannel.read(buf, buf.position()) < 0) {
+          return size;
+        }
+      }
+    } finally {
+      in.close();
+    }
+    long length = buf.getLong(LENGTH_OFFSET);
+    long regionEnd = buf.getLong(REGION_END_OFFSET);
+    // if the file was changed after the mapped stream died, leave it alone
+    if (regionEnd != size || length < 0 || length > size) {
+      return size;
+    }
+    return length;
+  }
+
+  private void map() throws IOException {
+    MappedByteBuffer old = region;
+    region = channel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+    lengthRegion.putLong(REGION_END_OFFSET, position + regionSize);
+    recordLength();
+    unmap(old);
+  }
+
+  private void recordLength() {
+    lengthRegion.putLong(LENGTH_OFFSET, position);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (!region.hasRemaining()) {
+      map();
+    }
+    region.put((byte) b);
+    position++;
+    recordLength();
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      if (!region.hasRemaining()) {
+        map();
+      }
+      int n = Math.min(len, region.remaining());
+      region.put(b, off, n);
+      position += n;
+      off += n;
+      len -= n;
+    }
+    recordLength();
+  }
+
+  /**
+   * Bytes copied into the mapping are already visible to readers of the file,
+   * as they live in the operating system's page cache. Consequently, there is
+   * nothing to flush.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+  }
+
+  /**
+   * Force the written bytes onto the storage device.
+   */
+  public void force() throws IOException {
+    ensureOpen();
+    region.force();
+  }
+
+  /**
+   * The number of bytes in the file, excluding the unused part of the mapped
+   * region.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  public int getRegionSize() {
+    return regionSize;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      // some platforms refuse to truncate a file which is still mapped
+      unmap(region);
+      region = null;
+      channel.truncate(position);
+    } finally {
+      raf.close();
+      closeLengthFile();
+    }
+    // the file no longer needs to be recovered
+    lengthFile.delete();
+  }
+
+  private void closeLengthFile() throws IOException {
+    unmap(lengthRegion);
+    lengthRegion = null;
+    if (lengthRaf != null) {
+      lengthRaf.close();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  /**
+   * Release a mapping without waiting for it to be garbage collected. Java
+   * offers no public API for this, so we make a best effort through the
+   * internal cleaner. If that fails, the mapping is released by the garbage
+   * collector.
+   */
+  static void unmap(MappedByteBuffer buffer) {
+    if (buffer == null) {
+      return;
+    }
+    try {
+      // Java 9 and later
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+          ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return;
+    } catch (Throwable t) {
+      // fall through
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (Throwable t) {
+      // leave it to the garbage collector
+    }
+  }
+}
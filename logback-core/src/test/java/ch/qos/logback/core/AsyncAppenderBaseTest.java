@@ -0,0 +1,196 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.read.ListAppender;
+
+public class AsyncAppenderBaseTest {
+
+  Context context = new ContextBase();
+  AsyncAppenderBase<Integer> asyncAppenderBase = new AsyncAppenderBase<Integer>();
+  ListAppender<Integer> listAppender = new ListAppender<Integer>();
+
+  @Before
+  public void setUp() {
+    asyncAppenderBase.setContext(context);
+    asyncAppenderBase.setName("ASYNC");
+    listAppender.setContext(context);
+    listAppender.setName("list");
+    listAppender.start();
+  }
+
+  @Test
+  public void smoke() {
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.start();
+    asyncAppenderBase.doAppend(0);
+    asyncAppenderBase.stop();
+    verify(listAppender, 1);
+  }
+
+  @Test
+  public void noAttachedAppender() {
+    asyncAppenderBase.start();
+    assertFalse(asyncAppenderBase.isStarted());
+  }
+
+  @Test
+  public void eventsAreFlushedOnStop() {
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.setQueueSize(16);
+    asyncAppenderBase.start();
+    int loopLen = 1000;
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    asyncAppenderBase.stop();
+    verify(listAppender, loopLen);
+    for (int i = 0; i < loopLen; i++) {
+      assertEquals(i, listAppender.list.get(i).intValue());
+    }
+    assertEquals(0, asyncAppenderBase.getDiscardedCount());
+  }
+
+  @Test
+  public void neverBlockDiscardsWhenFull() throws InterruptedException {
+    BlockingListAppender<Integer> blockingAppender = new BlockingListAppender<Integer>();
+    blockingAppender.setContext(context);
+    blockingAppender.start();
+    asyncAppenderBase.addAppender(blockingAppender);
+    asyncAppenderBase.setQueueSize(4);
+    asyncAppenderBase.setNeverBlock(true);
+    asyncAppenderBase.start();
+
+    int loopLen = 100;
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    assertTrue(asyncAppenderBase.getDiscardedCount() > 0);
+    blockingAppender.latch.countDown();
+    asyncAppenderBase.stop();
+    assertEquals(loopLen, blockingAppender.list.size()
+        + asyncAppenderBase.getDiscardedCount());
+  }
+
+  @Test
+  public void multipleProducers() throws InterruptedException {
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.setQueueSize(8);
+    asyncAppenderBase.start();
+
+    final int threadCount = 4;
+    final int loopLen = 5000;
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < loopLen; i++) {
+            asyncAppenderBase.doAppend(i);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    asyncAppenderBase.stop();
+    verify(listAppender, threadCount * loopLen);
+  }
+
+  @Test
+  public void restartRequiresAnAttachedAppender() {
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.start();
+    asyncAppenderBase.stop();
+    assertFalse(asyncAppenderBase.iteratorForAppenders().hasNext());
+
+    asyncAppenderBase.start();
+    assertFalse(asyncAppenderBase.isStarted());
+
+    ListAppender<Integer> other = new ListAppender<Integer>();
+    other.setContext(context);
+    other.start();
+    asyncAppenderBase.addAppender(other);
+    asyncAppenderBase.start();
+    assertTrue(asyncAppenderBase.isStarted());
+    asyncAppenderBase.doAppend(0);
+    asyncAppenderBase.stop();
+    verify(other, 1);
+  }
+
+  @Test
+  public void interruptedProducerStillQueuesItsEvent()
+      throws InterruptedException {
+    final BlockingListAppender<Integer> blockingAppender = new BlockingListAppender<Integer>();
+    blockingAppender.setContext(context);
+    blockingAppender.start();
+    asyncAppenderBase.addAppender(blockingAppender);
+    asyncAppenderBase.setQueueSize(2);
+    asyncAppenderBase.setDiscardingThreshold(0);
+    asyncAppenderBase.start();
+
+    // one event held by the worker, two in the buffer
+    asyncAppenderBase.doAppend(0);
+    while (asyncAppenderBase.getNumberOfElementsInQueue() > 0) {
+      Thread.yield();
+    }
+    asyncAppenderBase.doAppend(1);
+    asyncAppenderBase.doAppend(2);
+    final boolean[] interruptedAfterAppend = new boolean[1];
+    Thread producer = new Thread() {
+      public void run() {
+        interrupt();
+        asyncAppenderBase.doAppend(3);
+        interruptedAfterAppend[0] = isInterrupted();
+      }
+    };
+    producer.start();
+    producer.join(100);
+    assertTrue(producer.isAlive());
+    blockingAppender.latch.countDown();
+    producer.join();
+    asyncAppenderBase.stop();
+
+    assertTrue(interruptedAfterAppend[0]);
+    assertEquals(0, asyncAppenderBase.getDiscardedCount());
+    assertEquals(4, blockingAppender.list.size());
+  }
+
+  private void verify(ListAppender<Integer> la, int expectedSize) {
+    assertFalse(la.isStarted());
+    assertEquals(expectedSize, la.list.size());
+  }
+
+  static class BlockingListAppender<E> extends ListAppender<E> {
+    CountDownLatch latch = new CountDownLatch(1);
+
+    protected void append(E e) {
+      try {
+        latch.await();
+      } catch (InterruptedException ie) {
+      }
+      super.append(e);
+    }
+  }
+}
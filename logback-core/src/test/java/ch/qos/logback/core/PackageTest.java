@@ -18,6 +18,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses( { ContextBaseTest.class, WriterAppenderTest.class })
+@SuiteClasses( { ContextBaseTest.class, WriterAppenderTest.class,
+    AsyncAppenderBaseTest.class })
 public class PackageTest {
 }
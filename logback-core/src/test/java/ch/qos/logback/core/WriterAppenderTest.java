@@ -16,6 +16,7 @@ package ch.qos.logback.core;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 
@@ -23,6 +24,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.layout.EchoLayout;
 import ch.qos.logback.core.pattern.parser.SamplePatternLayout;
 
 public class WriterAppenderTest {
@@ -82,6 +85,112 @@ public class WriterAppenderTest {
     headerFooterCheck(FILE_HEADER, PRESENTATION_HEADER, PRESENTATION_FOOTER, FILE_FOOTER);
   }
   
+  @Test
+  public void encoder() throws Exception {
+    WriterAppender<Object> wa = new WriterAppender<Object>();
+    wa.setContext(context);
+    EchoLayout<Object> layout = new EchoLayout<Object>();
+    layout.setFileHeader("HEADER");
+    layout.setFileFooter("FOOTER");
+    layout.start();
+    LayoutWrappingEncoder<Object> encoder = new LayoutWrappingEncoder<Object>();
+    encoder.setContext(context);
+    encoder.setLayout(layout);
+    encoder.setEncoding("UTF-8");
+    encoder.start();
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    wa.setEncoder(encoder);
+    wa.setOutputStream(baos);
+    wa.start();
+    assertTrue(wa.isStarted());
+    wa.doAppend("a");
+    wa.doAppend("b");
+    wa.stop();
+
+    String ls = CoreConstants.LINE_SEPARATOR;
+    assertEquals("HEADER" + ls + "a" + ls + "b" + ls + "FOOTER", baos
+        .toString("UTF-8"));
+  }
+
+  @Test
+  public void combineWrites() throws InterruptedException {
+    final WriterAppender<Object> wa = new WriterAppender<Object>();
+    wa.setContext(context);
+    StringWriter sw = new StringWriter();
+    EchoLayout<Object> layout = new EchoLayout<Object>();
+    layout.start();
+    wa.setLayout(layout);
+    wa.setWriter(sw);
+    wa.setCombineWrites(true);
+    wa.start();
+
+    final int threadCount = 8;
+    final int loopLen = 1000;
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < loopLen; i++) {
+            wa.doAppend("x");
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    wa.stop();
+    String result = sw.toString();
+    String expectedLine = "x" + CoreConstants.LINE_SEPARATOR;
+    assertEquals(threadCount * loopLen * expectedLine.length(), result.length());
+    assertEquals("", result.replace(expectedLine, ""));
+  }
+
+  @Test
+  public void combinedWritesAreCapped() throws InterruptedException {
+    final WriterAppender<Object> wa = new WriterAppender<Object>();
+    wa.setContext(context);
+    final int[] maxWriteLength = new int[1];
+    StringWriter sw = new StringWriter() {
+      public void write(String str) {
+        maxWriteLength[0] = Math.max(maxWriteLength[0], str.length());
+        super.write(str);
+      }
+    };
+    EchoLayout<Object> layout = new EchoLayout<Object>();
+    layout.start();
+    wa.setLayout(layout);
+    wa.setWriter(sw);
+    wa.setCombineWrites(true);
+    wa.start();
+
+    final String msg = new String(new char[1000]).replace('\0', 'x');
+    final int threadCount = 8;
+    final int loopLen = 200;
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < loopLen; i++) {
+            wa.doAppend(msg);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    wa.stop();
+    String expectedLine = msg + CoreConstants.LINE_SEPARATOR;
+    assertEquals(threadCount * loopLen * expectedLine.length(), sw.toString()
+        .length());
+    assertTrue("maxWriteLength=" + maxWriteLength[0],
+        maxWriteLength[0] <= WriterAppender.MAX_COMBINED_WRITE_SIZE);
+  }
+
   public void headerFooterCheck(String fileHeader, String presentationHeader, String presentationFooter, String fileFooter) {
     WriterAppender<Object> wa = new WriterAppender<Object>();
     wa.setContext(context);
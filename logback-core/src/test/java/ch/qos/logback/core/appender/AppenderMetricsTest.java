@@ -0,0 +1,176 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.appender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.AppenderMetrics;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class AppenderMetricsTest {
+
+  Context context = new ContextBase();
+  ListAppender<String> listAppender = new ListAppender<String>();
+
+  @Before
+  public void setUp() {
+    listAppender.setContext(context);
+    listAppender.setName("list");
+    listAppender.setMetricsEnabled(true);
+  }
+
+  @Test
+  public void disabledByDefault() {
+    ListAppender<String> la = new ListAppender<String>();
+    la.setContext(context);
+    la.start();
+    la.doAppend("a");
+    assertFalse(la.isMetricsEnabled());
+    assertSame(AppenderMetrics.NOP, la.getMetrics());
+    assertEquals(0, la.getMetrics().getAppendedCount());
+    assertEquals(0, la.getMetrics().getAppendLatency().getCount());
+  }
+
+  @Test
+  public void enabledOnStartThroughTheContext() {
+    context.putObject(CoreConstants.APPENDER_METRICS_ENABLED, Boolean.TRUE);
+    ListAppender<String> la = new ListAppender<String>();
+    la.setContext(context);
+    la.start();
+    la.doAppend("a");
+    assertTrue(la.isMetricsEnabled());
+    assertEquals(1, la.getMetrics().getAppendedCount());
+
+    la.setMetricsEnabled(false);
+    assertSame(AppenderMetrics.NOP, la.getMetrics());
+  }
+
+  @Test
+  public void notStartedEventsAreDropped() {
+    listAppender.doAppend("a");
+    AppenderMetrics metrics = listAppender.getMetrics();
+    assertEquals(1, metrics.getDroppedCount());
+    assertEquals(0, metrics.getAppendedCount());
+  }
+
+  @Test
+  public void appendedAndDenied() {
+    listAppender.addFilter(new Filter<String>() {
+      public FilterReply decide(String event) {
+        return event.startsWith("x") ? FilterReply.DENY : FilterReply.NEUTRAL;
+      }
+    });
+    listAppender.start();
+    for (int i = 0; i < 10; i++) {
+      listAppender.doAppend("a" + i);
+    }
+    listAppender.doAppend("x");
+
+    AppenderMetrics metrics = listAppender.getMetrics();
+    assertEquals(10, metrics.getAppendedCount());
+    assertEquals(1, metrics.getDeniedCount());
+    assertEquals(10, metrics.getAppendLatency().getCount());
+    assertTrue(metrics.getAppendLatency().getPercentileNanos(0.5) <= metrics
+        .getAppendLatency().getPercentileNanos(1.0));
+
+    metrics.reset();
+    assertEquals(0, metrics.getAppendedCount());
+    assertEquals(0, metrics.getAppendLatency().getCount());
+  }
+
+  @Test
+  public void failed() {
+    AppenderBase<String> failing = new AppenderBase<String>() {
+      protected void append(String eventObject) {
+        throw new IllegalStateException("failing on purpose");
+      }
+    };
+    failing.setContext(context);
+    failing.setMetricsEnabled(true);
+    failing.start();
+    failing.doAppend("a");
+    failing.doAppend("b");
+    assertEquals(2, failing.getMetrics().getFailedCount());
+    assertEquals(0, failing.getMetrics().getAppendedCount());
+  }
+
+  @Test
+  public void droppedByAppenderAreNotAppended() {
+    AppenderBase<String> dropping = new AppenderBase<String>() {
+      protected void append(String eventObject) {
+        if (eventObject.startsWith("x")) {
+          getMetrics().recordDroppedByAppender();
+        }
+      }
+    };
+    dropping.setContext(context);
+    dropping.setMetricsEnabled(true);
+    dropping.start();
+    for (int i = 0; i < 10; i++) {
+      dropping.doAppend("a" + i);
+    }
+    dropping.doAppend("x");
+    dropping.doAppend("x");
+    AppenderMetrics metrics = dropping.getMetrics();
+    assertEquals(10, metrics.getAppendedCount());
+    assertEquals(2, metrics.getDroppedCount());
+  }
+
+  @Test
+  public void percentiles() {
+    AppenderMetrics metrics = new AppenderMetrics();
+    for (int i = 0; i < 99; i++) {
+      metrics.recordAppended(100);
+    }
+    metrics.recordAppended(100000);
+    // 100 falls in [64, 128), 100000 in [65536, 131072)
+    assertEquals(127, metrics.getAppendLatency().getPercentileNanos(0.5));
+    assertEquals(127, metrics.getAppendLatency().getPercentileNanos(0.99));
+    assertEquals(131071, metrics.getAppendLatency().getPercentileNanos(1.0));
+    assertEquals((99 * 100 + 100000) / 100.0, metrics.getAppendLatency()
+        .getMeanNanos(), 0.01);
+  }
+
+  @Test
+  public void concurrentIncrements() throws InterruptedException {
+    final AppenderMetrics metrics = new AppenderMetrics();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          for (int j = 0; j < 10000; j++) {
+            metrics.recordDenied();
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(80000, metrics.getDeniedCount());
+  }
+}
@@ -32,6 +32,7 @@ import ch.qos.logback.core.layout.NopLayout;
 import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.StatusManager;
 import ch.qos.logback.core.util.CoreTestConstants;
+import ch.qos.logback.core.util.FileSize;
 import ch.qos.logback.core.util.FileUtil;
 
 public class FileAppenderTest extends AbstractAppenderTest<Object> {
@@ -130,4 +131,40 @@ public class FileAppenderTest extends AbstractAppenderTest<Object> {
     assertTrue(file.exists());
     assertTrue("failed to delete " + file.getAbsolutePath(), file.delete());
   }
+
+  @Test
+  public void memoryMapped() {
+    String filename = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + "mapped.txt";
+    File file = new File(filename);
+    int len = DummyLayout.DUMMY.length();
+
+    // a region smaller than an event forces remapping on every append
+    FileAppender<Object> appender = buildMemoryMappedAppender(filename, false);
+    for (int i = 0; i < 10; i++) {
+      appender.doAppend(new Object());
+    }
+    appender.stop();
+    assertEquals(10 * len, file.length());
+
+    appender = buildMemoryMappedAppender(filename, true);
+    appender.doAppend(new Object());
+    appender.stop();
+    assertEquals(11 * len, file.length());
+    assertTrue("failed to delete " + file.getAbsolutePath(), file.delete());
+  }
+
+  FileAppender<Object> buildMemoryMappedAppender(String filename,
+      boolean append) {
+    FileAppender<Object> appender = new FileAppender<Object>();
+    appender.setLayout(new DummyLayout<Object>());
+    appender.setAppend(append);
+    appender.setFile(filename);
+    appender.setMemoryMapped(true);
+    appender.setMappedRegionSize(FileSize.valueOf("4"));
+    appender.setName("memoryMapped");
+    appender.setContext(context);
+    appender.start();
+    assertTrue(appender.isStarted());
+    return appender;
+  }
 }
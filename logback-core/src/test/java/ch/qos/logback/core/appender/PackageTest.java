@@ -20,7 +20,7 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses( { DummyAppenderTest.class, ConsoleAppenderTest.class,
-  FileAppenderTest.class})
+  FileAppenderTest.class, AppenderMetricsTest.class})
     
 public class PackageTest {
 }
@@ -0,0 +1,82 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class CharsetEncodingBufferTest {
+
+  Charset utf8 = Charset.forName("UTF-8");
+  CharsetEncodingBuffer ceb = new CharsetEncodingBuffer(utf8);
+
+  String decode(ByteBuffer bb) {
+    return utf8.decode(bb).toString();
+  }
+
+  @Test
+  public void smoke() {
+    assertEquals("hello", decode(ceb.encode("hello")));
+  }
+
+  @Test
+  public void multiByteCharacters() {
+    String s = "G\u00fclc\u00fc \u20ac";
+    ByteBuffer bb = ceb.encode(s);
+    assertEquals(s.getBytes(utf8).length, bb.remaining());
+    assertEquals(s, decode(bb));
+  }
+
+  @Test
+  public void bufferIsReused() {
+    ByteBuffer first = ceb.encode(new StringBuilder("a"));
+    ByteBuffer second = ceb.encode(new StringBuffer("b"));
+    assertSame(first, second);
+    assertEquals("b", decode(second));
+  }
+
+  @Test
+  public void bufferGrows() {
+    StringBuilder sb = newStringBuilder(CharsetEncodingBuffer.MAX_RETAINED_CAPACITY);
+    assertEquals(sb.toString(), decode(ceb.encode(sb)));
+    assertEquals("short", decode(ceb.encode("short")));
+  }
+
+  @Test
+  public void oversizeSequencesAreNotRetained() {
+    ByteBuffer retained = ceb.encode("a");
+    StringBuilder sb = newStringBuilder(10 * CharsetEncodingBuffer.MAX_RETAINED_CAPACITY);
+    ByteBuffer bb = ceb.encode(sb);
+    assertNotSame(retained, bb);
+    assertEquals(sb.toString(), decode(bb));
+    assertEquals(sb.toString(), decode(ceb.encode(sb.toString())));
+    assertTrue(ceb.chars.length <= CharsetEncodingBuffer.MAX_RETAINED_CAPACITY);
+    assertSame(retained, ceb.encode("short"));
+  }
+
+  StringBuilder newStringBuilder(int len) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < len; i++) {
+      sb.append((char) ('a' + (i % 26)));
+    }
+    return sb;
+  }
+}
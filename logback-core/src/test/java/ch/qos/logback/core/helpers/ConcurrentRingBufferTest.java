@@ -0,0 +1,101 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ConcurrentRingBufferTest {
+
+  @Test
+  public void capacityIsRoundedToPowerOfTwo() {
+    assertEquals(2, new ConcurrentRingBuffer<String>(1).getCapacity());
+    assertEquals(8, new ConcurrentRingBuffer<String>(5).getCapacity());
+    assertEquals(256, new ConcurrentRingBuffer<String>(256).getCapacity());
+  }
+
+  @Test
+  public void smallestBufferDoesNotOverwrite() {
+    ConcurrentRingBuffer<Integer> rb = new ConcurrentRingBuffer<Integer>(1);
+    assertTrue(rb.offer(1));
+    assertTrue(rb.offer(2));
+    assertFalse(rb.offer(3));
+    assertEquals(1, rb.poll().intValue());
+    assertTrue(rb.offer(3));
+    assertFalse(rb.offer(4));
+    assertEquals(2, rb.poll().intValue());
+    assertEquals(3, rb.poll().intValue());
+    assertNull(rb.poll());
+  }
+
+  @Test
+  public void fifoOrderAndWrapAround() {
+    ConcurrentRingBuffer<Integer> rb = new ConcurrentRingBuffer<Integer>(4);
+    for (int lap = 0; lap < 3; lap++) {
+      for (int i = 0; i < 4; i++) {
+        assertTrue(rb.offer(lap * 10 + i));
+      }
+      assertFalse(rb.offer(-1));
+      assertEquals(4, rb.size());
+      for (int i = 0; i < 4; i++) {
+        assertEquals(lap * 10 + i, rb.poll().intValue());
+      }
+      assertNull(rb.poll());
+      assertTrue(rb.isEmpty());
+    }
+  }
+
+  @Test
+  public void concurrentProducers() throws InterruptedException {
+    final ConcurrentRingBuffer<Integer> rb = new ConcurrentRingBuffer<Integer>(64);
+    final int threadCount = 4;
+    final int loopLen = 10000;
+    Thread[] producers = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final int base = t * loopLen;
+      producers[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < loopLen; i++) {
+            while (!rb.offer(base + i)) {
+              Thread.yield();
+            }
+          }
+        }
+      };
+      producers[t].start();
+    }
+
+    Set<Integer> seen = new HashSet<Integer>();
+    int expected = threadCount * loopLen;
+    while (seen.size() < expected) {
+      Integer i = rb.poll();
+      if (i == null) {
+        Thread.yield();
+        continue;
+      }
+      assertTrue(seen.add(i));
+    }
+    for (Thread t : producers) {
+      t.join();
+    }
+    assertNull(rb.poll());
+  }
+}
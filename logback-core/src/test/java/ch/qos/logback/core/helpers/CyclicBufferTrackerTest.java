@@ -0,0 +1,53 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CyclicBufferTrackerTest {
+
+  CyclicBufferTracker<Object> tracker = new CyclicBufferTracker<Object>();
+
+  @Test
+  public void sameBufferIsReturnedForSameKey() {
+    CyclicBuffer<Object> cb = tracker.getOrCreate("a");
+    assertSame(cb, tracker.getOrCreate("a"));
+    assertEquals(CyclicBufferTracker.DEFAULT_BUFFER_SIZE, cb.getMaxSize());
+    assertEquals(1, tracker.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedBufferIsEvicted() {
+    tracker.setMaxNumberOfBuffers(2);
+    tracker.getOrCreate("a");
+    tracker.getOrCreate("b");
+    // touch "a" so that "b" becomes the eldest
+    tracker.getOrCreate("a");
+    tracker.getOrCreate("c");
+    assertEquals(2, tracker.size());
+    assertNull(tracker.get("b"));
+  }
+
+  @Test
+  public void bufferSizeAppliesToExistingBuffers() {
+    CyclicBuffer<Object> cb = tracker.getOrCreate("a");
+    tracker.setBufferSize(3);
+    assertEquals(3, cb.getMaxSize());
+    assertEquals(3, tracker.getOrCreate("b").getMaxSize());
+  }
+}
@@ -18,7 +18,8 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ThrowableToStringArrayTest.class})
+@SuiteClasses({ThrowableToStringArrayTest.class, ConcurrentRingBufferTest.class,
+    CyclicBufferTrackerTest.class})
 public class PackageTest {
 
 }
@@ -0,0 +1,192 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BinaryOutputTest {
+
+  BinaryOutput out = new BinaryOutput(2);
+  ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+  BinaryInput input() {
+    return new BinaryInput(new ByteArrayInputStream(baos.toByteArray()));
+  }
+
+  @Test
+  public void numbers() throws IOException {
+    int[] ints = { 0, 1, 127, 128, -1, Integer.MAX_VALUE, Integer.MIN_VALUE };
+    long[] longs = { 0, 1L << 40, -1, Long.MAX_VALUE, Long.MIN_VALUE };
+    for (int i : ints) {
+      out.writeVarInt(i);
+      out.writeSignedVarInt(i);
+    }
+    for (long l : longs) {
+      out.writeVarLong(l);
+      out.writeSignedVarLong(l);
+    }
+    out.writeRecordTo(baos);
+
+    BinaryInput in = input();
+    in.readRecord();
+    for (int i : ints) {
+      assertEquals(i, in.readVarInt());
+      assertEquals(i, in.readSignedVarInt());
+    }
+    for (long l : longs) {
+      assertEquals(l, in.readVarLong());
+      assertEquals(l, in.readSignedVarLong());
+    }
+  }
+
+  @Test
+  public void smallSignedValuesAreCompact() {
+    out.writeSignedVarInt(-1);
+    out.writeSignedVarLong(63);
+    assertEquals(2, out.getRecordSize());
+  }
+
+  @Test
+  public void strings() throws IOException {
+    String[] strings = { null, "", "hello", "\u00e9t\u00e9", "\u20ac\u0000",
+        "\uD834\uDD1E" };
+    for (String s : strings) {
+      out.writeString(s);
+    }
+    out.writeRecordTo(baos);
+
+    BinaryInput in = input();
+    in.readRecord();
+    for (String s : strings) {
+      assertEquals(s, in.readString());
+    }
+  }
+
+  @Test
+  public void dictionary() throws IOException {
+    out.writeDictionaryString("a");
+    out.writeDictionaryString("b");
+    out.writeRecordTo(baos);
+    // the dictionary is full, "c" must be sent as a literal
+    out.writeDictionaryString("c");
+    out.writeDictionaryString(null);
+    out.writeDictionaryString("a");
+    int size = out.getRecordSize();
+    out.writeDictionaryString("b");
+    // a known string is sent as a single byte
+    assertEquals(size + 1, out.getRecordSize());
+    out.writeRecordTo(baos);
+
+    BinaryInput in = input();
+    in.readRecord();
+    assertEquals("a", in.readDictionaryString());
+    assertEquals("b", in.readDictionaryString());
+    in.readRecord();
+    assertEquals("c", in.readDictionaryString());
+    assertNull(in.readDictionaryString());
+    assertEquals("a", in.readDictionaryString());
+    assertEquals("b", in.readDictionaryString());
+  }
+
+  @Test
+  public void discardedRecord() throws IOException {
+    out.writeDictionaryString("a");
+    out.writeRecordTo(baos);
+    out.writeDictionaryString("a");
+    out.writeDictionaryString("b");
+    out.writeString("partial");
+    out.discardRecord();
+    assertEquals(0, out.getRecordSize());
+    // "b" is new again, and "c" still fits in the dictionary
+    out.writeDictionaryString("b");
+    out.writeDictionaryString("c");
+    out.writeDictionaryString("b");
+    out.writeRecordTo(baos);
+
+    BinaryInput in = input();
+    in.readRecord();
+    assertEquals("a", in.readDictionaryString());
+    in.readRecord();
+    assertEquals("b", in.readDictionaryString());
+    assertEquals("c", in.readDictionaryString());
+    assertEquals("b", in.readDictionaryString());
+    try {
+      in.readRecord();
+      fail("expected EOFException");
+    } catch (EOFException e) {
+    }
+  }
+
+  @Test
+  public void largeRecord() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      sb.append((char) ('a' + i % 26));
+    }
+    out.writeString(sb.toString());
+    out.writeRecordTo(baos);
+    out.writeBoolean(true);
+    out.writeRecordTo(baos);
+
+    BinaryInput in = input();
+    in.readRecord();
+    assertEquals(sb.toString(), in.readString());
+    in.readRecord();
+    assertTrue(in.readBoolean());
+    try {
+      in.readRecord();
+      fail("expected EOFException");
+    } catch (EOFException e) {
+    }
+  }
+
+  @Test
+  public void readPastEndOfRecord() throws IOException {
+    out.writeByte(1);
+    out.writeRecordTo(baos);
+    BinaryInput in = input();
+    in.readRecord();
+    in.readByte();
+    try {
+      in.readByte();
+      fail("expected IOException");
+    } catch (IOException e) {
+    }
+  }
+
+  @Test
+  public void magic() throws IOException {
+    BinaryOutput.writeMagic(baos);
+    baos.write(7);
+    ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+    assertTrue(BinaryInput.consumeMagic(bais));
+    assertEquals(7, bais.read());
+
+    bais = new ByteArrayInputStream(new byte[] { (byte) 0xAC, (byte) 0xED, 0,
+        5 });
+    assertFalse(BinaryInput.consumeMagic(bais));
+    assertEquals(0xAC, bais.read());
+  }
+}
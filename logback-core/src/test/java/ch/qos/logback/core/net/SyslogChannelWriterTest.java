@@ -0,0 +1,122 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+public class SyslogChannelWriterTest {
+
+  ContextAwareBase base = new ContextAwareBase();
+  InetAddress localhost;
+  SyslogChannelWriter writer;
+
+  public SyslogChannelWriterTest() throws Exception {
+    base.setContext(new ContextBase());
+    localhost = InetAddress.getByName("localhost");
+  }
+
+  @After
+  public void tearDown() {
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+  String receive(DatagramSocket socket) throws Exception {
+    byte[] buf = new byte[256];
+    DatagramPacket packet = new DatagramPacket(buf, buf.length);
+    socket.receive(packet);
+    return new String(buf, 0, packet.getLength());
+  }
+
+  @Test
+  public void oneMessagePerDatagram() throws Exception {
+    DatagramSocket socket = new DatagramSocket(0, localhost);
+    socket.setSoTimeout(2000);
+    try {
+      writer = new SyslogChannelWriter(localhost, socket.getLocalPort(), false,
+          false, 8, base);
+      writer.write("hello");
+      writer.flush();
+      // truncated to 8 bytes
+      writer.write("0123456789");
+      writer.flush();
+      assertEquals("hello", receive(socket));
+      assertEquals("01234567", receive(socket));
+    } finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void packing() throws Exception {
+    DatagramSocket socket = new DatagramSocket(0, localhost);
+    socket.setSoTimeout(2000);
+    try {
+      writer = new SyslogChannelWriter(localhost, socket.getLocalPort(), false,
+          true, 16, base);
+      for (String msg : new String[] { "a", "bb", "ccc", "0123456789" }) {
+        writer.write(msg);
+        writer.flush();
+      }
+      writer.sendPending();
+      assertEquals("a\nbb\nccc", receive(socket));
+      assertEquals("0123456789", receive(socket));
+    } finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void octetCounting() throws Exception {
+    ServerSocket serverSocket = new ServerSocket(0, 1, localhost);
+    serverSocket.setSoTimeout(2000);
+    try {
+      writer = new SyslogChannelWriter(localhost, serverSocket.getLocalPort(),
+          true, false, 16, base);
+      for (String msg : new String[] { "a", "0123456789", "0123456789" }) {
+        writer.write(msg);
+        writer.flush();
+      }
+      writer.sendPending();
+      writer.close();
+
+      Socket socket = serverSocket.accept();
+      InputStream in = socket.getInputStream();
+      ByteArrayOutputStream received = new ByteArrayOutputStream();
+      int b;
+      while ((b = in.read()) != -1) {
+        received.write(b);
+      }
+      socket.close();
+      assertEquals("1 a10 012345678910 0123456789", received.toString());
+    } finally {
+      serverSocket.close();
+    }
+  }
+}
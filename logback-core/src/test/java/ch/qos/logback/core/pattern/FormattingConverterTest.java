@@ -0,0 +1,106 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.pattern;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FormattingConverterTest {
+
+  static final String PREFIX = "prefix-";
+
+  FormattingConverter<Object> makeConverter(final String value, FormatInfo fi) {
+    FormattingConverter<Object> fc = new FormattingConverter<Object>() {
+      public String convert(Object event) {
+        return value;
+      }
+    };
+    if (fi != null) {
+      fc.setFormattingInfo(fi);
+    }
+    return fc;
+  }
+
+  // the StringBuilder contract must produce the same output as the
+  // StringBuffer contract, without disturbing existing buffer contents
+  void verify(String expected, String value, FormatInfo fi) {
+    FormattingConverter<Object> fc = makeConverter(value, fi);
+
+    StringBuffer sbuf = new StringBuffer(PREFIX);
+    fc.write(sbuf, null);
+    assertEquals(PREFIX + expected, sbuf.toString());
+
+    StringBuilder sb = new StringBuilder(PREFIX);
+    fc.write(sb, null);
+    assertEquals(PREFIX + expected, sb.toString());
+  }
+
+  @Test
+  public void noFormatting() {
+    verify("abc", "abc", null);
+  }
+
+  @Test
+  public void padding() {
+    verify("  abc", "abc", new FormatInfo(5, Integer.MAX_VALUE, true, true));
+    verify("abc  ", "abc", new FormatInfo(5, Integer.MAX_VALUE, false, true));
+    verify("                                   abc", "abc", new FormatInfo(38,
+        Integer.MAX_VALUE, true, true));
+    verify("abc", "abc", new FormatInfo(2, Integer.MAX_VALUE, true, true));
+  }
+
+  @Test
+  public void truncation() {
+    verify("cdef", "abcdef", new FormatInfo(Integer.MIN_VALUE, 4, true, true));
+    verify("abcd", "abcdef", new FormatInfo(Integer.MIN_VALUE, 4, true, false));
+    verify("ab", "ab", new FormatInfo(Integer.MIN_VALUE, 4, true, true));
+  }
+
+  @Test
+  public void nullValue() {
+    verify("null", null, null);
+    verify("   ", null, new FormatInfo(3, Integer.MAX_VALUE, true, true));
+    verify("   ", null, new FormatInfo(3, Integer.MAX_VALUE, false, true));
+  }
+
+  @Test
+  public void composite() {
+    CompositeConverter<Object> cc = new CompositeConverter<Object>();
+    Converter<Object> child = new LiteralConverter<Object>("hello");
+    child.setNext(new LiteralConverter<Object>("world"));
+    cc.setChildConverter(child);
+    cc.setFormattingInfo(new FormatInfo(Integer.MIN_VALUE, 6, true, false));
+
+    StringBuilder sb = new StringBuilder(PREFIX);
+    cc.write(sb, null);
+    assertEquals(PREFIX + "hellow", sb.toString());
+  }
+
+  @Test
+  public void stringBufferWriteIsHonored() {
+    Converter<Object> c = new Converter<Object>() {
+      public String convert(Object event) {
+        return "abc";
+      }
+
+      public void write(StringBuffer buf, Object event) {
+        buf.append('[').append(convert(event)).append(']');
+      }
+    };
+    StringBuilder sb = new StringBuilder(PREFIX);
+    c.write(sb, null);
+    assertEquals(PREFIX + "[abc]", sb.toString());
+  }
+}
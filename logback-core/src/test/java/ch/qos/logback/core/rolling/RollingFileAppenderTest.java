@@ -18,6 +18,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +34,7 @@ import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.StatusChecker;
 import ch.qos.logback.core.status.StatusManager;
 import ch.qos.logback.core.util.CoreTestConstants;
+import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.util.StatusPrinter;
 
 public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
@@ -133,4 +137,42 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
     statusChecker.containsMatch(Status.ERROR,
         "File property must be set before any triggeringPolicy ");
   }
+
+  @Test
+  public void rolloverDoesNotWaitForBackgroundWork() throws Exception {
+    String dir = CoreTestConstants.OUTPUT_DIR_PREFIX
+        + RandomUtil.getPositiveInt() + "/";
+    rfa.setContext(context);
+    rfa.setFile(dir + "active.log");
+    FixedWindowRollingPolicy fwrp = new FixedWindowRollingPolicy();
+    fwrp.setContext(context);
+    fwrp.setFileNamePattern(dir + "archive.%i.log");
+    fwrp.setParent(rfa);
+    fwrp.start();
+    rfa.setRollingPolicy(fwrp);
+    rfa.setTriggeringPolicy(new SizeBasedTriggeringPolicy<Object>("10mb"));
+    rfa.start();
+    rfa.doAppend("a");
+
+    // block the background thread
+    final CountDownLatch latch = new CountDownLatch(1);
+    fwrp.runInBackground(new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+        }
+      }
+    });
+
+    rfa.rollover();
+    rfa.doAppend("b");
+    assertFalse(new File(dir + "archive.1.log").exists());
+
+    latch.countDown();
+    rfa.stop();
+    assertTrue(new File(dir + "active.log").exists());
+    assertEquals(DummyLayout.DUMMY.length(), new File(dir + "archive.1.log")
+        .length());
+  }
 }
@@ -13,9 +13,17 @@
  */
 package ch.qos.logback.core.rolling;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -23,9 +31,11 @@ import org.junit.Test;
 
 import ch.qos.logback.core.Context;
 import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.Layout;
 import ch.qos.logback.core.layout.DummyLayout;
 import ch.qos.logback.core.layout.EchoLayout;
+import ch.qos.logback.core.testUtil.FileToBufferUtil;
 import ch.qos.logback.core.util.CoreTestConstants;
 
 /**
@@ -128,6 +138,8 @@ public class SizeBasedRollingTest extends ScaffoldingForRollingTests {
       Thread.sleep(10);
       rfa.doAppend(prefix+i);
     }
+    // wait for the background part of the last rollover
+    rfa.stop();
 
     expectedFilenameList.add(randomOutputDir        + "a-sizeBased-smoke.log");
     expectedFilenameList.add(randomOutputDir + "sizeBased-smoke.0");
@@ -171,6 +183,8 @@ public class SizeBasedRollingTest extends ScaffoldingForRollingTests {
       Thread.sleep(10);
       rfa.doAppend("hello"+i);
     }
+    // wait for the background part of the last rollover
+    rfa.stop();
 
     expectedFilenameList.add(randomOutputDir        + "a-sbr-test3.log");
     expectedFilenameList.add(randomOutputDir        + "sbr-test3.0.gz");
@@ -181,4 +195,124 @@ public class SizeBasedRollingTest extends ScaffoldingForRollingTests {
   
   }
 
+
+  /**
+   * Without the 16 events granularity, every archive reaches the maximum size
+   * by less than one event.
+   */
+  @Test
+  public void exactSize() throws Exception {
+    Context context = new ContextBase();
+    RollingFileAppender<Object> rfa = new RollingFileAppender<Object>();
+    rfa.setLayout(new EchoLayout<Object>());
+    rfa.setContext(context);
+    rfa.setFile(randomOutputDir + "a-exact.log");
+
+    FixedWindowRollingPolicy fwrp = new FixedWindowRollingPolicy();
+    fwrp.setContext(context);
+    SizeBasedTriggeringPolicy<Object> sbtp = new SizeBasedTriggeringPolicy<Object>();
+    sbtp.setContext(context);
+    sbtp.setMaxFileSize("100");
+    fwrp.setMinIndex(0);
+    fwrp.setMaxIndex(9);
+    fwrp.setFileNamePattern(randomOutputDir + "exact.%i");
+    fwrp.setParent(rfa);
+    fwrp.start();
+    rfa.setRollingPolicy(fwrp);
+    rfa.setTriggeringPolicy(sbtp);
+    rfa.start();
+
+    String msg = "0123456789";
+    int eventLength = (msg + CoreConstants.LINE_SEPARATOR).length();
+    for (int i = 0; i < 50; i++) {
+      rfa.doAppend(msg);
+    }
+    rfa.stop();
+
+    int archiveCount = 0;
+    for (int i = 0; i <= 9; i++) {
+      File archive = new File(randomOutputDir + "exact." + i);
+      if (archive.exists()) {
+        archiveCount++;
+        long length = archive.length();
+        assertTrue("length=" + length, length >= 100
+            && length < 100 + eventLength);
+      }
+    }
+    int eventsPerFile = (100 + eventLength - 1) / eventLength;
+    assertEquals(50 / eventsPerFile - (50 % eventsPerFile == 0 ? 1 : 0),
+        archiveCount);
+  }
+
+  /**
+   * The first appender is abandoned, as if the JVM had exited, while the
+   * background part of its rollover is pending. The rollover is completed when
+   * a second appender is started on the same files.
+   */
+  @Test
+  public void pendingRolloverCompletedOnRestart() throws Exception {
+    String fileName = randomOutputDir + "a-pending.log";
+    String pattern = randomOutputDir + "pending.%i.gz";
+    RollingFileAppender<Object> rfa1 = buildFixedWindowAppender(fileName,
+        pattern);
+    FixedWindowRollingPolicy fwrp1 = (FixedWindowRollingPolicy) rfa1
+        .getRollingPolicy();
+
+    // hold the background thread, so that the rollover is left pending
+    final CountDownLatch latch = new CountDownLatch(1);
+    fwrp1.runInBackground(new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+        }
+      }
+    });
+    rfa1.doAppend("hello0");
+    rfa1.rollover();
+    rfa1.doAppend("hello1");
+    existenceCheck(randomOutputDir + "pending.1" + RollingPolicyBase.TMP_SUFFIX);
+
+    RollingFileAppender<Object> rfa2 = buildFixedWindowAppender(fileName,
+        pattern);
+    FixedWindowRollingPolicy fwrp2 = (FixedWindowRollingPolicy) rfa2
+        .getRollingPolicy();
+    fwrp2.future.get(1000, TimeUnit.MILLISECONDS);
+
+    try {
+      assertFalse(new File(randomOutputDir + "pending.1"
+          + RollingPolicyBase.TMP_SUFFIX).exists());
+      List<String> lines = new ArrayList<String>();
+      FileToBufferUtil.readIntoList(new File(randomOutputDir
+          + "pending.1.gz"), lines);
+      assertEquals(Collections.singletonList("hello0"), lines);
+    } finally {
+      latch.countDown();
+      rfa1.stop();
+      rfa2.stop();
+    }
+  }
+
+  RollingFileAppender<Object> buildFixedWindowAppender(String fileName,
+      String pattern) {
+    RollingFileAppender<Object> rfa = new RollingFileAppender<Object>();
+    rfa.setLayout(new EchoLayout<Object>());
+    rfa.setContext(context);
+    rfa.setFile(fileName);
+
+    FixedWindowRollingPolicy fwrp = new FixedWindowRollingPolicy();
+    fwrp.setContext(context);
+    SizeBasedTriggeringPolicy<Object> sbtp = new SizeBasedTriggeringPolicy<Object>();
+    sbtp.setContext(context);
+    // rollovers are triggered explicitly
+    sbtp.setMaxFileSize("1MB");
+    sbtp.start();
+    fwrp.setFileNamePattern(pattern);
+    fwrp.setParent(rfa);
+    fwrp.start();
+    rfa.setRollingPolicy(fwrp);
+    rfa.setTriggeringPolicy(sbtp);
+    rfa.start();
+    return rfa;
+  }
 }
@@ -0,0 +1,141 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling;
+
+import java.io.File;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.layout.DummyLayout;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+/**
+ * Appends 1 KB events at a steady rate of 200k events per second to a
+ * {@link RollingFileAppender} with a size based triggering policy, once with
+ * the file length tracked by the appender and once with the length obtained
+ * from the file system, as a custom policy would. Prints the average time
+ * spent per event, the achieved rate and by how much archives overshoot the
+ * maximum file size.
+ * 
+ * <p>Usage: SizeBasedTriggeringPerf [durationInSeconds]
+ */
+public class SizeBasedTriggeringPerf {
+
+  static final int EVENT_SIZE = 1024;
+  static final int EVENTS_PER_SECOND = 200 * 1000;
+  static final String MAX_FILE_SIZE = "10MB";
+  static final long MAX_FILE_SIZE_IN_BYTES = 10 * 1024 * 1024;
+  static final int MAX_INDEX = 12;
+
+  static int DURATION_IN_SECONDS = 5;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0) {
+      DURATION_IN_SECONDS = Integer.parseInt(args[0]);
+    }
+    // warm up
+    perfCase(true, 1);
+    perfCase(false, 1);
+
+    perfCase(true, DURATION_IN_SECONDS);
+    perfCase(false, DURATION_IN_SECONDS);
+  }
+
+  static void perfCase(boolean tracked, int durationInSeconds)
+      throws Exception {
+    String dir = CoreTestConstants.OUTPUT_DIR_PREFIX + "sbtp-perf-"
+        + RandomUtil.getPositiveInt() + "/";
+    Context context = new ContextBase();
+    RollingFileAppender<Object> rfa = new RollingFileAppender<Object>();
+    rfa.setContext(context);
+    rfa.setLayout(new DummyLayout<Object>(buildEvent()));
+    rfa.setFile(dir + "active.log");
+
+    FixedWindowRollingPolicy fwrp = new FixedWindowRollingPolicy();
+    fwrp.setContext(context);
+    fwrp.setFileNamePattern(dir + "archive.%i.log");
+    fwrp.setMinIndex(1);
+    fwrp.setMaxIndex(MAX_INDEX);
+    fwrp.setParent(rfa);
+    fwrp.start();
+
+    SizeBasedTriggeringPolicy<Object> sbtp = new SizeBasedTriggeringPolicy<Object>();
+    if (!tracked) {
+      sbtp = new FileSystemSizeBasedTriggeringPolicy<Object>();
+    }
+    sbtp.setContext(context);
+    sbtp.setMaxFileSize(MAX_FILE_SIZE);
+    sbtp.start();
+
+    rfa.setRollingPolicy(fwrp);
+    rfa.setTriggeringPolicy(sbtp);
+    rfa.start();
+
+    Object event = new Object();
+    long totalEvents = (long) EVENTS_PER_SECOND * durationInSeconds;
+    long nanosPerEvent = 1000L * 1000 * 1000 / EVENTS_PER_SECOND;
+    long timeInAppend = 0;
+    long start = System.nanoTime();
+    for (long i = 0; i < totalEvents; i++) {
+      // pace the events, busy waiting as the interval is only a few micros
+      long due = start + i * nanosPerEvent;
+      while (System.nanoTime() < due) {
+      }
+      long before = System.nanoTime();
+      rfa.doAppend(event);
+      timeInAppend += System.nanoTime() - before;
+    }
+    double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+    rfa.stop();
+
+    long maxOvershoot = 0;
+    int archiveCount = 0;
+    for (int i = 1; i <= MAX_INDEX; i++) {
+      File archive = new File(dir + "archive." + i + ".log");
+      if (archive.exists()) {
+        archiveCount++;
+        maxOvershoot = Math.max(maxOvershoot, archive.length()
+            - MAX_FILE_SIZE_IN_BYTES);
+      }
+    }
+
+    System.out.println((tracked ? "Tracked length:     " : "File system length: ")
+        + (timeInAppend / totalEvents) + " ns per event, "
+        + (long) (totalEvents / elapsedSeconds) + " events/s, "
+        + archiveCount + " archives, max overshoot " + maxOvershoot
+        + " bytes");
+  }
+
+  static String buildEvent() {
+    StringBuilder sb = new StringBuilder(EVENT_SIZE);
+    while (sb.length() < EVENT_SIZE - 1) {
+      sb.append((char) ('a' + sb.length() % 26));
+    }
+    sb.append('\n');
+    return sb.toString();
+  }
+
+  /**
+   * Obtains the length of the active file from the file system, every 16
+   * events.
+   */
+  static class FileSystemSizeBasedTriggeringPolicy<E> extends
+      SizeBasedTriggeringPolicy<E> {
+    @Override
+    public boolean isTriggeringEvent(File activeFile, E event) {
+      return super.isTriggeringEvent(new File(activeFile.getPath()), event);
+    }
+  }
+}
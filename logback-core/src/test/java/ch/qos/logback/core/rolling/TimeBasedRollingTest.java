@@ -13,14 +13,21 @@
  */
 package ch.qos.logback.core.rolling;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import ch.qos.logback.core.testUtil.FileToBufferUtil;
 import ch.qos.logback.core.util.Compare;
 import ch.qos.logback.core.util.CoreTestConstants;
 
@@ -369,4 +376,53 @@ public class TimeBasedRollingTest extends ScaffoldingForRollingTests {
     String fn = randomOutputDir + filenameSuffix;
     expectedFilenameList.add(fn);
   }
+  /**
+   * With compression, file option set, the first appender being abandoned, as
+   * if the JVM had exited, while the background part of its rollover is
+   * pending.
+   */
+  @Test
+  public void withCompression_FileSet_PendingRolloverCompletedOnRestart_7()
+      throws Exception {
+    String testId = "test7";
+    String pattern = randomOutputDir + testId + "-%d{"
+        + DATE_PATTERN_WITH_SECONDS + "}.gz";
+    initRFA(rfa1, testId2FileName(testId));
+    initTRBP(rfa1, tbrp1, pattern, currentTime);
+    waitForCompression(tbrp1);
+    String archiveName = randomOutputDir + testId + "-"
+        + SDF.format(getDateOfCurrentPeriodsStart());
+
+    // hold the background thread, so that the rollover is left pending
+    final CountDownLatch latch = new CountDownLatch(1);
+    tbrp1.runInBackground(new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+        }
+      }
+    });
+    rfa1.doAppend("Hello---0");
+    incCurrentTime(1100);
+    tbrp1.timeBasedTriggering.setCurrentTime(currentTime);
+    rfa1.doAppend("Hello---1");
+    existenceCheck(archiveName + RollingPolicyBase.TMP_SUFFIX);
+
+    initRFA(rfa2, testId2FileName(testId));
+    initTRBP(rfa2, tbrp2, pattern, currentTime);
+    waitForCompression(tbrp2);
+
+    try {
+      assertFalse(new File(archiveName + RollingPolicyBase.TMP_SUFFIX)
+          .exists());
+      List<String> lines = new ArrayList<String>();
+      FileToBufferUtil.readIntoList(new File(archiveName + ".gz"), lines);
+      assertEquals(Collections.singletonList("Hello---0"), lines);
+    } finally {
+      latch.countDown();
+      rfa1.stop();
+      rfa2.stop();
+    }
+  }
 }
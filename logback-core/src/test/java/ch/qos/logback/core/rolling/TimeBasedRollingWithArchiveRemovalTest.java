@@ -14,12 +14,16 @@
 package ch.qos.logback.core.rolling;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -36,8 +40,13 @@ import org.junit.Test;
 import ch.qos.logback.core.Context;
 import ch.qos.logback.core.ContextBase;
 import ch.qos.logback.core.layout.EchoLayout;
+import ch.qos.logback.core.rolling.helper.DefaultArchiveRemover;
+import ch.qos.logback.core.rolling.helper.FileFilterUtil;
+import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.rolling.helper.RollingCalendar;
 import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.util.CoreTestConstants;
+import ch.qos.logback.core.util.FileSize;
 
 public class TimeBasedRollingWithArchiveRemovalTest {
 
@@ -50,6 +59,8 @@ public class TimeBasedRollingWithArchiveRemovalTest {
   static final String DAILY_DATE_PATTERN = "yyyy-MM-dd";
   static final String DAILY_CROLOLOG_DATE_PATTERN = "yyyy/MM/dd";
 
+  static final int NO_MAX_HISTORY = 0;
+
   static final long MILLIS_IN_MINUTE = 60 * 1000;
   static final long MILLIS_IN_HOUR = 60 * MILLIS_IN_MINUTE;
   static final long MILLIS_IN_DAY = 24 * MILLIS_IN_HOUR;
@@ -59,6 +70,7 @@ public class TimeBasedRollingWithArchiveRemovalTest {
   protected String randomOutputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + diff
       + "/";
   int slashCount;
+  FileSize totalSizeCap;
 
   // by default tbfnatp is an instance of
   // DefaultTimeBasedFileNamingAndTriggeringPolicy
@@ -168,6 +180,77 @@ public class TimeBasedRollingWithArchiveRemovalTest {
     checkDirPatternCompliance(6);
   }
 
+  @Test
+  public void archivesLeftBehindAreRemoved() throws Exception {
+    slashCount = computeSlashCount(DAILY_DATE_PATTERN);
+    // archives from a run a few months ago
+    SimpleDateFormat sdf = new SimpleDateFormat(DAILY_DATE_PATTERN);
+    long now = System.currentTimeMillis();
+    new File(randomOutputDir).mkdirs();
+    for (int i = 100; i < 110; i++) {
+      Date date = new Date(now - i * MILLIS_IN_DAY);
+      File old = new File(randomOutputDir + "clean-" + sdf.format(date)
+          + ".txt");
+      FileOutputStream fos = new FileOutputStream(old);
+      fos.write("old".getBytes());
+      fos.close();
+    }
+    doRollover(randomOutputDir + "clean-%d{" + DAILY_DATE_PATTERN + "}.txt",
+        MILLIS_IN_DAY, 5, 5 * 3);
+    check(expectedCountWithoutFolders(5));
+  }
+
+  @Test
+  public void totalSizeCap() throws Exception {
+    slashCount = computeSlashCount(DAILY_DATE_PATTERN);
+    totalSizeCap = FileSize.valueOf("100kb");
+    doRollover(randomOutputDir + "clean-%d{" + DAILY_DATE_PATTERN + "}.txt",
+        MILLIS_IN_DAY, NO_MAX_HISTORY, 20);
+
+    File[] files = new File(randomOutputDir).listFiles();
+    assertTrue(files.length > 1);
+    // all files but the most recent one must fit within the cap
+    FileFilterUtil.sortFileArrayByName(files);
+    long size = 0;
+    for (int i = 0; i < files.length - 1; i++) {
+      size += files[i].length();
+    }
+    assertTrue("size=" + size, size <= totalSizeCap.getSize());
+  }
+
+  @Test
+  public void activeFileIsNotCountedAsAnArchive() throws Exception {
+    String pattern = randomOutputDir + "clean-%d{" + DAILY_DATE_PATTERN
+        + "}.txt";
+    FileNamePattern fileNamePattern = new FileNamePattern(pattern, context);
+    RollingCalendar rc = new RollingCalendar();
+    rc.init(DAILY_DATE_PATTERN);
+    new File(randomOutputDir).mkdirs();
+    Date now = new Date();
+    List<File> files = new ArrayList<File>();
+    for (int i = 2; i >= 0; i--) {
+      File file = new File(fileNamePattern.convert(new Date(now.getTime() - i
+          * MILLIS_IN_DAY)));
+      FileOutputStream fos = new FileOutputStream(file);
+      fos.write("0123456789".getBytes());
+      fos.close();
+      files.add(file);
+    }
+
+    DefaultArchiveRemover remover = new DefaultArchiveRemover(
+        fileNamePattern, rc);
+    remover.setContext(context);
+    // no file name is set, so the active file matches the pattern
+    remover.setActiveFileName(files.get(2).getPath());
+    remover.setTotalSizeCap(10);
+    remover.clean(now);
+
+    assertFalse(files.get(0).exists());
+    // the most recent archive is kept, and so is the active file
+    assertTrue(files.get(1).exists());
+    assertTrue(files.get(2).exists());
+  }
+
   void doRollover(String fileNamePattern, long periodDurationInMillis,
       int maxHistory, int simulatedNumberOfPeriods) throws Exception {
     long currentTime = System.currentTimeMillis();
@@ -181,6 +264,9 @@ public class TimeBasedRollingWithArchiveRemovalTest {
     tbrp.setFileNamePattern(fileNamePattern);
 
     tbrp.setMaxHistory(maxHistory);
+    if (totalSizeCap != null) {
+      tbrp.setTotalSizeCap(totalSizeCap);
+    }
     tbrp.setParent(rfa);
     tbrp.timeBasedTriggering = tbfnatp;
     tbrp.timeBasedTriggering.setCurrentTime(currentTime);
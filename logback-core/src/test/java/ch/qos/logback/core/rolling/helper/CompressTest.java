@@ -13,6 +13,9 @@
  */
 package ch.qos.logback.core.rolling.helper;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -21,6 +24,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -125,6 +134,97 @@ public class CompressTest {
     // + "witness/compress3.txt.zip"));
   }
 
+  @Test
+  public void parallelGZ() throws Exception {
+    File source = new File(CoreTestConstants.TEST_DIR_PREFIX
+        + "input/compress1.copy");
+    String input = CoreTestConstants.OUTPUT_DIR_PREFIX + "compress4.txt";
+    String output = CoreTestConstants.OUTPUT_DIR_PREFIX + "compress4.txt.gz";
+    copy(source, new File(input));
+    new File(output).delete();
+
+    Compressor compressor = new Compressor(CompressionMode.PARALLEL_GZ);
+    compressor.setContext(context);
+    compressor.setCompressionLevel(9);
+    // cut the 293 byte file into several gzip members
+    compressor.setBlockSize(50);
+    compressor.compress(input, output);
+
+    StatusChecker checker = new StatusChecker(context);
+    assertTrue(checker.isErrorFree());
+    assertFalse(new File(input).exists());
+    assertTrue(Compare.gzCompare(output, CoreTestConstants.TEST_DIR_PREFIX
+        + "witness/compress1.txt.gz"));
+  }
+
+  @Test
+  public void parallelGZWithShutDownExecutor() throws Exception {
+    File source = new File(CoreTestConstants.TEST_DIR_PREFIX
+        + "input/compress1.copy");
+    String input = CoreTestConstants.OUTPUT_DIR_PREFIX + "compress5.txt";
+    String output = CoreTestConstants.OUTPUT_DIR_PREFIX + "compress5.txt.gz";
+    copy(source, new File(input));
+    new File(output).delete();
+
+    Compressor compressor = new Compressor(CompressionMode.PARALLEL_GZ);
+    compressor.setContext(context);
+    compressor.setCompressionLevel(9);
+    compressor.setBlockSize(50);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    compressor.setExecutor(executor);
+    compressor.compress(input, output);
+
+    // the blocks are compressed by the calling thread
+    StatusChecker checker = new StatusChecker(context);
+    assertTrue(checker.isErrorFree());
+    assertFalse(new File(input).exists());
+    assertTrue(Compare.gzCompare(output, CoreTestConstants.TEST_DIR_PREFIX
+        + "witness/compress1.txt.gz"));
+  }
+
+  @Test
+  public void failedCompressionLeavesNoPartialOutput() throws Exception {
+    File source = new File(CoreTestConstants.TEST_DIR_PREFIX
+        + "input/compress1.copy");
+    String input = CoreTestConstants.OUTPUT_DIR_PREFIX + "compress6.txt";
+    String output = CoreTestConstants.OUTPUT_DIR_PREFIX + "compress6.txt.gz";
+    copy(source, new File(input));
+    new File(output).delete();
+
+    Compressor compressor = new Compressor(CompressionMode.PARALLEL_GZ);
+    compressor.setContext(context);
+    compressor.setBlockSize(50);
+    // an executor failing every block after the first
+    compressor.setExecutor(new ThreadPoolExecutor(1, 1, 0L,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>()) {
+      int count = 0;
+
+      @Override
+      public void execute(Runnable command) {
+        if (count++ > 0) {
+          ((Future<?>) command).cancel(false);
+        }
+      }
+    });
+    compressor.compress(input, output);
+
+    StatusChecker checker = new StatusChecker(context);
+    assertFalse(checker.isErrorFree());
+    assertFalse(new File(output).exists());
+    assertTrue(new File(input).exists());
+  }
+
+  @Test
+  public void compressionExecutorIsSharedAndShutDownOnReset() {
+    ContextBase contextBase = new ContextBase();
+    ExecutorService executor = CompressionExecutor.getInstance(contextBase);
+    assertSame(executor, CompressionExecutor.getInstance(contextBase));
+    contextBase.reset();
+    assertTrue(executor.isShutdown());
+    assertNotSame(executor, CompressionExecutor.getInstance(contextBase));
+  }
+
   private void copy(File src, File dst) throws IOException {
     InputStream in = new FileInputStream(src);
     OutputStream out = new FileOutputStream(dst);
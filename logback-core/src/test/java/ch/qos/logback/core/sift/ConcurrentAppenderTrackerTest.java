@@ -0,0 +1,130 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.sift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.appender.NOPAppender;
+import ch.qos.logback.core.read.ListAppender;
+
+public class ConcurrentAppenderTrackerTest {
+
+  Context context = new ContextBase();
+  ConcurrentAppenderTracker<Object> tracker = new ConcurrentAppenderTracker<Object>();
+
+  ListAppender<Object> buildAppender() {
+    ListAppender<Object> la = new ListAppender<Object>();
+    la.setContext(context);
+    la.start();
+    return la;
+  }
+
+  void waitUntilStopped(Appender<Object> appender) throws InterruptedException {
+    for (int i = 0; i < 100 && appender.isStarted(); i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void staleAppenderIsRemovedAndStopped() throws InterruptedException {
+    ListAppender<Object> la = buildAppender();
+    long now = 3000;
+    tracker.put("a", la, now);
+    assertSame(la, tracker.get("a", now++));
+    now += AppenderTracker.THRESHOLD + 1000;
+    tracker.stopStaleAppenders(now);
+    assertNull(tracker.get("a", now++));
+    waitUntilStopped(la);
+    assertFalse(la.isStarted());
+  }
+
+  @Test
+  public void putDoesNotReplaceExistingAppender() {
+    ListAppender<Object> la0 = buildAppender();
+    ListAppender<Object> la1 = buildAppender();
+    tracker.put("a", la0, 1);
+    tracker.put("a", la1, 2);
+    assertSame(la0, tracker.get("a", 3));
+  }
+
+  @Test
+  public void keysAreListedLeastRecentlyUsedFirst() {
+    tracker.put("a", buildAppender(), 1);
+    tracker.put("b", buildAppender(), 2);
+    tracker.put("c", buildAppender(), 3);
+    tracker.get("a", 4);
+    List<String> witness = new ArrayList<String>();
+    witness.add("b");
+    witness.add("c");
+    witness.add("a");
+    assertEquals(witness, tracker.keyList());
+  }
+
+  @Test
+  public void leastRecentlyUsedAppendersAreEvicted() throws InterruptedException {
+    tracker.setMaxAppenderCount(16);
+    List<ListAppender<Object>> appenders = new ArrayList<ListAppender<Object>>();
+    for (int i = 0; i < 17; i++) {
+      ListAppender<Object> la = buildAppender();
+      appenders.add(la);
+      tracker.put("k" + i, la, i);
+    }
+    // 16 - 16/16 appenders remain
+    assertEquals(15, tracker.keyList().size());
+    assertNull(tracker.get("k0", 100));
+    assertNull(tracker.get("k1", 100));
+    assertSame(appenders.get(16), tracker.get("k16", 100));
+    waitUntilStopped(appenders.get(1));
+    assertFalse(appenders.get(0).isStarted());
+    assertFalse(appenders.get(1).isStarted());
+    assertTrue(appenders.get(2).isStarted());
+  }
+
+  @Test
+  public void sameKeysAsReferenceImplementation() {
+    AppenderTrackerImpl<Object> witness = new AppenderTrackerImpl<Object>();
+    Random random = new Random(100);
+    long timestamp = 30000;
+    for (int i = 0; i < 20000; i++) {
+      String key = "k" + random.nextInt(100);
+      timestamp += random.nextInt(AppenderTracker.THRESHOLD / 2);
+      play(witness, key, timestamp);
+      play(tracker, key, timestamp);
+    }
+    assertEquals(new HashSet<String>(witness.keyList()), new HashSet<String>(
+        tracker.keyList()));
+  }
+
+  void play(AppenderTracker<Object> appenderTracker, String key, long timestamp) {
+    Appender<Object> appender = appenderTracker.get(key, timestamp);
+    if (appender == null) {
+      appenderTracker.put(key, new NOPAppender<Object>(), timestamp);
+    }
+    appenderTracker.stopStaleAppenders(timestamp);
+  }
+}
@@ -18,6 +18,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ScenarioBasedAppenderTrackerTest.class})
+@SuiteClasses({ScenarioBasedAppenderTrackerTest.class,
+    ConcurrentAppenderTrackerTest.class})
 public class PackageTest  {
 }
\ No newline at end of file
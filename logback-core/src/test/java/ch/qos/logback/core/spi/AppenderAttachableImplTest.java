@@ -173,6 +173,28 @@ public class AppenderAttachableImplTest {
     assertFalse( aai.detachAppender("test1"));
   }
 
+  @Test
+  public void appenderArrayIsASnapshot() throws Exception {
+    NOPAppender<TestEvent> ta = new NOPAppender<TestEvent>();
+    ta.setName("test1");
+    ta.start();
+    aai.addAppender(ta);
+    NOPAppender<TestEvent> tab = new NOPAppender<TestEvent>();
+    tab.setName("test2");
+    tab.start();
+    aai.addAppender(tab);
+    // adding the same appender twice has no effect
+    aai.addAppender(tab);
+
+    Appender<TestEvent>[] snapshot = aai.getAppenderArray();
+    assertEquals(2, snapshot.length);
+    assertTrue(aai.detachAppender(ta));
+    assertEquals(2, snapshot.length);
+    assertSame(ta, snapshot[0]);
+    assertEquals(1, aai.getAppenderArray().length);
+    assertSame(tab, aai.getAppenderArray()[0]);
+  }
+
   private static class TestEvent {
 
   }
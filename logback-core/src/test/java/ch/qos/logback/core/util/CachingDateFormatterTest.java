@@ -0,0 +1,89 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import ch.qos.logback.core.CoreConstants;
+
+public class CachingDateFormatterTest {
+
+  Random random = new Random(1234);
+
+  void verify(String pattern, TimeZone tz) {
+    SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+    if (tz != null) {
+      sdf.setTimeZone(tz);
+    }
+    CachingDateFormatter cdf = new CachingDateFormatter(pattern, tz);
+
+    long now = System.currentTimeMillis();
+    long t = now;
+    for (int i = 0; i < 5000; i++) {
+      // mostly small steps, hitting the caches, with occasional jumps
+      if (i % 100 == 0) {
+        t = now + random.nextInt() * 1000L;
+      } else {
+        t += random.nextInt(300);
+      }
+      String expected = sdf.format(new Date(t));
+      assertEquals(expected, cdf.format(t));
+      StringBuilder buf = new StringBuilder("x");
+      cdf.format(t, buf);
+      assertEquals("x" + expected, buf.toString());
+    }
+  }
+
+  @Test
+  public void patchMode() {
+    assertEquals(CachingDateFormatter.PATCH_MODE, CachingDateFormatter
+        .computeMode(CoreConstants.ISO8601_PATTERN));
+    verify(CoreConstants.ISO8601_PATTERN, null);
+    verify("EEEE MMMM d H:m:s.SSS a", null);
+    verify("HH:mm:ss.SSS", TimeZone.getTimeZone("Asia/Kolkata"));
+  }
+
+  @Test
+  public void secondMode() {
+    assertEquals(CachingDateFormatter.SECOND_MODE, CachingDateFormatter
+        .computeMode("HH:mm:ss 'SSS'"));
+    verify("HH:mm:ss 'SSS'", null);
+    verify(CoreConstants.CLF_DATE_PATTERN, TimeZone.getTimeZone("GMT"));
+  }
+
+  @Test
+  public void exactMode() {
+    assertEquals(CachingDateFormatter.EXACT_MODE, CachingDateFormatter
+        .computeMode("ss.S"));
+    verify("ss.S", null);
+    verify("SSS ss SSS", null);
+  }
+
+  @Test
+  public void before1970() {
+    CachingDateFormatter cdf = new CachingDateFormatter(
+        CoreConstants.ISO8601_PATTERN, TimeZone.getTimeZone("GMT"));
+    SimpleDateFormat sdf = new SimpleDateFormat(CoreConstants.ISO8601_PATTERN);
+    sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+    long t = -1001;
+    assertEquals(sdf.format(new Date(t)), cdf.format(t));
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2009, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MappedFileOutputStreamTest {
+
+  int diff = new Random().nextInt(1000);
+  File file = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "mfos" + diff
+      + ".bin");
+
+  @After
+  public void tearDown() {
+    file.delete();
+    new File(file.getPath() + MappedFileOutputStream.LENGTH_FILE_SUFFIX)
+        .delete();
+  }
+
+  @Test
+  public void writeAcrossRegions() throws IOException {
+    file.getParentFile().mkdirs();
+    byte[] data = new byte[1000];
+    new Random().nextBytes(data);
+    data[data.length - 1] = 'x';
+
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, false, 64);
+    mfos.write(data, 0, 10);
+    mfos.write(data[10]);
+    mfos.write(data, 11, data.length - 11);
+    assertEquals(data.length, mfos.getPosition());
+    mfos.close();
+
+    assertEquals(data.length, file.length());
+    byte[] back = new byte[data.length];
+    FileInputStream fis = new FileInputStream(file);
+    assertEquals(data.length, fis.read(back));
+    fis.close();
+    assertEquals(new String(data, "ISO-8859-1"), new String(back, "ISO-8859-1"));
+  }
+
+  @Test
+  public void trimZerosLeftByUncleanShutdown() throws IOException {
+    file.getParentFile().mkdirs();
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, false, 128);
+    // data may legitimately end with zeros
+    mfos.write("hello\0".getBytes());
+    abandon(mfos);
+    assertEquals(128, file.length());
+
+    mfos = new MappedFileOutputStream(file, true, 128);
+    assertEquals(6, mfos.getPosition());
+    mfos.write(" world".getBytes());
+    mfos.close();
+    assertEquals(12, file.length());
+    assertEquals("hello\0 world", read(file, "ISO-8859-1"));
+    assertFalse(mfos.lengthFile.exists());
+  }
+
+  @Test
+  public void appendToUTF16LEFile() throws IOException {
+    file.getParentFile().mkdirs();
+    // in UTF-16LE, ASCII characters end with a zero byte
+    FileOutputStream fos = new FileOutputStream(file);
+    fos.write("ab".getBytes("UTF-16LE"));
+    fos.close();
+
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, true, 128);
+    assertEquals(4, mfos.getPosition());
+    mfos.write("c".getBytes("UTF-16LE"));
+    mfos.close();
+    assertEquals("abc", read(file, "UTF-16LE"));
+  }
+
+  @Test
+  public void fileChangedAfterUncleanShutdownIsNotTrimmed() throws IOException {
+    file.getParentFile().mkdirs();
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, false, 128);
+    mfos.write("hello".getBytes());
+    abandon(mfos);
+    // another writer appends after the zeros
+    FileOutputStream fos = new FileOutputStream(file, true);
+    fos.write("x".getBytes());
+    fos.close();
+
+    mfos = new MappedFileOutputStream(file, true, 128);
+    assertEquals(129, mfos.getPosition());
+    mfos.close();
+    assertEquals(129, file.length());
+  }
+
+  // release the stream's resources the way a dying JVM would, without
+  // truncating the file
+  void abandon(MappedFileOutputStream mfos) throws IOException {
+    MappedFileOutputStream.unmap(mfos.region);
+    MappedFileOutputStream.unmap(mfos.lengthRegion);
+    mfos.raf.close();
+    mfos.lengthRaf.close();
+  }
+
+  String read(File file, String charsetName) throws IOException {
+    byte[] bytes = new byte[(int) file.length()];
+    FileInputStream fis = new FileInputStream(file);
+    try {
+      int off = 0;
+      while (off < bytes.length) {
+        off += fis.read(bytes, off, bytes.length - off);
+      }
+    } finally {
+      fis.close();
+    }
+    return new String(bytes, charsetName);
+  }
+}
@@ -22,9 +22,11 @@ import org.junit.runners.Suite.SuiteClasses;
   DurationTest.class,
   FileSizeTest.class,
   FileUtilTest.class,
+  MappedFileOutputStreamTest.class,
   OptionHelperTest.class,
   StatusPrinterTest.class,
   TimeUtilTest.class,
-  ContentTypeUtilTest.class})
+  ContentTypeUtilTest.class,
+  CachingDateFormatterTest.class})
 public class PackageTest {
 }